@@ -16,6 +16,13 @@ import org.apache.ambari.eventdb.model.Workflows;
 import org.apache.ambari.eventdb.model.Workflows.WorkflowDBEntry.WorkflowFields;
 
 public interface DBConnector {
+	/**
+	 * Receives the times of task attempts as they are read from the database.
+	 */
+	public static interface TaskTimesHandler {
+		public void handle(String taskType, long startTime, long shuffleFinishTime, long finishTime);
+	}
+	
 	public void submitJob(JobDBEntry j, WorkflowContext context) throws IOException;
 	
 	public void updateJob(JobDBEntry j) throws IOException;
@@ -39,5 +46,11 @@ public interface DBConnector {
 	
 	public List<TaskAttempt> fetchTaskAttempts(long minFinishTime, long maxStartTime) throws IOException;
 	
+	public void fetchJobTaskTimes(String jobID, TaskTimesHandler handler) throws IOException;
+	
+	public void fetchWorkflowTaskTimes(String workflowID, TaskTimesHandler handler) throws IOException;
+	
+	public void fetchTaskTimes(long minFinishTime, long maxStartTime, TaskTimesHandler handler) throws IOException;
+	
 	public void close();
 }
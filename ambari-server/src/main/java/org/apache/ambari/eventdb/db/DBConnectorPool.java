@@ -0,0 +1,258 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.eventdb.db;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Pool of open connectors. A connector keeps its connection and its prepared statements while idle, so a borrowed connector neither connects nor prepares the statements it already used. The
+ * number of connectors in use is bounded; a borrower waits for a free connector up to the configured time. Closing a pooled connector returns it to the pool.
+ */
+public class DBConnectorPool {
+	private static Log LOG = LogFactory.getLog(DBConnectorPool.class);
+	
+	/**
+	 * Idle time in milliseconds after which a connection is validated before it is handed out again.
+	 */
+	private static final long VALIDATION_INTERVAL = 30000L;
+	
+	/**
+	 * Time in seconds a connection validation may take.
+	 */
+	private static final int VALIDATION_TIMEOUT = 5;
+	
+	private final String connectionURL;
+	private final String driverName;
+	private final String username;
+	private final String password;
+	private final long maxWait;
+	private final long maxIdle;
+	
+	/**
+	 * Permits of the connectors that may be in use.
+	 */
+	private final Semaphore permits;
+	
+	/**
+	 * The idle connectors, most recently used first.
+	 */
+	private final LinkedBlockingDeque<PostgresConnector> idleConnectors = new LinkedBlockingDeque<PostgresConnector>();
+	
+	private final AtomicLong activeCount = new AtomicLong();
+	private final AtomicLong createdCount = new AtomicLong();
+	private final AtomicLong borrowedCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+	private final AtomicLong waitTime = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	
+	/**
+	 * Create a pool.
+	 * 
+	 * @param connectionURL the database url
+	 * @param driverName the JDBC driver class name
+	 * @param username the database user
+	 * @param password the database password
+	 * @param maxConnections the maximum number of connectors in use at the same time
+	 * @param maxWait the time in milliseconds a borrower waits for a free connector
+	 * @param maxIdle the time in milliseconds after which an idle connector is closed
+	 */
+	public DBConnectorPool(String connectionURL, String driverName, String username, String password, int maxConnections, long maxWait, long maxIdle) {
+		this.connectionURL = connectionURL;
+		this.driverName = driverName;
+		this.username = username;
+		this.password = password;
+		this.maxWait = maxWait;
+		this.maxIdle = maxIdle;
+		this.permits = new Semaphore(Math.max(1, maxConnections), true);
+	}
+	
+	/**
+	 * Borrow a connector. The connector must be closed once done to return it to the pool.
+	 * 
+	 * @return the connector
+	 * @throws IOException if no connector became free in time or the connection could not be opened
+	 */
+	public PostgresConnector borrow() throws IOException {
+		acquire();
+		try {
+			PostgresConnector connector;
+			while ((connector = idleConnectors.pollFirst()) != null) {
+				if (isUsable(connector)) {
+					break;
+				}
+				discard(connector);
+			}
+			if (connector == null) {
+				connector = createConnector();
+				connector.setPool(this);
+				createdCount.incrementAndGet();
+			}
+			connector.setBorrowed(true);
+			activeCount.incrementAndGet();
+			borrowedCount.incrementAndGet();
+			return connector;
+		} catch (IOException e) {
+			permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Return a borrowed connector to the pool.
+	 * 
+	 * @param connector the connector
+	 */
+	void release(PostgresConnector connector) {
+		connector.setBorrowed(false);
+		activeCount.decrementAndGet();
+		try {
+			if (connector.isOpen()) {
+				connector.setLastUsed(System.currentTimeMillis());
+				idleConnectors.offerFirst(connector);
+			} else {
+				discard(connector);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+	
+	/**
+	 * Close the idle connectors. Connectors in use are closed when they are returned after their idle time elapsed.
+	 */
+	public void close() {
+		PostgresConnector connector;
+		while ((connector = idleConnectors.pollFirst()) != null) {
+			discard(connector);
+		}
+	}
+	
+	/**
+	 * Create a connector for the configured database.
+	 * 
+	 * @return the connector
+	 * @throws IOException if the connection could not be opened
+	 */
+	protected PostgresConnector createConnector() throws IOException {
+		if (StringUtils.contains(driverName, "oracle")) {
+			return new OracleConnector(connectionURL, driverName, username, password);
+		} else if (StringUtils.contains(driverName, "mysql")) {
+			return new MySQLConnector(connectionURL, driverName, username, password);
+		} else {
+			return new PostgresConnector(connectionURL, driverName, username, password);
+		}
+	}
+	
+	private void acquire() throws IOException {
+		if (permits.tryAcquire()) { return; }
+		
+		long start = System.currentTimeMillis();
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a database connection");
+		}
+		long waited = System.currentTimeMillis() - start;
+		waitCount.incrementAndGet();
+		waitTime.addAndGet(waited);
+		if (!acquired) {
+			timeoutCount.incrementAndGet();
+			throw new IOException("Timed out after " + waited + " ms waiting for a database connection, " + this);
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Waited " + waited + " ms for a database connection, " + this);
+		}
+	}
+	
+	private boolean isUsable(PostgresConnector connector) {
+		long idleTime = System.currentTimeMillis() - connector.getLastUsed();
+		if (idleTime > maxIdle) { return false; }
+		return idleTime <= VALIDATION_INTERVAL || connector.isValid(VALIDATION_TIMEOUT);
+	}
+	
+	private void discard(PostgresConnector connector) {
+		discardedCount.incrementAndGet();
+		connector.closeConnection();
+	}
+	
+	// ----- pool metrics ------------------------------------------------------
+	
+	/**
+	 * @return the number of connectors in use
+	 */
+	public long getActiveCount() {
+		return activeCount.get();
+	}
+	
+	/**
+	 * @return the number of idle connectors
+	 */
+	public int getIdleCount() {
+		return idleConnectors.size();
+	}
+	
+	/**
+	 * @return the number of connections opened
+	 */
+	public long getCreatedCount() {
+		return createdCount.get();
+	}
+	
+	/**
+	 * @return the number of times a connector was borrowed
+	 */
+	public long getBorrowedCount() {
+		return borrowedCount.get();
+	}
+	
+	/**
+	 * @return the number of connections closed because they were idle too long, invalid or closed
+	 */
+	public long getDiscardedCount() {
+		return discardedCount.get();
+	}
+	
+	/**
+	 * @return the number of times a borrower had to wait for a free connector
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+	
+	/**
+	 * @return the total time in milliseconds borrowers waited for a free connector
+	 */
+	public long getWaitTime() {
+		return waitTime.get();
+	}
+	
+	/**
+	 * @return the number of times a borrower gave up waiting for a free connector
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "pool[active=" + getActiveCount() + ", idle=" + getIdleCount() + ", created=" + getCreatedCount() + ", borrowed=" + getBorrowedCount() + ", discarded=" + getDiscardedCount() + ", waits=" + getWaitCount()
+				+ ", waitTime=" + getWaitTime() + "ms, timeouts=" + getTimeoutCount() + "]";
+	}
+}
@@ -9,7 +9,6 @@ import org.apache.ambari.eventdb.model.Workflows;
 
 import java.io.IOException;
 import java.sql.PreparedStatement;
-import java.sql.SQLException;
 
 public class OracleConnector extends PostgresConnector {
 	
@@ -27,12 +26,7 @@ public class OracleConnector extends PostgresConnector {
 		// "/*+ FIRST_ROWS(n) */ \n" +
 				"  a.*, ROWNUM rnum \n" + "      from (" + statement.getStatementString() + searchClause + order + ") a \n" + "      where ROWNUM <= " + (offset + limit) + ") \n" + "where rnum  >= " + offset;
 		
-		try {
-			return db.prepareStatement(query);
-		} catch (SQLException e) {
-			throw new IOException(e);
-		}
-		
+		return prepareStatement(query);
 	}
 	
 }
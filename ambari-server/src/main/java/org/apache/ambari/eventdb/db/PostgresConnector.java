@@ -13,6 +13,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,7 @@ public class PostgresConnector implements DBConnector {
 	public static final String SORT_ASC = "ASC";
 	public static final String SORT_DESC = "DESC";
 	protected static final int DEFAULT_LIMIT = 10;
+	private static final int MAX_QUALIFIED_STATEMENTS = 16;
 	
 	private static final ObjectMapper jsonMapper = new ObjectMapper();
 	
@@ -59,7 +61,10 @@ public class PostgresConnector implements DBConnector {
 				+ JobFields.JOBID + " = ?"), FJTA_PS("SELECT " + TaskAttempt.TASK_ATTEMPT_FIELDS + " FROM " + TASK_ATTEMPT_TABLE_NAME + " WHERE " + TaskAttemptFields.JOBID + " = ? ORDER BY " + TaskAttemptFields.STARTTIME), FWTA_PS("SELECT "
 				+ TaskAttemptFields.join(TASK_ATTEMPT_TABLE_NAME) + " FROM " + TASK_ATTEMPT_TABLE_NAME + ", " + JOB_TABLE_NAME + " WHERE " + TASK_ATTEMPT_TABLE_NAME + "." + TaskAttemptFields.JOBID + " = " + JOB_TABLE_NAME + "." + JobFields.JOBID + " AND " + JOB_TABLE_NAME + "."
 				+ JobFields.WORKFLOWID + " = ?" + " ORDER BY " + TaskAttemptFields.JOBID + "," + TaskAttemptFields.STARTTIME + ", " + TaskAttemptFields.FINISHTIME), FTA_TIMERANGE_PS("SELECT " + TaskAttempt.TASK_ATTEMPT_FIELDS + " FROM " + TASK_ATTEMPT_TABLE_NAME + " WHERE "
-				+ TaskAttemptFields.FINISHTIME + " >= ? AND " + TaskAttemptFields.STARTTIME + " <= ? AND (" + TaskAttemptFields.TASKTYPE + " = 'MAP' OR  " + TaskAttemptFields.TASKTYPE + " = 'REDUCE') ORDER BY " + TaskAttemptFields.STARTTIME);
+				+ TaskAttemptFields.FINISHTIME + " >= ? AND " + TaskAttemptFields.STARTTIME + " <= ? AND (" + TaskAttemptFields.TASKTYPE + " = 'MAP' OR  " + TaskAttemptFields.TASKTYPE + " = 'REDUCE') ORDER BY " + TaskAttemptFields.STARTTIME), FJTT_PS("SELECT "
+				+ getTaskTimeFields() + " FROM " + TASK_ATTEMPT_TABLE_NAME + " WHERE " + TaskAttemptFields.JOBID + " = ? AND " + getMapOrReduce()), FWTT_PS("SELECT " + getTaskTimeFields() + " FROM " + TASK_ATTEMPT_TABLE_NAME + ", " + JOB_TABLE_NAME + " WHERE "
+				+ TASK_ATTEMPT_TABLE_NAME + "." + TaskAttemptFields.JOBID + " = " + JOB_TABLE_NAME + "." + JobFields.JOBID + " AND " + JOB_TABLE_NAME + "." + JobFields.WORKFLOWID + " = ? AND " + getMapOrReduce()), FTT_TIMERANGE_PS("SELECT " + getTaskTimeFields() + " FROM "
+				+ TASK_ATTEMPT_TABLE_NAME + " WHERE " + TaskAttemptFields.FINISHTIME + " >= ? AND " + TaskAttemptFields.STARTTIME + " <= ? AND " + getMapOrReduce());
 		
 		private String statementString;
 		
@@ -74,10 +79,37 @@ public class PostgresConnector implements DBConnector {
 		private static String getAvg(WorkflowFields field, SummaryFields avg, SummaryFields min, SummaryFields max) {
 			return "avg(" + field + ") as " + avg + ", min(" + field + ") as " + min + ", max(" + field + ") as " + max;
 		}
+		
+		private static String getTaskTimeFields() {
+			return TaskAttemptFields.join(TASK_ATTEMPT_TABLE_NAME, TaskAttemptFields.TASKTYPE, TaskAttemptFields.STARTTIME, TaskAttemptFields.SHUFFLEFINISHTIME, TaskAttemptFields.FINISHTIME);
+		}
+		
+		private static String getMapOrReduce() {
+			return "(" + TASK_ATTEMPT_TABLE_NAME + "." + TaskAttemptFields.TASKTYPE + " = 'MAP' OR " + TASK_ATTEMPT_TABLE_NAME + "." + TaskAttemptFields.TASKTYPE + " = 'REDUCE')";
+		}
 	}
 	
 	private Map<Statements, PreparedStatement> preparedStatements = new EnumMap<Statements, PreparedStatement>(Statements.class);
 	
+	/**
+	 * The most recently used statements built from a search clause, keyed by query.
+	 */
+	private Map<String, PreparedStatement> qualifiedStatements = new LinkedHashMap<String, PreparedStatement>(MAX_QUALIFIED_STATEMENTS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() <= MAX_QUALIFIED_STATEMENTS) return false;
+			closeStatement(eldest.getValue());
+			return true;
+		}
+	};
+	
+	/**
+	 * The pool this connector is returned to when closed; null if not pooled.
+	 */
+	private DBConnectorPool pool;
+	private boolean borrowed;
+	private long lastUsed;
+	
 	public PostgresConnector(String connectionURL, String driverName, String username, String password) throws IOException {
 		try {
 			Class.forName(driverName);
@@ -421,6 +453,58 @@ public class PostgresConnector implements DBConnector {
 		return taskAttempts;
 	}
 	
+	@Override
+	public void fetchJobTaskTimes(String jobID, TaskTimesHandler handler) throws IOException {
+		PreparedStatement ps = getPS(Statements.FJTT_PS);
+		try {
+			ps.setString(1, jobID);
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		fetchTaskTimes(ps, handler);
+	}
+	
+	@Override
+	public void fetchWorkflowTaskTimes(String workflowId, TaskTimesHandler handler) throws IOException {
+		PreparedStatement ps = getPS(Statements.FWTT_PS);
+		try {
+			ps.setString(1, workflowId);
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		fetchTaskTimes(ps, handler);
+	}
+	
+	@Override
+	public void fetchTaskTimes(long minFinishTime, long maxStartTime, TaskTimesHandler handler) throws IOException {
+		PreparedStatement ps = getPS(Statements.FTT_TIMERANGE_PS);
+		try {
+			ps.setLong(1, minFinishTime);
+			ps.setLong(2, maxStartTime);
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		fetchTaskTimes(ps, handler);
+	}
+	
+	private static void fetchTaskTimes(PreparedStatement ps, TaskTimesHandler handler) throws IOException {
+		ResultSet rs = null;
+		try {
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				handler.handle(TaskAttemptFields.TASKTYPE.getString(rs), TaskAttemptFields.STARTTIME.getLong(rs), TaskAttemptFields.SHUFFLEFINISHTIME.getLong(rs), TaskAttemptFields.FINISHTIME.getLong(rs));
+			}
+		} catch (SQLException e) {
+			throw new IOException(e);
+		} finally {
+			if (rs != null) try {
+				rs.close();
+			} catch (SQLException e) {
+				LOG.error("Exception while closing ResultSet", e);
+			}
+		}
+	}
+	
 	private PreparedStatement getPS(Statements statement) throws IOException {
 		if (db == null) throw new IOException("postgres db not initialized");
 		
@@ -440,12 +524,28 @@ public class PostgresConnector implements DBConnector {
 	
 	protected PreparedStatement getQualifiedPS(Statements statement, String searchClause) throws IOException {
 		if (db == null) throw new IOException("postgres db not initialized");
-		try {
-			// LOG.debug("preparing " + statement.getStatementString() + searchClause);
-			return db.prepareStatement(statement.getStatementString() + searchClause);
-		} catch (SQLException e) {
-			throw new IOException(e);
+		// LOG.debug("preparing " + statement.getStatementString() + searchClause);
+		return prepareStatement(statement.getStatementString() + searchClause);
+	}
+	
+	/**
+	 * Get a prepared statement for the given query, reusing the statement if the query was recently prepared.
+	 * 
+	 * @param query the query
+	 * @return the prepared statement
+	 * @throws IOException if the statement could not be prepared
+	 */
+	protected PreparedStatement prepareStatement(String query) throws IOException {
+		PreparedStatement ps = qualifiedStatements.get(query);
+		if (ps == null) {
+			try {
+				ps = db.prepareStatement(query);
+			} catch (SQLException e) {
+				throw new IOException(e);
+			}
+			qualifiedStatements.put(query, ps);
 		}
+		return ps;
 	}
 	
 	protected PreparedStatement getQualifiedPS(Statements statement, String searchClause, WorkflowFields field, boolean sortAscending, int offset, int limit) throws IOException {
@@ -520,9 +620,23 @@ public class PostgresConnector implements DBConnector {
 			return sb.toString();
 	}
 	
+	/**
+	 * Close the connector. A pooled connector keeps its connection and is returned to its pool.
+	 */
 	@Override
 	public void close() {
+		if (pool == null) closeConnection();
+		else if (borrowed) pool.release(this);
+	}
+	
+	void closeConnection() {
 		if (db != null) {
+			for (PreparedStatement ps : preparedStatements.values())
+				closeStatement(ps);
+			preparedStatements.clear();
+			for (PreparedStatement ps : qualifiedStatements.values())
+				closeStatement(ps);
+			qualifiedStatements.clear();
 			try {
 				db.close();
 			} catch (SQLException e) {
@@ -532,8 +646,49 @@ public class PostgresConnector implements DBConnector {
 		}
 	}
 	
+	private static void closeStatement(PreparedStatement ps) {
+		try {
+			ps.close();
+		} catch (SQLException e) {
+			LOG.error("Exception while closing PreparedStatement", e);
+		}
+	}
+	
+	boolean isOpen() {
+		try {
+			return db != null && !db.isClosed();
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+	
+	boolean isValid(int timeout) {
+		try {
+			return db != null && db.isValid(timeout);
+		} catch (SQLException e) {
+			LOG.warn("Exception while validating connection", e);
+			return false;
+		}
+	}
+	
+	void setPool(DBConnectorPool pool) {
+		this.pool = pool;
+	}
+	
+	void setBorrowed(boolean borrowed) {
+		this.borrowed = borrowed;
+	}
+	
+	long getLastUsed() {
+		return lastUsed;
+	}
+	
+	void setLastUsed(long lastUsed) {
+		this.lastUsed = lastUsed;
+	}
+	
 	@Override
 	protected void finalize() throws Throwable {
-		close();
+		closeConnection();
 	}
 }
@@ -42,6 +42,13 @@ public class TaskAttempt {
 				tmp[i] = tableName + "." + TaskAttemptFields.values()[i].toString();
 			return StringUtils.join(tmp, ",");
 		}
+		
+		public static String join(String tableName, TaskAttemptFields... fields) {
+			String[] tmp = new String[fields.length];
+			for (int i = 0; i < tmp.length; i++)
+				tmp[i] = tableName + "." + fields[i].toString();
+			return StringUtils.join(tmp, ",");
+		}
 	}
 	
 	public static final String TASK_ATTEMPT_FIELDS = TaskAttemptFields.join();
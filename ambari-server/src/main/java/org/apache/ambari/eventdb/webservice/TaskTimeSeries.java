@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.eventdb.webservice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ambari.eventdb.db.DBConnector.TaskTimesHandler;
+import org.apache.ambari.eventdb.model.TaskData;
+import org.apache.ambari.eventdb.model.TaskData.Point;
+
+/**
+ * Counts the map, shuffle and reduce tasks running in each step of a time window. Task times are added one at a time as they are read, each in time logarithmic in the number of steps, so
+ * the task attempts are never held in memory.
+ * <p/>
+ * A map task runs in a step if it starts before the step ends and finishes after the step starts. A reduce task shuffles in a step if it starts before the step ends and finishes shuffling after
+ * the step starts; otherwise it reduces in the step if it finishes shuffling before the step ends and finishes after the step starts.
+ */
+class TaskTimeSeries implements TaskTimesHandler {
+	private final double step;
+	
+	/**
+	 * The start of each step in seconds.
+	 */
+	private final double[] times;
+	
+	/**
+	 * The changes of the number of running tasks from one step to the next.
+	 */
+	private final int[] mapDeltas;
+	private final int[] shuffleDeltas;
+	private final int[] reduceDeltas;
+	
+	TaskTimeSeries(double submitTimeSecs, double finishTimeSecs, double step) {
+		this.step = step;
+		int steps = 0;
+		for (double time = submitTimeSecs; time < finishTimeSecs; time += step)
+			steps++;
+		times = new double[steps];
+		int i = 0;
+		for (double time = submitTimeSecs; time < finishTimeSecs; time += step)
+			times[i++] = time;
+		mapDeltas = new int[steps + 1];
+		shuffleDeltas = new int[steps + 1];
+		reduceDeltas = new int[steps + 1];
+	}
+	
+	@Override
+	public void handle(String taskType, long startTime, long shuffleFinishTime, long finishTime) {
+		double start = startTime / 1000.0;
+		double finish = finishTime / 1000.0;
+		if ("MAP".equals(taskType)) {
+			add(mapDeltas, firstStepEndingAtOrAfter(start), lastStepStartingAtOrBefore(finish), 1);
+		} else if ("REDUCE".equals(taskType)) {
+			double shuffleFinish = shuffleFinishTime / 1000.0;
+			int shuffleFrom = firstStepEndingAtOrAfter(start);
+			int shuffleTo = lastStepStartingAtOrBefore(shuffleFinish);
+			add(shuffleDeltas, shuffleFrom, shuffleTo, 1);
+			// reducing in the steps not counted as shuffling
+			int reduceFrom = firstStepEndingAfter(shuffleFinish);
+			int reduceTo = lastStepStartingAtOrBefore(finish);
+			add(reduceDeltas, reduceFrom, reduceTo, 1);
+			add(reduceDeltas, Math.max(reduceFrom, shuffleFrom), Math.min(reduceTo, shuffleTo), -1);
+		}
+	}
+	
+	/**
+	 * Set the task counts of every step on the given task data.
+	 * 
+	 * @param points the task data
+	 */
+	void setTaskData(TaskData points) {
+		points.setMapData(getPoints(mapDeltas));
+		points.setShuffleData(getPoints(shuffleDeltas));
+		points.setReduceData(getPoints(reduceDeltas));
+	}
+	
+	private List<Point> getPoints(int[] deltas) {
+		List<Point> points = new ArrayList<Point>(times.length);
+		int count = 0;
+		for (int i = 0; i < times.length; i++) {
+			count += deltas[i];
+			points.add(new Point(Math.round(times[i]), count));
+		}
+		return points;
+	}
+	
+	private static void add(int[] deltas, int from, int to, int delta) {
+		if (from <= to) {
+			deltas[from] += delta;
+			deltas[to + 1] -= delta;
+		}
+	}
+	
+	/**
+	 * @return the first step ending at or after the given time, or the number of steps if there is none
+	 */
+	private int firstStepEndingAtOrAfter(double time) {
+		int low = 0;
+		int high = times.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (time <= (times[mid] + step)) high = mid;
+			else
+				low = mid + 1;
+		}
+		return low;
+	}
+	
+	/**
+	 * @return the first step ending after the given time, or the number of steps if there is none
+	 */
+	private int firstStepEndingAfter(double time) {
+		int low = 0;
+		int high = times.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (time < (times[mid] + step)) high = mid;
+			else
+				low = mid + 1;
+		}
+		return low;
+	}
+	
+	/**
+	 * @return the last step starting at or before the given time, or -1 if there is none
+	 */
+	private int lastStepStartingAtOrBefore(double time) {
+		int low = 0;
+		int high = times.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (time < times[mid]) high = mid;
+			else
+				low = mid + 1;
+		}
+		return low - 1;
+	}
+}
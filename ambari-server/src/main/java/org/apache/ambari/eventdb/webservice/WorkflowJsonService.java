@@ -22,22 +22,19 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 
-import org.apache.ambari.eventdb.db.MySQLConnector;
-import org.apache.ambari.eventdb.db.OracleConnector;
+import org.apache.ambari.eventdb.db.DBConnectorPool;
 import org.apache.ambari.eventdb.db.PostgresConnector;
 import org.apache.ambari.eventdb.model.DataTable;
 import org.apache.ambari.eventdb.model.Jobs;
 import org.apache.ambari.eventdb.model.Jobs.JobDBEntry;
 import org.apache.ambari.eventdb.model.TaskAttempt;
 import org.apache.ambari.eventdb.model.TaskData;
-import org.apache.ambari.eventdb.model.TaskData.Point;
 import org.apache.ambari.eventdb.model.TaskLocalityData;
 import org.apache.ambari.eventdb.model.TaskLocalityData.DataPoint;
 import org.apache.ambari.eventdb.model.Workflows;
 import org.apache.ambari.eventdb.model.Workflows.WorkflowDBEntry;
 import org.apache.ambari.eventdb.model.Workflows.WorkflowDBEntry.WorkflowFields;
 import org.apache.ambari.server.configuration.Configuration;
-import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +51,11 @@ public class WorkflowJsonService {
 	private static String DEFAULT_USERNAME = "mapred";
 	private static String DEFAULT_PASSWORD = "mapred";
 	
+	/**
+	 * The connectors shared by all requests.
+	 */
+	private static DBConnectorPool connectorPool;
+	
 	private static final Workflows EMPTY_WORKFLOWS = new Workflows();
 	private static final List<JobDBEntry> EMPTY_JOBS = Collections.emptyList();
 	{
@@ -64,14 +66,8 @@ public class WorkflowJsonService {
 	private static final Logger LOG = LoggerFactory.getLogger(WorkflowJsonService.class);
 	
 	PostgresConnector getConnector() throws IOException {
-		// TODO fix temp hack
-		if (StringUtils.contains(DEFAULT_DRIVER, "oracle")) {
-			return new OracleConnector(DEFAULT_URL, DEFAULT_DRIVER, DEFAULT_USERNAME, DEFAULT_PASSWORD);
-		} else if (StringUtils.contains(DEFAULT_DRIVER, "mysql")) {
-			return new MySQLConnector(DEFAULT_URL, DEFAULT_DRIVER, DEFAULT_USERNAME, DEFAULT_PASSWORD);
-		} else {
-			return new PostgresConnector(DEFAULT_URL, DEFAULT_DRIVER, DEFAULT_USERNAME, DEFAULT_PASSWORD);
-		}
+		if (connectorPool == null) throw new IOException("RCA database not configured");
+		return connectorPool.borrow();
 	}
 	
 	public static void setDBProperties(Configuration configuration) {
@@ -82,6 +78,12 @@ public class WorkflowJsonService {
 		}
 		DEFAULT_USERNAME = configuration.getRcaDatabaseUser();
 		DEFAULT_PASSWORD = configuration.getRcaDatabasePassword();
+		
+		DBConnectorPool previousPool = connectorPool;
+		connectorPool = new DBConnectorPool(DEFAULT_URL, DEFAULT_DRIVER, DEFAULT_USERNAME, DEFAULT_PASSWORD, configuration.getRcaDatabasePoolMaxConnections(), configuration.getRcaDatabasePoolMaxWait(), configuration.getRcaDatabasePoolMaxIdle());
+		if (previousPool != null) {
+			previousPool.close();
+		}
 	}
 	
 	@Context
@@ -209,7 +211,6 @@ public class WorkflowJsonService {
 		PostgresConnector conn = null;
 		try {
 			conn = getConnector();
-			List<TaskAttempt> taskAttempts = null;
 			long startTime = -1;
 			long endTime = -1;
 			if (jobId != null) {
@@ -217,21 +218,22 @@ public class WorkflowJsonService {
 				if (times != null) {
 					startTime = times[0];
 					endTime = times[1];
-					taskAttempts = conn.fetchJobTaskAttempts(jobId);
 				}
 			} else {
 				startTime = minFinishTime;
 				endTime = maxStartTime;
-				if (workflowId != null) taskAttempts = conn.fetchWorkflowTaskAttempts(workflowId);
-				else
-					taskAttempts = conn.fetchTaskAttempts(minFinishTime, maxStartTime);
 			}
 			if (startTime > 0 && endTime > 0 && endTime >= startTime) {
 				double submitTimeSecs = startTime / 1000.0;
 				double finishTimeSecs = endTime / 1000.0;
 				double step = (finishTimeSecs - submitTimeSecs) / steps;
 				if (step < 1) step = 1;
-				if (taskAttempts != null) getTaskDetails(taskAttempts, points, submitTimeSecs, finishTimeSecs, step);
+				TaskTimeSeries series = new TaskTimeSeries(submitTimeSecs, finishTimeSecs, step);
+				if (jobId != null) conn.fetchJobTaskTimes(jobId, series);
+				else if (workflowId != null) conn.fetchWorkflowTaskTimes(workflowId, series);
+				else
+					conn.fetchTaskTimes(minFinishTime, maxStartTime, series);
+				series.setTaskData(points);
 			}
 		} catch (IOException e) {
 			LOG.error("Error interacting with RCA database ", e);
@@ -293,34 +295,6 @@ public class WorkflowJsonService {
 		return data;
 	}
 	
-	private static void getTaskDetails(List<TaskAttempt> taskAttempts, TaskData points, double submitTimeSecs, double finishTimeSecs, double step) throws IOException {
-		List<Point> mapPoints = new ArrayList<Point>();
-		List<Point> shufflePoints = new ArrayList<Point>();
-		List<Point> reducePoints = new ArrayList<Point>();
-		for (double time = submitTimeSecs; time < finishTimeSecs; time += step) {
-			int numTasks = 0;
-			int numShuffleTasks = 0;
-			int numReduceTasks = 0;
-			for (TaskAttempt taskAttempt : taskAttempts) {
-				if (taskAttempt.getTaskType().equals("MAP")) {
-					if ((taskAttempt.getStartTime() / 1000.0) <= (time + step) && (taskAttempt.getFinishTime() / 1000.0) >= time) numTasks++;
-				} else if (taskAttempt.getTaskType().equals("REDUCE")) {
-					if ((taskAttempt.getStartTime() / 1000.0) <= (time + step) && (taskAttempt.getShuffleFinishTime() / 1000.0) >= time) {
-						numShuffleTasks++;
-					} else if ((taskAttempt.getShuffleFinishTime() / 1000.0) < (time + step) && (taskAttempt.getFinishTime() / 1000.0) >= time) {
-						numReduceTasks++;
-					}
-				}
-			}
-			mapPoints.add(new Point(Math.round(time), numTasks));
-			shufflePoints.add(new Point(Math.round(time), numShuffleTasks));
-			reducePoints.add(new Point(Math.round(time), numReduceTasks));
-		}
-		points.setMapData(mapPoints);
-		points.setShuffleData(shufflePoints);
-		points.setReduceData(reducePoints);
-	}
-	
 	private static void getExactTaskAttemptsByLocality(List<TaskAttempt> taskAttempts, TaskLocalityData data, int minr, int maxr) throws IOException {
 		MinMax io = new MinMax();
 		data.setMapNodeLocal(processExactLocalityData(taskAttempts, "MAP", "NODE_LOCAL", io));
@@ -49,7 +49,7 @@ public interface ActionDBAccessor {
 	public List<Stage> getStagesInProgress();
 	
 	/**
-	 * Persists all tasks for a given request
+	 * Persists all tasks for a given request. The requests version is not incremented, callers do that once the transaction has committed.
 	 * 
 	 * @param request request object
 	 */
@@ -63,7 +63,7 @@ public interface ActionDBAccessor {
 	void endRequest(long requestId);
 	
 	/**
-	 * Updates request with link to source schedule
+	 * Updates request with link to source schedule. The requests version is not incremented, callers do that once the transaction has committed.
 	 */
 	@Transactional
 	void setSourceScheduleForRequest(long requestId, long scheduleId);
@@ -96,7 +96,7 @@ public interface ActionDBAccessor {
 	public long getLastPersistedRequestIdWhenInitialized();
 	
 	/**
-	 * Updates scheduled stage.
+	 * Updates scheduled stage. The requests version is not incremented, callers do that once the transaction has committed.
 	 */
 	public void hostRoleScheduled(Stage s, String hostname, String roleStr);
 	
@@ -140,6 +140,18 @@ public interface ActionDBAccessor {
 	 */
 	public List<Long> getRequestsByStatus(RequestStatus status, int maxResults, boolean ascOrder);
 	
+	/**
+	 * Get first or last maxResults requests that are in the specified status and satisfy the given request condition
+	 * 
+	 * @param status Desired request status
+	 * @param maxResults maximal number of returned id's
+	 * @param ascOrder defines sorting order for database query result
+	 * @param requestCondition JPQL condition over the request entity alias {@code req}; may be null
+	 * @param parameters named parameters of the request condition
+	 * @return First or last maxResults request id's if ascOrder is true or false, respectively
+	 */
+	public List<Long> getRequestsByStatus(RequestStatus status, int maxResults, boolean ascOrder, String requestCondition, Map<String, Object> parameters);
+	
 	/**
 	 * Gets request contexts associated with the list of request id
 	 */
@@ -154,4 +166,14 @@ public interface ActionDBAccessor {
 	 * Gets request objects by ids
 	 */
 	public List<Request> getRequests(Collection<Long> requestIds);
+	
+	/**
+	 * Gets the number of tasks in each status for the given requests without loading the tasks
+	 */
+	public Map<Long, Map<HostRoleStatus, Integer>> getRequestTaskStatusCounts(Collection<Long> requestIds);
+	
+	/**
+	 * Checks whether the request has been moved out of the database into the request archive
+	 */
+	public boolean isRequestArchived(long requestId);
 }
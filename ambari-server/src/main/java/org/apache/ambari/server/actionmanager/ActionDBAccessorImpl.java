@@ -7,6 +7,8 @@ package org.apache.ambari.server.actionmanager;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -29,6 +31,7 @@ import org.apache.ambari.server.orm.entities.RequestScheduleEntity;
 import org.apache.ambari.server.orm.entities.RoleSuccessCriteriaEntity;
 import org.apache.ambari.server.orm.entities.StageEntity;
 import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.utils.StageUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,15 +76,31 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 	Clusters clusters;
 	@Inject
 	RequestScheduleDAO requestScheduleDAO;
+	@Inject
+	RequestArchive requestArchive;
 	
+	/**
+	 * Cache of completed commands. The cache is bounded by the estimated size of the commands rather than their number since the output of a command can be of any size.
+	 */
 	private Cache<Long, HostRoleCommand> hostRoleCommandCache;
-	private long cacheLimit; // may be exceeded to store tasks from one request
+	
+	/**
+	 * Commands with more output than this number of characters are not cached.
+	 */
+	private final long maxCachedOutputLength;
+	
+	/**
+	 * The interval in milliseconds at which the statistics of the command cache are logged.
+	 */
+	private static final long CACHE_STATS_LOG_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+	
+	private volatile long lastCacheStatsLogTime = System.currentTimeMillis();
 	
 	@Inject
-	public ActionDBAccessorImpl(@Named("executionCommandCacheSize") long cacheLimit) {
+	public ActionDBAccessorImpl(@Named("hostRoleCommandCacheWeight") long cacheWeight, @Named("hostRoleCommandCacheMaxOutput") long cacheMaxOutput) {
 		
-		this.cacheLimit = cacheLimit;
-		hostRoleCommandCache = CacheBuilder.newBuilder().expireAfterAccess(5, TimeUnit.MINUTES).build();
+		this.maxCachedOutputLength = cacheMaxOutput / 2;
+		hostRoleCommandCache = CacheBuilder.newBuilder().maximumWeight(cacheWeight).weigher(new HostRoleCommandWeigher()).expireAfterAccess(5, TimeUnit.MINUTES).recordStats().build();
 		
 	}
 	
@@ -119,7 +138,8 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		if (requestEntity != null) {
 			return requestFactory.createExisting(requestEntity);
 		} else {
-			return null;
+			ArchivedRequest archivedRequest = requestArchive.read(requestId);
+			return archivedRequest == null ? null : requestFactory.createExisting(archivedRequest.toRequestEntity());
 		}
 	}
 	
@@ -143,6 +163,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		}
 		
 		hostRoleCommandDAO.mergeAll(commands);
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	/*
@@ -159,6 +180,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		}
 		hostRoleCommandDAO.mergeAll(commands);
 		endRequestIfCompleted(requestId);
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	/*
@@ -186,28 +208,38 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		requestEntity.setCluster(clusterEntity);
 		requestDAO.create(requestEntity);
 		
-		// TODO wire request to cluster
+		// resolve every host of the request with a single query rather than one lookup per command
+		Set<String> hostNames = new HashSet<String>();
+		for (Stage stage : request.getStages()) {
+			hostNames.addAll(stage.getHosts());
+		}
+		Map<String, HostEntity> hostEntities = new HashMap<String, HostEntity>();
+		for (HostEntity hostEntity : hostDAO.findByNames(hostNames)) {
+			hostEntities.put(hostEntity.getHostName(), hostEntity);
+		}
+		
+		// all entities stay managed until the transaction commits, so they are only created here and never merged;
+		// the inserts are grouped by the JDBC batch writing of the persistence unit and task ids come from the preallocated sequence block
 		List<StageEntity> stageEntities = new ArrayList<StageEntity>(request.getStages().size());
 		
 		for (Stage stage : request.getStages()) {
 			StageEntity stageEntity = stage.constructNewPersistenceEntity();
 			stageEntities.add(stageEntity);
 			stageEntity.setCluster(clusterEntity);
-			// TODO refactor to reduce merges
 			stageEntity.setRequest(requestEntity);
 			stageDAO.create(stageEntity);
 			
 			List<HostRoleCommand> orderedHostRoleCommands = stage.getOrderedHostRoleCommands();
-			List<HostRoleCommandEntity> hostRoleCommandEntities = new ArrayList<HostRoleCommandEntity>();
+			List<HostRoleCommandEntity> hostRoleCommandEntities = new ArrayList<HostRoleCommandEntity>(orderedHostRoleCommands.size());
 			
 			for (HostRoleCommand hostRoleCommand : orderedHostRoleCommands) {
 				HostRoleCommandEntity hostRoleCommandEntity = hostRoleCommand.constructNewPersistenceEntity();
 				hostRoleCommandEntities.add(hostRoleCommandEntity);
 				hostRoleCommandEntity.setStage(stageEntity);
 				
-				HostEntity hostEntity = hostDAO.findByName(hostRoleCommandEntity.getHostName());
+				HostEntity hostEntity = hostEntities.get(hostRoleCommandEntity.getHostName());
 				if (hostEntity == null) {
-					LOG.error("Host {} doesn't exists in database" + hostRoleCommandEntity.getHostName());
+					LOG.error("Host {} doesn't exists in database", hostRoleCommandEntity.getHostName());
 					throw new RuntimeException("Host '" + hostRoleCommandEntity.getHostName() + "' doesn't exists in database");
 				}
 				hostRoleCommandEntity.setHost(hostEntity);
@@ -222,19 +254,15 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 				executionCommandEntity.setTaskId(hostRoleCommandEntity.getTaskId());
 				hostRoleCommandEntity.setExecutionCommand(executionCommandEntity);
 				
-				executionCommandDAO.create(hostRoleCommandEntity.getExecutionCommand());
-				hostRoleCommandDAO.merge(hostRoleCommandEntity);
-				hostDAO.merge(hostEntity);
+				executionCommandDAO.create(executionCommandEntity);
 			}
+			stageEntity.getHostRoleCommands().addAll(hostRoleCommandEntities);
 			
 			for (RoleSuccessCriteriaEntity roleSuccessCriteriaEntity : stageEntity.getRoleSuccessCriterias()) {
 				roleSuccessCriteriaDAO.create(roleSuccessCriteriaEntity);
 			}
-			
-			stageDAO.create(stageEntity);
 		}
 		requestEntity.setStages(stageEntities);
-		requestDAO.merge(requestEntity);
 	}
 	
 	@Override
@@ -244,6 +272,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 			requestEntity.setStartTime(System.currentTimeMillis());
 			requestDAO.merge(requestEntity);
 		}
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	@Override
@@ -253,12 +282,14 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 			requestEntity.setEndTime(System.currentTimeMillis());
 			requestDAO.merge(requestEntity);
 		}
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	public void endRequestIfCompleted(long requestId) {
 		if (requestDAO.isAllTasksCompleted(requestId)) {
 			endRequest(requestId);
 		}
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	@Override
@@ -326,6 +357,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		for (Long requestId : requestsToCheck) {
 			endRequestIfCompleted(requestId);
 		}
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	@Override
@@ -354,6 +386,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		if (checkRequest) {
 			endRequestIfCompleted(requestId);
 		}
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	@Override
@@ -370,6 +403,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		report.setStdOut("");
 		report.setStatus("ABORTED");
 		updateHostRoleState(host, requestId, stageId, role, report);
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	@Override
@@ -395,21 +429,20 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 	
 	@Override
 	public List<HostRoleCommand> getRequestTasks(long requestId) {
-		List<HostRoleCommand> tasks = new ArrayList<HostRoleCommand>();
-		return getTasks(hostRoleCommandDAO.findTaskIdsByRequest(requestId));
+		return addArchivedTasks(getTasks(hostRoleCommandDAO.findTaskIdsByRequest(requestId)), Collections.singleton(requestId), null);
 	}
 	
 	@Override
 	public List<HostRoleCommand> getAllTasksByRequestIds(Collection<Long> requestIds) {
 		if (requestIds.isEmpty()) { return Collections.emptyList(); }
 		
-		return getTasks(hostRoleCommandDAO.findTaskIdsByRequestIds(requestIds));
+		return addArchivedTasks(getTasks(hostRoleCommandDAO.findTaskIdsByRequestIds(requestIds)), requestIds, null);
 	}
 	
 	@Override
 	public List<HostRoleCommand> getTasksByRequestAndTaskIds(Collection<Long> requestIds, Collection<Long> taskIds) {
 		if (!requestIds.isEmpty() && !taskIds.isEmpty()) {
-			return getTasks(hostRoleCommandDAO.findTaskIdsByRequestAndTaskIds(requestIds, taskIds));
+			return addArchivedTasks(getTasks(hostRoleCommandDAO.findTaskIdsByRequestAndTaskIds(requestIds, taskIds)), requestIds, taskIds);
 			
 		} else if (requestIds.isEmpty()) {
 			return getTasks(taskIds);
@@ -434,37 +467,89 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		absent.removeAll(cached.keySet());
 		
 		if (!absent.isEmpty()) {
-			boolean allowStore = hostRoleCommandCache.size() <= cacheLimit;
-			
 			for (HostRoleCommandEntity commandEntity : hostRoleCommandDAO.findByPKs(absent)) {
 				HostRoleCommand hostRoleCommand = hostRoleCommandFactory.createExisting(commandEntity);
 				commands.add(hostRoleCommand);
-				if (allowStore) {
-					switch (hostRoleCommand.getStatus()) {
-					case ABORTED:
-					case COMPLETED:
-					case TIMEDOUT:
-					case FAILED:
-						hostRoleCommandCache.put(hostRoleCommand.getTaskId(), hostRoleCommand);
-						break;
-					case IN_PROGRESS:
-						break;
-					case PENDING:
-						break;
-					case QUEUED:
-						break;
-					default:
-						break;
-					}
+				// commands that are not completed still change, and commands with large output would push many small ones out of the cache
+				if (hostRoleCommand.getStatus().isCompletedState() && getOutputLength(hostRoleCommand) <= maxCachedOutputLength) {
+					hostRoleCommandCache.put(hostRoleCommand.getTaskId(), hostRoleCommand);
 				}
 			}
 		}
 		Collections.sort(commands, new Comparator<HostRoleCommand>() {
 			@Override
 			public int compare(HostRoleCommand o1, HostRoleCommand o2) {
-				return (int) (o1.getTaskId() - o2.getTaskId());
+				return o1.getTaskId() < o2.getTaskId() ? -1 : (o1.getTaskId() == o2.getTaskId() ? 0 : 1);
 			}
 		});
+		logCacheStats();
+		return commands;
+	}
+	
+	// log the cache statistics every few minutes so that the cache bounds can be tuned
+	private void logCacheStats() {
+		long now = System.currentTimeMillis();
+		if (now - lastCacheStatsLogTime < CACHE_STATS_LOG_INTERVAL) { return; }
+		lastCacheStatsLogTime = now;
+		
+		CacheStats stats = hostRoleCommandCache.stats();
+		LOG.info("Host role command cache: " + hostRoleCommandCache.size() + " commands, hit rate " + String.format("%.2f", stats.hitRate()) + ", " + stats.evictionCount() + " evictions");
+	}
+	
+	/**
+	 * Get the statistics of the cache of completed commands.
+	 * 
+	 * @return the cache statistics
+	 */
+	public CacheStats getHostRoleCommandCacheStats() {
+		return hostRoleCommandCache.stats();
+	}
+	
+	@Override
+	public boolean isRequestArchived(long requestId) {
+		return requestArchive.contains(requestId);
+	}
+	
+	/**
+	 * Add the tasks of the given requests that were moved to the request archive to the given tasks.
+	 * 
+	 * @param commands the tasks read from the database
+	 * @param requestIds the request ids
+	 * @param taskIds the ids of the tasks to add; null for all of the tasks of the requests
+	 * @return the tasks ordered by task id
+	 */
+	private List<HostRoleCommand> addArchivedTasks(List<HostRoleCommand> commands, Collection<Long> requestIds, Collection<Long> taskIds) {
+		Set<Long> presentTaskIds = null;
+		for (Long requestId : requestIds) {
+			if (!requestArchive.contains(requestId)) {
+				continue;
+			}
+			ArchivedRequest archivedRequest = requestArchive.read(requestId);
+			if (archivedRequest == null) {
+				continue;
+			}
+			if (presentTaskIds == null) {
+				presentTaskIds = new HashSet<Long>();
+				for (HostRoleCommand command : commands) {
+					presentTaskIds.add(command.getTaskId());
+				}
+				commands = new ArrayList<HostRoleCommand>(commands);
+			}
+			// a request is only removed from the database after it was archived, skip the tasks that are still there
+			for (HostRoleCommandEntity taskEntity : archivedRequest.toTaskEntities()) {
+				if ((taskIds == null || taskIds.contains(taskEntity.getTaskId())) && presentTaskIds.add(taskEntity.getTaskId())) {
+					commands.add(hostRoleCommandFactory.createExisting(taskEntity));
+				}
+			}
+		}
+		if (presentTaskIds != null) {
+			Collections.sort(commands, new Comparator<HostRoleCommand>() {
+				@Override
+				public int compare(HostRoleCommand o1, HostRoleCommand o2) {
+					return o1.getTaskId() < o2.getTaskId() ? -1 : (o1.getTaskId() == o2.getTaskId() ? 0 : 1);
+				}
+			});
+		}
 		return commands;
 	}
 	
@@ -486,6 +571,11 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 	
 	@Override
 	public List<Long> getRequestsByStatus(RequestStatus status, int maxResults, boolean ascOrder) {
+		return getRequestsByStatus(status, maxResults, ascOrder, null, Collections.<String, Object> emptyMap());
+	}
+	
+	@Override
+	public List<Long> getRequestsByStatus(RequestStatus status, int maxResults, boolean ascOrder, String requestCondition, Map<String, Object> parameters) {
 		
 		boolean match = true;
 		boolean checkAllTasks = false;
@@ -499,7 +589,7 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 		} else if (status == RequestStatus.FAILED) {
 			statuses.addAll(Arrays.asList(HostRoleStatus.ABORTED, HostRoleStatus.FAILED, HostRoleStatus.TIMEDOUT));
 		}
-		return hostRoleCommandDAO.getRequestsByTaskStatus(statuses, match, checkAllTasks, maxResults, ascOrder);
+		return hostRoleCommandDAO.getRequestsByTaskStatus(statuses, match, checkAllTasks, maxResults, ascOrder, requestCondition, parameters);
 	}
 	
 	@Override
@@ -509,16 +599,77 @@ public class ActionDBAccessorImpl implements ActionDBAccessor {
 	
 	@Override
 	public String getRequestContext(long requestId) {
-		return stageDAO.findRequestContext(requestId);
+		String requestContext = stageDAO.findRequestContext(requestId);
+		if (requestContext == null || requestContext.isEmpty()) {
+			ArchivedRequest archivedRequest = requestArchive.read(requestId);
+			if (archivedRequest != null) {
+				requestContext = archivedRequest.getRequestContext();
+			}
+		}
+		return requestContext;
 	}
 	
 	@Override
 	public List<Request> getRequests(Collection<Long> requestIds) {
 		List<RequestEntity> requestEntities = requestDAO.findByPks(requestIds);
 		List<Request> requests = new ArrayList<Request>(requestEntities.size());
+		Set<Long> foundRequestIds = new HashSet<Long>();
 		for (RequestEntity requestEntity : requestEntities) {
 			requests.add(requestFactory.createExisting(requestEntity));
+			foundRequestIds.add(requestEntity.getRequestId());
+		}
+		
+		if (requestIds == null) { return requests; }
+		
+		// serve the requests that are no longer in the database from the archive
+		for (Long requestId : requestIds) {
+			if (!foundRequestIds.contains(requestId)) {
+				ArchivedRequest archivedRequest = requestArchive.read(requestId);
+				if (archivedRequest != null) {
+					requests.add(requestFactory.createExisting(archivedRequest.toRequestEntity()));
+				}
+			}
 		}
 		return requests;
 	}
+	
+	@Override
+	public Map<Long, Map<HostRoleStatus, Integer>> getRequestTaskStatusCounts(Collection<Long> requestIds) {
+		Map<Long, Map<HostRoleStatus, Integer>> statusCounts = hostRoleCommandDAO.findStatusCountsByRequestIds(requestIds);
+		if (requestIds == null) { return statusCounts; }
+		
+		for (Long requestId : requestIds) {
+			if (!statusCounts.containsKey(requestId)) {
+				ArchivedRequest archivedRequest = requestArchive.read(requestId);
+				if (archivedRequest != null) {
+					statusCounts.put(requestId, archivedRequest.getStatusCounts());
+				}
+			}
+		}
+		return statusCounts;
+	}
+	
+	private static long getOutputLength(HostRoleCommand command) {
+		return length(command.getStdout()) + length(command.getStderr()) + length(command.getStructuredOut());
+	}
+	
+	private static long length(String value) {
+		return value == null ? 0 : value.length();
+	}
+	
+	/**
+	 * Estimates the number of bytes taken by a cached command, dominated by the characters of its output.
+	 */
+	private static class HostRoleCommandWeigher implements Weigher<Long, HostRoleCommand> {
+		
+		/**
+		 * Rough size of a command without its output.
+		 */
+		private static final int COMMAND_OVERHEAD = 512;
+		
+		@Override
+		public int weigh(Long taskId, HostRoleCommand command) {
+			return (int) Math.min(Integer.MAX_VALUE, COMMAND_OVERHEAD + 2 * getOutputLength(command));
+		}
+	}
 }
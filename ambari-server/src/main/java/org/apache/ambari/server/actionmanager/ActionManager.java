@@ -17,6 +17,7 @@ import org.apache.ambari.server.controller.ExecuteActionRequest;
 import org.apache.ambari.server.controller.HostsMap;
 import org.apache.ambari.server.serveraction.ServerActionManager;
 import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.utils.StageUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,6 +74,7 @@ public class ActionManager {
 			}
 		}
 		db.persistActions(request);
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 		scheduler.awake();
 	}
 	
@@ -80,6 +82,14 @@ public class ActionManager {
 		return db.getRequests(requestIds);
 	}
 	
+	public Map<Long, Map<HostRoleStatus, Integer>> getRequestTaskStatusCounts(Collection<Long> requestIds) {
+		return db.getRequestTaskStatusCounts(requestIds);
+	}
+	
+	public boolean isRequestArchived(long requestId) {
+		return db.isRequestArchived(requestId);
+	}
+	
 	public List<Stage> getRequestStatus(long requestId) {
 		return db.getAllStages(requestId);
 	}
@@ -183,6 +193,20 @@ public class ActionManager {
 		return db.getRequestsByStatus(status, maxResults, ascOrder);
 	}
 	
+	/**
+	 * Get first or last maxResults requests that are in the specified status and satisfy the given request condition
+	 * 
+	 * @param status Desired request status
+	 * @param maxResults maximal number of returned id's
+	 * @param ascOrder defines sorting order for database query result
+	 * @param requestCondition JPQL condition over the request entity alias {@code req}; may be null
+	 * @param parameters named parameters of the request condition
+	 * @return First or last maxResults request id's if ascOrder is true or false, respectively
+	 */
+	public List<Long> getRequestsByStatus(RequestStatus status, int maxResults, boolean ascOrder, String requestCondition, Map<String, Object> parameters) {
+		return db.getRequestsByStatus(status, maxResults, ascOrder, requestCondition, parameters);
+	}
+	
 	public Map<Long, String> getRequestContext(List<Long> requestIds) {
 		return db.getRequestContext(requestIds);
 	}
@@ -34,6 +34,7 @@ import org.apache.ambari.server.state.HostState;
 import org.apache.ambari.server.state.Service;
 import org.apache.ambari.server.state.ServiceComponent;
 import org.apache.ambari.server.state.ServiceComponentHost;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.state.fsm.InvalidStateTransitionException;
 import org.apache.ambari.server.state.svccomphost.ServiceComponentHostOpFailedEvent;
 import org.apache.ambari.server.utils.StageUtils;
@@ -252,6 +253,7 @@ class ActionScheduler implements Runnable {
 			s.incrementAttemptCount(hostName, roleName);
 			s.setHostRoleStatus(hostName, roleName, HostRoleStatus.QUEUED);
 			db.hostRoleScheduled(s, hostName, roleName);
+			StateVersions.increment(StateVersions.Category.REQUESTS);
 			String actionName = cmd.getRoleParams().get(ServerAction.ACTION_NAME);
 			this.serverActionManager.executeAction(actionName, cmd.getCommandParams());
 			reportServerActionSuccess(s, cmd);
@@ -542,6 +544,7 @@ class ActionScheduler implements Runnable {
 		
 		actionQueue.enqueue(hostname, cmd);
 		db.hostRoleScheduled(s, hostname, roleStr);
+		StateVersions.increment(StateVersions.Category.REQUESTS);
 	}
 	
 	private void updateRoleStats(HostRoleStatus status, RoleStats rs) {
@@ -0,0 +1,285 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.orm.entities.ClusterEntity;
+import org.apache.ambari.server.orm.entities.HostRoleCommandEntity;
+import org.apache.ambari.server.orm.entities.RequestEntity;
+import org.apache.ambari.server.orm.entities.RequestOperationLevelEntity;
+import org.apache.ambari.server.orm.entities.RequestResourceFilterEntity;
+import org.apache.ambari.server.orm.entities.RequestScheduleEntity;
+import org.apache.ambari.server.orm.entities.StageEntity;
+
+/**
+ * Compact, serializable form of a completed request and its tasks as kept in the {@link RequestArchive}. The execution commands of the tasks are not archived.
+ */
+class ArchivedRequest {
+	
+	/**
+	 * Charset of the task output, which is kept as bytes in the database.
+	 */
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	private long requestId;
+	private long clusterId;
+	private String clusterName;
+	private Long requestScheduleId;
+	private String requestContext;
+	private String commandName;
+	private String inputs;
+	private RequestType requestType;
+	private HostRoleStatus status;
+	private long createTime;
+	private long startTime;
+	private long endTime;
+	private List<ArchivedResourceFilter> resourceFilters = new ArrayList<ArchivedResourceFilter>();
+	private ArchivedOperationLevel operationLevel;
+	private List<ArchivedTask> tasks = new ArrayList<ArchivedTask>();
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	/**
+	 * Create an archived request from the given entities.
+	 * 
+	 * @param requestEntity the request entity
+	 * @param taskEntities the tasks of the request
+	 */
+	ArchivedRequest(RequestEntity requestEntity, List<HostRoleCommandEntity> taskEntities) {
+		requestId = requestEntity.getRequestId();
+		clusterId = requestEntity.getCluster().getClusterId();
+		clusterName = requestEntity.getCluster().getClusterName();
+		requestScheduleId = requestEntity.getRequestScheduleId();
+		requestContext = requestEntity.getRequestContext();
+		commandName = requestEntity.getCommandName();
+		inputs = requestEntity.getInputs();
+		requestType = requestEntity.getRequestType();
+		status = requestEntity.getStatus();
+		createTime = requestEntity.getCreateTime();
+		startTime = requestEntity.getStartTime();
+		endTime = requestEntity.getEndTime();
+		
+		if (requestEntity.getResourceFilterEntities() != null) {
+			for (RequestResourceFilterEntity filterEntity : requestEntity.getResourceFilterEntities()) {
+				resourceFilters.add(new ArchivedResourceFilter(filterEntity));
+			}
+		}
+		if (requestEntity.getRequestOperationLevel() != null) {
+			operationLevel = new ArchivedOperationLevel(requestEntity.getRequestOperationLevel());
+		}
+		for (HostRoleCommandEntity taskEntity : taskEntities) {
+			tasks.add(new ArchivedTask(taskEntity));
+		}
+	}
+	
+	// ----- ArchivedRequest ---------------------------------------------------
+	
+	long getRequestId() {
+		return requestId;
+	}
+	
+	String getRequestContext() {
+		return requestContext;
+	}
+	
+	/**
+	 * Build a detached request entity holding the archived request data. The entity has no stages.
+	 * 
+	 * @return the request entity
+	 */
+	RequestEntity toRequestEntity() {
+		ClusterEntity clusterEntity = new ClusterEntity();
+		clusterEntity.setClusterId(clusterId);
+		clusterEntity.setClusterName(clusterName);
+		
+		RequestEntity requestEntity = new RequestEntity();
+		requestEntity.setRequestId(requestId);
+		requestEntity.setClusterId(clusterId);
+		requestEntity.setCluster(clusterEntity);
+		requestEntity.setRequestContext(requestContext);
+		requestEntity.setCommandName(commandName);
+		requestEntity.setInputs(inputs);
+		requestEntity.setRequestType(requestType);
+		requestEntity.setStatus(status);
+		requestEntity.setCreateTime(createTime);
+		requestEntity.setStartTime(startTime);
+		requestEntity.setEndTime(endTime);
+		requestEntity.setStages(Collections.<StageEntity> emptyList());
+		
+		if (requestScheduleId != null) {
+			RequestScheduleEntity scheduleEntity = new RequestScheduleEntity();
+			scheduleEntity.setScheduleId(requestScheduleId);
+			requestEntity.setRequestScheduleId(requestScheduleId);
+			requestEntity.setRequestScheduleEntity(scheduleEntity);
+		}
+		
+		List<RequestResourceFilterEntity> filterEntities = new ArrayList<RequestResourceFilterEntity>();
+		for (ArchivedResourceFilter resourceFilter : resourceFilters) {
+			filterEntities.add(resourceFilter.toEntity(requestEntity));
+		}
+		requestEntity.setResourceFilterEntities(filterEntities);
+		
+		if (operationLevel != null) {
+			requestEntity.setRequestOperationLevel(operationLevel.toEntity(requestEntity));
+		}
+		return requestEntity;
+	}
+	
+	/**
+	 * Build detached task entities holding the archived task data.
+	 * 
+	 * @return the task entities ordered by task id
+	 */
+	List<HostRoleCommandEntity> toTaskEntities() {
+		List<HostRoleCommandEntity> taskEntities = new ArrayList<HostRoleCommandEntity>(tasks.size());
+		for (ArchivedTask task : tasks) {
+			taskEntities.add(task.toEntity(requestId));
+		}
+		return taskEntities;
+	}
+	
+	/**
+	 * Count the archived tasks per status.
+	 * 
+	 * @return the task counts keyed by status
+	 */
+	Map<HostRoleStatus, Integer> getStatusCounts() {
+		Map<HostRoleStatus, Integer> statusCounts = new EnumMap<HostRoleStatus, Integer>(HostRoleStatus.class);
+		for (ArchivedTask task : tasks) {
+			Integer count = statusCounts.get(task.status);
+			statusCounts.put(task.status, count == null ? 1 : count + 1);
+		}
+		return statusCounts;
+	}
+	
+	// ----- inner classes -----------------------------------------------------
+	
+	private static class ArchivedResourceFilter {
+		private String serviceName;
+		private String componentName;
+		private String hosts;
+		
+		ArchivedResourceFilter(RequestResourceFilterEntity filterEntity) {
+			serviceName = filterEntity.getServiceName();
+			componentName = filterEntity.getComponentName();
+			hosts = filterEntity.getHosts();
+		}
+		
+		RequestResourceFilterEntity toEntity(RequestEntity requestEntity) {
+			RequestResourceFilterEntity filterEntity = new RequestResourceFilterEntity();
+			filterEntity.setRequestId(requestEntity.getRequestId());
+			filterEntity.setRequestEntity(requestEntity);
+			filterEntity.setServiceName(serviceName);
+			filterEntity.setComponentName(componentName);
+			filterEntity.setHosts(hosts);
+			return filterEntity;
+		}
+	}
+	
+	private static class ArchivedOperationLevel {
+		private String level;
+		private String clusterName;
+		private String serviceName;
+		private String hostComponentName;
+		private String hostName;
+		
+		ArchivedOperationLevel(RequestOperationLevelEntity operationLevelEntity) {
+			level = operationLevelEntity.getLevel();
+			clusterName = operationLevelEntity.getClusterName();
+			serviceName = operationLevelEntity.getServiceName();
+			hostComponentName = operationLevelEntity.getHostComponentName();
+			hostName = operationLevelEntity.getHostName();
+		}
+		
+		RequestOperationLevelEntity toEntity(RequestEntity requestEntity) {
+			RequestOperationLevelEntity operationLevelEntity = new RequestOperationLevelEntity();
+			operationLevelEntity.setRequestId(requestEntity.getRequestId());
+			operationLevelEntity.setRequestEntity(requestEntity);
+			operationLevelEntity.setLevel(level);
+			operationLevelEntity.setClusterName(clusterName);
+			operationLevelEntity.setServiceName(serviceName);
+			operationLevelEntity.setHostComponentName(hostComponentName);
+			operationLevelEntity.setHostName(hostName);
+			return operationLevelEntity;
+		}
+	}
+	
+	private static class ArchivedTask {
+		private long taskId;
+		private long stageId;
+		private String hostName;
+		private Role role;
+		private RoleCommand roleCommand;
+		private HostRoleStatus status;
+		private Integer exitCode;
+		private String stdout;
+		private String stderr;
+		private String structuredOut;
+		private Long startTime;
+		private Long endTime;
+		private Long lastAttemptTime;
+		private Short attemptCount;
+		private String event;
+		private String commandDetail;
+		private String customCommandName;
+		
+		ArchivedTask(HostRoleCommandEntity taskEntity) {
+			taskId = taskEntity.getTaskId();
+			stageId = taskEntity.getStageId();
+			hostName = taskEntity.getHostName();
+			role = taskEntity.getRole();
+			roleCommand = taskEntity.getRoleCommand();
+			status = taskEntity.getStatus();
+			exitCode = taskEntity.getExitcode();
+			stdout = taskEntity.getStdOut() != null ? new String(taskEntity.getStdOut(), CHARSET) : "";
+			stderr = taskEntity.getStdError() != null ? new String(taskEntity.getStdError(), CHARSET) : "";
+			structuredOut = taskEntity.getStructuredOut() != null ? new String(taskEntity.getStructuredOut(), CHARSET) : "";
+			startTime = taskEntity.getStartTime();
+			endTime = taskEntity.getEndTime();
+			lastAttemptTime = taskEntity.getLastAttemptTime();
+			attemptCount = taskEntity.getAttemptCount();
+			event = taskEntity.getEvent();
+			commandDetail = taskEntity.getCommandDetail();
+			customCommandName = taskEntity.getCustomCommandName();
+		}
+		
+		HostRoleCommandEntity toEntity(long requestId) {
+			StageEntity stageEntity = new StageEntity();
+			stageEntity.setRequestId(requestId);
+			stageEntity.setStageId(stageId);
+			
+			HostRoleCommandEntity taskEntity = new HostRoleCommandEntity();
+			taskEntity.setTaskId(taskId);
+			taskEntity.setRequestId(requestId);
+			taskEntity.setStageId(stageId);
+			taskEntity.setStage(stageEntity);
+			taskEntity.setHostName(hostName);
+			taskEntity.setRole(role);
+			taskEntity.setRoleCommand(roleCommand);
+			taskEntity.setStatus(status);
+			taskEntity.setExitcode(exitCode);
+			taskEntity.setStdOut(stdout.getBytes(CHARSET));
+			taskEntity.setStdError(stderr.getBytes(CHARSET));
+			taskEntity.setStructuredOut(structuredOut.getBytes(CHARSET));
+			taskEntity.setStartTime(startTime);
+			taskEntity.setEndTime(endTime);
+			taskEntity.setLastAttemptTime(lastAttemptTime);
+			taskEntity.setAttemptCount(attemptCount);
+			taskEntity.setEvent(event);
+			taskEntity.setCommandDetail(commandDetail);
+			taskEntity.setCustomCommandName(customCommandName);
+			return taskEntity;
+		}
+	}
+}
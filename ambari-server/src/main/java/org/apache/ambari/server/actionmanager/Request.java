@@ -47,6 +47,12 @@ public class Request {
 	
 	private Collection<Stage> stages = new ArrayList<Stage>();
 	
+	/**
+	 * Stage entities of a request loaded from the database; the stages are only built from them when first needed.
+	 */
+	private Collection<StageEntity> stageEntities;
+	private StageFactory stageFactory;
+	
 	@AssistedInject
 	/**
 	 * Construct new entity
@@ -135,10 +141,11 @@ public class Request {
 			this.requestScheduleId = entity.getRequestScheduleEntity().getScheduleId();
 		}
 		
-		for (StageEntity stageEntity : entity.getStages()) {
-			Stage stage = stageFactory.createExisting(stageEntity);
-			stages.add(stage);
-		}
+		// building the stages loads every command of the request, defer it until the stages are asked for
+		this.stages = null;
+		this.stageEntities = entity.getStages();
+		this.stageFactory = stageFactory;
+		
 		Collection<RequestResourceFilterEntity> resourceFilterEntities = entity.getResourceFilterEntities();
 		if (resourceFilterEntities != null) {
 			this.resourceFilters = new ArrayList<RequestResourceFilter>();
@@ -165,12 +172,23 @@ public class Request {
 		return hostList;
 	}
 	
-	public Collection<Stage> getStages() {
+	public synchronized Collection<Stage> getStages() {
+		if (stages == null) {
+			Collection<Stage> loadedStages = new ArrayList<Stage>();
+			if (stageEntities != null) {
+				for (StageEntity stageEntity : stageEntities) {
+					loadedStages.add(stageFactory.createExisting(stageEntity));
+				}
+			}
+			stages = loadedStages;
+			stageEntities = null;
+		}
 		return stages;
 	}
 	
-	public void setStages(Collection<Stage> stages) {
+	public synchronized void setStages(Collection<Stage> stages) {
 		this.stages = stages;
+		this.stageEntities = null;
 	}
 	
 	public long getRequestId() {
@@ -306,7 +324,7 @@ public class Request {
 	
 	public List<HostRoleCommand> getCommands() {
 		List<HostRoleCommand> commands = new ArrayList<HostRoleCommand>();
-		for (Stage stage : stages) {
+		for (Stage stage : getStages()) {
 			commands.addAll(stage.getOrderedHostRoleCommands());
 		}
 		return commands;
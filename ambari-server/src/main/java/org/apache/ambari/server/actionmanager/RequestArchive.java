@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Store of completed requests that were moved out of the database. Every request is kept as one gzipped JSON file named after the request id in the request archive directory.
+ */
+@Singleton
+class RequestArchive {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(RequestArchive.class);
+	
+	private static final String FILE_SUFFIX = ".json.gz";
+	private static final String CHARSET = "UTF-8";
+	
+	private final File archiveDir;
+	private final Gson gson;
+	
+	/**
+	 * True if archiving is enabled or requests were archived before; otherwise no request can be archived and lookups skip the file system.
+	 */
+	private volatile boolean enabled;
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	@Inject
+	RequestArchive(Configuration configuration, Gson gson) {
+		this.archiveDir = configuration.getRequestArchiveDir();
+		this.gson = gson;
+		this.enabled = configuration.getRequestArchiveHorizonDays() > 0 || hasArchivedRequests();
+	}
+	
+	// ----- RequestArchive ----------------------------------------------------
+	
+	/**
+	 * Determine whether or not the given request is archived.
+	 * 
+	 * @param requestId the request id
+	 * 
+	 * @return true if the request is archived
+	 */
+	boolean contains(long requestId) {
+		return enabled && getFile(requestId).isFile();
+	}
+	
+	/**
+	 * Write the given request to the archive. The file is written under a temporary name first so that readers never see a partial request.
+	 * 
+	 * @param request the request to archive
+	 * 
+	 * @throws IOException if the request could not be written
+	 */
+	void write(ArchivedRequest request) throws IOException {
+		if (!archiveDir.isDirectory() && !archiveDir.mkdirs()) { throw new IOException("Unable to create request archive directory " + archiveDir); }
+		
+		File file = getFile(request.getRequestId());
+		File tmpFile = new File(archiveDir, file.getName() + ".tmp");
+		
+		Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmpFile)), CHARSET);
+		try {
+			gson.toJson(request, writer);
+		} finally {
+			writer.close();
+		}
+		if (!tmpFile.renameTo(file)) {
+			tmpFile.delete();
+			throw new IOException("Unable to move " + tmpFile + " to " + file);
+		}
+		enabled = true;
+	}
+	
+	/**
+	 * Read an archived request.
+	 * 
+	 * @param requestId the request id
+	 * 
+	 * @return the archived request or null if the request is not archived or can not be read
+	 */
+	ArchivedRequest read(long requestId) {
+		if (!enabled) { return null; }
+		
+		File file = getFile(requestId);
+		if (!file.isFile()) { return null; }
+		
+		try {
+			Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), CHARSET);
+			try {
+				return gson.fromJson(reader, ArchivedRequest.class);
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			LOG.warn("Unable to read archived request " + requestId + " from " + file, e);
+		} catch (JsonParseException e) {
+			LOG.warn("Unable to parse archived request " + requestId + " from " + file, e);
+		}
+		return null;
+	}
+	
+	// determine whether the archive directory holds any archived request
+	private boolean hasArchivedRequests() {
+		String[] fileNames = archiveDir.list();
+		if (fileNames != null) {
+			for (String fileName : fileNames) {
+				if (fileName.endsWith(FILE_SUFFIX)) { return true; }
+			}
+		}
+		return false;
+	}
+	
+	private File getFile(long requestId) {
+		return new File(archiveDir, requestId + FILE_SUFFIX);
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
+import org.apache.ambari.server.orm.dao.RequestDAO;
+import org.apache.ambari.server.orm.entities.RequestEntity;
+import org.apache.ambari.server.state.StateVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+
+/**
+ * Periodically moves the requests that completed longer ago than the configured horizon from the database into the {@link RequestArchive}, keeping the request, stage and task tables small.
+ * Archived requests are still served on demand by {@link ActionDBAccessorImpl}.
+ */
+@Singleton
+public class RequestArchiver implements Runnable {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(RequestArchiver.class);
+	
+	/**
+	 * The number of requests read from the database at a time.
+	 */
+	private static final int BATCH_SIZE = 100;
+	
+	/**
+	 * The delay between two archiving runs in minutes.
+	 */
+	private static final long INTERVAL_MINUTES = 60;
+	
+	private final RequestDAO requestDAO;
+	private final HostRoleCommandDAO hostRoleCommandDAO;
+	private final RequestArchive requestArchive;
+	private final UnitOfWork unitOfWork;
+	private final int horizonDays;
+	private ScheduledExecutorService executor;
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	@Inject
+	RequestArchiver(RequestDAO requestDAO, HostRoleCommandDAO hostRoleCommandDAO, RequestArchive requestArchive, UnitOfWork unitOfWork, Configuration configuration) {
+		this.requestDAO = requestDAO;
+		this.hostRoleCommandDAO = hostRoleCommandDAO;
+		this.requestArchive = requestArchive;
+		this.unitOfWork = unitOfWork;
+		this.horizonDays = configuration.getRequestArchiveHorizonDays();
+	}
+	
+	// ----- RequestArchiver ---------------------------------------------------
+	
+	/**
+	 * Start archiving requests in the background. Nothing is archived if no horizon is configured.
+	 */
+	public synchronized void start() {
+		if (horizonDays <= 0 || executor != null) { return; }
+		
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "request-archiver");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(this, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+		LOG.info("Archiving requests completed more than " + horizonDays + " days ago");
+	}
+	
+	public synchronized void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+	
+	@Override
+	public void run() {
+		try {
+			unitOfWork.begin();
+			try {
+				archiveRequests(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(horizonDays));
+			} finally {
+				unitOfWork.end();
+			}
+		} catch (Throwable t) {
+			LOG.warn("Unable to archive requests", t);
+		}
+	}
+	
+	/**
+	 * Archive all of the requests that were completed before the given time. A request is only removed from the database once it has been written to the archive.
+	 * 
+	 * @param time the time in milliseconds
+	 * 
+	 * @return the number of archived requests
+	 */
+	int archiveRequests(long time) {
+		int archived = 0;
+		// page by the last request id seen so that every batch makes progress, even over requests that are skipped
+		long lastRequestId = -1;
+		List<Long> requestIds;
+		do {
+			requestIds = hostRoleCommandDAO.findRequestIdsCompletedBefore(time, lastRequestId, BATCH_SIZE);
+			for (Long requestId : requestIds) {
+				lastRequestId = requestId;
+				RequestEntity requestEntity = requestDAO.findByPK(requestId);
+				if (requestEntity == null) {
+					LOG.debug("Skipping tasks of unknown request " + requestId);
+					continue;
+				}
+				try {
+					requestArchive.write(new ArchivedRequest(requestEntity, hostRoleCommandDAO.findByRequest(requestId)));
+				} catch (IOException e) {
+					LOG.warn("Unable to archive request " + requestId + ", will retry on the next run", e);
+					return archived;
+				}
+				requestDAO.removeWithStages(requestId);
+				// the request is now served from the archive, which changes the responses that list requests
+				StateVersions.increment(StateVersions.Category.REQUESTS);
+				archived++;
+			}
+		} while (requestIds.size() == BATCH_SIZE);
+		
+		if (archived > 0) {
+			LOG.info("Archived " + archived + " requests completed before " + time);
+		}
+		return archived;
+	}
+}
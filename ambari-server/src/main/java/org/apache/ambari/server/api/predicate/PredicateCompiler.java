@@ -8,11 +8,24 @@ package org.apache.ambari.server.api.predicate;
 
 import org.apache.ambari.server.controller.spi.Predicate;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Compiler which takes a query expression as input and produces a predicate instance as output.
  */
 public class PredicateCompiler {
 	
+	/**
+	 * Maximum number of query expressions kept in the predicate cache.
+	 */
+	private static final int PREDICATE_CACHE_SIZE = 1000;
+	
+	/**
+	 * Cache of predicates keyed by query expression. Predicates are immutable so the same instance may be shared between requests.
+	 */
+	private static final Cache<String, Predicate> PREDICATE_CACHE = CacheBuilder.newBuilder().maximumSize(PREDICATE_CACHE_SIZE).build();
+	
 	/**
 	 * Lexer instance used to translate expressions into stream of tokens.
 	 */
@@ -24,13 +37,20 @@ public class PredicateCompiler {
 	private QueryParser parser = new QueryParser();
 	
 	/**
-	 * Generate a predicate from a query expression.
+	 * Generate a predicate from a query expression. The resulting predicate is cached so that repeated queries skip lexing and parsing.
 	 * 
 	 * @param exp query expression
 	 * @return a predicate instance
 	 * @throws InvalidQueryException if unable to compile the expression
 	 */
 	public Predicate compile(String exp) throws InvalidQueryException {
-		return parser.parse(lexer.tokens(exp));
+		Predicate predicate = PREDICATE_CACHE.getIfPresent(exp);
+		if (predicate == null) {
+			predicate = parser.parse(lexer.tokens(exp));
+			if (predicate != null) {
+				PREDICATE_CACHE.put(exp, predicate);
+			}
+		}
+		return predicate;
 	}
 }
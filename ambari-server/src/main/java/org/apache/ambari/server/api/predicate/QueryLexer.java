@@ -31,6 +31,11 @@ public class QueryLexer {
 	 */
 	private static final String[] ALL_DELIMS = { ".in\\(", ".isEmpty\\(", "<=", ">=", "!=", "=", "<", ">", "&", "|", "!", "(", ")" };
 	
+	/**
+	 * Pattern used to split a query expression on the valid deliminators.
+	 */
+	private static final Pattern DELIMS_PATTERN = generatePattern();
+	
 	/**
 	 * Map of token type to list of valid handlers for next token.
 	 */
@@ -107,8 +112,7 @@ public class QueryLexer {
 	 * @return list of string tokens from the query expression
 	 */
 	private List<String> parseStringTokens(String exp) {
-		Pattern pattern = generatePattern();
-		Matcher matcher = pattern.matcher(exp);
+		Matcher matcher = DELIMS_PATTERN.matcher(exp);
 		List<String> listStrTokens = new ArrayList<String>();
 		int pos = 0;
 		
@@ -132,7 +136,7 @@ public class QueryLexer {
 	 * 
 	 * @return the regex pattern
 	 */
-	private Pattern generatePattern() {
+	private static Pattern generatePattern() {
 		StringBuilder sb = new StringBuilder();
 		sb.append('(');
 		for (String delim : ALL_DELIMS) { // For each delimiter
@@ -9,19 +9,28 @@ package org.apache.ambari.server.api.services;
 import org.apache.ambari.server.api.resources.ResourceInstance;
 import org.apache.ambari.server.api.resources.ResourceInstanceFactory;
 import org.apache.ambari.server.api.resources.ResourceInstanceFactoryImpl;
+import org.apache.ambari.server.api.services.ReadRequestCoalescer.SerializedResponse;
 import org.apache.ambari.server.api.services.parsers.BodyParseException;
 import org.apache.ambari.server.api.services.parsers.JsonRequestBodyParser;
 import org.apache.ambari.server.api.services.parsers.RequestBodyParser;
 import org.apache.ambari.server.api.services.serializers.JsonSerializer;
 import org.apache.ambari.server.api.services.serializers.ResultSerializer;
 import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.state.StateVersions;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 /**
  * Provides common functionality to all services.
@@ -39,7 +48,44 @@ public abstract class BaseService {
 	private ResultSerializer m_serializer = new JsonSerializer();
 	
 	/**
-	 * All requests are funneled through this method so that common logic can be executed. Creates a request instance and invokes it's process method.
+	 * Query parameter listing the requested fields.
+	 */
+	private static final String QUERY_FIELDS = "fields";
+	
+	/**
+	 * A wildcard selecting a whole property category of the requested resource, e.g. Hosts/*.
+	 */
+	private static final Pattern VERSIONED_WILDCARD = Pattern.compile("[A-Z][A-Za-z]*/\\*");
+	
+	/**
+	 * Coalescer shared by all services; null if read requests are not coalesced.
+	 */
+	private static ReadRequestCoalescer s_readRequestCoalescer;
+	
+	/**
+	 * Whether read responses carry entity tags derived from the state versions.
+	 */
+	private static boolean s_entityTagsEnabled;
+	
+	/**
+	 * Query parameter added by clients to defeat caching; it does not change the response.
+	 */
+	private static final String CACHE_BUSTING_PARAMETER = "_";
+	
+	/**
+	 * Initialize the services.
+	 * 
+	 * @param readRequestCoalescer the coalescer; null to execute every read request on its own
+	 * @param entityTagsEnabled true to tag read responses and answer conditional requests with 304 when the underlying state did not change
+	 */
+	public static void init(ReadRequestCoalescer readRequestCoalescer, boolean entityTagsEnabled) {
+		s_readRequestCoalescer = readRequestCoalescer;
+		s_entityTagsEnabled = entityTagsEnabled;
+	}
+	
+	/**
+	 * All requests are funneled through this method so that common logic can be executed. Creates a request instance and invokes it's process method. Identical concurrent read requests of the
+	 * same user share one execution, and read requests whose entity tag still matches are answered with 304 without executing the query.
 	 * 
 	 * @param headers http headers
 	 * @param body http body
@@ -48,7 +94,37 @@ public abstract class BaseService {
 	 * @param resource resource instance that is being acted on
 	 * @return the response of the operation in serialized form
 	 */
-	protected Response handleRequest(HttpHeaders headers, String body, UriInfo uriInfo, Request.Type requestType, ResourceInstance resource) {
+	protected Response handleRequest(final HttpHeaders headers, final String body, final UriInfo uriInfo, final Request.Type requestType, final ResourceInstance resource) {
+		
+		boolean read = requestType == Request.Type.GET && (body == null || body.isEmpty());
+		
+		// the tag is computed before the query executes so that a concurrent change can only make it older than the response
+		EntityTag entityTag = read && s_entityTagsEnabled ? getEntityTag(uriInfo, resource) : null;
+		if (entityTag != null && isMatch(headers, entityTag)) { return Response.notModified(entityTag).build(); }
+		
+		ReadRequestCoalescer coalescer = s_readRequestCoalescer;
+		
+		SerializedResponse response;
+		if (read && coalescer != null) {
+			String key = entityTag == null ? getReadRequestKey(uriInfo) : getReadRequestKey(uriInfo) + " " + entityTag.getValue();
+			response = coalescer.execute(key, new Callable<SerializedResponse>() {
+				@Override
+				public SerializedResponse call() {
+					return processRequest(headers, body, uriInfo, requestType, resource);
+				}
+			});
+		} else {
+			response = processRequest(headers, body, uriInfo, requestType, resource);
+		}
+		
+		Response.ResponseBuilder builder = Response.status(response.getStatusCode()).entity(response.getEntity());
+		if (entityTag != null && response.getStatusCode() == Response.Status.OK.getStatusCode()) {
+			builder.tag(entityTag);
+		}
+		return builder.build();
+	}
+	
+	private SerializedResponse processRequest(HttpHeaders headers, String body, UriInfo uriInfo, Request.Type requestType, ResourceInstance resource) {
 		
 		Result result = new ResultImpl(new ResultStatus(ResultStatus.STATUS.OK));
 		try {
@@ -66,7 +142,115 @@ public abstract class BaseService {
 			result = new ResultImpl(new ResultStatus(ResultStatus.STATUS.BAD_REQUEST, e.getMessage()));
 		}
 		
-		return Response.status(result.getStatus().getStatusCode()).entity(getResultSerializer().serialize(result)).build();
+		return new SerializedResponse(result.getStatus().getStatusCode(), getResultSerializer().serialize(result));
+	}
+	
+	/**
+	 * Get the key identifying a read request and the user it is executed for.
+	 * 
+	 * @param uriInfo uri information
+	 * @return the request key
+	 */
+	private String getReadRequestKey(UriInfo uriInfo) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		String userName = authentication == null ? "" : authentication.getName();
+		return userName + " " + uriInfo.getRequestUri().toASCIIString();
+	}
+	
+	/**
+	 * Get the entity tag of a read request. The tag combines the versions of the state the response is computed from, qualified by the server epoch so that tags issued before a restart never
+	 * match, with the request itself, ignoring the cache busting parameter.
+	 * 
+	 * @param uriInfo uri information
+	 * @param resource resource instance that is being read
+	 * @return the entity tag or null if the response can not be tagged
+	 */
+	private EntityTag getEntityTag(UriInfo uriInfo, ResourceInstance resource) {
+		StateVersions.Category[] categories = getVersionedCategories(resource.getResourceDefinition().getType());
+		if (categories == null) { return null; }
+		
+		Map<String, List<String>> parameters = new TreeMap<String, List<String>>(uriInfo.getQueryParameters());
+		parameters.remove(CACHE_BUSTING_PARAMETER);
+		if (!isVersioned(parameters.get(QUERY_FIELDS))) { return null; }
+		
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		String key = (authentication == null ? "" : authentication.getName()) + " " + uriInfo.getPath() + " " + parameters;
+		return new EntityTag(StateVersions.getVersionTag(categories) + "-" + Integer.toHexString(key.hashCode()));
+	}
+	
+	/**
+	 * Get the categories of state the given resource type is computed from.
+	 * 
+	 * @param type the resource type
+	 * @return the categories or null if the resource is not computed from versioned state only
+	 */
+	private static StateVersions.Category[] getVersionedCategories(Resource.Type type) {
+		if (!type.isInternalType()) { return null; }
+		
+		switch (type.getInternalType()) {
+			case Cluster:
+				return StateVersions.Category.values();
+			case Host:
+				return new StateVersions.Category[] { StateVersions.Category.CLUSTERS, StateVersions.Category.HOSTS, StateVersions.Category.HOST_HEARTBEATS };
+			case Service:
+			case Component:
+			case HostComponent:
+			case Configuration:
+			case ConfigGroup:
+			case RequestSchedule:
+				return new StateVersions.Category[] { StateVersions.Category.CLUSTERS, StateVersions.Category.HOSTS };
+			case Request:
+			case Task:
+				return new StateVersions.Category[] { StateVersions.Category.REQUESTS };
+			default:
+				return null;
+		}
+	}
+	
+	/**
+	 * Determine whether the requested fields are all computed from versioned state. Only explicitly listed fields are accepted since the default field set of a single resource includes metrics.
+	 * Metrics, alerts, temporal fields and wildcards other than a whole property category of the resource itself are not versioned.
+	 * 
+	 * @param fieldsParameter the values of the fields query parameter
+	 * @return true if the fields are versioned
+	 */
+	private static boolean isVersioned(List<String> fieldsParameter) {
+		if (fieldsParameter == null || fieldsParameter.isEmpty()) { return false; }
+		
+		for (String fields : fieldsParameter) {
+			for (String field : fields.split(",")) {
+				field = field.trim();
+				if (field.contains("metrics") || field.contains("alerts") || field.contains("[")) { return false; }
+				if (field.contains("*") && !VERSIONED_WILDCARD.matcher(field).matches()) { return false; }
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Determine whether the client already holds the response with the given tag.
+	 * 
+	 * @param headers http headers
+	 * @param entityTag the tag of the current response
+	 * @return true if one of the If-None-Match tags matches
+	 */
+	private static boolean isMatch(HttpHeaders headers, EntityTag entityTag) {
+		List<String> ifNoneMatch = headers.getRequestHeader(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch == null) { return false; }
+		
+		for (String values : ifNoneMatch) {
+			for (String value : values.split(",")) {
+				value = value.trim();
+				if (value.startsWith("W/")) {
+					value = value.substring(2);
+				}
+				if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+					value = value.substring(1, value.length() - 1);
+				}
+				if (value.equals(entityTag.getValue())) { return true; }
+			}
+		}
+		return false;
 	}
 	
 	/**
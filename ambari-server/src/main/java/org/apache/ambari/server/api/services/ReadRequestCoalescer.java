@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.api.services;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ambari.server.configuration.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Shares the execution of identical concurrent read requests. The first request for a key executes and serializes the query; requests for the same key arriving while it is in flight wait for
+ * and receive the same serialized response. Optionally the successful responses are also kept for a short time so that polling clients hitting the same endpoint are served without executing
+ * the query again.
+ * <p/>
+ * The key must identify both the request and the authorization context it is executed in.
+ */
+@Singleton
+public class ReadRequestCoalescer {
+	
+	/**
+	 * The maximum number of responses kept by the short lived response cache.
+	 */
+	private static final int MAX_CACHED_RESPONSES = 1000;
+	
+	/**
+	 * The executions in flight keyed by request key.
+	 */
+	private final ConcurrentMap<String, FutureTask<SerializedResponse>> inFlight = new ConcurrentHashMap<String, FutureTask<SerializedResponse>>();
+	
+	/**
+	 * The recent successful responses keyed by request key; null if responses are not cached.
+	 */
+	private final Cache<String, SerializedResponse> recentResponses;
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	@Inject
+	public ReadRequestCoalescer(Configuration configuration) {
+		this(configuration.getApiReadCacheTtl());
+	}
+	
+	/**
+	 * Create a coalescer.
+	 * 
+	 * @param cacheTtl the time in milliseconds for which successful responses are reused; 0 to only share in flight executions
+	 */
+	public ReadRequestCoalescer(long cacheTtl) {
+		recentResponses = cacheTtl <= 0 ? null : CacheBuilder.newBuilder().expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS).maximumSize(MAX_CACHED_RESPONSES).<String, SerializedResponse> build();
+	}
+	
+	// ----- ReadRequestCoalescer ----------------------------------------------
+	
+	/**
+	 * Get the response for the given request key, executing the request only if no identical request is in flight and no recent response is cached.
+	 * 
+	 * @param key the request key
+	 * @param execution the execution of the request
+	 * 
+	 * @return the serialized response
+	 */
+	public SerializedResponse execute(String key, Callable<SerializedResponse> execution) {
+		if (recentResponses != null) {
+			SerializedResponse response = recentResponses.getIfPresent(key);
+			if (response != null) { return response; }
+		}
+		
+		FutureTask<SerializedResponse> task = new FutureTask<SerializedResponse>(execution);
+		FutureTask<SerializedResponse> runningTask = inFlight.putIfAbsent(key, task);
+		if (runningTask == null) {
+			try {
+				task.run();
+				if (recentResponses != null) {
+					SerializedResponse response = getResponse(task);
+					if (response.getStatusCode() == 200) {
+						recentResponses.put(key, response);
+					}
+				}
+			} finally {
+				inFlight.remove(key, task);
+			}
+			runningTask = task;
+		}
+		return getResponse(runningTask);
+	}
+	
+	private SerializedResponse getResponse(FutureTask<SerializedResponse> task) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+			if (cause instanceof Error) { throw (Error) cause; }
+			throw new RuntimeException(cause);
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	// ----- inner classes -----------------------------------------------------
+	
+	/**
+	 * The status code and serialized entity of a response. Instances are shared between requests and must not be modified.
+	 */
+	public static class SerializedResponse {
+		private final int statusCode;
+		private final Object entity;
+		
+		public SerializedResponse(int statusCode, Object entity) {
+			this.statusCode = statusCode;
+			this.entity = entity;
+		}
+		
+		public int getStatusCode() {
+			return statusCode;
+		}
+		
+		public Object getEntity() {
+			return entity;
+		}
+	}
+}
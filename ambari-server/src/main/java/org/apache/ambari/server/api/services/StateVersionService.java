@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.api.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Produces;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+
+import org.apache.ambari.server.state.StateVersions;
+import org.apache.ambari.server.utils.StageUtils;
+
+/**
+ * Service exposing the state versions so that pollers can cheaply check whether anything changed since the version they last saw before fetching resources again.
+ */
+@Path("/versions/")
+public class StateVersionService {
+	
+	/**
+	 * Handles: GET /versions Get the current state versions.
+	 * 
+	 * @param since the combined version last seen by the client; optional
+	 * @return the epoch, the version of every state category, the combined version and, if a version was given, whether anything changed since. The combined version is qualified by the
+	 *         epoch, so a version seen before a server restart is always reported as changed.
+	 */
+	@GET
+	@Produces("text/plain")
+	public String getVersions(@QueryParam("since") String since) {
+		Map<String, Object> versions = new LinkedHashMap<String, Object>();
+		versions.put("epoch", StateVersions.getEpoch());
+		for (StateVersions.Category category : StateVersions.Category.values()) {
+			versions.put(category.name().toLowerCase(), StateVersions.getVersion(category));
+		}
+		String version = StateVersions.getVersionTag(StateVersions.Category.values());
+		versions.put("version", version);
+		if (since != null) {
+			// the combined version only grows within an epoch, so any other version is older
+			versions.put("changed", !version.equals(since));
+		}
+		return StageUtils.getGson().toJson(versions);
+	}
+}
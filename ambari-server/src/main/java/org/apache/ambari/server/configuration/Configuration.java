@@ -40,6 +40,9 @@ public class Configuration {
 	public static final String BOOTSTRAP_DIR_DEFAULT = "/var/run/ambari-server/bootstrap";
 	public static final String VIEWS_DIR = "views.dir";
 	public static final String VIEWS_DIR_DEFAULT = "/var/lib/ambari-server/resources/views";
+	public static final String REQUEST_ARCHIVE_DIR_KEY = "server.requests.archive.dir";
+	public static final String REQUEST_ARCHIVE_DIR_DEFAULT = "/var/lib/ambari-server/data/requests";
+	public static final String REQUEST_ARCHIVE_HORIZON_DAYS_KEY = "server.requests.archive.horizon.days";
 	public static final String WEBAPP_DIR = "webapp.dir";
 	public static final String BOOTSTRAP_SCRIPT = "bootstrap.script";
 	public static final String BOOTSTRAP_SCRIPT_DEFAULT = "/usr/bin/ambari_bootstrap";
@@ -50,6 +53,9 @@ public class Configuration {
 	public static final String API_AUTHENTICATE = "api.authenticate";
 	public static final String API_USE_SSL = "api.ssl";
 	public static final String API_CSRF_PREVENTION_KEY = "api.csrfPrevention.enabled";
+	public static final String API_READ_COALESCING_KEY = "api.read.coalescing.enabled";
+	public static final String API_READ_CACHE_TTL_KEY = "api.read.cache.ttl.millis";
+	public static final String API_READ_ETAG_KEY = "api.read.etag.enabled";
 	public static final String SRVR_TWO_WAY_SSL_KEY = "security.server.two_way_ssl";
 	public static final String SRVR_TWO_WAY_SSL_PORT_KEY = "security.server.two_way_ssl.port";
 	public static final String SRVR_ONE_WAY_SSL_PORT_KEY = "security.server.one_way_ssl.port";
@@ -106,7 +112,12 @@ public class Configuration {
 	public static final String LDAP_GROUP_SEARCH_FILTER_KEY = "authorization.ldap.groupSearchFilter";
 	public static final String USER_ROLE_NAME_KEY = "authorization.userRoleName";
 	public static final String ADMIN_ROLE_NAME_KEY = "authorization.adminRoleName";
+	/**
+	 * Former count based bound of the host role command cache; replaced by {@link #SERVER_HRC_CACHE_WEIGHT} and ignored.
+	 */
 	public static final String SERVER_EC_CACHE_SIZE = "server.ecCacheSize";
+	public static final String SERVER_HRC_CACHE_WEIGHT = "server.hrcCache.maxBytes";
+	public static final String SERVER_HRC_CACHE_MAX_OUTPUT = "server.hrcCache.maxOutputBytes";
 	public static final String SERVER_PERSISTENCE_TYPE_KEY = "server.persistence.type";
 	public static final String SERVER_JDBC_USER_NAME_KEY = "server.jdbc.user.name";
 	public static final String SERVER_JDBC_USER_PASSWD_KEY = "server.jdbc.user.passwd";
@@ -118,6 +129,9 @@ public class Configuration {
 	public static final String SERVER_JDBC_RCA_USER_PASSWD_KEY = "server.jdbc.rca.user.passwd";
 	public static final String SERVER_JDBC_RCA_DRIVER_KEY = "server.jdbc.rca.driver";
 	public static final String SERVER_JDBC_RCA_URL_KEY = "server.jdbc.rca.url";
+	public static final String SERVER_JDBC_RCA_POOL_MAX_CONNECTIONS_KEY = "server.jdbc.rca.pool.max_connections";
+	public static final String SERVER_JDBC_RCA_POOL_MAX_WAIT_KEY = "server.jdbc.rca.pool.max_wait_millis";
+	public static final String SERVER_JDBC_RCA_POOL_MAX_IDLE_KEY = "server.jdbc.rca.pool.max_idle_millis";
 	public static final String SERVER_JDBC_GENERATE_TABLES_KEY = "server.jdbc.generateTables";
 	public static final String JDBC_UNIT_NAME = "ambari-server";
 	public static final String JDBC_LOCAL_URL = "jdbc:postgresql://localhost/";
@@ -184,11 +198,15 @@ public class Configuration {
 	public static final String CUSTOM_ACTION_DEFINITION_KEY = "custom.action.definitions";
 	private static final String CUSTOM_ACTION_DEFINITION_DEF_VALUE = "/var/lib/ambari-server/resources/custom_action_definitions";
 	
-	private static final long SERVER_EC_CACHE_SIZE_DEFAULT = 10000L;
+	private static final long SERVER_HRC_CACHE_WEIGHT_DEFAULT = 64L * 1024 * 1024;
+	private static final long SERVER_HRC_CACHE_MAX_OUTPUT_DEFAULT = 64L * 1024;
 	private static final String SERVER_JDBC_USER_NAME_DEFAULT = "ambari";
 	private static final String SERVER_JDBC_USER_PASSWD_DEFAULT = "bigdata";
 	private static final String SERVER_JDBC_RCA_USER_NAME_DEFAULT = "mapred";
 	private static final String SERVER_JDBC_RCA_USER_PASSWD_DEFAULT = "mapred";
+	private static final int SERVER_JDBC_RCA_POOL_MAX_CONNECTIONS_DEFAULT = 8;
+	private static final long SERVER_JDBC_RCA_POOL_MAX_WAIT_DEFAULT = 10000L;
+	private static final long SERVER_JDBC_RCA_POOL_MAX_IDLE_DEFAULT = 300000L;
 	private static final String SRVR_TWO_WAY_SSL_DEFAULT = "false";
 	private static final String SRVR_KSTR_DIR_DEFAULT = ".";
 	private static final String API_CSRF_PREVENTION_DEFAULT = "true";
@@ -231,6 +249,12 @@ public class Configuration {
 	private static final int CLIENT_THREADPOOL_SIZE_DEFAULT = 25;
 	private static final String AGENT_THREADPOOL_SIZE_KEY = "agent.threadpool.size.max";
 	private static final int AGENT_THREADPOOL_SIZE_DEFAULT = 25;
+	private static final String SERVER_JDBC_BATCH_SIZE_KEY = "server.jdbc.batch.size";
+	private static final int SERVER_JDBC_BATCH_SIZE_DEFAULT = 100;
+	private static final int REQUEST_ARCHIVE_HORIZON_DAYS_DEFAULT = 0;
+	private static final String API_READ_COALESCING_DEFAULT = "true";
+	private static final long API_READ_CACHE_TTL_DEFAULT = 0L;
+	private static final String API_READ_ETAG_DEFAULT = "true";
 	
 	private static final Logger LOG = LoggerFactory.getLogger(Configuration.class);
 	private Properties properties;
@@ -408,6 +432,16 @@ public class Configuration {
 		return new File(fileName);
 	}
 	
+	/**
+	 * Get the directory of the archived requests.
+	 * 
+	 * @return the request archive directory
+	 */
+	public File getRequestArchiveDir() {
+		String fileName = properties.getProperty(REQUEST_ARCHIVE_DIR_KEY, REQUEST_ARCHIVE_DIR_DEFAULT);
+		return new File(fileName);
+	}
+	
 	public File getBootStrapDir() {
 		String fileName = properties.getProperty(BOOTSTRAP_DIR, BOOTSTRAP_DIR_DEFAULT);
 		return new File(fileName);
@@ -599,6 +633,27 @@ public class Configuration {
 		return readPasswordFromFile(passwdProp, SERVER_JDBC_RCA_USER_PASSWD_DEFAULT);
 	}
 	
+	/**
+	 * @return the maximum number of concurrently open connections to the RCA database
+	 */
+	public int getRcaDatabasePoolMaxConnections() {
+		return Integer.parseInt(properties.getProperty(SERVER_JDBC_RCA_POOL_MAX_CONNECTIONS_KEY, String.valueOf(SERVER_JDBC_RCA_POOL_MAX_CONNECTIONS_DEFAULT)));
+	}
+	
+	/**
+	 * @return the time in milliseconds a request waits for a free RCA database connection
+	 */
+	public long getRcaDatabasePoolMaxWait() {
+		return Long.parseLong(properties.getProperty(SERVER_JDBC_RCA_POOL_MAX_WAIT_KEY, String.valueOf(SERVER_JDBC_RCA_POOL_MAX_WAIT_DEFAULT)));
+	}
+	
+	/**
+	 * @return the time in milliseconds after which an idle RCA database connection is closed
+	 */
+	public long getRcaDatabasePoolMaxIdle() {
+		return Long.parseLong(properties.getProperty(SERVER_JDBC_RCA_POOL_MAX_IDLE_KEY, String.valueOf(SERVER_JDBC_RCA_POOL_MAX_IDLE_DEFAULT)));
+	}
+	
 	private String readPasswordFromFile(String filePath, String defaultPassword) {
 		if (filePath == null) {
 			LOG.debug("DB password file not specified - using default");
@@ -773,18 +828,32 @@ public class Configuration {
 		return ambariPropertiesMap;
 	}
 	
-	public long getExecutionCommandsCacheSize() {
-		String stringValue = properties.getProperty(SERVER_EC_CACHE_SIZE);
-		long value = SERVER_EC_CACHE_SIZE_DEFAULT;
+	/**
+	 * @return estimated number of bytes the cached host role commands may take, default 64 MB
+	 */
+	public long getHostRoleCommandCacheWeight() {
+		if (properties.getProperty(SERVER_EC_CACHE_SIZE) != null) {
+			LOG.warn(SERVER_EC_CACHE_SIZE + " is no longer supported and is ignored, the host role command cache is bounded by " + SERVER_HRC_CACHE_WEIGHT);
+		}
+		return getLongProperty(SERVER_HRC_CACHE_WEIGHT, SERVER_HRC_CACHE_WEIGHT_DEFAULT);
+	}
+	
+	/**
+	 * @return size in bytes of the output of a host role command above which the command is not cached, default 64 KB
+	 */
+	public long getHostRoleCommandCacheMaxOutput() {
+		return getLongProperty(SERVER_HRC_CACHE_MAX_OUTPUT, SERVER_HRC_CACHE_MAX_OUTPUT_DEFAULT);
+	}
+	
+	private long getLongProperty(String key, long defaultValue) {
+		String stringValue = properties.getProperty(key);
 		if (stringValue != null) {
 			try {
-				value = Long.valueOf(stringValue);
+				return Long.valueOf(stringValue);
 			} catch (NumberFormatException ignored) {
 			}
-			
 		}
-		
-		return value;
+		return defaultValue;
 	}
 	
 	/**
@@ -866,4 +935,39 @@ public class Configuration {
 	public int getAgentThreadPoolSize() {
 		return Integer.parseInt(properties.getProperty(AGENT_THREADPOOL_SIZE_KEY, String.valueOf(AGENT_THREADPOOL_SIZE_DEFAULT)));
 	}
+	
+	/**
+	 * @return number of statements grouped in a single JDBC batch when writing entities, default 100
+	 */
+	public int getJdbcBatchSize() {
+		return Integer.parseInt(properties.getProperty(SERVER_JDBC_BATCH_SIZE_KEY, String.valueOf(SERVER_JDBC_BATCH_SIZE_DEFAULT)));
+	}
+	
+	/**
+	 * @return age in days after which completed requests are moved to the request archive, default 0 (never archive)
+	 */
+	public int getRequestArchiveHorizonDays() {
+		return Integer.parseInt(properties.getProperty(REQUEST_ARCHIVE_HORIZON_DAYS_KEY, String.valueOf(REQUEST_ARCHIVE_HORIZON_DAYS_DEFAULT)));
+	}
+	
+	/**
+	 * @return true if identical concurrent API read requests of the same user share one execution, default true
+	 */
+	public boolean isApiReadCoalescingEnabled() {
+		return Boolean.parseBoolean(properties.getProperty(API_READ_COALESCING_KEY, API_READ_COALESCING_DEFAULT));
+	}
+	
+	/**
+	 * @return time in milliseconds for which the response of an API read request is reused for identical requests of the same user, default 0 (never reused)
+	 */
+	public long getApiReadCacheTtl() {
+		return Long.parseLong(properties.getProperty(API_READ_CACHE_TTL_KEY, String.valueOf(API_READ_CACHE_TTL_DEFAULT)));
+	}
+	
+	/**
+	 * @return true if API read responses carry entity tags and conditional requests are answered with 304, default true
+	 */
+	public boolean isApiReadEntityTagEnabled() {
+		return Boolean.parseBoolean(properties.getProperty(API_READ_ETAG_KEY, API_READ_ETAG_DEFAULT));
+	}
 }
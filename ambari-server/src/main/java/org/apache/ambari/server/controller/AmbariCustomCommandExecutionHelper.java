@@ -453,6 +453,7 @@ public class AmbariCustomCommandExecutionHelper {
 				LOG.info("Recommissioning " + slaveCompType + " and marking Maintenance=OFF on " + sch.getHostName());
 			}
 		}
+		cluster.invalidateTopology();
 		
 		// In the event there are more than one master host the following logic is applied
 		// -- HDFS/DN, MR1/TT, YARN/NM call refresh node on both
@@ -481,7 +482,7 @@ public class AmbariCustomCommandExecutionHelper {
 			
 			ActionExecutionContext commandContext = new ActionExecutionContext(clusterName, actionExecutionContext.getActionName(), resourceFilters);
 			
-			String clusterHostInfoJson = StageUtils.getGson().toJson(StageUtils.getClusterHostInfo(clusters.getHostsForCluster(cluster.getClusterName()), cluster));
+			String clusterHostInfoJson = StageUtils.getClusterHostInfoJson(clusters.getHostsForCluster(cluster.getClusterName()), cluster);
 			
 			// Reset cluster host info as it has changed
 			stage.setClusterHostInfo(clusterHostInfoJson);
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -314,9 +315,12 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 			return;
 		}
 		
+		long startTime = System.currentTimeMillis();
+		
 		// do all validation checks
 		Map<String, Map<String, Map<String, Set<String>>>> hostComponentNames = new HashMap<String, Map<String, Map<String, Set<String>>>>();
 		Set<String> duplicates = new HashSet<String>();
+		Set<Service> restartRequiredServices = new HashSet<Service>();
 		for (ServiceComponentHostRequest request : requests) {
 			validateServiceComponentHostRequest(request);
 			
@@ -363,7 +367,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 			}
 			ServiceComponent sc = s.getServiceComponent(request.getComponentName());
 			
-			setRestartRequiredServices(s);
+			restartRequiredServices.add(s);
 			
 			Host host;
 			try {
@@ -418,15 +422,32 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 			throw new DuplicateResourceException(msg + names.toString());
 		}
 		
-		// set restartRequired flag for monitoring services
+		long validatedTime = System.currentTimeMillis();
+		
+		// set restartRequired flag once per affected service and for monitoring services
+		for (Service s : restartRequiredServices) {
+			setRestartRequiredServices(s);
+		}
 		setMonitoringServicesRestartRequired(requests);
 		// now doing actual work
 		persistServiceComponentHosts(requests);
+		
+		if (LOG.isInfoEnabled()) {
+			LOG.info("Created host components" + ", count=" + requests.size() + ", validationTime=" + (validatedTime - startTime) + "ms" + ", totalTime=" + (System.currentTimeMillis() - startTime) + "ms");
+		}
 	}
 	
-	@Transactional
+	/**
+	 * Create the host components of already validated requests. The host components are built in memory first, their entities are then written so that the inserts are grouped into
+	 * JDBC batches, and finally they are registered with the in-memory model once per service component. Writing and registering happen in one transaction, see
+	 * {@link #persistAndRegisterServiceComponentHosts(Map)}.
+	 */
 	void persistServiceComponentHosts(Set<ServiceComponentHostRequest> requests) throws AmbariException {
+		long startTime = System.currentTimeMillis();
 		
+		// [ ServiceComponent -> [ HostName -> ServiceComponentHost ] ]
+		Map<ServiceComponent, Map<String, ServiceComponentHost>> hostComponents = new LinkedHashMap<ServiceComponent, Map<String, ServiceComponentHost>>();
+		Set<String> hostnames = new HashSet<String>();
 		for (ServiceComponentHostRequest request : requests) {
 			Cluster cluster = clusters.getCluster(request.getClusterName());
 			Service s = cluster.getService(request.getServiceName());
@@ -441,15 +462,91 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 			
 			sch.setDesiredStackVersion(sc.getDesiredStackVersion());
 			
-			sc.addServiceComponentHost(sch);
-			sch.persist();
+			Map<String, ServiceComponentHost> componentHosts = hostComponents.get(sc);
+			if (componentHosts == null) {
+				componentHosts = new HashMap<String, ServiceComponentHost>();
+				hostComponents.put(sc, componentHosts);
+			}
+			componentHosts.put(request.getHostname(), sch);
+			hostnames.add(request.getHostname());
+		}
+		long builtTime = System.currentTimeMillis();
+		
+		try {
+			persistAndRegisterServiceComponentHosts(hostComponents);
+		} finally {
+			// reload the entities after the commit or the rollback, which also drops the links to host component entities that were rolled back
+			for (ServiceComponent sc : hostComponents.keySet()) {
+				sc.refresh();
+			}
+			for (String hostname : hostnames) {
+				clusters.getHost(hostname).refresh();
+			}
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Persisted host components" + ", count=" + requests.size() + ", components=" + hostComponents.size() + ", hosts=" + hostnames.size() + ", buildTime=" + (builtTime - startTime) + "ms"
+					+ ", persistAndRegisterTime=" + (System.currentTimeMillis() - builtTime) + "ms");
+		}
+	}
+	
+	/**
+	 * Write the entities of the given host components and register them with their service components. If the registration fails the inserts are rolled back and the host components
+	 * registered so far are removed from the in-memory model again, so that neither rows nor host components are left behind.
+	 */
+	@Transactional(rollbackOn = { RuntimeException.class, AmbariException.class })
+	void persistAndRegisterServiceComponentHosts(Map<ServiceComponent, Map<String, ServiceComponentHost>> hostComponents) throws AmbariException {
+		persistServiceComponentHostEntities(hostComponents.values());
+		
+		List<ServiceComponent> registered = new ArrayList<ServiceComponent>();
+		try {
+			for (Entry<ServiceComponent, Map<String, ServiceComponentHost>> entry : hostComponents.entrySet()) {
+				entry.getKey().addServiceComponentHosts(entry.getValue());
+				registered.add(entry.getKey());
+			}
+		} catch (AmbariException e) {
+			unregisterServiceComponentHosts(registered, hostComponents);
+			throw e;
+		} catch (RuntimeException e) {
+			unregisterServiceComponentHosts(registered, hostComponents);
+			throw e;
+		}
+	}
+	
+	private void persistServiceComponentHostEntities(Collection<Map<String, ServiceComponentHost>> hostComponents) {
+		for (Map<String, ServiceComponentHost> componentHosts : hostComponents) {
+			for (ServiceComponentHost sch : componentHosts.values()) {
+				sch.persistWithoutRefresh();
+			}
+		}
+	}
+	
+	// undo the registration of the host components of the given service components after a failure; the original failure is the one reported
+	private void unregisterServiceComponentHosts(List<ServiceComponent> registered, Map<ServiceComponent, Map<String, ServiceComponentHost>> hostComponents) {
+		for (ServiceComponent sc : registered) {
+			try {
+				sc.removeServiceComponentHosts(hostComponents.get(sc).values());
+			} catch (AmbariException e) {
+				LOG.warn("Unable to remove the host components of " + sc.getServiceName() + "/" + sc.getName() + " after a failed registration", e);
+			}
 		}
 	}
 	
 	private void setMonitoringServicesRestartRequired(Set<ServiceComponentHostRequest> requests) throws AmbariException {
 		
+		// group the hosts by cluster so that the monitoring components are visited once per cluster rather than once per request
+		Map<String, Set<String>> hostnamesByCluster = new HashMap<String, Set<String>>();
 		for (ServiceComponentHostRequest request : requests) {
-			Cluster cluster = clusters.getCluster(request.getClusterName());
+			Set<String> hostnames = hostnamesByCluster.get(request.getClusterName());
+			if (hostnames == null) {
+				hostnames = new HashSet<String>();
+				hostnamesByCluster.put(request.getClusterName(), hostnames);
+			}
+			hostnames.add(request.getHostname());
+		}
+		
+		for (Entry<String, Set<String>> entry : hostnamesByCluster.entrySet()) {
+			Cluster cluster = clusters.getCluster(entry.getKey());
 			
 			StackId stackId = cluster.getCurrentStackVersion();
 			List<String> monitoringServices = ambariMetaInfo.getMonitoringServiceNames(stackId.getStackName(), stackId.getStackVersion());
@@ -459,17 +556,19 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 					Service service = cluster.getService(serviceName);
 					
 					for (ServiceComponent sc : service.getServiceComponents().values()) {
+						Map<String, ServiceComponentHost> schMap = sc.getServiceComponentHosts();
 						if (sc.isMasterComponent()) {
-							for (ServiceComponentHost sch : sc.getServiceComponentHosts().values()) {
+							for (ServiceComponentHost sch : schMap.values()) {
 								sch.setRestartRequired(true);
 							}
 							continue;
 						}
 						
-						String hostname = request.getHostname();
-						if (sc.getServiceComponentHosts().containsKey(hostname)) {
-							ServiceComponentHost sch = sc.getServiceComponentHost(hostname);
-							sch.setRestartRequired(true);
+						for (String hostname : entry.getValue()) {
+							ServiceComponentHost sch = schMap.get(hostname);
+							if (sch != null) {
+								sch.setRestartRequired(true);
+							}
 						}
 					}
 				}
@@ -644,7 +743,6 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 		
 		Set<ServiceComponentHostResponse> response = new HashSet<ServiceComponentHostResponse>();
 		
-		boolean checkDesiredState = false;
 		State desiredStateToCheck = null;
 		boolean filterBasedConfigStaleness = false;
 		boolean staleConfig = true;
@@ -655,11 +753,24 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 		if (request.getDesiredState() != null && !request.getDesiredState().isEmpty()) {
 			desiredStateToCheck = State.valueOf(request.getDesiredState());
 			if (!desiredStateToCheck.isValidDesiredState()) { throw new IllegalArgumentException("Invalid arguments, invalid desired" + " state, desiredState=" + desiredStateToCheck); }
-			checkDesiredState = true;
 		}
 		
 		Map<String, Host> hosts = clusters.getHostsForCluster(cluster.getClusterName());
 		
+		if (request.getHostname() != null && request.getComponentName() == null) {
+			// all host components of a host; use the cluster host index rather than probing every component of every service
+			for (ServiceComponentHost sch : cluster.getServiceComponentHosts(request.getHostname())) {
+				if (request.getServiceName() != null && !request.getServiceName().isEmpty() && !request.getServiceName().equals(sch.getServiceName())) {
+					continue;
+				}
+				ServiceComponentHostResponse r = getHostComponentResponse(cluster, sch, hosts, request, desiredStateToCheck, filterBasedConfigStaleness, staleConfig);
+				if (r != null) {
+					response.add(r);
+				}
+			}
+			return response;
+		}
+		
 		for (Service s : services) {
 			// filter on component name if provided
 			Set<ServiceComponent> components = new HashSet<ServiceComponent>();
@@ -689,26 +800,10 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 						
 						ServiceComponentHost sch = serviceComponentHostMap.get(request.getHostname());
 						
-						if (checkDesiredState && (desiredStateToCheck != sch.getDesiredState())) {
-							continue;
-						}
-						if (request.getAdminState() != null) {
-							String stringToMatch = sch.getComponentAdminState() == null ? "" : sch.getComponentAdminState().name();
-							if (!request.getAdminState().equals(stringToMatch)) {
-								continue;
-							}
-						}
-						
-						ServiceComponentHostResponse r = sch.convertToResponse();
-						if (filterBasedConfigStaleness && r.isStaleConfig() != staleConfig) {
-							continue;
+						ServiceComponentHostResponse r = getHostComponentResponse(cluster, sch, hosts, request, desiredStateToCheck, filterBasedConfigStaleness, staleConfig);
+						if (r != null) {
+							response.add(r);
 						}
-						
-						Host host = hosts.get(sch.getHostName());
-						if (host == null) { throw new HostNotFoundException(cluster.getClusterName(), sch.getHostName()); }
-						
-						r.setMaintenanceState(maintenanceStateHelper.getEffectiveState(sch, host).name());
-						response.add(r);
 					} catch (ServiceComponentHostNotFoundException e) {
 						if (request.getServiceName() != null && request.getComponentName() != null) {
 							LOG.error("ServiceComponentHost not found ", e);
@@ -722,27 +817,10 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 					}
 				} else {
 					for (ServiceComponentHost sch : serviceComponentHostMap.values()) {
-						if (checkDesiredState && (desiredStateToCheck != sch.getDesiredState())) {
-							continue;
-						}
-						
-						if (request.getAdminState() != null) {
-							String stringToMatch = sch.getComponentAdminState() == null ? "" : sch.getComponentAdminState().name();
-							if (!request.getAdminState().equals(stringToMatch)) {
-								continue;
-							}
-						}
-						
-						ServiceComponentHostResponse r = sch.convertToResponse();
-						if (filterBasedConfigStaleness && r.isStaleConfig() != staleConfig) {
-							continue;
+						ServiceComponentHostResponse r = getHostComponentResponse(cluster, sch, hosts, request, desiredStateToCheck, filterBasedConfigStaleness, staleConfig);
+						if (r != null) {
+							response.add(r);
 						}
-						
-						Host host = hosts.get(sch.getHostName());
-						if (host == null) { throw new HostNotFoundException(cluster.getClusterName(), sch.getHostName()); }
-						
-						r.setMaintenanceState(maintenanceStateHelper.getEffectiveState(sch, host).name());
-						response.add(r);
 					}
 				}
 			}
@@ -750,6 +828,30 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 		return response;
 	}
 	
+	/**
+	 * Convert a host component to a response if it matches the desired state, admin state and stale config filters of the request.
+	 * 
+	 * @return the response or null if the host component is filtered out
+	 */
+	private ServiceComponentHostResponse getHostComponentResponse(Cluster cluster, ServiceComponentHost sch, Map<String, Host> hosts, ServiceComponentHostRequest request,
+			State desiredStateToCheck, boolean filterBasedConfigStaleness, boolean staleConfig) throws AmbariException {
+		if (desiredStateToCheck != null && desiredStateToCheck != sch.getDesiredState()) { return null; }
+		
+		if (request.getAdminState() != null) {
+			String stringToMatch = sch.getComponentAdminState() == null ? "" : sch.getComponentAdminState().name();
+			if (!request.getAdminState().equals(stringToMatch)) { return null; }
+		}
+		
+		ServiceComponentHostResponse r = sch.convertToResponse();
+		if (filterBasedConfigStaleness && r.isStaleConfig() != staleConfig) { return null; }
+		
+		Host host = hosts.get(sch.getHostName());
+		if (host == null) { throw new HostNotFoundException(cluster.getClusterName(), sch.getHostName()); }
+		
+		r.setMaintenanceState(maintenanceStateHelper.getEffectiveState(sch, host).name());
+		return r;
+	}
+	
 	@Override
 	public MaintenanceState getEffectiveMaintenanceState(ServiceComponentHost sch) throws AmbariException {
 		
@@ -1207,9 +1309,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 			
 			// FIXME cannot work with a single stage
 			// multiple stages may be needed for reconfigure
-			Map<String, Set<String>> clusterHostInfo = StageUtils.getClusterHostInfo(clusters.getHostsForCluster(cluster.getClusterName()), cluster);
-			
-			String clusterHostInfoJson = StageUtils.getGson().toJson(clusterHostInfo);
+			String clusterHostInfoJson = StageUtils.getClusterHostInfoJson(clusters.getHostsForCluster(cluster.getClusterName()), cluster);
 			
 			Stage stage = createNewStage(requestStages.getLastStageId() + 1, cluster, requestStages.getId(), requestProperties.get(REQUEST_CONTEXT_PROPERTY), clusterHostInfoJson);
 			
@@ -1993,9 +2093,7 @@ public class AmbariManagementControllerImpl implements AmbariManagementControlle
 			actionExecutionHelper.validateAction(actionRequest);
 		}
 		
-		Map<String, Set<String>> clusterHostInfo = StageUtils.getClusterHostInfo(clusters.getHostsForCluster(cluster.getClusterName()), cluster);
-		
-		String clusterHostInfoJson = StageUtils.getGson().toJson(clusterHostInfo);
+		String clusterHostInfoJson = StageUtils.getClusterHostInfoJson(clusters.getHostsForCluster(cluster.getClusterName()), cluster);
 		Stage stage = createNewStage(0, cluster, actionManager.getNextRequestId(), requestContext, clusterHostInfoJson);
 		
 		Map<String, String> params = createDefaultHostParams(cluster);
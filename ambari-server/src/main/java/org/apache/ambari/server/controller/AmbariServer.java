@@ -16,15 +16,18 @@ import com.google.inject.name.Named;
 import org.apache.ambari.eventdb.webservice.WorkflowJsonService;
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.actionmanager.ActionManager;
+import org.apache.ambari.server.actionmanager.RequestArchiver;
 import org.apache.ambari.server.agent.HeartBeatHandler;
 import org.apache.ambari.server.agent.rest.AgentResource;
 import org.apache.ambari.server.api.AmbariErrorHandler;
 import org.apache.ambari.server.api.AmbariPersistFilter;
 import org.apache.ambari.server.api.rest.BootStrapResource;
 import org.apache.ambari.server.api.services.AmbariMetaInfo;
+import org.apache.ambari.server.api.services.BaseService;
 import org.apache.ambari.server.api.services.KeyService;
 import org.apache.ambari.server.api.services.PersistKeyValueImpl;
 import org.apache.ambari.server.api.services.PersistKeyValueService;
+import org.apache.ambari.server.api.services.ReadRequestCoalescer;
 import org.apache.ambari.server.bootstrap.BootStrapImpl;
 import org.apache.ambari.server.configuration.ComponentSSLConfiguration;
 import org.apache.ambari.server.configuration.Configuration;
@@ -33,10 +36,12 @@ import org.apache.ambari.server.controller.internal.BlueprintResourceProvider;
 import org.apache.ambari.server.controller.internal.ClusterResourceProvider;
 import org.apache.ambari.server.controller.internal.StackDefinedPropertyProvider;
 import org.apache.ambari.server.controller.internal.StackDependencyResourceProvider;
+import org.apache.ambari.server.controller.internal.TaskResourceProvider;
 import org.apache.ambari.server.controller.nagios.NagiosPropertyProvider;
 import org.apache.ambari.server.orm.GuiceJpaInitializer;
 import org.apache.ambari.server.orm.PersistenceType;
 import org.apache.ambari.server.orm.dao.BlueprintDAO;
+import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
 import org.apache.ambari.server.orm.dao.MetainfoDAO;
 import org.apache.ambari.server.orm.dao.ViewDAO;
 import org.apache.ambari.server.orm.dao.ViewInstanceDAO;
@@ -372,6 +377,8 @@ public class AmbariServer {
 			executionScheduleManager.start();
 			LOG.info("********* Started Scheduled Request Manager **********");
 			
+			injector.getInstance(RequestArchiver.class).start();
+			
 			server.join();
 			LOG.info("Joined the Server");
 		} catch (BadPaddingException bpe) {
@@ -434,6 +441,8 @@ public class AmbariServer {
 		} catch (Exception e) {
 			LOG.error("Error stopping the server", e);
 		}
+		injector.getInstance(RequestArchiver.class).stop();
+		ViewRegistry.getInstance().flushInstanceData();
 	}
 	
 	/**
@@ -456,7 +465,9 @@ public class AmbariServer {
 		BlueprintResourceProvider.init(injector.getInstance(BlueprintDAO.class), injector.getInstance(Gson.class), ambariMetaInfo);
 		StackDependencyResourceProvider.init(ambariMetaInfo);
 		ClusterResourceProvider.init(injector.getInstance(BlueprintDAO.class), ambariMetaInfo);
+		TaskResourceProvider.init(injector.getInstance(HostRoleCommandDAO.class));
 		ViewRegistry.init(injector.getInstance(ViewDAO.class), injector.getInstance(ViewInstanceDAO.class));
+		BaseService.init(configs.isApiReadCoalescingEnabled() ? injector.getInstance(ReadRequestCoalescer.class) : null, configs.isApiReadEntityTagEnabled());
 	}
 	
 	public static void main(String[] args) throws Exception {
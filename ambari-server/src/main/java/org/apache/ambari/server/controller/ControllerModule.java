@@ -66,6 +66,7 @@ import java.security.SecureRandom;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import static org.eclipse.persistence.config.PersistenceUnitProperties.BATCH_WRITING_SIZE;
 import static org.eclipse.persistence.config.PersistenceUnitProperties.CREATE_JDBC_DDL_FILE;
 import static org.eclipse.persistence.config.PersistenceUnitProperties.CREATE_ONLY;
 import static org.eclipse.persistence.config.PersistenceUnitProperties.CREATE_OR_EXTEND;
@@ -121,6 +122,9 @@ public class ControllerModule extends AbstractModule {
 			}
 		}
 		
+		// statements are grouped by the jdbc batch writing configured in persistence.xml
+		properties.setProperty(BATCH_WRITING_SIZE, String.valueOf(configuration.getJdbcBatchSize()));
+		
 		switch (configuration.getPersistenceType()) {
 		case IN_MEMORY:
 			properties.setProperty(JDBC_URL, Configuration.JDBC_IN_MEMORY_URL);
@@ -168,9 +172,10 @@ public class ControllerModule extends AbstractModule {
 		bindConstant().annotatedWith(Names.named("dbInitNeeded")).to(dbInitNeeded);
 		bindConstant().annotatedWith(Names.named("statusCheckInterval")).to(5000L);
 		
-		// ExecutionCommands cache size
+		// HostRoleCommands cache bounds
 		
-		bindConstant().annotatedWith(Names.named("executionCommandCacheSize")).to(configuration.getExecutionCommandsCacheSize());
+		bindConstant().annotatedWith(Names.named("hostRoleCommandCacheWeight")).to(configuration.getHostRoleCommandCacheWeight());
+		bindConstant().annotatedWith(Names.named("hostRoleCommandCacheMaxOutput")).to(configuration.getHostRoleCommandCacheMaxOutput());
 		
 		bind(AmbariManagementController.class).to(AmbariManagementControllerImpl.class);
 		bind(AbstractRootServiceResponseFactory.class).to(RootServiceResponseFactory.class);
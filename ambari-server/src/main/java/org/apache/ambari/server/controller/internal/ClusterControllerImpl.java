@@ -6,6 +6,19 @@
 
 package org.apache.ambari.server.controller.internal;
 
+import org.apache.ambari.server.controller.predicate.AlwaysPredicate;
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.ArrayPredicate;
+import org.apache.ambari.server.controller.predicate.CategoryIsEmptyPredicate;
+import org.apache.ambari.server.controller.predicate.CompiledPredicate;
+import org.apache.ambari.server.controller.predicate.EqualsPredicate;
+import org.apache.ambari.server.controller.predicate.GreaterEqualsPredicate;
+import org.apache.ambari.server.controller.predicate.GreaterPredicate;
+import org.apache.ambari.server.controller.predicate.LessEqualsPredicate;
+import org.apache.ambari.server.controller.predicate.LessPredicate;
+import org.apache.ambari.server.controller.predicate.NotPredicate;
+import org.apache.ambari.server.controller.predicate.OrPredicate;
+import org.apache.ambari.server.controller.predicate.UnaryPredicate;
 import org.apache.ambari.server.controller.spi.ProviderModule;
 import org.apache.ambari.server.controller.spi.*;
 import org.apache.ambari.server.controller.utilities.PredicateBuilder;
@@ -14,6 +27,10 @@ import org.apache.ambari.server.controller.utilities.PropertyHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -64,6 +81,24 @@ public class ClusterControllerImpl implements ClusterController {
 	 */
 	private static final DefaultResourcePredicateEvaluator DEFAULT_RESOURCE_PREDICATE_EVALUATOR = new DefaultResourcePredicateEvaluator();
 	
+	/**
+	 * Maximum number of compiled predicates to cache.
+	 */
+	private static final int COMPILED_PREDICATE_CACHE_SIZE = 1000;
+	
+	/**
+	 * Predicate types that compare by value and hold no per-request state. Only predicates built entirely from these types are cached, other predicates (e.g. the extended resource
+	 * predicates of a request) are compiled for each call.
+	 */
+	private static final Set<Class<?>> CACHEABLE_PREDICATE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>> asList(EqualsPredicate.class, GreaterPredicate.class,
+			GreaterEqualsPredicate.class, LessPredicate.class, LessEqualsPredicate.class, AndPredicate.class, OrPredicate.class, NotPredicate.class, CategoryIsEmptyPredicate.class,
+			AlwaysPredicate.class));
+	
+	/**
+	 * Cache of compiled predicates keyed by the source predicate.
+	 */
+	private final Cache<Predicate, Predicate> compiledPredicates = CacheBuilder.newBuilder().maximumSize(COMPILED_PREDICATE_CACHE_SIZE).build();
+	
 	// ----- Constructors ------------------------------------------------------
 	
 	public ClusterControllerImpl(ProviderModule providerModule) {
@@ -121,6 +156,10 @@ public class ClusterControllerImpl implements ClusterController {
 		ResourcePredicateEvaluator evaluator = provider instanceof ResourcePredicateEvaluator ? (ResourcePredicateEvaluator) provider : DEFAULT_RESOURCE_PREDICATE_EVALUATOR;
 		
 		if (!providerResources.isEmpty()) {
+			if (evaluator == DEFAULT_RESOURCE_PREDICATE_EVALUATOR) {
+				predicate = getCompiledPredicate(predicate);
+			}
+			
 			Comparator<Resource> resourceComparator = pageRequest == null || pageRequest.getComparator() == null ? comparator : pageRequest.getComparator();
 			
 			TreeSet<Resource> sortedResources = new TreeSet<Resource>(resourceComparator);
@@ -372,6 +411,43 @@ public class ClusterControllerImpl implements ClusterController {
 		return propertyProviders.get(type);
 	}
 	
+	/**
+	 * Get the compiled form of the given predicate for evaluation against the resources of a page.
+	 * 
+	 * @param predicate the predicate; may be null
+	 * @return the compiled predicate; null if the given predicate is null
+	 */
+	private Predicate getCompiledPredicate(Predicate predicate) {
+		if (predicate == null) { return null; }
+		
+		if (!isCacheable(predicate)) { return CompiledPredicate.compile(predicate); }
+		
+		Predicate compiledPredicate = compiledPredicates.getIfPresent(predicate);
+		if (compiledPredicate == null) {
+			compiledPredicate = CompiledPredicate.compile(predicate);
+			compiledPredicates.put(predicate, compiledPredicate);
+		}
+		return compiledPredicate;
+	}
+	
+	/**
+	 * Determine whether the compiled form of the given predicate may be cached, i.e. whether the predicate and all of its operands are of a cacheable type.
+	 * 
+	 * @param predicate the predicate
+	 * @return true if the compiled predicate may be cached
+	 */
+	private static boolean isCacheable(Predicate predicate) {
+		if (!CACHEABLE_PREDICATE_TYPES.contains(predicate.getClass())) { return false; }
+		
+		if (predicate instanceof ArrayPredicate) {
+			for (Predicate operand : ((ArrayPredicate) predicate).getPredicates()) {
+				if (!isCacheable(operand)) { return false; }
+			}
+		}
+		if (predicate instanceof UnaryPredicate) { return isCacheable(((UnaryPredicate) predicate).getPredicate()); }
+		return true;
+	}
+	
 	/**
 	 * Get one page of resources from the given set of resources starting at the given offset.
 	 * 
@@ -0,0 +1,396 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.internal;
+
+import org.apache.ambari.server.controller.predicate.AlwaysPredicate;
+import org.apache.ambari.server.controller.predicate.ArrayPredicate;
+import org.apache.ambari.server.controller.predicate.AndPredicate;
+import org.apache.ambari.server.controller.predicate.CategoryPredicate;
+import org.apache.ambari.server.controller.predicate.ComparisonPredicate;
+import org.apache.ambari.server.controller.predicate.EqualsPredicate;
+import org.apache.ambari.server.controller.predicate.GreaterEqualsPredicate;
+import org.apache.ambari.server.controller.predicate.GreaterPredicate;
+import org.apache.ambari.server.controller.predicate.LessEqualsPredicate;
+import org.apache.ambari.server.controller.predicate.LessPredicate;
+import org.apache.ambari.server.controller.predicate.NotPredicate;
+import org.apache.ambari.server.controller.predicate.OrPredicate;
+import org.apache.ambari.server.controller.predicate.PredicateVisitor;
+import org.apache.ambari.server.controller.predicate.UnaryPredicate;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A predicate visitor used to translate a predicate into a JPQL condition over the attributes of an entity. Only comparisons on mapped properties are translated. Parts of the predicate that can
+ * not be translated are relaxed (treated as TRUE) so that the resulting condition selects a super set of the resources selected by the predicate; the complete predicate is still applied to the
+ * resulting resources in memory. Range comparisons are only translated for numeric attributes since database collation may differ from the in memory string comparison.
+ */
+public class JpaPredicateVisitor implements PredicateVisitor {
+	
+	/**
+	 * Placeholder used for query parameters until the parameter names are known.
+	 */
+	private static final String PARAMETER_PLACEHOLDER = "?";
+	
+	/**
+	 * The entity alias used in the JPQL condition.
+	 */
+	private final String alias;
+	
+	/**
+	 * The prefix of the named query parameters.
+	 */
+	private final String parameterPrefix;
+	
+	/**
+	 * Map of entity attributes keyed by property id.
+	 */
+	private final Map<String, Attribute> attributes = new HashMap<String, Attribute>();
+	
+	/**
+	 * The condition for the last visited predicate; null if the predicate could not be translated.
+	 */
+	private Condition lastVisited = null;
+	
+	/**
+	 * Indicates whether or not the visited predicates have been completely translated.
+	 */
+	private boolean complete = true;
+	
+	/**
+	 * The property ids that were translated.
+	 */
+	private final Set<String> translatedPropertyIds = new HashSet<String>();
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param alias the entity alias used in the JPQL condition
+	 * @param parameterPrefix the prefix of the named query parameters; must not collide with other parameter names of the query
+	 */
+	public JpaPredicateVisitor(String alias, String parameterPrefix) {
+		this.alias = alias;
+		this.parameterPrefix = parameterPrefix;
+	}
+	
+	// ----- JpaPredicateVisitor -----------------------------------------------
+	
+	/**
+	 * Map a property id to an entity attribute.
+	 * 
+	 * @param propertyId the property id
+	 * @param attributeName the entity attribute name
+	 * @param type the entity attribute type; String, an enum or a numeric type
+	 * @return this visitor
+	 */
+	public JpaPredicateVisitor addAttribute(String propertyId, String attributeName, Class<?> type) {
+		attributes.put(propertyId, new Attribute(alias + "." + attributeName, type));
+		return this;
+	}
+	
+	/**
+	 * Get the JPQL condition for the visited predicate.
+	 * 
+	 * @return the JPQL condition; null if no part of the predicate could be translated
+	 */
+	public String getCondition() {
+		if (lastVisited == null) { return null; }
+		
+		StringBuilder sb = new StringBuilder();
+		String jpql = lastVisited.jpql;
+		int position = 1;
+		int start = 0;
+		int index;
+		while ((index = jpql.indexOf(PARAMETER_PLACEHOLDER, start)) != -1) {
+			sb.append(jpql, start, index).append(':').append(parameterPrefix).append(position++);
+			start = index + 1;
+		}
+		sb.append(jpql.substring(start));
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Get the named query parameters for the JPQL condition.
+	 * 
+	 * @return the query parameters keyed by parameter name
+	 */
+	public Map<String, Object> getParameters() {
+		Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+		if (lastVisited != null) {
+			int position = 1;
+			for (Object parameter : lastVisited.parameters) {
+				parameters.put(parameterPrefix + position++, parameter);
+			}
+		}
+		return parameters;
+	}
+	
+	/**
+	 * Determine whether or not the visited predicate was completely translated. If so, the condition selects exactly the resources selected by the predicate and limits may be applied in the
+	 * query.
+	 * 
+	 * @return true if the predicate was completely translated
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+	
+	/**
+	 * Get the ids of the properties that are referenced by the JPQL condition.
+	 * 
+	 * @return the translated property ids
+	 */
+	public Set<String> getTranslatedPropertyIds() {
+		return translatedPropertyIds;
+	}
+	
+	// ----- PredicateVisitor --------------------------------------------------
+	
+	@Override
+	public void acceptComparisonPredicate(ComparisonPredicate predicate) {
+		String propertyId = predicate.getPropertyId();
+		Attribute attribute = attributes.get(propertyId);
+		
+		lastVisited = null;
+		
+		if (attribute != null) {
+			String operator = getOperator(predicate, attribute);
+			
+			if (operator != null) {
+				if (predicate.getValue() == null) {
+					if (operator.equals("=")) {
+						lastVisited = new Condition(attribute.path + " IS NULL", Collections.emptyList());
+						lastVisited.nullAttribute = attribute;
+					}
+				} else {
+					Object value = attribute.convert(predicate.getValue());
+					if (value != null) {
+						lastVisited = new Condition(attribute.path + " " + operator + " " + PARAMETER_PLACEHOLDER, Collections.singletonList(value));
+						if (operator.equals("=")) {
+							lastVisited.equalsAttribute = attribute;
+							lastVisited.equalsValues = Collections.singletonList(value);
+						}
+					}
+				}
+			}
+		}
+		
+		if (lastVisited == null) {
+			complete = false;
+		} else {
+			translatedPropertyIds.add(propertyId);
+		}
+	}
+	
+	@Override
+	public void acceptArrayPredicate(ArrayPredicate arrayPredicate) {
+		boolean isAnd = arrayPredicate instanceof AndPredicate;
+		boolean isOr = arrayPredicate instanceof OrPredicate;
+		
+		if (!isAnd && !isOr) {
+			lastVisited = null;
+			complete = false;
+			return;
+		}
+		
+		List<Condition> conditions = new ArrayList<Condition>();
+		boolean allTranslated = true;
+		
+		for (Predicate predicate : arrayPredicate.getPredicates()) {
+			lastVisited = null;
+			PredicateHelper.visit(predicate, this);
+			if (lastVisited == null) {
+				allTranslated = false;
+			} else {
+				conditions.add(lastVisited);
+			}
+		}
+		
+		// a disjunction with an untranslated (relaxed to TRUE) operand selects everything
+		if (conditions.isEmpty() || (isOr && !allTranslated)) {
+			lastVisited = null;
+			return;
+		}
+		
+		if (conditions.size() == 1) {
+			lastVisited = conditions.get(0);
+			return;
+		}
+		
+		if (isOr) {
+			lastVisited = getInCondition(conditions);
+			if (lastVisited != null) { return; }
+		}
+		
+		StringBuilder sb = new StringBuilder("(");
+		List<Object> parameters = new ArrayList<Object>();
+		for (Condition condition : conditions) {
+			if (sb.length() > 1) {
+				sb.append(isAnd ? " AND " : " OR ");
+			}
+			sb.append(condition.jpql);
+			parameters.addAll(condition.parameters);
+		}
+		sb.append(")");
+		lastVisited = new Condition(sb.toString(), parameters);
+	}
+	
+	@Override
+	public void acceptUnaryPredicate(UnaryPredicate predicate) {
+		lastVisited = null;
+		
+		// only negated equality is translated; SQL comparisons with NULL evaluate to unknown so NULL must be selected explicitly
+		Predicate operand = predicate.getPredicate();
+		if (predicate instanceof NotPredicate && operand instanceof EqualsPredicate) {
+			PredicateHelper.visit(operand, this);
+			Condition condition = lastVisited;
+			
+			if (condition != null) {
+				if (condition.nullAttribute != null) {
+					lastVisited = new Condition(condition.nullAttribute.path + " IS NOT NULL", condition.parameters);
+				} else {
+					String path = condition.equalsAttribute.path;
+					lastVisited = new Condition("(" + path + " <> " + PARAMETER_PLACEHOLDER + " OR " + path + " IS NULL)", condition.parameters);
+				}
+				return;
+			}
+		}
+		lastVisited = null;
+		complete = false;
+	}
+	
+	@Override
+	public void acceptAlwaysPredicate(AlwaysPredicate predicate) {
+		lastVisited = null;
+	}
+	
+	@Override
+	public void acceptCategoryPredicate(CategoryPredicate predicate) {
+		lastVisited = null;
+		complete = false;
+	}
+	
+	// ----- helper methods ----------------------------------------------------
+	
+	/**
+	 * Get the JPQL operator for the given comparison predicate.
+	 * 
+	 * @param predicate the comparison predicate
+	 * @param attribute the entity attribute
+	 * @return the JPQL operator; null if the comparison can not be translated for the given attribute
+	 */
+	private static String getOperator(ComparisonPredicate predicate, Attribute attribute) {
+		if (predicate instanceof EqualsPredicate) { return "="; }
+		
+		if (!attribute.isNumeric()) { return null; }
+		
+		if (predicate instanceof GreaterPredicate) { return ">"; }
+		if (predicate instanceof GreaterEqualsPredicate) { return ">="; }
+		if (predicate instanceof LessPredicate) { return "<"; }
+		if (predicate instanceof LessEqualsPredicate) { return "<="; }
+		
+		return null;
+	}
+	
+	/**
+	 * Get an IN condition for the given disjunction if all of its operands are equality comparisons on the same attribute.
+	 * 
+	 * @param conditions the operands of the disjunction
+	 * @return the IN condition; null if the operands can not be combined
+	 */
+	private static Condition getInCondition(List<Condition> conditions) {
+		Attribute attribute = conditions.get(0).equalsAttribute;
+		List<Object> values = new ArrayList<Object>();
+		
+		for (Condition condition : conditions) {
+			if (attribute == null || condition.equalsAttribute != attribute) { return null; }
+			values.addAll(condition.equalsValues);
+		}
+		
+		Condition inCondition = new Condition(attribute.path + " IN " + PARAMETER_PLACEHOLDER, Collections.<Object> singletonList(values));
+		inCondition.equalsAttribute = attribute;
+		inCondition.equalsValues = values;
+		return inCondition;
+	}
+	
+	// ----- Condition inner class ---------------------------------------------
+	
+	/**
+	 * A translated JPQL condition with its parameters.
+	 */
+	private static class Condition {
+		private final String jpql;
+		private final List<Object> parameters;
+		
+		/**
+		 * If this condition is a single or IN equality comparison, the compared attribute and values.
+		 */
+		private Attribute equalsAttribute;
+		private List<Object> equalsValues;
+		
+		/**
+		 * If this condition is an IS NULL comparison, the compared attribute.
+		 */
+		private Attribute nullAttribute;
+		
+		private Condition(String jpql, List<?> parameters) {
+			this.jpql = jpql;
+			this.parameters = new ArrayList<Object>(parameters);
+		}
+	}
+	
+	// ----- Attribute inner class ---------------------------------------------
+	
+	/**
+	 * An entity attribute and its type.
+	 */
+	private static class Attribute {
+		private final String path;
+		private final Class<?> type;
+		
+		private Attribute(String path, Class<?> type) {
+			this.path = path;
+			this.type = type;
+		}
+		
+		private boolean isNumeric() {
+			return Number.class.isAssignableFrom(type);
+		}
+		
+		/**
+		 * Convert a predicate value to the attribute type.
+		 * 
+		 * @param value the predicate value
+		 * @return the converted value; null if the value can not be converted
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Object convert(Object value) {
+			String stringValue = value.toString();
+			try {
+				if (type == String.class) { return stringValue; }
+				if (type == Long.class) { return Long.valueOf(stringValue); }
+				if (type == Integer.class) { return Integer.valueOf(stringValue); }
+				if (type == Short.class) { return Short.valueOf(stringValue); }
+				if (type.isEnum()) { return Enum.valueOf((Class<? extends Enum>) type, stringValue); }
+			} catch (IllegalArgumentException e) {
+				// not convertible; NumberFormatException is an IllegalArgumentException
+			}
+			return null;
+		}
+	}
+}
@@ -9,6 +9,7 @@ import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.actionmanager.ActionManager;
 import org.apache.ambari.server.actionmanager.HostRoleCommand;
 import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.actionmanager.RequestType;
 import org.apache.ambari.server.api.services.BaseRequest;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.ExecuteActionRequest;
@@ -22,11 +23,13 @@ import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.spi.ResourceAlreadyExistsException;
 import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
 import org.apache.ambari.server.state.Clusters;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -118,6 +121,12 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 		Integer maxResults = (maxResultsRaw == null ? null : Integer.parseInt(maxResultsRaw));
 		Boolean ascOrder = (ascOrderRaw == null ? null : Boolean.parseBoolean(ascOrderRaw));
 		
+		// push the comparisons on request entity attributes down into the request id query
+		JpaPredicateVisitor visitor = getRequestPredicateVisitor();
+		PredicateHelper.visit(predicate, visitor);
+		String requestCondition = visitor.getCondition();
+		Map<String, Object> conditionParameters = visitor.getParameters();
+		
 		for (Map<String, Object> properties : getPropertyMaps(predicate)) {
 			String clusterName = (String) properties.get(REQUEST_CLUSTER_NAME_PROPERTY_ID);
 			
@@ -131,7 +140,7 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 				requestStatus = (String) properties.get(REQUEST_STATUS_PROPERTY_ID);
 			}
 			
-			resources.addAll(getRequestResources(clusterName, requestId, requestStatus, maxResults, ascOrder, requestedIds));
+			resources.addAll(getRequestResources(clusterName, requestId, requestStatus, maxResults, ascOrder, requestCondition, conditionParameters, requestedIds));
 		}
 		return resources;
 	}
@@ -227,8 +236,19 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 		return new ExecuteActionRequest((String) propertyMap.get(REQUEST_CLUSTER_NAME_PROPERTY_ID), commandName, actionName, resourceFilterList, operationLevel, params);
 	}
 	
+	/**
+	 * Get a predicate visitor that translates comparisons on the non-key request properties into a condition on the request entity.
+	 * 
+	 * @return the predicate visitor
+	 */
+	private static JpaPredicateVisitor getRequestPredicateVisitor() {
+		return new JpaPredicateVisitor("req", "request").addAttribute(REQUEST_CONTEXT_ID, "requestContext", String.class).addAttribute(REQUEST_TYPE_ID, "requestType", RequestType.class)
+				.addAttribute(REQUEST_CREATE_TIME_ID, "createTime", Long.class).addAttribute(REQUEST_START_TIME_ID, "startTime", Long.class).addAttribute(REQUEST_END_TIME_ID, "endTime", Long.class);
+	}
+	
 	// Get all of the request resources for the given properties
-	private Set<Resource> getRequestResources(String clusterName, Long requestId, String requestStatus, Integer maxResults, Boolean ascOrder, Set<String> requestedPropertyIds) throws NoSuchResourceException, NoSuchParentResourceException {
+	private Set<Resource> getRequestResources(String clusterName, Long requestId, String requestStatus, Integer maxResults, Boolean ascOrder, String requestCondition, Map<String, Object> conditionParameters,
+			Set<String> requestedPropertyIds) throws NoSuchResourceException, NoSuchParentResourceException {
 		
 		Set<Resource> response = new HashSet<Resource>();
 		ActionManager actionManager = getManagementController().getActionManager();
@@ -252,7 +272,10 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 				LOG.debug("Received a Get Request Status request" + ", requestId=null" + ", requestStatus=" + status);
 			}
 			
-			List<Long> requestIds = actionManager.getRequestsByStatus(status, maxResults != null ? maxResults : BaseRequest.DEFAULT_PAGE_SIZE, ascOrder != null ? ascOrder : false);
+			int limit = maxResults != null ? maxResults : BaseRequest.DEFAULT_PAGE_SIZE;
+			boolean asc = ascOrder != null ? ascOrder : false;
+			
+			List<Long> requestIds = requestCondition == null ? actionManager.getRequestsByStatus(status, limit, asc) : actionManager.getRequestsByStatus(status, limit, asc, requestCondition, conditionParameters);
 			
 			response.addAll(getRequestResources(clusterName, actionManager, requestIds, requestedPropertyIds));
 		} else {
@@ -269,16 +292,19 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 		
 		List<org.apache.ambari.server.actionmanager.Request> requests = actionManager.getRequests(requestIds);
 		
+		// count the tasks of all of the requests per status with one query rather than loading every command
+		Map<Long, Map<HostRoleStatus, Integer>> statusCounts = actionManager.getRequestTaskStatusCounts(requestIds);
+		
 		Map<Long, Resource> resourceMap = new HashMap<Long, Resource>();
 		
 		for (org.apache.ambari.server.actionmanager.Request request : requests) {
-			resourceMap.put(request.getRequestId(), getRequestResource(request, requestedPropertyIds));
+			resourceMap.put(request.getRequestId(), getRequestResource(request, statusCounts == null ? null : statusCounts.get(request.getRequestId()), requestedPropertyIds));
 		}
 		
 		return resourceMap.values();
 	}
 	
-	private Resource getRequestResource(final org.apache.ambari.server.actionmanager.Request request, Set<String> requestedPropertyIds) {
+	private Resource getRequestResource(final org.apache.ambari.server.actionmanager.Request request, Map<HostRoleStatus, Integer> statusCounts, Set<String> requestedPropertyIds) {
 		Resource resource = new ResourceImpl(Resource.Type.Request);
 		
 		setResourceProperty(resource, REQUEST_CLUSTER_NAME_PROPERTY_ID, request.getClusterName(), requestedPropertyIds);
@@ -304,9 +330,11 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 			setResourceProperty(resource, REQUEST_SOURCE_SCHEDULE, null, requestedPropertyIds);
 		}
 		
-		List<HostRoleCommand> commands = request.getCommands();
+		if (statusCounts == null) {
+			statusCounts = getStatusCounts(request.getCommands());
+		}
 		
-		int taskCount = commands.size();
+		int taskCount = 0;
 		int completedTaskCount = 0;
 		int queuedTaskCount = 0;
 		int pendingTaskCount = 0;
@@ -314,26 +342,29 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 		int abortedTaskCount = 0;
 		int timedOutTaskCount = 0;
 		
-		for (HostRoleCommand hostRoleCommand : commands) {
-			HostRoleStatus status = hostRoleCommand.getStatus();
+		for (Map.Entry<HostRoleStatus, Integer> entry : statusCounts.entrySet()) {
+			HostRoleStatus status = entry.getKey();
+			int count = entry.getValue();
+			
+			taskCount += count;
 			if (status.isCompletedState()) {
-				completedTaskCount++;
+				completedTaskCount += count;
 				
 				switch (status) {
 				case ABORTED:
-					abortedTaskCount++;
+					abortedTaskCount += count;
 					break;
 				case FAILED:
-					failedTaskCount++;
+					failedTaskCount += count;
 					break;
 				case TIMEDOUT:
-					timedOutTaskCount++;
+					timedOutTaskCount += count;
 					break;
 				}
 			} else if (status.equals(HostRoleStatus.QUEUED)) {
-				queuedTaskCount++;
+				queuedTaskCount += count;
 			} else if (status.equals(HostRoleStatus.PENDING)) {
-				pendingTaskCount++;
+				pendingTaskCount += count;
 			}
 		}
 		
@@ -356,4 +387,15 @@ public class RequestResourceProvider extends AbstractControllerResourceProvider
 		return resource;
 	}
 	
+	// Count the given commands per status
+	private static Map<HostRoleStatus, Integer> getStatusCounts(List<HostRoleCommand> commands) {
+		Map<HostRoleStatus, Integer> statusCounts = new EnumMap<HostRoleStatus, Integer>(HostRoleStatus.class);
+		for (HostRoleCommand hostRoleCommand : commands) {
+			HostRoleStatus status = hostRoleCommand.getStatus();
+			Integer count = statusCounts.get(status);
+			statusCounts.put(status, count == null ? 1 : count + 1);
+		}
+		return statusCounts;
+	}
+	
 }
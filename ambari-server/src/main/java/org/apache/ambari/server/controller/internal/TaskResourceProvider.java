@@ -6,6 +6,10 @@
 package org.apache.ambari.server.controller.internal;
 
 import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.actionmanager.HostRoleCommand;
+import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.api.services.BaseRequest;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.TaskStatusRequest;
 import org.apache.ambari.server.controller.TaskStatusResponse;
@@ -17,18 +21,21 @@ import org.apache.ambari.server.controller.spi.RequestStatus;
 import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.spi.SystemException;
 import org.apache.ambari.server.controller.spi.UnsupportedPropertyException;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
 import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Resource provider for task resources.
  */
-class TaskResourceProvider extends AbstractControllerResourceProvider {
+public class TaskResourceProvider extends AbstractControllerResourceProvider {
 	
 	// ----- Property ID constants ---------------------------------------------
 	
@@ -53,6 +60,16 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 	
 	private static Set<String> pkPropertyIds = new HashSet<String>(Arrays.asList(new String[] { TASK_ID_PROPERTY_ID }));
 	
+	/**
+	 * Name of the query parameter that limits pushed down task queries to the requests of one cluster.
+	 */
+	private static final String REQUEST_IDS_PARAMETER = "requestIds";
+	
+	/**
+	 * Data access object used to push task predicates down into the database; null if push down is not available.
+	 */
+	private static HostRoleCommandDAO hostRoleCommandDAO;
+	
 	// ----- Constructors ----------------------------------------------------
 	
 	/**
@@ -66,6 +83,15 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 		super(propertyIds, keyPropertyIds, managementController);
 	}
 	
+	/**
+	 * Inject the host role command data access object which is used to query task ids by predicate.
+	 * 
+	 * @param dao host role command data access object
+	 */
+	public static void init(HostRoleCommandDAO dao) {
+		hostRoleCommandDAO = dao;
+	}
+	
 	// ----- ResourceProvider ------------------------------------------------
 	
 	@Override
@@ -78,6 +104,16 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 		
 		Set<String> requestedIds = getRequestPropertyIds(request, predicate);
 		
+		// if the predicate filters on anything other than the request and task ids then push it down into the task query
+		final JpaPredicateVisitor visitor = getTaskPredicateVisitor();
+		PredicateHelper.visit(predicate, visitor);
+		
+		Set<String> filterPropertyIds = new HashSet<String>(visitor.getTranslatedPropertyIds());
+		filterPropertyIds.remove(TASK_REQUEST_ID_PROPERTY_ID);
+		filterPropertyIds.remove(TASK_ID_PROPERTY_ID);
+		
+		boolean pushDown = hostRoleCommandDAO != null && !filterPropertyIds.isEmpty();
+		
 		Map<String, Set<TaskStatusRequest>> requestsMap = new HashMap<String, Set<TaskStatusRequest>>();
 		
 		for (Map<String, Object> propertyMap : getPropertyMaps(predicate)) {
@@ -91,18 +127,25 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 			requests.add(getRequest(propertyMap));
 		}
 		
-		Set<Resource> resources = null;
+		Set<Resource> resources = new HashSet<Resource>();
 		
 		for (Map.Entry<String, Set<TaskStatusRequest>> entry : requestsMap.entrySet()) {
 			
 			final Set<TaskStatusRequest> requests = entry.getValue();
 			
-			Set<TaskStatusResponse> responses = getResources(new Command<Set<TaskStatusResponse>>() {
-				@Override
-				public Set<TaskStatusResponse> invoke() throws AmbariException {
-					return getManagementController().getTaskStatus(requests);
-				}
-			});
+			Set<TaskStatusResponse> responses = null;
+			if (pushDown) {
+				responses = getTaskStatus(visitor, requests, request);
+			}
+			// the tasks of archived requests are no longer in the task table, those are read through the management controller which also reads the request archive
+			if (responses == null || (responses.isEmpty() && isAnyRequestArchived(requests))) {
+				responses = getResources(new Command<Set<TaskStatusResponse>>() {
+					@Override
+					public Set<TaskStatusResponse> invoke() throws AmbariException {
+						return getManagementController().getTaskStatus(requests);
+					}
+				});
+			}
 			
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Printing size of responses " + responses.size());
@@ -111,7 +154,6 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 				}
 			}
 			
-			resources = new HashSet<Resource>();
 			for (TaskStatusResponse response : responses) {
 				Resource resource = new ResourceImpl(Resource.Type.Task);
 				
@@ -161,6 +203,67 @@ class TaskResourceProvider extends AbstractControllerResourceProvider {
 		return pkPropertyIds;
 	}
 	
+	/**
+	 * Get a predicate visitor that translates comparisons on task properties into a condition on the host role command entity.
+	 * 
+	 * @return the predicate visitor
+	 */
+	private static JpaPredicateVisitor getTaskPredicateVisitor() {
+		return new JpaPredicateVisitor("task", "task").addAttribute(TASK_REQUEST_ID_PROPERTY_ID, "requestId", Long.class).addAttribute(TASK_ID_PROPERTY_ID, "taskId", Long.class)
+				.addAttribute(TASK_STAGE_ID_PROPERTY_ID, "stageId", Long.class).addAttribute(TASK_HOST_NAME_PROPERTY_ID, "hostName", String.class).addAttribute(TASK_ROLE_PROPERTY_ID, "role", String.class)
+				.addAttribute(TASK_COMMAND_PROPERTY_ID, "roleCommand", RoleCommand.class).addAttribute(TASK_STATUS_PROPERTY_ID, "status", HostRoleStatus.class)
+				.addAttribute(TASK_EXIT_CODE_PROPERTY_ID, "exitcode", Integer.class).addAttribute(TASK_START_TIME_PROPERTY_ID, "startTime", Long.class)
+				.addAttribute(TASK_END_TIME_PROPERTY_ID, "endTime", Long.class).addAttribute(TASK_ATTEMPT_CNT_PROPERTY_ID, "attemptCount", Short.class)
+				.addAttribute(TASK_CUST_CMD_NAME_PROPERTY_ID, "customCommandName", String.class);
+	}
+	
+	/**
+	 * Get the status of the tasks selected by the translated predicate within the requests of the given task requests. The page size of the request is only pushed down if the predicate was
+	 * completely translated, otherwise the in memory evaluation of the rest of the predicate could leave the page short.
+	 * 
+	 * @param visitor the visitor that translated the predicate
+	 * @param requests the task requests of one cluster
+	 * @param request the request
+	 * @return the task status responses
+	 */
+	private Set<TaskStatusResponse> getTaskStatus(JpaPredicateVisitor visitor, Set<TaskStatusRequest> requests, Request request) {
+		String maxResultsRaw = request.getRequestInfoProperties().get(BaseRequest.PAGE_SIZE_PROPERTY_KEY);
+		String ascOrderRaw = request.getRequestInfoProperties().get(BaseRequest.ASC_ORDER_PROPERTY_KEY);
+		
+		Integer maxResults = (maxResultsRaw == null || !visitor.isComplete() ? null : Integer.valueOf(maxResultsRaw));
+		boolean ascOrder = (ascOrderRaw == null || Boolean.parseBoolean(ascOrderRaw));
+		
+		// the predicate may select tasks of other clusters, so only the requests of this cluster are queried
+		Set<Long> requestIds = new HashSet<Long>();
+		for (TaskStatusRequest taskRequest : requests) {
+			requestIds.add(taskRequest.getRequestId());
+		}
+		String condition = "(" + visitor.getCondition() + ") AND task.requestId IN :" + REQUEST_IDS_PARAMETER;
+		Map<String, Object> parameters = visitor.getParameters();
+		parameters.put(REQUEST_IDS_PARAMETER, requestIds);
+		
+		List<Long> taskIds = hostRoleCommandDAO.findTaskIdsByCondition(condition, parameters, ascOrder, maxResults);
+		
+		Set<TaskStatusResponse> responses = new HashSet<TaskStatusResponse>();
+		for (HostRoleCommand command : getManagementController().getActionManager().getTasks(taskIds)) {
+			responses.add(new TaskStatusResponse(command));
+		}
+		return responses;
+	}
+	
+	/**
+	 * Determine whether or not any of the requests of the given task requests has been moved to the request archive.
+	 * 
+	 * @param requests the task requests
+	 * @return true if a request is archived
+	 */
+	private boolean isAnyRequestArchived(Set<TaskStatusRequest> requests) {
+		for (TaskStatusRequest request : requests) {
+			if (request.getRequestId() != null && getManagementController().getActionManager().isRequestArchived(request.getRequestId())) { return true; }
+		}
+		return false;
+	}
+	
 	/**
 	 * Get a component request object from a map of property values.
 	 * 
@@ -19,6 +19,16 @@ public abstract class ComparisonPredicate<T> extends PropertyPredicate implement
 	private final String stringValue;
 	private final Double doubleValue;
 	
+	/**
+	 * Number format used to parse string values; formats are not thread safe so one is kept per thread.
+	 */
+	private static final ThreadLocal<NumberFormat> NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+		@Override
+		protected NumberFormat initialValue() {
+			return NumberFormat.getInstance();
+		}
+	};
+	
 	protected ComparisonPredicate(String propertyId, Comparable<T> value) {
 		super(propertyId);
 		this.value = value;
@@ -66,10 +76,10 @@ public abstract class ComparisonPredicate<T> extends PropertyPredicate implement
 		
 		if (doubleValue != null) {
 			if (propertyValue instanceof Number) {
-				return (int) (doubleValue - ((Number) propertyValue).doubleValue());
+				return Double.compare(doubleValue, ((Number) propertyValue).doubleValue());
 			} else if (propertyValue instanceof String) {
 				Double doubleFromString = stringToDouble((String) propertyValue);
-				if (doubleFromString != null) { return (int) (doubleValue - doubleFromString); }
+				if (doubleFromString != null) { return Double.compare(doubleValue, doubleFromString); }
 			}
 		}
 		if (stringValue != null) { return stringValue.compareTo(propertyValue.toString()); }
@@ -77,12 +87,19 @@ public abstract class ComparisonPredicate<T> extends PropertyPredicate implement
 		return getValue().compareTo((T) propertyValue);
 	}
 	
-	private Double stringToDouble(String stringValue) {
+	/**
+	 * Parse the given string as a number using the default locale.
+	 * 
+	 * @param stringValue the string to parse
+	 * @return the double value; null if the whole string is not a number
+	 */
+	static Double stringToDouble(String stringValue) {
+		if (stringValue.length() == 0) { return null; }
+		
 		ParsePosition parsePosition = new ParsePosition(0);
-		NumberFormat numberFormat = NumberFormat.getInstance();
-		Number parsedNumber = numberFormat.parse((String) value, parsePosition);
+		Number parsedNumber = NUMBER_FORMAT.get().parse(stringValue, parsePosition);
 		
-		return parsePosition.getIndex() == stringValue.length() ? parsedNumber.doubleValue() : null;
+		return parsedNumber != null && parsePosition.getIndex() == stringValue.length() ? parsedNumber.doubleValue() : null;
 	}
 	
 	public abstract String getOperator();
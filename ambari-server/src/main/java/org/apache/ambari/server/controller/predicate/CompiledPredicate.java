@@ -0,0 +1,521 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.controller.predicate;
+
+import org.apache.ambari.server.controller.internal.ResourceImpl;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Predicate which evaluates a compiled form of another predicate. Property ids are resolved into category and property names once, comparisons are specialized by the type of the
+ * predicate value and the operands of AND/OR predicates are ordered so that the cheapest and most selective operands are evaluated first.
+ * <p/>
+ * A compiled predicate is visited as if it were the predicate it was compiled from, but it is not equal to that predicate; it is only equal to other compiled predicates with an equal
+ * source predicate. Compiled and source predicates must therefore not be mixed as map or cache keys.
+ */
+public class CompiledPredicate implements BasePredicate {
+	
+	/**
+	 * The source predicate.
+	 */
+	private final Predicate predicate;
+	
+	/**
+	 * The root of the compiled evaluation tree.
+	 */
+	private final Node root;
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	private CompiledPredicate(Predicate predicate, Node root) {
+		this.predicate = predicate;
+		this.root = root;
+	}
+	
+	// ----- CompiledPredicate -------------------------------------------------
+	
+	/**
+	 * Compile the given predicate.
+	 * 
+	 * @param predicate the predicate to compile
+	 * @return the compiled predicate; the given predicate if it is null or already compiled
+	 */
+	public static Predicate compile(Predicate predicate) {
+		if (predicate == null || predicate instanceof CompiledPredicate) { return predicate; }
+		
+		return new CompiledPredicate(predicate, compileNode(predicate));
+	}
+	
+	/**
+	 * Get the predicate that this predicate was compiled from.
+	 * 
+	 * @return the source predicate
+	 */
+	public Predicate getPredicate() {
+		return predicate;
+	}
+	
+	// ----- Predicate ---------------------------------------------------------
+	
+	@Override
+	public boolean evaluate(Resource resource) {
+		return root.evaluate(resource);
+	}
+	
+	// ----- BasePredicate -----------------------------------------------------
+	
+	@Override
+	public Set<String> getPropertyIds() {
+		return PredicateHelper.getPropertyIds(predicate);
+	}
+	
+	// ----- PredicateVisitorAcceptor ------------------------------------------
+	
+	@Override
+	public void accept(PredicateVisitor visitor) {
+		PredicateHelper.visit(predicate, visitor);
+	}
+	
+	// ----- Object overrides --------------------------------------------------
+	
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof CompiledPredicate)) return false;
+		
+		return predicate.equals(((CompiledPredicate) o).predicate);
+	}
+	
+	@Override
+	public int hashCode() {
+		return predicate.hashCode();
+	}
+	
+	@Override
+	public String toString() {
+		return predicate.toString();
+	}
+	
+	// ----- helper methods ----------------------------------------------------
+	
+	/**
+	 * Compile the given predicate into an evaluation node.
+	 * 
+	 * @param predicate the predicate
+	 * @return the evaluation node
+	 */
+	private static Node compileNode(Predicate predicate) {
+		if (predicate instanceof CompiledPredicate) { return ((CompiledPredicate) predicate).root; }
+		
+		if (predicate instanceof PredicateVisitorAcceptor) {
+			CompilingVisitor visitor = new CompilingVisitor();
+			((PredicateVisitorAcceptor) predicate).accept(visitor);
+			if (visitor.node != null) { return visitor.node; }
+		}
+		return new DelegateNode(predicate);
+	}
+	
+	// ----- CompilingVisitor inner class ------------------------------------
+	
+	/**
+	 * Visitor which builds the evaluation node for the visited predicate. Predicate types that are not known to the compiler are evaluated through the predicate itself.
+	 */
+	private static class CompilingVisitor implements PredicateVisitor {
+		private Node node;
+		
+		@Override
+		public void acceptComparisonPredicate(ComparisonPredicate predicate) {
+			Operator operator;
+			
+			if (predicate instanceof EqualsPredicate) {
+				operator = Operator.EQUALS;
+			} else if (predicate instanceof GreaterPredicate) {
+				operator = Operator.GREATER;
+			} else if (predicate instanceof GreaterEqualsPredicate) {
+				operator = Operator.GREATER_EQUALS;
+			} else if (predicate instanceof LessPredicate) {
+				operator = Operator.LESS;
+			} else if (predicate instanceof LessEqualsPredicate) {
+				operator = Operator.LESS_EQUALS;
+			} else {
+				node = new DelegateNode(predicate);
+				return;
+			}
+			node = new ComparisonNode(new PropertyAccessor(predicate.getPropertyId()), operator, predicate.getValue());
+		}
+		
+		@Override
+		public void acceptArrayPredicate(ArrayPredicate predicate) {
+			Predicate[] predicates = predicate.getPredicates();
+			Node[] nodes = new Node[predicates.length];
+			for (int i = 0; i < predicates.length; ++i) {
+				nodes[i] = compileNode(predicates[i]);
+			}
+			
+			if (predicate instanceof AndPredicate) {
+				node = new AndNode(nodes);
+			} else if (predicate instanceof OrPredicate) {
+				node = new OrNode(nodes);
+			} else {
+				node = new DelegateNode(predicate);
+			}
+		}
+		
+		@Override
+		public void acceptUnaryPredicate(UnaryPredicate predicate) {
+			node = predicate instanceof NotPredicate ? new NotNode(compileNode(predicate.getPredicate())) : new DelegateNode(predicate);
+		}
+		
+		@Override
+		public void acceptAlwaysPredicate(AlwaysPredicate predicate) {
+			node = TrueNode.INSTANCE;
+		}
+		
+		@Override
+		public void acceptCategoryPredicate(CategoryPredicate predicate) {
+			node = new DelegateNode(predicate);
+		}
+	}
+	
+	// ----- evaluation nodes --------------------------------------------------
+	
+	/**
+	 * A node of the compiled evaluation tree.
+	 */
+	private static abstract class Node {
+		
+		/**
+		 * Evaluate this node against the given resource.
+		 * 
+		 * @param resource the resource
+		 * @return the result of the evaluation
+		 */
+		abstract boolean evaluate(Resource resource);
+		
+		/**
+		 * Get the relative cost of evaluating this node.
+		 * 
+		 * @return the cost
+		 */
+		abstract double getCost();
+		
+		/**
+		 * Get the estimated fraction of resources for which this node evaluates to true.
+		 * 
+		 * @return a value between 0 and 1
+		 */
+		abstract double getPassRate();
+	}
+	
+	/**
+	 * Node which always evaluates to true.
+	 */
+	private static class TrueNode extends Node {
+		private static final TrueNode INSTANCE = new TrueNode();
+		
+		@Override
+		boolean evaluate(Resource resource) {
+			return true;
+		}
+		
+		@Override
+		double getCost() {
+			return 0.0;
+		}
+		
+		@Override
+		double getPassRate() {
+			return 1.0;
+		}
+	}
+	
+	/**
+	 * Node which evaluates through a predicate that could not be compiled.
+	 */
+	private static class DelegateNode extends Node {
+		private final Predicate predicate;
+		
+		private DelegateNode(Predicate predicate) {
+			this.predicate = predicate;
+		}
+		
+		@Override
+		boolean evaluate(Resource resource) {
+			return predicate.evaluate(resource);
+		}
+		
+		@Override
+		double getCost() {
+			return 4.0;
+		}
+		
+		@Override
+		double getPassRate() {
+			return 0.5;
+		}
+	}
+	
+	/**
+	 * Node which negates another node.
+	 */
+	private static class NotNode extends Node {
+		private final Node node;
+		
+		private NotNode(Node node) {
+			this.node = node;
+		}
+		
+		@Override
+		boolean evaluate(Resource resource) {
+			return !node.evaluate(resource);
+		}
+		
+		@Override
+		double getCost() {
+			return node.getCost();
+		}
+		
+		@Override
+		double getPassRate() {
+			return 1.0 - node.getPassRate();
+		}
+	}
+	
+	/**
+	 * Node which evaluates to true if all of its operands evaluate to true. Operands are evaluated in order of increasing cost per rejected resource.
+	 */
+	private static class AndNode extends Node {
+		private final Node[] nodes;
+		private final double cost;
+		private final double passRate;
+		
+		private AndNode(Node[] nodes) {
+			Arrays.sort(nodes, new Comparator<Node>() {
+				@Override
+				public int compare(Node node1, Node node2) {
+					return Double.compare(rank(node1), rank(node2));
+				}
+				
+				private double rank(Node node) {
+					double rejectRate = 1.0 - node.getPassRate();
+					return rejectRate == 0.0 ? Double.MAX_VALUE : node.getCost() / rejectRate;
+				}
+			});
+			this.nodes = nodes;
+			
+			double cost = 0.0;
+			double passRate = 1.0;
+			for (Node node : nodes) {
+				cost += passRate * node.getCost();
+				passRate *= node.getPassRate();
+			}
+			this.cost = cost;
+			this.passRate = passRate;
+		}
+		
+		@Override
+		boolean evaluate(Resource resource) {
+			for (Node node : nodes) {
+				if (!node.evaluate(resource)) { return false; }
+			}
+			return true;
+		}
+		
+		@Override
+		double getCost() {
+			return cost;
+		}
+		
+		@Override
+		double getPassRate() {
+			return passRate;
+		}
+	}
+	
+	/**
+	 * Node which evaluates to true if any of its operands evaluate to true. Operands are evaluated in order of increasing cost per accepted resource.
+	 */
+	private static class OrNode extends Node {
+		private final Node[] nodes;
+		private final double cost;
+		private final double passRate;
+		
+		private OrNode(Node[] nodes) {
+			Arrays.sort(nodes, new Comparator<Node>() {
+				@Override
+				public int compare(Node node1, Node node2) {
+					return Double.compare(rank(node1), rank(node2));
+				}
+				
+				private double rank(Node node) {
+					double passRate = node.getPassRate();
+					return passRate == 0.0 ? Double.MAX_VALUE : node.getCost() / passRate;
+				}
+			});
+			this.nodes = nodes;
+			
+			double cost = 0.0;
+			double rejectRate = 1.0;
+			for (Node node : nodes) {
+				cost += rejectRate * node.getCost();
+				rejectRate *= 1.0 - node.getPassRate();
+			}
+			this.cost = cost;
+			this.passRate = 1.0 - rejectRate;
+		}
+		
+		@Override
+		boolean evaluate(Resource resource) {
+			for (Node node : nodes) {
+				if (node.evaluate(resource)) { return true; }
+			}
+			return false;
+		}
+		
+		@Override
+		double getCost() {
+			return cost;
+		}
+		
+		@Override
+		double getPassRate() {
+			return passRate;
+		}
+	}
+	
+	/**
+	 * Comparison operators.
+	 */
+	private enum Operator {
+		EQUALS(0.1), GREATER(0.5), GREATER_EQUALS(0.5), LESS(0.5), LESS_EQUALS(0.5);
+		
+		private final double passRate;
+		
+		private Operator(double passRate) {
+			this.passRate = passRate;
+		}
+		
+		/**
+		 * Apply this operator to the result of comparing the predicate value to a property value.
+		 * 
+		 * @param compare the result of comparing the predicate value to the property value
+		 * @return true if the property value satisfies the operator
+		 */
+		private boolean apply(int compare) {
+			switch (this) {
+			case EQUALS:
+				return compare == 0;
+			case GREATER:
+				return compare < 0;
+			case GREATER_EQUALS:
+				return compare <= 0;
+			case LESS:
+				return compare > 0;
+			default:
+				return compare >= 0;
+			}
+		}
+	}
+	
+	/**
+	 * Node which compares a resource property to a constant value. The comparison is specialized on the type of the constant so that numeric values are only converted once.
+	 */
+	private static class ComparisonNode extends Node {
+		private final PropertyAccessor accessor;
+		private final Operator operator;
+		private final Comparable value;
+		private final String stringValue;
+		private final boolean numeric;
+		private final double doubleValue;
+		
+		private ComparisonNode(PropertyAccessor accessor, Operator operator, Comparable value) {
+			this.accessor = accessor;
+			this.operator = operator;
+			this.value = value;
+			
+			Double parsedValue = null;
+			if (value instanceof Number) {
+				stringValue = null;
+				parsedValue = ((Number) value).doubleValue();
+			} else if (value instanceof String) {
+				stringValue = (String) value;
+				parsedValue = ComparisonPredicate.stringToDouble(stringValue);
+			} else {
+				stringValue = null;
+			}
+			numeric = parsedValue != null;
+			doubleValue = numeric ? parsedValue : 0.0;
+		}
+		
+		@Override
+		boolean evaluate(Resource resource) {
+			Object propertyValue = accessor.getValue(resource);
+			
+			if (propertyValue == null) { return value == null && operator == Operator.EQUALS; }
+			if (value == null) { return false; }
+			
+			return operator.apply(compareValueTo(propertyValue));
+		}
+		
+		@Override
+		double getCost() {
+			return numeric ? 1.0 : 2.0;
+		}
+		
+		@Override
+		double getPassRate() {
+			return operator.passRate;
+		}
+		
+		@SuppressWarnings("unchecked")
+		private int compareValueTo(Object propertyValue) {
+			if (numeric) {
+				if (propertyValue instanceof Number) {
+					return Double.compare(doubleValue, ((Number) propertyValue).doubleValue());
+				} else if (propertyValue instanceof String) {
+					Double doubleFromString = ComparisonPredicate.stringToDouble((String) propertyValue);
+					if (doubleFromString != null) { return Double.compare(doubleValue, doubleFromString); }
+				}
+			}
+			if (stringValue != null) { return stringValue.compareTo(propertyValue.toString()); }
+			
+			return value.compareTo(propertyValue);
+		}
+	}
+	
+	/**
+	 * Accessor for a resource property whose category and name have been resolved up front.
+	 */
+	private static class PropertyAccessor {
+		private final String propertyId;
+		private final String categoryKey;
+		private final String propertyName;
+		
+		private PropertyAccessor(String propertyId) {
+			String category = PropertyHelper.getPropertyCategory(propertyId);
+			
+			this.propertyId = propertyId;
+			this.categoryKey = category == null ? "" : category;
+			this.propertyName = PropertyHelper.getPropertyName(propertyId);
+		}
+		
+		private Object getValue(Resource resource) {
+			if (resource instanceof ResourceImpl) {
+				Map<String, Object> properties = resource.getPropertiesMap().get(categoryKey);
+				return properties == null ? null : properties.get(propertyName);
+			}
+			return resource.getPropertyValue(propertyId);
+		}
+	}
+}
@@ -7,6 +7,8 @@ package org.apache.ambari.server.metadata;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.inject.Inject;
 import org.apache.ambari.server.Role;
@@ -42,6 +44,11 @@ public class RoleCommandOrder {
 	private final static String COMMENT_STR = "_comment";
 	private static final String ROLE_COMMAND_ORDER_FILE = "role_command_order.json";
 	
+	/**
+	 * The highest rank returned by {@link #getCommandRank(RoleCommand)}.
+	 */
+	public static final int MAX_COMMAND_RANK = 3;
+	
 	/**
 	 * Commands that are independent, role order matters
 	 */
@@ -93,6 +100,16 @@ public class RoleCommandOrder {
 	 */
 	private Map<RoleCommandPair, Set<RoleCommandPair>> dependencies = new HashMap<RoleCommandPair, Set<RoleCommandPair>>();
 	
+	/**
+	 * Dense form of the dependencies; compiled on first use.
+	 */
+	private DependencyMatrix matrix;
+	
+	/**
+	 * Dependencies compiled by {@link #initialize(Cluster)}, keyed by role command order file and cluster feature flags, shared by all of the instances.
+	 */
+	private static final ConcurrentMap<String, CompiledOrder> compiledOrders = new ConcurrentHashMap<String, CompiledOrder>();
+	
 	/**
 	 * Add a pair of tuples where the tuple defined by the first two parameters are blocked on the tuple defined by the last two pair.
 	 * 
@@ -142,6 +159,7 @@ public class RoleCommandOrder {
 				addDependency(Role.valueOf(blockedRole), RoleCommand.valueOf(blockedCommand), Role.valueOf(blockerRole), RoleCommand.valueOf(blockerCommand));
 			}
 		}
+		matrix = null;
 	}
 	
 	public void initialize(Cluster cluster) {
@@ -162,12 +180,26 @@ public class RoleCommandOrder {
 		} catch (AmbariException e) {
 		}
 		
-		// Read data from JSON
-		ObjectMapper mapper = new ObjectMapper();
 		StackId currentStackVersion = cluster.getCurrentStackVersion();
 		String stackName = currentStackVersion.getStackName();
 		String stackVersion = currentStackVersion.getStackVersion();
 		File rcoFile = getRCOFile(stackName, stackVersion);
+		
+		// The role command order only changes with the file, so reuse the dependencies compiled for an earlier request
+		String cacheKey = (rcoFile == null ? ROLE_COMMAND_ORDER_FILE : rcoFile.getAbsolutePath()) + ":" + hasGLUSTERFS + ":" + isHAEnabled;
+		long lastModified = rcoFile == null ? 0L : rcoFile.lastModified();
+		CompiledOrder compiledOrder = compiledOrders.get(cacheKey);
+		if (compiledOrder != null && compiledOrder.lastModified == lastModified) {
+			// copy the shared blocker sets so that dependencies added to this instance later on do not change the compiled ones
+			for (Map.Entry<RoleCommandPair, Set<RoleCommandPair>> entry : compiledOrder.dependencies.entrySet()) {
+				dependencies.put(entry.getKey(), new HashSet<RoleCommandPair>(entry.getValue()));
+			}
+			matrix = compiledOrder.matrix;
+			return;
+		}
+		
+		// Read data from JSON
+		ObjectMapper mapper = new ObjectMapper();
 		Map<String, Object> userData = null;
 		
 		try {
@@ -203,6 +235,19 @@ public class RoleCommandOrder {
 			addDependencies(isHASection);
 		}
 		extendTransitiveDependency();
+		compiledOrders.put(cacheKey, new CompiledOrder(lastModified, dependencies, getDependencyMatrix()));
+	}
+	
+	/**
+	 * Get the dense form of the dependencies, compiling it if required.
+	 * 
+	 * @return the dependency matrix
+	 */
+	public DependencyMatrix getDependencyMatrix() {
+		if (matrix == null) {
+			matrix = new DependencyMatrix(dependencies);
+		}
+		return matrix;
 	}
 	
 	/**
@@ -212,11 +257,12 @@ public class RoleCommandOrder {
 	 * @param rgn2 roleGraphNode2
 	 */
 	public int order(RoleGraphNode rgn1, RoleGraphNode rgn2) {
-		RoleCommandPair rcp1 = new RoleCommandPair(rgn1.getRole(), rgn1.getCommand());
-		RoleCommandPair rcp2 = new RoleCommandPair(rgn2.getRole(), rgn2.getCommand());
-		if ((this.dependencies.get(rcp1) != null) && (this.dependencies.get(rcp1).contains(rcp2))) {
+		DependencyMatrix dependencyMatrix = getDependencyMatrix();
+		int index1 = dependencyMatrix.indexOf(rgn1.getRole(), rgn1.getCommand());
+		int index2 = dependencyMatrix.indexOf(rgn2.getRole(), rgn2.getCommand());
+		if (index1 >= 0 && index2 >= 0 && dependencyMatrix.isBlockedBy(index1, index2)) {
 			return 1;
-		} else if ((this.dependencies.get(rcp2) != null) && (this.dependencies.get(rcp2).contains(rcp1))) {
+		} else if (index1 >= 0 && index2 >= 0 && dependencyMatrix.isBlockedBy(index2, index1)) {
 			return -1;
 		} else if (!rgn2.getCommand().equals(rgn1.getCommand())) { return compareCommands(rgn1, rgn2); }
 		return 0;
@@ -252,29 +298,28 @@ public class RoleCommandOrder {
 	}
 	
 	private int compareCommands(RoleGraphNode rgn1, RoleGraphNode rgn2) {
+		// If the commands have the same rank the roles have no dependencies.
+		int rank1 = getCommandRank(rgn1.getCommand());
+		int rank2 = getCommandRank(rgn2.getCommand());
+		return rank1 < rank2 ? -1 : (rank1 > rank2 ? 1 : 0);
+	}
+	
+	/**
+	 * Get the rank of a command among the commands of a stage. Roles without dependencies between them run in the order of the ranks of their commands: INSTALL, then the independent
+	 * commands (START, EXECUTE and SERVICE_CHECK), then STOP and then any other command. Commands of the same rank may run in parallel.
+	 * 
+	 * @param command the command
+	 * 
+	 * @return the rank of the command, between 0 and {@link #MAX_COMMAND_RANK}
+	 */
+	public int getCommandRank(RoleCommand command) {
 		// TODO: add proper order comparison support for RoleCommand.ACTIONEXECUTE
-		
-		RoleCommand rc1 = rgn1.getCommand();
-		RoleCommand rc2 = rgn2.getCommand();
-		if (rc1.equals(rc2)) {
-			// If its coming here means roles have no dependencies.
+		if (command.equals(RoleCommand.INSTALL)) {
 			return 0;
-		}
-		
-		if (independentCommands.contains(rc1) && independentCommands.contains(rc2)) { return 0; }
-		
-		if (rc1.equals(RoleCommand.INSTALL)) {
-			return -1;
-		} else if (rc2.equals(RoleCommand.INSTALL)) {
+		} else if (independentCommands.contains(command)) {
 			return 1;
-		} else if (rc1.equals(RoleCommand.START) || rc1.equals(RoleCommand.EXECUTE) || rc1.equals(RoleCommand.SERVICE_CHECK)) {
-			return -1;
-		} else if (rc2.equals(RoleCommand.START) || rc2.equals(RoleCommand.EXECUTE) || rc2.equals(RoleCommand.SERVICE_CHECK)) {
-			return 1;
-		} else if (rc1.equals(RoleCommand.STOP)) {
-			return -1;
-		} else if (rc2.equals(RoleCommand.STOP)) { return 1; }
-		return 0;
+		} else if (command.equals(RoleCommand.STOP)) { return 2; }
+		return MAX_COMMAND_RANK;
 	}
 	
 	public int compareDeps(RoleCommandOrder rco) {
@@ -308,4 +353,95 @@ public class RoleCommandOrder {
 	Map<RoleCommandPair, Set<RoleCommandPair>> getDependencies() {
 		return dependencies;
 	}
+	
+	// ----- inner classes -----------------------------------------------------
+	
+	/**
+	 * Dense form of the dependencies. Every role command pair that takes part in a dependency gets an index and the (transitive) blockers of each pair are kept as a bit set of
+	 * indexes, so that the dependencies between the R roles of a stage can be found without comparing every pair of roles.
+	 */
+	public static class DependencyMatrix {
+		private final Map<RoleCommandPair, Integer> indexes = new HashMap<RoleCommandPair, Integer>();
+		private final BitSet[] blockers;
+		
+		DependencyMatrix(Map<RoleCommandPair, Set<RoleCommandPair>> dependencies) {
+			for (Map.Entry<RoleCommandPair, Set<RoleCommandPair>> entry : dependencies.entrySet()) {
+				addIndex(entry.getKey());
+				for (RoleCommandPair blocker : entry.getValue()) {
+					addIndex(blocker);
+				}
+			}
+			blockers = new BitSet[indexes.size()];
+			for (int i = 0; i < blockers.length; i++) {
+				blockers[i] = new BitSet(blockers.length);
+			}
+			for (Map.Entry<RoleCommandPair, Set<RoleCommandPair>> entry : dependencies.entrySet()) {
+				BitSet blockerBits = blockers[indexes.get(entry.getKey())];
+				for (RoleCommandPair blocker : entry.getValue()) {
+					blockerBits.set(indexes.get(blocker));
+				}
+			}
+		}
+		
+		private void addIndex(RoleCommandPair rcp) {
+			if (!indexes.containsKey(rcp)) {
+				indexes.put(rcp, indexes.size());
+			}
+		}
+		
+		/**
+		 * Get the index of the given role command.
+		 * 
+		 * @param role the role
+		 * @param command the command
+		 * 
+		 * @return the index or -1 if the role command has no dependencies
+		 */
+		public int indexOf(Role role, RoleCommand command) {
+			Integer index = indexes.get(new RoleCommandPair(role, command));
+			return index == null ? -1 : index;
+		}
+		
+		/**
+		 * Get the number of indexed role commands.
+		 */
+		public int size() {
+			return blockers.length;
+		}
+		
+		/**
+		 * Determine whether the role command at the first index is blocked by the one at the second index.
+		 */
+		public boolean isBlockedBy(int blocked, int blocker) {
+			return blockers[blocked].get(blocker);
+		}
+		
+		/**
+		 * Get the blockers of the role command at the given index.
+		 * 
+		 * @param index the index of the blocked role command
+		 * 
+		 * @return a copy of the bit set of blocker indexes
+		 */
+		public BitSet getBlockers(int index) {
+			return (BitSet) blockers[index].clone();
+		}
+	}
+	
+	/**
+	 * Dependencies compiled from one role command order file.
+	 */
+	private static class CompiledOrder {
+		private final long lastModified;
+		private final Map<RoleCommandPair, Set<RoleCommandPair>> dependencies = new HashMap<RoleCommandPair, Set<RoleCommandPair>>();
+		private final DependencyMatrix matrix;
+		
+		CompiledOrder(long lastModified, Map<RoleCommandPair, Set<RoleCommandPair>> dependencies, DependencyMatrix matrix) {
+			this.lastModified = lastModified;
+			for (Map.Entry<RoleCommandPair, Set<RoleCommandPair>> entry : dependencies.entrySet()) {
+				this.dependencies.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<RoleCommandPair>(entry.getValue())));
+			}
+			this.matrix = matrix;
+		}
+	}
 }
@@ -17,12 +17,19 @@ import org.apache.ambari.server.orm.entities.StageEntity;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
 @Singleton
 public class HostDAO {
 	
+	/**
+	 * Maximum number of values bound to a single IN clause.
+	 */
+	private static final int IN_QUERY_CHUNK_SIZE = 1000;
+	
 	@Inject
 	Provider<EntityManager> entityManagerProvider;
 	
@@ -31,6 +38,25 @@ public class HostDAO {
 		return entityManagerProvider.get().find(HostEntity.class, hostName);
 	}
 	
+	/**
+	 * Find the hosts with the given names. The names are queried in chunks to stay below the IN list limits of the supported databases.
+	 * 
+	 * @param hostNames
+	 *          the host names
+	 * @return the hosts that exist; unknown names are ignored
+	 */
+	@RequiresSession
+	public List<HostEntity> findByNames(Collection<String> hostNames) {
+		List<HostEntity> hostEntities = new ArrayList<HostEntity>(hostNames.size());
+		List<String> names = new ArrayList<String>(hostNames);
+		for (int i = 0; i < names.size(); i += IN_QUERY_CHUNK_SIZE) {
+			TypedQuery<HostEntity> query = entityManagerProvider.get().createQuery("SELECT host FROM HostEntity host WHERE host.hostName IN :hostNames", HostEntity.class);
+			query.setParameter("hostNames", names.subList(i, Math.min(i + IN_QUERY_CHUNK_SIZE, names.size())));
+			hostEntities.addAll(query.getResultList());
+		}
+		return hostEntities;
+	}
+	
 	@RequiresSession
 	public List<HostEntity> findAll() {
 		TypedQuery<HostEntity> query = entityManagerProvider.get().createQuery("SELECT host FROM HostEntity host", HostEntity.class);
@@ -20,6 +20,7 @@ import javax.persistence.TypedQuery;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,8 @@ import java.util.Map;
 @Singleton
 public class HostRoleCommandDAO {
 	
+	private static final int IN_QUERY_CHUNK_SIZE = 1000;
+	
 	@Inject
 	Provider<EntityManager> entityManagerProvider;
 	@Inject
@@ -122,6 +125,56 @@ public class HostRoleCommandDAO {
 		return daoUtils.selectList(query, requestId);
 	}
 	
+	/**
+	 * Count the tasks of the given requests per status with a single grouped query instead of loading every task.
+	 * 
+	 * @param requestIds the request ids
+	 * 
+	 * @return the task counts keyed by request id and status; requests without tasks are not included
+	 */
+	@RequiresSession
+	public Map<Long, Map<HostRoleStatus, Integer>> findStatusCountsByRequestIds(Collection<Long> requestIds) {
+		Map<Long, Map<HostRoleStatus, Integer>> statusCounts = new HashMap<Long, Map<HostRoleStatus, Integer>>();
+		if (requestIds == null || requestIds.isEmpty()) { return statusCounts; }
+		
+		List<Long> ids = new ArrayList<Long>(requestIds);
+		for (int i = 0; i < ids.size(); i += IN_QUERY_CHUNK_SIZE) {
+			TypedQuery<Object[]> query = entityManagerProvider.get().createQuery(
+					"SELECT task.requestId, task.status, COUNT(task.taskId) " + "FROM HostRoleCommandEntity task " + "WHERE task.requestId IN :requestIds " + "GROUP BY task.requestId, task.status", Object[].class);
+			query.setParameter("requestIds", ids.subList(i, Math.min(i + IN_QUERY_CHUNK_SIZE, ids.size())));
+			
+			for (Object[] row : query.getResultList()) {
+				Long requestId = (Long) row[0];
+				Map<HostRoleStatus, Integer> counts = statusCounts.get(requestId);
+				if (counts == null) {
+					counts = new EnumMap<HostRoleStatus, Integer>(HostRoleStatus.class);
+					statusCounts.put(requestId, counts);
+				}
+				counts.put((HostRoleStatus) row[1], ((Number) row[2]).intValue());
+			}
+		}
+		return statusCounts;
+	}
+	
+	/**
+	 * Get the ids of the requests that were created before the given time and whose tasks are all completed and ended before that time.
+	 * 
+	 * @param time the time in milliseconds
+	 * @param afterRequestId only request ids greater than this one are returned
+	 * @param maxResults the maximum number of request ids to return
+	 * 
+	 * @return the request ids in ascending order
+	 */
+	@RequiresSession
+	public List<Long> findRequestIdsCompletedBefore(long time, long afterRequestId, int maxResults) {
+		TypedQuery<Long> query = entityManagerProvider.get().createQuery(
+				"SELECT task.requestId FROM HostRoleCommandEntity task " + "WHERE task.stage.request.createTime < ?1 AND task.requestId > ?3 AND task.requestId NOT IN "
+						+ "(SELECT active.requestId FROM HostRoleCommandEntity active WHERE active.status NOT IN ?2) " + "GROUP BY task.requestId HAVING MAX(task.endTime) < ?1 "
+						+ "ORDER BY task.requestId", Long.class);
+		query.setMaxResults(maxResults);
+		return daoUtils.selectList(query, time, HostRoleStatus.getCompletedStates(), afterRequestId);
+	}
+	
 	@RequiresSession
 	public List<HostRoleCommandEntity> findAll() {
 		return daoUtils.selectAll(entityManagerProvider.get(), HostRoleCommandEntity.class);
@@ -129,12 +182,29 @@ public class HostRoleCommandDAO {
 	
 	@RequiresSession
 	public List<Long> getRequestsByTaskStatus(Collection<HostRoleStatus> statuses, boolean match, boolean checkAllTasks, int maxResults, boolean ascOrder) {
+		return getRequestsByTaskStatus(statuses, match, checkAllTasks, maxResults, ascOrder, null, Collections.<String, Object> emptyMap());
+	}
+	
+	/**
+	 * Get the ids of the requests with tasks in the given statuses whose request entity also satisfies the given condition.
+	 * 
+	 * @param statuses the task statuses
+	 * @param match true if the tasks should be in the given statuses; false if they should not
+	 * @param checkAllTasks true if all of the tasks of a request should be checked
+	 * @param maxResults the maximum number of request ids to return
+	 * @param ascOrder true if the request ids should be in ascending order
+	 * @param requestCondition a JPQL condition over the {@link org.apache.ambari.server.orm.entities.RequestEntity} alias {@code req}; may be null
+	 * @param parameters the named parameters of the request condition
+	 * @return the request ids
+	 */
+	@RequiresSession
+	public List<Long> getRequestsByTaskStatus(Collection<HostRoleStatus> statuses, boolean match, boolean checkAllTasks, int maxResults, boolean ascOrder, String requestCondition, Map<String, Object> parameters) {
 		
-		List<Long> results;
+		boolean hasStatuses = statuses != null && !statuses.isEmpty();
 		StringBuilder queryStr = new StringBuilder();
 		
 		queryStr.append("SELECT DISTINCT command.requestId ").append("FROM HostRoleCommandEntity command ");
-		if (statuses != null && !statuses.isEmpty()) {
+		if (hasStatuses) {
 			queryStr.append("WHERE ");
 			
 			if (checkAllTasks) {
@@ -142,26 +212,46 @@ public class HostRoleCommandDAO {
 				if (!match) {
 					queryStr.append("NOT ");
 				}
-				queryStr.append("IN (").append("SELECT c.requestId ").append("FROM HostRoleCommandEntity c ").append("WHERE c.requestId = command.requestId ").append("AND c.status IN ?1) ");
+				queryStr.append("IN (").append("SELECT c.requestId ").append("FROM HostRoleCommandEntity c ").append("WHERE c.requestId = command.requestId ").append("AND c.status IN :statuses) ");
 			} else {
 				queryStr.append("command.status ");
 				if (!match) {
 					queryStr.append("NOT ");
 				}
-				queryStr.append("IN ?1 ");
+				queryStr.append("IN :statuses ");
 			}
 		}
+		if (requestCondition != null) {
+			queryStr.append(hasStatuses ? "AND " : "WHERE ");
+			queryStr.append("command.requestId IN (SELECT req.requestId FROM RequestEntity req WHERE ").append(requestCondition).append(") ");
+		}
 		
 		queryStr.append("ORDER BY command.requestId ").append(ascOrder ? "ASC" : "DESC");
 		TypedQuery<Long> query = entityManagerProvider.get().createQuery(queryStr.toString(), Long.class);
 		query.setMaxResults(maxResults);
 		
-		if (statuses != null && !statuses.isEmpty()) {
-			results = daoUtils.selectList(query, statuses);
-		} else {
-			results = daoUtils.selectList(query);
+		if (hasStatuses) {
+			query.setParameter("statuses", statuses);
 		}
-		return results;
+		return selectList(query, parameters);
+	}
+	
+	/**
+	 * Get the ids of the tasks that satisfy the given condition, ordered by task id.
+	 * 
+	 * @param condition a JPQL condition over the {@link HostRoleCommandEntity} alias {@code task}
+	 * @param parameters the named parameters of the condition
+	 * @param ascOrder true if the task ids should be in ascending order
+	 * @param maxResults the maximum number of task ids to return; null for no limit
+	 * @return the task ids
+	 */
+	@RequiresSession
+	public List<Long> findTaskIdsByCondition(String condition, Map<String, Object> parameters, boolean ascOrder, Integer maxResults) {
+		TypedQuery<Long> query = entityManagerProvider.get().createQuery("SELECT task.taskId FROM HostRoleCommandEntity task " + "WHERE " + condition + " " + "ORDER BY task.taskId " + (ascOrder ? "ASC" : "DESC"), Long.class);
+		if (maxResults != null) {
+			query.setMaxResults(maxResults);
+		}
+		return selectList(query, parameters);
 	}
 	
 	@Transactional
@@ -211,4 +301,10 @@ public class HostRoleCommandDAO {
 		remove(findByPK(taskId));
 	}
 	
+	private <T> List<T> selectList(TypedQuery<T> query, Map<String, Object> parameters) {
+		for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+			query.setParameter(entry.getKey(), entry.getValue());
+		}
+		return daoUtils.selectList(query);
+	}
 }
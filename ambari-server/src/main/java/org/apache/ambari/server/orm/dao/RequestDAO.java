@@ -15,6 +15,7 @@ import org.apache.ambari.server.actionmanager.HostRoleStatus;
 import org.apache.ambari.server.orm.RequiresSession;
 import org.apache.ambari.server.orm.entities.RequestEntity;
 import org.apache.ambari.server.orm.entities.RequestResourceFilterEntity;
+import org.apache.ambari.server.orm.entities.StageEntity;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -86,4 +87,23 @@ public class RequestDAO {
 	public void removeByPK(Long requestId) {
 		remove(findByPK(requestId));
 	}
+	
+	/**
+	 * Remove a request together with its stages, tasks and execution commands.
+	 * 
+	 * @param requestId the request id
+	 */
+	@Transactional
+	public void removeWithStages(long requestId) {
+		EntityManager entityManager = entityManagerProvider.get();
+		RequestEntity requestEntity = entityManager.find(RequestEntity.class, requestId);
+		if (requestEntity == null) { return; }
+		
+		// the stages cascade the removal to their tasks, execution commands and success criteria
+		TypedQuery<StageEntity> query = entityManager.createQuery("SELECT stage FROM StageEntity stage WHERE stage.requestId = ?1", StageEntity.class);
+		for (StageEntity stageEntity : daoUtils.selectList(query, requestId)) {
+			entityManager.remove(stageEntity);
+		}
+		entityManager.remove(requestEntity);
+	}
 }
@@ -11,11 +11,13 @@ import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
 import org.apache.ambari.server.orm.entities.ViewInstanceDataEntity;
+import org.apache.ambari.server.orm.entities.ViewInstanceDataEntityPK;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntity;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntityPK;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -117,4 +119,25 @@ public class ViewInstanceDAO {
 	public void removeData(ViewInstanceDataEntity viewInstanceDataEntity) {
 		entityManagerProvider.get().remove(mergeData(viewInstanceDataEntity));
 	}
+	
+	/**
+	 * Write the given instance data entries and remove the entries with the given keys, all in one transaction. Other entries of the instance are left
+	 * untouched.
+	 * 
+	 * @param viewInstanceDataEntities the entities to merge
+	 * @param removedKeys the keys of the entities to remove, if they exist
+	 */
+	@Transactional
+	public void updateData(Collection<ViewInstanceDataEntity> viewInstanceDataEntities, Collection<ViewInstanceDataEntityPK> removedKeys) {
+		EntityManager entityManager = entityManagerProvider.get();
+		for (ViewInstanceDataEntity viewInstanceDataEntity : viewInstanceDataEntities) {
+			entityManager.merge(viewInstanceDataEntity);
+		}
+		for (ViewInstanceDataEntityPK pk : removedKeys) {
+			ViewInstanceDataEntity viewInstanceDataEntity = entityManager.find(ViewInstanceDataEntity.class, pk);
+			if (viewInstanceDataEntity != null) {
+				entityManager.remove(viewInstanceDataEntity);
+			}
+		}
+	}
 }
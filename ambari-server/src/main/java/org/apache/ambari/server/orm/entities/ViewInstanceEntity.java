@@ -91,6 +91,18 @@ public class ViewInstanceEntity {
 	@Transient
 	private final Map<String, Object> services = new HashMap<String, Object>();
 	
+	/**
+	 * Creates the services and resource providers on first use. Null once they have been created.
+	 */
+	@Transient
+	private volatile Runnable serviceInitializer = null;
+	
+	/**
+	 * Indicates whether the service initializer is running.
+	 */
+	@Transient
+	private boolean initializingServices = false;
+	
 	// ----- Constructors ------------------------------------------------------
 	
 	public ViewInstanceEntity() {
@@ -371,6 +383,7 @@ public class ViewInstanceEntity {
 	 * @return the resource provider
 	 */
 	public ResourceProvider getResourceProvider(Resource.Type type) {
+		initializeServices();
 		return resourceProviders.get(type);
 	}
 	
@@ -381,6 +394,7 @@ public class ViewInstanceEntity {
 	 * @return the resource provider
 	 */
 	public ResourceProvider getResourceProvider(String type) {
+		initializeServices();
 		String typeName = view.getQualifiedResourceTypeName(type);
 		return resourceProviders.get(Resource.Type.valueOf(typeName));
 	}
@@ -402,9 +416,20 @@ public class ViewInstanceEntity {
 	 * @return the service associated with the given name
 	 */
 	public Object getService(String pluralName) {
+		initializeServices();
 		return services.get(pluralName);
 	}
 	
+	/**
+	 * Set the initializer that creates the services and resource providers of this instance. It runs once, on the first lookup of a service or
+	 * resource provider.
+	 * 
+	 * @param serviceInitializer the service initializer
+	 */
+	public void setServiceInitializer(Runnable serviceInitializer) {
+		this.serviceInitializer = serviceInitializer;
+	}
+	
 	/**
 	 * Get the context path for the UI for this view.
 	 * 
@@ -424,4 +449,24 @@ public class ViewInstanceEntity {
 	public static String getContextPath(String viewName, String version, String viewInstanceName) {
 		return VIEWS_CONTEXT_PATH_PREFIX + viewName + "/" + version + "/" + viewInstanceName;
 	}
+	
+	// ----- helper methods ----------------------------------------------------
+	
+	// run the service initializer if the services have not been created yet; a lookup made by the initializer itself sees the services
+	// created so far
+	private void initializeServices() {
+		if (serviceInitializer != null) {
+			synchronized (services) {
+				if (serviceInitializer != null && !initializingServices) {
+					initializingServices = true;
+					try {
+						serviceInitializer.run();
+					} finally {
+						initializingServices = false;
+						serviceInitializer = null;
+					}
+				}
+			}
+		}
+	}
 }
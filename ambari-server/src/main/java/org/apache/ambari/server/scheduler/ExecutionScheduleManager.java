@@ -24,6 +24,7 @@ import org.apache.ambari.server.security.authorization.internal.InternalTokenCli
 import org.apache.ambari.server.security.authorization.internal.InternalTokenStorage;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.state.scheduler.Batch;
 import org.apache.ambari.server.state.scheduler.BatchRequest;
 import org.apache.ambari.server.state.scheduler.BatchRequestJob;
@@ -399,6 +400,7 @@ public class ExecutionScheduleManager {
 			
 			if (batchRequestResponse.getRequestId() != null) {
 				actionDBAccessor.setSourceScheduleForRequest(batchRequestResponse.getRequestId(), executionId);
+				StateVersions.increment(StateVersions.Category.REQUESTS);
 			}
 			
 			return batchRequestResponse.getRequestId();
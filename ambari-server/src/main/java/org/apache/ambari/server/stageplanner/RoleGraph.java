@@ -6,6 +6,7 @@
 package org.apache.ambari.server.stageplanner;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -51,18 +52,49 @@ public class RoleGraph {
 			}
 		}
 		
-		// Add edges
-		for (String roleI : graph.keySet()) {
-			for (String roleJ : graph.keySet()) {
-				if (!roleI.equals(roleJ)) {
-					RoleGraphNode rgnI = graph.get(roleI);
-					RoleGraphNode rgnJ = graph.get(roleJ);
-					int order = roleDependencies.order(rgnI, rgnJ);
-					if (order == -1) {
-						rgnI.addEdge(rgnJ);
-					} else if (order == 1) {
-						rgnJ.addEdge(rgnI);
-					}
+		// Add the edges of the role dependencies, using the blocker bit set of each role command rather than comparing every pair of roles
+		RoleCommandOrder.DependencyMatrix matrix = roleDependencies.getDependencyMatrix();
+		RoleGraphNode[] nodesByIndex = new RoleGraphNode[matrix.size()];
+		BitSet present = new BitSet(matrix.size());
+		List<RoleGraphNode> nodes = new ArrayList<RoleGraphNode>(graph.values());
+		int[] indexes = new int[nodes.size()];
+		for (int i = 0; i < nodes.size(); i++) {
+			RoleGraphNode rgn = nodes.get(i);
+			indexes[i] = matrix.indexOf(rgn.getRole(), rgn.getCommand());
+			if (indexes[i] >= 0) {
+				nodesByIndex[indexes[i]] = rgn;
+				present.set(indexes[i]);
+			}
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			if (indexes[i] < 0) {
+				continue;
+			}
+			BitSet blockers = matrix.getBlockers(indexes[i]);
+			blockers.and(present);
+			for (int j = blockers.nextSetBit(0); j >= 0; j = blockers.nextSetBit(j + 1)) {
+				nodesByIndex[j].addEdge(nodes.get(i));
+			}
+		}
+		
+		// Roles running different commands are ordered by the rank of the command unless a dependency orders them the other way; the roles of the higher ranks are kept as bit sets of node
+		// positions so that only the edges that are actually added are visited
+		BitSet[] higherRanks = new BitSet[RoleCommandOrder.MAX_COMMAND_RANK + 1];
+		int[] ranks = new int[nodes.size()];
+		for (int rank = 0; rank < higherRanks.length; rank++) {
+			higherRanks[rank] = new BitSet(nodes.size());
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			ranks[i] = roleDependencies.getCommandRank(nodes.get(i).getCommand());
+			for (int rank = 0; rank < ranks[i]; rank++) {
+				higherRanks[rank].set(i);
+			}
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			BitSet later = higherRanks[ranks[i]];
+			for (int j = later.nextSetBit(0); j >= 0; j = later.nextSetBit(j + 1)) {
+				if (indexes[i] < 0 || indexes[j] < 0 || !matrix.isBlockedBy(indexes[i], indexes[j])) {
+					nodes.get(i).addEdge(nodes.get(j));
 				}
 			}
 		}
@@ -74,42 +106,52 @@ public class RoleGraph {
 	public List<Stage> getStages() {
 		long initialStageId = initialStage.getStageId();
 		List<Stage> stageList = new ArrayList<Stage>();
-		List<RoleGraphNode> firstStageNodes = new ArrayList<RoleGraphNode>();
+		
+		// Kahn's algorithm, one stage per layer: the nodes of the next layer are the ones whose in degree drops to zero while removing the current layer
+		Map<String, RoleGraphNode> stageNodes = new TreeMap<String, RoleGraphNode>();
+		for (RoleGraphNode rgn : graph.values()) {
+			if (rgn.getInDegree() == 0) {
+				stageNodes.put(rgn.getRole().toString(), rgn);
+			}
+		}
 		while (!graph.isEmpty()) {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug(this.stringifyGraph());
 			}
+			if (stageNodes.isEmpty()) { throw new IllegalStateException("Cyclic role dependencies found. " + this.stringifyGraph()); }
 			
-			for (String role : graph.keySet()) {
-				RoleGraphNode rgn = graph.get(role);
-				if (rgn.getInDegree() == 0) {
-					firstStageNodes.add(rgn);
-				}
-			}
-			Stage aStage = getStageFromGraphNodes(initialStage, firstStageNodes);
+			Stage aStage = getStageFromGraphNodes(initialStage, new ArrayList<RoleGraphNode>(stageNodes.values()));
 			aStage.setStageId(++initialStageId);
 			stageList.add(aStage);
-			// Remove first stage nodes from the graph, we know that none of
+			// Remove the stage nodes from the graph, we know that none of
 			// these nodes have an incoming edges.
-			for (RoleGraphNode rgn : firstStageNodes) {
+			Map<String, RoleGraphNode> nextStageNodes = new TreeMap<String, RoleGraphNode>();
+			for (RoleGraphNode rgn : stageNodes.values()) {
 				if (this.sameHostOptimization) {
 					// Perform optimization
 				}
-				removeZeroInDegreeNode(rgn.getRole().toString());
+				for (RoleGraphNode edgeNode : removeZeroInDegreeNode(rgn.getRole().toString())) {
+					nextStageNodes.put(edgeNode.getRole().toString(), edgeNode);
+				}
 			}
-			firstStageNodes.clear();
+			stageNodes = nextStageNodes;
 		}
 		return stageList;
 	}
 	
 	/**
-	 * Assumes there are no incoming edges.
+	 * Assumes there are no incoming edges. Returns the nodes that have no incoming edges left after the removal.
 	 */
-	private synchronized void removeZeroInDegreeNode(String role) {
+	private synchronized List<RoleGraphNode> removeZeroInDegreeNode(String role) {
 		RoleGraphNode nodeToRemove = graph.remove(role);
+		List<RoleGraphNode> freedNodes = new ArrayList<RoleGraphNode>();
 		for (RoleGraphNode edgeNode : nodeToRemove.getEdges()) {
 			edgeNode.decrementInDegree();
+			if (edgeNode.getInDegree() == 0) {
+				freedNodes.add(edgeNode);
+			}
 		}
+		return freedNodes;
 	}
 	
 	private Stage getStageFromGraphNodes(Stage origStage, List<RoleGraphNode> stageGraphNodes) {
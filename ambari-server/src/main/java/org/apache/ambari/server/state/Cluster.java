@@ -59,10 +59,52 @@ public interface Cluster {
 	 * Get all ServiceComponentHosts on a given host
 	 * 
 	 * @param hostname
-	 * @return
+	 * @return a copy of the list of host components of the given host
 	 */
 	public List<ServiceComponentHost> getServiceComponentHosts(String hostname);
 	
+	/**
+	 * Get a ServiceComponentHost of the cluster
+	 * 
+	 * @param serviceName
+	 * @param serviceComponentName
+	 * @param hostname
+	 * @return the ServiceComponentHost
+	 * @throws AmbariException
+	 *           if the host component does not exist
+	 */
+	public ServiceComponentHost getServiceComponentHost(String serviceName, String serviceComponentName, String hostname) throws AmbariException;
+	
+	/**
+	 * Get the version of the cluster structure. The version changes whenever a service or a host component is added to or removed from the cluster.
+	 * 
+	 * @return the topology version
+	 */
+	public long getTopologyVersion();
+	
+	/**
+	 * Bump the topology version after a change that is not a structural one but still affects the data derived from the topology, such as the decommissioning of host components.
+	 */
+	public void invalidateTopology();
+	
+	/**
+	 * Add ServiceComponentHost to cluster
+	 * 
+	 * @param svcCompHost
+	 * @throws AmbariException
+	 *           if the host does not belong to the cluster or the host component already exists
+	 */
+	public void addServiceComponentHost(ServiceComponentHost svcCompHost) throws AmbariException;
+	
+	/**
+	 * Add a batch of ServiceComponentHosts to cluster. All of them are validated before any is added.
+	 * 
+	 * @param svcCompHosts
+	 * @throws AmbariException
+	 *           if a host does not belong to the cluster or a host component already exists
+	 */
+	public void addServiceComponentHosts(Collection<ServiceComponentHost> svcCompHosts) throws AmbariException;
+	
 	/**
 	 * Remove ServiceComponentHost from cluster
 	 * 
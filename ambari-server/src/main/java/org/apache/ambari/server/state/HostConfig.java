@@ -37,6 +37,20 @@ public class HostConfig {
 		return configGroupOverrides;
 	}
 	
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) { return true; }
+		if (o == null || getClass() != o.getClass()) { return false; }
+		
+		HostConfig that = (HostConfig) o;
+		return (defaultVersionTag == null ? that.defaultVersionTag == null : defaultVersionTag.equals(that.defaultVersionTag)) && configGroupOverrides.equals(that.configGroupOverrides);
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * (defaultVersionTag == null ? 0 : defaultVersionTag.hashCode()) + configGroupOverrides.hashCode();
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -6,6 +6,7 @@
 
 package org.apache.ambari.server.state;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 
@@ -40,6 +41,14 @@ public interface ServiceComponent {
 	
 	public void addServiceComponentHost(ServiceComponentHost hostComponent) throws AmbariException;
 	
+	/**
+	 * Remove the given host components from the in-memory model only, leaving the database untouched. Used to undo {@link #addServiceComponentHosts(Map)} when the creation of the host
+	 * components fails; host components that are not registered with this component are ignored.
+	 * 
+	 * @param hostComponents the host components to remove
+	 */
+	public void removeServiceComponentHosts(Collection<ServiceComponentHost> hostComponents) throws AmbariException;
+	
 	public ServiceComponentResponse convertToResponse();
 	
 	public void refresh();
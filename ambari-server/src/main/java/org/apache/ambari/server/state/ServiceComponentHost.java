@@ -83,6 +83,13 @@ public interface ServiceComponentHost {
 	@Transactional
 	void persist();
 	
+	/**
+	 * Persist a new host component without merging and refreshing its host and service component. Used when creating host components in bulk so that the statements can be batched;
+	 * the caller refreshes each affected host and service component once the batch is written.
+	 */
+	@Transactional
+	void persistWithoutRefresh();
+	
 	void refresh();
 	
 	public void debugDump(StringBuilder sb);
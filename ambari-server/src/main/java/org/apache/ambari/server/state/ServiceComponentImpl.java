@@ -26,10 +26,10 @@ import org.apache.ambari.server.orm.entities.HostComponentDesiredStateEntityPK;
 import org.apache.ambari.server.orm.entities.HostComponentStateEntity;
 import org.apache.ambari.server.orm.entities.ServiceComponentDesiredStateEntity;
 import org.apache.ambari.server.orm.entities.ServiceComponentDesiredStateEntityPK;
-import org.apache.ambari.server.state.cluster.ClusterImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -194,7 +194,31 @@ public class ServiceComponentImpl implements ServiceComponent {
 					if (!entry.getKey().equals(entry.getValue().getHostName())) { throw new AmbariException("Invalid arguments in map" + ", hostname does not match the key in map"); }
 				}
 				for (ServiceComponentHost sch : hostComponents.values()) {
-					addServiceComponentHost(sch);
+					if (this.hostComponents.containsKey(sch.getHostName())) { throw new AmbariException("Cannot add duplicate ServiceComponentHost" + ", clusterName=" + service.getCluster().getClusterName() + ", clusterId="
+							+ service.getCluster().getClusterId() + ", serviceName=" + service.getName() + ", serviceComponentName=" + getName() + ", hostname=" + sch.getHostName()); }
+				}
+				// register the whole batch with the cluster at once
+				service.getCluster().addServiceComponentHosts(hostComponents.values());
+				this.hostComponents.putAll(hostComponents);
+			} finally {
+				readWriteLock.writeLock().unlock();
+			}
+		} finally {
+			clusterGlobalLock.writeLock().unlock();
+		}
+	}
+	
+	@Override
+	public void removeServiceComponentHosts(Collection<ServiceComponentHost> hostComponents) throws AmbariException {
+		clusterGlobalLock.writeLock().lock();
+		try {
+			readWriteLock.writeLock().lock();
+			try {
+				for (ServiceComponentHost sch : hostComponents) {
+					if (this.hostComponents.get(sch.getHostName()) == sch) {
+						service.getCluster().removeServiceComponentHost(sch);
+						this.hostComponents.remove(sch.getHostName());
+					}
 				}
 			} finally {
 				readWriteLock.writeLock().unlock();
@@ -219,8 +243,7 @@ public class ServiceComponentImpl implements ServiceComponent {
 				if (hostComponents.containsKey(hostComponent.getHostName())) { throw new AmbariException("Cannot add duplicate ServiceComponentHost" + ", clusterName=" + service.getCluster().getClusterName() + ", clusterId=" + service.getCluster().getClusterId()
 						+ ", serviceName=" + service.getName() + ", serviceComponentName=" + getName() + ", hostname=" + hostComponent.getHostName()); }
 				// FIXME need a better approach of caching components by host
-				ClusterImpl clusterImpl = (ClusterImpl) service.getCluster();
-				clusterImpl.addServiceComponentHost(hostComponent);
+				service.getCluster().addServiceComponentHost(hostComponent);
 				this.hostComponents.put(hostComponent.getHostName(), hostComponent);
 			} finally {
 				readWriteLock.writeLock().unlock();
@@ -246,8 +269,7 @@ public class ServiceComponentImpl implements ServiceComponent {
 						+ service.getName() + ", serviceComponentName=" + getName() + ", hostname=" + hostName); }
 				ServiceComponentHost hostComponent = serviceComponentHostFactory.createNew(this, hostName);
 				// FIXME need a better approach of caching components by host
-				ClusterImpl clusterImpl = (ClusterImpl) service.getCluster();
-				clusterImpl.addServiceComponentHost(hostComponent);
+				service.getCluster().addServiceComponentHost(hostComponent);
 				
 				this.hostComponents.put(hostComponent.getHostName(), hostComponent);
 				
@@ -433,6 +455,7 @@ public class ServiceComponentImpl implements ServiceComponent {
 				} else {
 					saveIfPersisted();
 				}
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -486,6 +509,7 @@ public class ServiceComponentImpl implements ServiceComponent {
 				if (isPersisted()) {
 					serviceComponentDesiredStateDAO.merge(desiredStateEntity);
 				}
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -545,6 +569,7 @@ public class ServiceComponentImpl implements ServiceComponent {
 				}
 				
 				hostComponents.clear();
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -565,6 +590,7 @@ public class ServiceComponentImpl implements ServiceComponent {
 				if (!sch.canBeRemoved()) { throw new AmbariException("Could not delete hostcomponent from cluster" + ", clusterName=" + getClusterName() + ", serviceName=" + getServiceName() + ", componentName=" + getName() + ", hostname=" + sch.getHostName()); }
 				sch.delete();
 				hostComponents.remove(hostname);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 				
 			} finally {
 				readWriteLock.writeLock().unlock();
@@ -391,6 +391,7 @@ public class ServiceImpl implements Service {
 				} else {
 					saveIfPersisted();
 				}
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -420,6 +421,7 @@ public class ServiceImpl implements Service {
 			clusterServiceDAO.merge(serviceEntity);
 			serviceDesiredStateDAO.merge(serviceDesiredStateEntity);
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
@@ -490,6 +492,7 @@ public class ServiceImpl implements Service {
 				}
 				
 				components.clear();
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -511,6 +514,7 @@ public class ServiceImpl implements Service {
 				
 				component.delete();
 				components.remove(componentName);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.state;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version counters of the server state exposed through the API. A counter is incremented after every change of the state of its category, so an unchanged counter means that any response
+ * computed from that state is still current. Metrics are not versioned.
+ * <p/>
+ * The counters start over whenever the server starts, so versions handed out to clients must be qualified by the {@link #getEpoch() epoch} of the server that produced them; see
+ * {@link #getVersionTag(Category...)}.
+ */
+public final class StateVersions {
+	
+	/**
+	 * The categories of versioned state.
+	 */
+	public enum Category {
+		/**
+		 * Clusters, services, components, host components, configurations, config groups and request schedules.
+		 */
+		CLUSTERS,
+		
+		/**
+		 * Hosts, their state and attributes.
+		 */
+		HOSTS,
+		
+		/**
+		 * The host data reported by every heartbeat, such as the heartbeat time, the agent environment and the disks.
+		 */
+		HOST_HEARTBEATS,
+		
+		/**
+		 * Requests, stages and tasks.
+		 */
+		REQUESTS
+	}
+	
+	private static final AtomicLongArray versions = new AtomicLongArray(Category.values().length);
+	
+	/**
+	 * Identifies this run of the server: the time the counters were created.
+	 */
+	private static final long epoch = System.currentTimeMillis();
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	private StateVersions() {
+	}
+	
+	// ----- StateVersions -----------------------------------------------------
+	
+	/**
+	 * Record a change of the state of the given category. Must be called after the change is visible to readers.
+	 * 
+	 * @param category the changed category
+	 */
+	public static void increment(Category category) {
+		versions.incrementAndGet(category.ordinal());
+	}
+	
+	/**
+	 * Get the version of the state of the given category.
+	 * 
+	 * @param category the category
+	 * 
+	 * @return the version
+	 */
+	public static long getVersion(Category category) {
+		return versions.get(category.ordinal());
+	}
+	
+	/**
+	 * Get the combined version of the given categories. The combined version only grows and changes whenever one of the categories changes.
+	 * 
+	 * @param categories the categories
+	 * 
+	 * @return the combined version
+	 */
+	public static long getVersion(Category... categories) {
+		long version = 0;
+		for (Category category : categories) {
+			version += versions.get(category.ordinal());
+		}
+		return version;
+	}
+	
+	/**
+	 * Get the epoch of the versions. The epoch changes whenever the server restarts and the counters start over.
+	 * 
+	 * @return the epoch
+	 */
+	public static long getEpoch() {
+		return epoch;
+	}
+	
+	/**
+	 * Get the combined version of the given categories qualified by the epoch. Unlike the bare version, the tag never repeats across server restarts, so it is safe to hand out to clients.
+	 * 
+	 * @param categories the categories
+	 * 
+	 * @return the version tag
+	 */
+	public static String getVersionTag(Category... categories) {
+		return Long.toHexString(epoch) + "-" + getVersion(categories);
+	}
+}
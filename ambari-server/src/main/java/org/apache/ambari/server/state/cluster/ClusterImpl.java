@@ -38,6 +38,7 @@ import org.apache.ambari.server.state.ServiceComponent;
 import org.apache.ambari.server.state.ServiceComponentHost;
 import org.apache.ambari.server.state.ServiceFactory;
 import org.apache.ambari.server.state.StackId;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.state.configgroup.ConfigGroup;
 import org.apache.ambari.server.state.configgroup.ConfigGroupFactory;
 import org.apache.ambari.server.state.scheduler.RequestExecution;
@@ -57,7 +58,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -104,6 +104,21 @@ public class ClusterImpl implements Cluster {
 	
 	private final ReadWriteLock clusterGlobalLock = new ReentrantReadWriteLock();
 	
+	/**
+	 * Immutable snapshot of services and host components, rebuilt on the first read after a structural change.
+	 */
+	private volatile ClusterTopology topology = ClusterTopology.EMPTY;
+	
+	/**
+	 * True if the structure changed since the topology snapshot was built.
+	 */
+	private volatile boolean topologyStale;
+	
+	/**
+	 * Version of the cluster structure, incremented on every structural change.
+	 */
+	private volatile long topologyVersion;
+	
 	private ClusterEntity clusterEntity;
 	
 	@Inject
@@ -197,6 +212,7 @@ public class ClusterImpl implements Cluster {
 						}
 					}
 				}
+				topologyChanged();
 				svcHostsLoaded = true;
 			} finally {
 				writeLock.unlock();
@@ -222,6 +238,7 @@ public class ClusterImpl implements Cluster {
 								services.put(serviceEntity.getServiceName(), serviceFactory.createExisting(this, serviceEntity));
 							}
 						}
+						topologyChanged();
 					}
 				} finally {
 					writeLock.unlock();
@@ -293,6 +310,7 @@ public class ClusterImpl implements Cluster {
 					LOG.debug("Config group already exists" + ", clusterName = " + getClusterName() + ", groupName = " + configGroup.getName() + ", groupId = " + configGroup.getId() + ", tag = " + configGroup.getTag());
 				} else {
 					clusterConfigGroups.put(configGroup.getId(), configGroup);
+					StateVersions.increment(StateVersions.Category.CLUSTERS);
 				}
 				
 			} finally {
@@ -361,6 +379,7 @@ public class ClusterImpl implements Cluster {
 					LOG.debug("Request schedule already exists" + ", clusterName = " + getClusterName() + ", id = " + requestExecution.getId() + ", description = " + requestExecution.getDescription());
 				} else {
 					requestExecutions.put(requestExecution.getId(), requestExecution);
+					StateVersions.increment(StateVersions.Category.CLUSTERS);
 				}
 			} finally {
 				writeLock.unlock();
@@ -399,6 +418,7 @@ public class ClusterImpl implements Cluster {
 				
 				requestExecution.delete();
 				requestExecutions.remove(id);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -420,6 +440,7 @@ public class ClusterImpl implements Cluster {
 				
 				configGroup.delete();
 				clusterConfigGroups.remove(id);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 				
 			} finally {
 				readWriteLock.writeLock().unlock();
@@ -429,22 +450,12 @@ public class ClusterImpl implements Cluster {
 		}
 	}
 	
+	@Override
 	public ServiceComponentHost getServiceComponentHost(String serviceName, String serviceComponentName, String hostname) throws AmbariException {
 		loadServiceHostComponents();
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				if (!serviceComponentHosts.containsKey(serviceName) || !serviceComponentHosts.get(serviceName).containsKey(serviceComponentName) || !serviceComponentHosts.get(serviceName).get(serviceComponentName).containsKey(hostname)) { throw new ServiceComponentHostNotFoundException(
-						getClusterName(), serviceName, serviceComponentName, hostname); }
-				return serviceComponentHosts.get(serviceName).get(serviceComponentName).get(hostname);
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		ServiceComponentHost sch = getCurrentTopology().getServiceComponentHost(serviceName, serviceComponentName, hostname);
+		if (sch == null) { throw new ServiceComponentHostNotFoundException(getClusterName(), serviceName, serviceComponentName, hostname); }
+		return sch;
 	}
 	
 	@Override
@@ -473,6 +484,7 @@ public class ClusterImpl implements Cluster {
 				clusterEntity.setClusterName(clusterName);
 				clusterDAO.merge(clusterEntity); // RollbackException possibility if UNIQUE constraint violated
 				clusters.updateClusterName(oldName, clusterName);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				writeLock.unlock();
 			}
@@ -482,57 +494,109 @@ public class ClusterImpl implements Cluster {
 		
 	}
 	
+	@Override
 	public void addServiceComponentHost(ServiceComponentHost svcCompHost) throws AmbariException {
 		loadServiceHostComponents();
 		clusterGlobalLock.writeLock().lock();
 		try {
 			writeLock.lock();
 			try {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("Trying to add ServiceComponentHost to ClusterHostMap cache" + ", serviceName=" + svcCompHost.getServiceName() + ", componentName=" + svcCompHost.getServiceComponentName() + ", hostname=" + svcCompHost.getHostName());
-				}
-				
-				final String hostname = svcCompHost.getHostName();
-				final String serviceName = svcCompHost.getServiceName();
-				final String componentName = svcCompHost.getServiceComponentName();
-				Set<Cluster> cs = clusters.getClustersForHost(hostname);
-				boolean clusterFound = false;
-				Iterator<Cluster> iter = cs.iterator();
-				while (iter.hasNext()) {
-					Cluster c = iter.next();
-					if (c.getClusterId() == this.getClusterId()) {
-						clusterFound = true;
-						break;
-					}
-				}
-				if (!clusterFound) { throw new AmbariException("Host does not belong this cluster" + ", hostname=" + hostname + ", clusterName=" + getClusterName() + ", clusterId=" + getClusterId()); }
-				
-				if (!serviceComponentHosts.containsKey(serviceName)) {
-					serviceComponentHosts.put(serviceName, new HashMap<String, Map<String, ServiceComponentHost>>());
-				}
-				if (!serviceComponentHosts.get(serviceName).containsKey(componentName)) {
-					serviceComponentHosts.get(serviceName).put(componentName, new HashMap<String, ServiceComponentHost>());
-				}
-				
-				if (serviceComponentHosts.get(serviceName).get(componentName).containsKey(hostname)) { throw new AmbariException("Duplicate entry for ServiceComponentHost" + ", serviceName=" + serviceName + ", serviceComponentName" + componentName + ", hostname= " + hostname); }
-				
-				if (!serviceComponentHostsByHost.containsKey(hostname)) {
-					serviceComponentHostsByHost.put(hostname, new ArrayList<ServiceComponentHost>());
+				validateNewServiceComponentHost(svcCompHost);
+				putServiceComponentHost(svcCompHost);
+				topologyChanged();
+			} finally {
+				writeLock.unlock();
+			}
+		} finally {
+			clusterGlobalLock.writeLock().unlock();
+		}
+		
+	}
+	
+	/**
+	 * Add a batch of host components. All of them are validated before any is added.
+	 * 
+	 * @param svcCompHosts
+	 *          the host components to add
+	 * @throws AmbariException
+	 *           if a host does not belong to this cluster or a host component already exists
+	 */
+	@Override
+	public void addServiceComponentHosts(Collection<ServiceComponentHost> svcCompHosts) throws AmbariException {
+		loadServiceHostComponents();
+		clusterGlobalLock.writeLock().lock();
+		try {
+			writeLock.lock();
+			try {
+				Set<String> batchKeys = new HashSet<String>();
+				for (ServiceComponentHost svcCompHost : svcCompHosts) {
+					validateNewServiceComponentHost(svcCompHost);
+					if (!batchKeys.add(svcCompHost.getServiceName() + "/" + svcCompHost.getServiceComponentName() + "/" + svcCompHost.getHostName())) { throw new AmbariException("Duplicate entry for ServiceComponentHost"
+							+ ", serviceName=" + svcCompHost.getServiceName() + ", serviceComponentName" + svcCompHost.getServiceComponentName() + ", hostname= " + svcCompHost.getHostName()); }
 				}
-				
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("Adding a new ServiceComponentHost" + ", clusterName=" + getClusterName() + ", clusterId=" + getClusterId() + ", serviceName=" + serviceName + ", serviceComponentName" + componentName + ", hostname= " + hostname);
+				for (ServiceComponentHost svcCompHost : svcCompHosts) {
+					putServiceComponentHost(svcCompHost);
 				}
-				
-				serviceComponentHosts.get(serviceName).get(componentName).put(hostname, svcCompHost);
-				serviceComponentHostsByHost.get(hostname).add(svcCompHost);
+				topologyChanged();
 			} finally {
 				writeLock.unlock();
 			}
 		} finally {
 			clusterGlobalLock.writeLock().unlock();
 		}
+	}
+	
+	/**
+	 * Check that the host of a new host component belongs to this cluster and that the host component is not already known. Must be called with the write lock held.
+	 */
+	private void validateNewServiceComponentHost(ServiceComponentHost svcCompHost) throws AmbariException {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Trying to add ServiceComponentHost to ClusterHostMap cache" + ", serviceName=" + svcCompHost.getServiceName() + ", componentName=" + svcCompHost.getServiceComponentName() + ", hostname=" + svcCompHost.getHostName());
+		}
 		
+		final String hostname = svcCompHost.getHostName();
+		final String serviceName = svcCompHost.getServiceName();
+		final String componentName = svcCompHost.getServiceComponentName();
+		Set<Cluster> cs = clusters.getClustersForHost(hostname);
+		boolean clusterFound = false;
+		Iterator<Cluster> iter = cs.iterator();
+		while (iter.hasNext()) {
+			Cluster c = iter.next();
+			if (c.getClusterId() == this.getClusterId()) {
+				clusterFound = true;
+				break;
+			}
+		}
+		if (!clusterFound) { throw new AmbariException("Host does not belong this cluster" + ", hostname=" + hostname + ", clusterName=" + getClusterName() + ", clusterId=" + getClusterId()); }
+		
+		if (serviceComponentHosts.containsKey(serviceName) && serviceComponentHosts.get(serviceName).containsKey(componentName) && serviceComponentHosts.get(serviceName).get(componentName).containsKey(hostname)) { throw new AmbariException(
+				"Duplicate entry for ServiceComponentHost" + ", serviceName=" + serviceName + ", serviceComponentName" + componentName + ", hostname= " + hostname); }
+	}
+	
+	/**
+	 * Add a validated host component to the mutable maps. Must be called with the write lock held; the caller is responsible for marking the topology as changed.
+	 */
+	private void putServiceComponentHost(ServiceComponentHost svcCompHost) {
+		final String hostname = svcCompHost.getHostName();
+		final String serviceName = svcCompHost.getServiceName();
+		final String componentName = svcCompHost.getServiceComponentName();
+		
+		if (!serviceComponentHosts.containsKey(serviceName)) {
+			serviceComponentHosts.put(serviceName, new HashMap<String, Map<String, ServiceComponentHost>>());
+		}
+		if (!serviceComponentHosts.get(serviceName).containsKey(componentName)) {
+			serviceComponentHosts.get(serviceName).put(componentName, new HashMap<String, ServiceComponentHost>());
+		}
+		if (!serviceComponentHostsByHost.containsKey(hostname)) {
+			serviceComponentHostsByHost.put(hostname, new ArrayList<ServiceComponentHost>());
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Adding a new ServiceComponentHost" + ", clusterName=" + getClusterName() + ", clusterId=" + getClusterId() + ", serviceName=" + serviceName + ", serviceComponentName" + componentName + ", hostname= " + hostname);
+		}
+		
+		serviceComponentHosts.get(serviceName).get(componentName).put(hostname, svcCompHost);
+		serviceComponentHostsByHost.get(hostname).add(svcCompHost);
 	}
 	
 	@Override
@@ -585,6 +649,7 @@ public class ClusterImpl implements Cluster {
 				if (schToRemove != null) {
 					serviceComponentHostsByHost.get(hostname).remove(schToRemove);
 				}
+				topologyChanged();
 			} finally {
 				writeLock.unlock();
 			}
@@ -613,19 +678,7 @@ public class ClusterImpl implements Cluster {
 	@Override
 	public List<ServiceComponentHost> getServiceComponentHosts(String hostname) {
 		loadServiceHostComponents();
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				if (serviceComponentHostsByHost.containsKey(hostname)) { return new CopyOnWriteArrayList<ServiceComponentHost>(serviceComponentHostsByHost.get(hostname)); }
-				return new ArrayList<ServiceComponentHost>();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		return new ArrayList<ServiceComponentHost>(getCurrentTopology().getServiceComponentHosts(hostname));
 	}
 	
 	@Override
@@ -640,6 +693,7 @@ public class ClusterImpl implements Cluster {
 				}
 				if (services.containsKey(service.getName())) { throw new AmbariException("Service already exists" + ", clusterName=" + getClusterName() + ", clusterId=" + getClusterId() + ", serviceName=" + service.getName()); }
 				this.services.put(service.getName(), service);
+				topologyChanged();
 			} finally {
 				writeLock.unlock();
 			}
@@ -662,6 +716,7 @@ public class ClusterImpl implements Cluster {
 				if (services.containsKey(serviceName)) { throw new AmbariException("Service already exists" + ", clusterName=" + getClusterName() + ", clusterId=" + getClusterId() + ", serviceName=" + serviceName); }
 				Service s = serviceFactory.createNew(this, serviceName);
 				this.services.put(s.getName(), s);
+				topologyChanged();
 				return s;
 			} finally {
 				writeLock.unlock();
@@ -675,36 +730,77 @@ public class ClusterImpl implements Cluster {
 	@Override
 	public Service getService(String serviceName) throws AmbariException {
 		loadServices();
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				if (!services.containsKey(serviceName)) { throw new ServiceNotFoundException(getClusterName(), serviceName); }
-				return services.get(serviceName);
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		Service service = getCurrentTopology().getService(serviceName);
+		if (service == null) { throw new ServiceNotFoundException(getClusterName(), serviceName); }
+		return service;
 	}
 	
 	@Override
 	public Map<String, Service> getServices() {
 		loadServices();
-		clusterGlobalLock.readLock().lock();
+		return new HashMap<String, Service>(getCurrentTopology().getServices());
+	}
+	
+	@Override
+	public long getTopologyVersion() {
+		return topologyVersion;
+	}
+	
+	@Override
+	public void invalidateTopology() {
+		loadServiceHostComponents();
+		clusterGlobalLock.writeLock().lock();
 		try {
-			readLock.lock();
+			readWriteLock.writeLock().lock();
 			try {
-				return new HashMap<String, Service>(services);
+				topologyChanged();
 			} finally {
-				readLock.unlock();
+				readWriteLock.writeLock().unlock();
 			}
 		} finally {
-			clusterGlobalLock.readLock().unlock();
+			clusterGlobalLock.writeLock().unlock();
 		}
+	}
+	
+	/**
+	 * Get the current snapshot of the cluster structure. The snapshot can be iterated without holding any lock.
+	 * 
+	 * @return the current topology snapshot
+	 */
+	public ClusterTopology getTopology() {
+		loadServiceHostComponents();
+		return getCurrentTopology();
+	}
+	
+	/**
+	 * Mark the snapshot of the cluster structure as stale. Must be called with the write lock held after any change to services or host components. The snapshot is only rebuilt on the next
+	 * read, so a series of changes costs a single copy of the structure.
+	 */
+	private void topologyChanged() {
+		topologyVersion++;
+		topologyStale = true;
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
+	}
+	
+	/**
+	 * Get the snapshot of the cluster structure, rebuilding it first if the structure changed since it was built.
+	 * 
+	 * @return the current topology snapshot
+	 */
+	private ClusterTopology getCurrentTopology() {
+		if (!topologyStale) { return topology; }
 		
+		readLock.lock();
+		try {
+			// the write lock excludes changes while the snapshot is copied
+			if (topologyStale) {
+				topology = ClusterTopology.copyOf(topologyVersion, services, serviceComponentHosts, serviceComponentHostsByHost);
+				topologyStale = false;
+			}
+			return topology;
+		} finally {
+			readLock.unlock();
+		}
 	}
 	
 	@Override
@@ -735,6 +831,7 @@ public class ClusterImpl implements Cluster {
 				this.desiredStackVersion = stackVersion;
 				clusterEntity.setDesiredStackVersion(gson.toJson(stackVersion));
 				clusterDAO.merge(clusterEntity);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -786,6 +883,7 @@ public class ClusterImpl implements Cluster {
 					clusterStateDAO.merge(clusterStateEntity);
 					clusterEntity = clusterDAO.merge(clusterEntity);
 				}
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} catch (RollbackException e) {
 				LOG.warn("Unable to set version " + stackVersion + " for cluster " + getClusterName());
 				throw new AmbariException("Unable to set" + " version=" + stackVersion + " for cluster " + getClusterName(), e);
@@ -847,6 +945,7 @@ public class ClusterImpl implements Cluster {
 				}
 				
 				allConfigs.get(config.getType()).put(config.getVersionTag(), config);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -960,6 +1059,7 @@ public class ClusterImpl implements Cluster {
 				}
 				
 				services.clear();
+				topologyChanged();
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -982,6 +1082,7 @@ public class ClusterImpl implements Cluster {
 				if (!service.canBeRemoved()) { throw new AmbariException("Could not delete service from cluster" + ", clusterName=" + getClusterName() + ", serviceName=" + service.getName()); }
 				service.delete();
 				services.remove(serviceName);
+				topologyChanged();
 			} finally {
 				readWriteLock.writeLock().unlock();
 			}
@@ -1072,6 +1173,7 @@ public class ClusterImpl implements Cluster {
 				entities.add(entity);
 				
 				clusterDAO.merge(clusterEntity);
+				StateVersions.increment(StateVersions.Category.CLUSTERS);
 				
 				return true;
 			} finally {
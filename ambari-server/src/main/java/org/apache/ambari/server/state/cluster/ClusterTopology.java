@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.state.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.ambari.server.state.Service;
+import org.apache.ambari.server.state.ServiceComponentHost;
+
+/**
+ * Immutable snapshot of the structure of a cluster (services, components and host components).
+ * <p/>
+ * {@link ClusterImpl} marks its snapshot as stale whenever the structure changes and builds a new one on the first read that follows, so a series of changes is copied once. The new snapshot is
+ * published with a single volatile write; readers simply grab the current snapshot and iterate it without taking any lock. The host component objects are shared with the live model so their state is always current; only the structure is frozen.
+ */
+public final class ClusterTopology {
+	
+	/**
+	 * The empty topology.
+	 */
+	public static final ClusterTopology EMPTY = new ClusterTopology(0L, Collections.<String, Service> emptyMap(), Collections.<String, Map<String, Map<String, ServiceComponentHost>>> emptyMap(),
+			Collections.<String, List<ServiceComponentHost>> emptyMap());
+	
+	/**
+	 * Monotonically increasing version of the topology.
+	 */
+	private final long version;
+	
+	/**
+	 * [ ServiceName -> Service ]
+	 */
+	private final Map<String, Service> services;
+	
+	/**
+	 * [ ServiceName -> [ ServiceComponentName -> [ HostName -> [ ... ] ] ] ]
+	 */
+	private final Map<String, Map<String, Map<String, ServiceComponentHost>>> serviceComponentHosts;
+	
+	/**
+	 * [ HostName -> [ ... ] ]
+	 */
+	private final Map<String, List<ServiceComponentHost>> serviceComponentHostsByHost;
+	
+	// ----- Constructors ------------------------------------------------------
+	
+	private ClusterTopology(long version, Map<String, Service> services, Map<String, Map<String, Map<String, ServiceComponentHost>>> serviceComponentHosts,
+			Map<String, List<ServiceComponentHost>> serviceComponentHostsByHost) {
+		this.version = version;
+		this.services = services;
+		this.serviceComponentHosts = serviceComponentHosts;
+		this.serviceComponentHostsByHost = serviceComponentHostsByHost;
+	}
+	
+	/**
+	 * Create a new snapshot as a deep copy of the given mutable structures. The caller must hold the lock guarding them.
+	 * 
+	 * @param version
+	 *          the version of the new snapshot
+	 * @param services
+	 *          the services of the cluster; may be null if not yet loaded
+	 * @param serviceComponentHosts
+	 *          the host components keyed by service, component and host name
+	 * @param serviceComponentHostsByHost
+	 *          the host components keyed by host name
+	 * 
+	 * @return the new snapshot
+	 */
+	public static ClusterTopology copyOf(long version, Map<String, Service> services, Map<String, Map<String, Map<String, ServiceComponentHost>>> serviceComponentHosts,
+			Map<String, List<ServiceComponentHost>> serviceComponentHostsByHost) {
+		
+		Map<String, Service> servicesCopy = services == null ? Collections.<String, Service> emptyMap() : Collections.unmodifiableMap(new TreeMap<String, Service>(services));
+		
+		Map<String, Map<String, Map<String, ServiceComponentHost>>> schCopy = new HashMap<String, Map<String, Map<String, ServiceComponentHost>>>();
+		for (Entry<String, Map<String, Map<String, ServiceComponentHost>>> serviceEntry : serviceComponentHosts.entrySet()) {
+			Map<String, Map<String, ServiceComponentHost>> componentsCopy = new HashMap<String, Map<String, ServiceComponentHost>>();
+			for (Entry<String, Map<String, ServiceComponentHost>> componentEntry : serviceEntry.getValue().entrySet()) {
+				componentsCopy.put(componentEntry.getKey(), Collections.unmodifiableMap(new HashMap<String, ServiceComponentHost>(componentEntry.getValue())));
+			}
+			schCopy.put(serviceEntry.getKey(), Collections.unmodifiableMap(componentsCopy));
+		}
+		
+		Map<String, List<ServiceComponentHost>> byHostCopy = new HashMap<String, List<ServiceComponentHost>>();
+		for (Entry<String, List<ServiceComponentHost>> hostEntry : serviceComponentHostsByHost.entrySet()) {
+			byHostCopy.put(hostEntry.getKey(), Collections.unmodifiableList(new ArrayList<ServiceComponentHost>(hostEntry.getValue())));
+		}
+		
+		return new ClusterTopology(version, servicesCopy, Collections.unmodifiableMap(schCopy), Collections.unmodifiableMap(byHostCopy));
+	}
+	
+	// ----- ClusterTopology ---------------------------------------------------
+	
+	/**
+	 * Get the version of this snapshot. The version changes whenever a service or host component is added to or removed from the cluster.
+	 * 
+	 * @return the topology version
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Get the services of the cluster.
+	 * 
+	 * @return an unmodifiable map of service name to service
+	 */
+	public Map<String, Service> getServices() {
+		return services;
+	}
+	
+	/**
+	 * Get a service of the cluster.
+	 * 
+	 * @param serviceName
+	 *          the service name
+	 * 
+	 * @return the service or null if the service does not exist
+	 */
+	public Service getService(String serviceName) {
+		return services.get(serviceName);
+	}
+	
+	/**
+	 * Get a host component of the cluster.
+	 * 
+	 * @param serviceName
+	 *          the service name
+	 * @param componentName
+	 *          the component name
+	 * @param hostname
+	 *          the host name
+	 * 
+	 * @return the host component or null if it does not exist
+	 */
+	public ServiceComponentHost getServiceComponentHost(String serviceName, String componentName, String hostname) {
+		Map<String, Map<String, ServiceComponentHost>> components = serviceComponentHosts.get(serviceName);
+		if (components == null) { return null; }
+		Map<String, ServiceComponentHost> hosts = components.get(componentName);
+		return hosts == null ? null : hosts.get(hostname);
+	}
+	
+	/**
+	 * Get all of the host components of the given host.
+	 * 
+	 * @param hostname
+	 *          the host name
+	 * 
+	 * @return an unmodifiable list of host components; never null
+	 */
+	public List<ServiceComponentHost> getServiceComponentHosts(String hostname) {
+		List<ServiceComponentHost> hostComponents = serviceComponentHostsByHost.get(hostname);
+		return hostComponents == null ? Collections.<ServiceComponentHost> emptyList() : hostComponents;
+	}
+}
@@ -30,6 +30,7 @@ import org.apache.ambari.server.state.HostHealthStatus.HealthStatus;
 import org.apache.ambari.server.state.HostState;
 import org.apache.ambari.server.state.RepositoryInfo;
 import org.apache.ambari.server.state.StackId;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.state.configgroup.ConfigGroup;
 import org.apache.ambari.server.state.host.HostFactory;
 import org.slf4j.Logger;
@@ -157,6 +158,7 @@ public class ClustersImpl implements Clusters {
 		} finally {
 			w.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
@@ -219,15 +221,13 @@ public class ClustersImpl implements Clusters {
 	@Override
 	public Set<Cluster> getClustersForHost(String hostname) throws AmbariException {
 		checkLoaded();
-		r.lock();
-		try {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("Looking up clusters for hostname" + ", hostname=" + hostname + ", mappedClusters=" + hostClusterMap.get(hostname).size());
-			}
-			return Collections.unmodifiableSet(hostClusterMap.get(hostname));
-		} finally {
-			r.unlock();
+		// the host to cluster index is a concurrent map of concurrent sets, no need for the read lock
+		Set<Cluster> clusterSet = hostClusterMap.get(hostname);
+		if (clusterSet == null) { throw new HostNotFoundException(hostname); }
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Looking up clusters for hostname" + ", hostname=" + hostname + ", mappedClusters=" + clusterSet.size());
 		}
+		return Collections.unmodifiableSet(clusterSet);
 	}
 	
 	@Override
@@ -271,6 +271,7 @@ public class ClustersImpl implements Clusters {
 		} finally {
 			r.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.HOSTS);
 	}
 	
 	private boolean isOsSupportedByClusterStack(Cluster c, Host h) throws AmbariException {
@@ -401,6 +402,7 @@ public class ClustersImpl implements Clusters {
 		} finally {
 			w.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Transactional
@@ -511,6 +513,7 @@ public class ClustersImpl implements Clusters {
 		} finally {
 			w.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
@@ -538,6 +541,7 @@ public class ClustersImpl implements Clusters {
 		} finally {
 			w.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 		
 	}
 	
@@ -582,6 +586,8 @@ public class ClustersImpl implements Clusters {
 		} finally {
 			w.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
+		StateVersions.increment(StateVersions.Category.HOSTS);
 		
 	}
 	
@@ -33,6 +33,7 @@ import org.apache.ambari.server.state.Clusters;
 import org.apache.ambari.server.state.Config;
 import org.apache.ambari.server.state.ConfigFactory;
 import org.apache.ambari.server.state.Host;
+import org.apache.ambari.server.state.StateVersions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.Collections;
@@ -269,6 +270,7 @@ public class ConfigGroupImpl implements ConfigGroup {
 		} finally {
 			readWriteLock.writeLock().unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	/**
@@ -406,6 +408,7 @@ public class ConfigGroupImpl implements ConfigGroup {
 		} finally {
 			readWriteLock.writeLock().unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
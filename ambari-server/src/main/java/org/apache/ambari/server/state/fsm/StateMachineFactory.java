@@ -11,6 +11,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * State machine topology. This object is semantically immutable. If you have a StateMachineFactory there's no operation in the API that changes its semantic properties.
@@ -26,10 +28,22 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 	
 	private Map<STATE, Map<EVENTTYPE, Transition<OPERAND, STATE, EVENTTYPE, EVENT>>> stateMachineTable;
 	
+	/**
+	 * The transitions compiled from {@link #stateMachineTable}, indexed by the ordinals of the pre-transition state and of the event type.
+	 */
+	private volatile Transition<OPERAND, STATE, EVENTTYPE, EVENT>[][] transitionTable;
+	
+	/**
+	 * The statistics of each transition, indexed like {@link #transitionTable}; null unless statistics are collected.
+	 */
+	private TransitionStatistics[][] statisticsTable;
+	
 	private STATE defaultInitialState;
 	
 	private final boolean optimized;
 	
+	private final boolean collectStatistics;
+	
 	/**
 	 * Constructor This is the only constructor in the API.
 	 */
@@ -37,6 +51,7 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 		this.transitionsListNode = null;
 		this.defaultInitialState = defaultInitialState;
 		this.optimized = false;
+		this.collectStatistics = false;
 		this.stateMachineTable = null;
 	}
 	
@@ -44,13 +59,15 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 		this.defaultInitialState = that.defaultInitialState;
 		this.transitionsListNode = new TransitionsListNode(t, that.transitionsListNode);
 		this.optimized = false;
+		this.collectStatistics = false;
 		this.stateMachineTable = null;
 	}
 	
-	private StateMachineFactory(StateMachineFactory<OPERAND, STATE, EVENTTYPE, EVENT> that, boolean optimized) {
+	private StateMachineFactory(StateMachineFactory<OPERAND, STATE, EVENTTYPE, EVENT> that, boolean optimized, boolean collectStatistics) {
 		this.defaultInitialState = that.defaultInitialState;
 		this.transitionsListNode = that.transitionsListNode;
 		this.optimized = optimized;
+		this.collectStatistics = collectStatistics;
 		if (optimized) {
 			makeStateMachineTable();
 		} else {
@@ -164,7 +181,28 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 	 *         synchronization.
 	 */
 	public StateMachineFactory<OPERAND, STATE, EVENTTYPE, EVENT> installTopology() {
-		return new StateMachineFactory(this, true);
+		return new StateMachineFactory(this, true, false);
+	}
+	
+	/**
+	 * @return a StateMachineFactory just like the one returned by {@link #installTopology()}, except that the number of executions and the execution time of every transition are recorded. The
+	 *         statistics are shared by all of the state machines made by the factory and can be read with {@link #getTransitionStatistics(Enum, Enum)}.
+	 */
+	public StateMachineFactory<OPERAND, STATE, EVENTTYPE, EVENT> installTopologyWithStatistics() {
+		return new StateMachineFactory(this, true, true);
+	}
+	
+	/**
+	 * Get the statistics of a transition.
+	 * 
+	 * @param preState pre-transition state
+	 * @param eventType stimulus for the transition
+	 * @return the statistics or null if statistics are not collected or the transition does not exist
+	 */
+	public TransitionStatistics getTransitionStatistics(STATE preState, EVENTTYPE eventType) {
+		if (statisticsTable == null) { return null; }
+		TransitionStatistics[] row = statisticsTable[preState.ordinal()];
+		return row != null && eventType.ordinal() < row.length ? row[eventType.ordinal()] : null;
 	}
 	
 	/**
@@ -176,19 +214,28 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 	 * @return transitioned state
 	 */
 	private STATE doTransition(OPERAND operand, STATE oldState, EVENTTYPE eventType, EVENT event) throws InvalidStateTransitionException {
-		// We can assume that stateMachineTable is non-null because we call
+		// We can assume that transitionTable is non-null because we call
 		// maybeMakeStateMachineTable() when we build an InnerStateMachine ,
 		// and this code only gets called from inside a working InnerStateMachine .
-		Map<EVENTTYPE, Transition<OPERAND, STATE, EVENTTYPE, EVENT>> transitionMap = stateMachineTable.get(oldState);
-		if (transitionMap != null) {
-			Transition<OPERAND, STATE, EVENTTYPE, EVENT> transition = transitionMap.get(eventType);
-			if (transition != null) { return transition.doTransition(operand, oldState, event, eventType); }
+		Transition<OPERAND, STATE, EVENTTYPE, EVENT>[] transitions = transitionTable[oldState.ordinal()];
+		if (transitions != null && eventType.ordinal() < transitions.length) {
+			Transition<OPERAND, STATE, EVENTTYPE, EVENT> transition = transitions[eventType.ordinal()];
+			if (transition != null) {
+				if (statisticsTable == null) { return transition.doTransition(operand, oldState, event, eventType); }
+				
+				long start = System.nanoTime();
+				try {
+					return transition.doTransition(operand, oldState, event, eventType);
+				} finally {
+					statisticsTable[oldState.ordinal()][eventType.ordinal()].record(System.nanoTime() - start);
+				}
+			}
 		}
 		throw new InvalidStateTransitionException(oldState, eventType);
 	}
 	
 	private synchronized void maybeMakeStateMachineTable() {
-		if (stateMachineTable == null) {
+		if (transitionTable == null) {
 			makeStateMachineTable();
 		}
 	}
@@ -211,6 +258,38 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 		while (!stack.isEmpty()) {
 			stack.pop().apply(this);
 		}
+		compileTransitionTable();
+	}
+	
+	/**
+	 * Compile the transition map into a dense table so that a transition is found with two array lookups instead of two map lookups.
+	 */
+	private void compileTransitionTable() {
+		STATE[] states = defaultInitialState.getDeclaringClass().getEnumConstants();
+		Transition<OPERAND, STATE, EVENTTYPE, EVENT>[][] table = new Transition[states.length][];
+		TransitionStatistics[][] statistics = collectStatistics ? new TransitionStatistics[states.length][] : null;
+		for (Map.Entry<STATE, Map<EVENTTYPE, Transition<OPERAND, STATE, EVENTTYPE, EVENT>>> stateEntry : stateMachineTable.entrySet()) {
+			if (stateEntry.getValue() == null || stateEntry.getValue().isEmpty()) {
+				continue;
+			}
+			
+			// all of the event types share one enum, the row covers all of its constants
+			int eventTypeCount = stateEntry.getValue().keySet().iterator().next().getDeclaringClass().getEnumConstants().length;
+			Transition<OPERAND, STATE, EVENTTYPE, EVENT>[] row = new Transition[eventTypeCount];
+			TransitionStatistics[] statisticsRow = collectStatistics ? new TransitionStatistics[eventTypeCount] : null;
+			for (Map.Entry<EVENTTYPE, Transition<OPERAND, STATE, EVENTTYPE, EVENT>> eventEntry : stateEntry.getValue().entrySet()) {
+				row[eventEntry.getKey().ordinal()] = eventEntry.getValue();
+				if (statisticsRow != null) {
+					statisticsRow[eventEntry.getKey().ordinal()] = new TransitionStatistics();
+				}
+			}
+			table[stateEntry.getKey().ordinal()] = row;
+			if (statistics != null) {
+				statistics[stateEntry.getKey().ordinal()] = statisticsRow;
+			}
+		}
+		statisticsTable = statistics;
+		transitionTable = table;
 	}
 	
 	private interface Transition<OPERAND, STATE extends Enum<STATE>, EVENTTYPE extends Enum<EVENTTYPE>, EVENT> {
@@ -303,6 +382,46 @@ final public class StateMachineFactory<OPERAND, STATE extends Enum<STATE>, EVENT
 		
 	}
 	
+	/**
+	 * Execution statistics of a transition: the number of executions, the total execution time and a histogram of the execution times with power of two buckets.
+	 */
+	public static class TransitionStatistics {
+		
+		/**
+		 * The number of histogram buckets; bucket i counts the executions that took less than 2^i nanoseconds but not less than 2^(i-1).
+		 */
+		public static final int BUCKETS = 64;
+		
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+		
+		void record(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			histogram.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0L))));
+		}
+		
+		public long getCount() {
+			return count.get();
+		}
+		
+		public long getTotalNanos() {
+			return totalNanos.get();
+		}
+		
+		/**
+		 * @return a copy of the histogram buckets
+		 */
+		public long[] getHistogram() {
+			long[] buckets = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets[i] = histogram.get(i);
+			}
+			return buckets;
+		}
+	}
+	
 	/*
 	 * Generate a graph represents the state graph of this StateMachine
 	 * @param name graph name
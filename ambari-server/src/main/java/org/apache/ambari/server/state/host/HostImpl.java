@@ -41,6 +41,7 @@ import org.apache.ambari.server.state.HostHealthStatus;
 import org.apache.ambari.server.state.HostHealthStatus.HealthStatus;
 import org.apache.ambari.server.state.HostState;
 import org.apache.ambari.server.state.MaintenanceState;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.state.configgroup.ConfigGroup;
 import org.apache.ambari.server.state.fsm.InvalidStateTransitionException;
 import org.apache.ambari.server.state.fsm.SingleArcTransition;
@@ -399,6 +400,7 @@ public class HostImpl implements Host {
 		} finally {
 			writeLock.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.HOST_HEARTBEATS);
 		
 	}
 	
@@ -454,6 +456,7 @@ public class HostImpl implements Host {
 			writeLock.unlock();
 		}
 		if (oldState != getState()) {
+			StateVersions.increment(StateVersions.Category.HOSTS);
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Host transitioned to a new state" + ", host=" + this.getHostName() + ", oldState=" + oldState + ", currentState=" + getState() + ", eventType=" + event.getType().name() + ", event=" + event);
 			}
@@ -498,6 +501,7 @@ public class HostImpl implements Host {
 		} finally {
 			writeLock.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.HOSTS);
 	}
 	
 	@Override
@@ -734,6 +738,7 @@ public class HostImpl implements Host {
 		} finally {
 			writeLock.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.HOST_HEARTBEATS);
 	}
 	
 	@Override
@@ -846,6 +851,7 @@ public class HostImpl implements Host {
 		} finally {
 			writeLock.unlock();
 		}
+		StateVersions.increment(StateVersions.Category.HOST_HEARTBEATS);
 	}
 	
 	@Override
@@ -899,6 +905,7 @@ public class HostImpl implements Host {
 			} finally {
 				writeLock.unlock();
 			}
+			StateVersions.increment(StateVersions.Category.HOSTS);
 		}
 	}
 	
@@ -1011,6 +1018,7 @@ public class HostImpl implements Host {
 			hostDAO.merge(hostEntity);
 			hostStateDAO.merge(hostStateEntity);
 		}
+		StateVersions.increment(StateVersions.Category.HOSTS);
 	}
 	
 	@Override
@@ -1051,6 +1059,8 @@ public class HostImpl implements Host {
 		}
 		
 		hostDAO.merge(hostEntity);
+		StateVersions.increment(StateVersions.Category.HOSTS);
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 		
 		return true;
 	}
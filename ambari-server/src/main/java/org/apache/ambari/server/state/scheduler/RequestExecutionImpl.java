@@ -21,6 +21,7 @@ import org.apache.ambari.server.orm.entities.RequestScheduleBatchRequestEntity;
 import org.apache.ambari.server.orm.entities.RequestScheduleEntity;
 import org.apache.ambari.server.state.Cluster;
 import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.utils.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -171,6 +172,7 @@ public class RequestExecutionImpl implements RequestExecution {
 		} finally {
 			readWriteLock.writeLock().unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
@@ -199,6 +201,7 @@ public class RequestExecutionImpl implements RequestExecution {
 		} finally {
 			readWriteLock.writeLock().unlock();
 		}
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
@@ -422,6 +425,7 @@ public class RequestExecutionImpl implements RequestExecution {
 		
 		setLastExecutionStatus(batchRequestResponse.getStatus());
 		requestScheduleDAO.merge(requestScheduleEntity);
+		StateVersions.increment(StateVersions.Category.CLUSTERS);
 	}
 	
 	@Override
@@ -431,6 +435,7 @@ public class RequestExecutionImpl implements RequestExecution {
 		if (isPersisted) {
 			requestScheduleEntity.setUpdateTimestamp(System.currentTimeMillis());
 			requestScheduleDAO.merge(requestScheduleEntity);
+			StateVersions.increment(StateVersions.Category.CLUSTERS);
 		} else {
 			LOG.warn("Updated status in memory, since Request Schedule is not " + "persisted.");
 		}
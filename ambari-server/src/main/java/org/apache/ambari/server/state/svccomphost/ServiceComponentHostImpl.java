@@ -43,6 +43,7 @@ import org.apache.ambari.server.state.ServiceComponentHostEvent;
 import org.apache.ambari.server.state.ServiceComponentHostEventType;
 import org.apache.ambari.server.state.StackId;
 import org.apache.ambari.server.state.State;
+import org.apache.ambari.server.state.StateVersions;
 import org.apache.ambari.server.state.configgroup.ConfigGroup;
 import org.apache.ambari.server.state.fsm.InvalidStateTransitionException;
 import org.apache.ambari.server.state.fsm.SingleArcTransition;
@@ -66,12 +67,17 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	private final ReadWriteLock clusterGlobalLock;
 	private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-	private final Lock readLock = readWriteLock.readLock();
 	private final Lock writeLock = readWriteLock.writeLock();
 	
 	private final ServiceComponent serviceComponent;
 	private final Host host;
-	private boolean persisted = false;
+	private volatile boolean persisted = false;
+	
+	// identity of the host component, never changes
+	private final long clusterId;
+	private final String serviceName;
+	private final String serviceComponentName;
+	private final String hostName;
 	
 	@Inject
 	Gson gson;
@@ -91,11 +97,16 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	private HostComponentStateEntity stateEntity;
 	private HostComponentDesiredStateEntity desiredStateEntity;
 	
-	private long lastOpStartTime;
-	private long lastOpEndTime;
-	private long lastOpLastUpdateTime;
-	private Map<String, HostConfig> actualConfigs = new HashMap<String, HostConfig>();
-	private List<Map<String, String>> processes = new ArrayList<Map<String, String>>();
+	/**
+	 * The state of the host component as last written; replaced by every write so that the getters can read it without locking.
+	 */
+	private volatile StateSnapshot snapshot;
+	
+	private volatile long lastOpStartTime;
+	private volatile long lastOpEndTime;
+	private volatile long lastOpLastUpdateTime;
+	private volatile Map<String, HostConfig> actualConfigs = new HashMap<String, HostConfig>();
+	private volatile List<Map<String, String>> processes = new ArrayList<Map<String, String>>();
 	
 	private static final StateMachineFactory<ServiceComponentHostImpl, State, ServiceComponentHostEventType, ServiceComponentHostEvent> daemonStateMachineFactory = new StateMachineFactory<ServiceComponentHostImpl, State, ServiceComponentHostEventType, ServiceComponentHostEvent>(
 			State.INIT)
@@ -334,6 +345,9 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 		
 		this.serviceComponent = serviceComponent;
 		this.clusterGlobalLock = serviceComponent.getClusterGlobalLock();
+		this.clusterId = serviceComponent.getClusterId();
+		this.serviceName = serviceComponent.getServiceName();
+		this.serviceComponentName = serviceComponent.getName();
 		
 		stateEntity = new HostComponentStateEntity();
 		stateEntity.setClusterId(serviceComponent.getClusterId());
@@ -363,7 +377,9 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			LOG.error("Host '{}' was not found" + hostName);
 			throw new RuntimeException(e);
 		}
+		this.hostName = host.getHostName();
 		
+		publishSnapshot();
 		this.resetLastOpInfo();
 	}
 	
@@ -372,6 +388,9 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 		injector.injectMembers(this);
 		this.serviceComponent = serviceComponent;
 		this.clusterGlobalLock = serviceComponent.getClusterGlobalLock();
+		this.clusterId = serviceComponent.getClusterId();
+		this.serviceName = serviceComponent.getServiceName();
+		this.serviceComponentName = serviceComponent.getName();
 		
 		this.desiredStateEntity = desiredStateEntity;
 		this.stateEntity = stateEntity;
@@ -391,24 +410,15 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			LOG.error("Host '{}' was not found " + stateEntity.getHostName());
 			throw new RuntimeException(e);
 		}
+		this.hostName = host.getHostName();
 		
 		persisted = true;
+		publishSnapshot();
 	}
 	
 	@Override
 	public State getState() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return stateMachine.getCurrentState();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		return snapshot.state;
 	}
 	
 	@Override
@@ -420,6 +430,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 				stateMachine.setCurrentState(state);
 				stateEntity.setCurrentState(state);
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -444,6 +455,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 					stateMachine.doTransition(event.getType(), event);
 					stateEntity.setCurrentState(stateMachine.getCurrentState());
 					saveIfPersisted();
+					publishSnapshot();
 					// TODO Audit logs
 				} catch (InvalidStateTransitionException e) {
 					LOG.error("Can't handle ServiceComponentHostEvent event at" + " current state" + ", serviceComponentName=" + this.getServiceComponentName() + ", hostName=" + this.getHostName() + ", currentState=" + oldState + ", eventType=" + event.getType() + ", event="
@@ -467,49 +479,19 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public String getServiceComponentName() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return serviceComponent.getName();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return serviceComponentName;
 	}
 	
 	@Override
 	public String getHostName() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return host.getHostName();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return hostName;
 	}
 	
 	/**
 	 * @return the lastOpStartTime
 	 */
 	public long getLastOpStartTime() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return lastOpStartTime;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return lastOpStartTime;
 	}
 	
 	/**
@@ -533,17 +515,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	 * @return the lastOpEndTime
 	 */
 	public long getLastOpEndTime() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return lastOpEndTime;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return lastOpEndTime;
 	}
 	
 	/**
@@ -567,17 +539,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	 * @return the lastOpLastUpdateTime
 	 */
 	public long getLastOpLastUpdateTime() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return lastOpLastUpdateTime;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return lastOpLastUpdateTime;
 	}
 	
 	/**
@@ -599,47 +561,17 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public long getClusterId() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return serviceComponent.getClusterId();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return clusterId;
 	}
 	
 	@Override
 	public String getServiceName() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return serviceComponent.getServiceName();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return serviceName;
 	}
 	
 	@Override
 	public StackId getStackVersion() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return gson.fromJson(stateEntity.getCurrentStackVersion(), StackId.class);
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return gson.fromJson(snapshot.stackVersion, StackId.class);
 	}
 	
 	@Override
@@ -650,6 +582,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			try {
 				stateEntity.setCurrentStackVersion(gson.toJson(stackVersion));
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -660,17 +593,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public State getDesiredState() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return desiredStateEntity.getDesiredState();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return snapshot.desiredState;
 	}
 	
 	@Override
@@ -681,6 +604,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			try {
 				desiredStateEntity.setDesiredState(state);
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -691,17 +615,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public StackId getDesiredStackVersion() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return gson.fromJson(desiredStateEntity.getDesiredStackVersion(), StackId.class);
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return gson.fromJson(snapshot.desiredStackVersion, StackId.class);
 	}
 	
 	@Override
@@ -712,6 +626,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			try {
 				desiredStateEntity.setDesiredStackVersion(gson.toJson(stackVersion));
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -722,21 +637,11 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public HostComponentAdminState getComponentAdminState() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				HostComponentAdminState adminState = desiredStateEntity.getAdminState();
-				if (adminState == null && !serviceComponent.isClientComponent() && !serviceComponent.isMasterComponent()) {
-					adminState = HostComponentAdminState.INSERVICE;
-				}
-				return adminState;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
+		HostComponentAdminState adminState = snapshot.adminState;
+		if (adminState == null && !serviceComponent.isClientComponent() && !serviceComponent.isMasterComponent()) {
+			adminState = HostComponentAdminState.INSERVICE;
 		}
+		return adminState;
 	}
 	
 	@Override
@@ -747,6 +652,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			try {
 				desiredStateEntity.setAdminState(attribute);
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -757,72 +663,55 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public ServiceComponentHostResponse convertToResponse() {
-		clusterGlobalLock.readLock().lock();
+		StateSnapshot current = snapshot;
+		ServiceComponentHostResponse r = new ServiceComponentHostResponse(serviceComponent.getClusterName(), serviceName, serviceComponentName, hostName, current.state.toString(), gson.fromJson(current.stackVersion, StackId.class).getStackId(),
+				current.desiredState.toString(), gson.fromJson(current.desiredStackVersion, StackId.class).getStackId(), getComponentAdminState());
+		
+		r.setActualConfigs(actualConfigs);
+		
 		try {
-			readLock.lock();
-			try {
-				ServiceComponentHostResponse r = new ServiceComponentHostResponse(serviceComponent.getClusterName(), serviceComponent.getServiceName(), serviceComponent.getName(), getHostName(), getState().toString(), getStackVersion().getStackId(), getDesiredState().toString(),
-						getDesiredStackVersion().getStackId(), getComponentAdminState());
-				
-				r.setActualConfigs(actualConfigs);
-				
-				try {
-					r.setStaleConfig(helper.isStaleConfigs(this));
-				} catch (Exception e) {
-					LOG.error("Could not determine stale config", e);
-				}
-				
-				return r;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
+			r.setStaleConfig(helper.isStaleConfigs(this));
+		} catch (Exception e) {
+			LOG.error("Could not determine stale config", e);
 		}
+		
+		return r;
 	}
 	
 	@Override
 	public String getClusterName() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return serviceComponent.getClusterName();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		return serviceComponent.getClusterName();
 	}
 	
 	@Override
 	public void debugDump(StringBuilder sb) {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				sb.append("ServiceComponentHost={ hostname=" + getHostName() + ", serviceComponentName=" + serviceComponent.getName() + ", clusterName=" + serviceComponent.getClusterName() + ", serviceName=" + serviceComponent.getServiceName() + ", desiredStackVersion="
-						+ getDesiredStackVersion() + ", desiredState=" + getDesiredState() + ", stackVersion=" + getStackVersion() + ", state=" + getState() + " }");
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		StateSnapshot current = snapshot;
+		sb.append("ServiceComponentHost={ hostname=" + hostName + ", serviceComponentName=" + serviceComponentName + ", clusterName=" + serviceComponent.getClusterName() + ", serviceName=" + serviceName + ", desiredStackVersion="
+				+ gson.fromJson(current.desiredStackVersion, StackId.class) + ", desiredState=" + current.desiredState + ", stackVersion=" + gson.fromJson(current.stackVersion, StackId.class) + ", state=" + current.state + " }");
 	}
 	
 	@Override
 	public boolean isPersisted() {
+		return persisted;
+	}
+	
+	@Override
+	public void persist() {
 		clusterGlobalLock.readLock().lock();
 		try {
-			readLock.lock();
+			writeLock.lock();
 			try {
-				return persisted;
+				if (!persisted) {
+					persistEntities();
+					refresh();
+					host.refresh();
+					serviceComponent.refresh();
+					persisted = true;
+				} else {
+					saveIfPersisted();
+				}
 			} finally {
-				readLock.unlock();
+				writeLock.unlock();
 			}
 		} finally {
 			clusterGlobalLock.readLock().unlock();
@@ -831,16 +720,18 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	}
 	
 	@Override
-	public void persist() {
+	@Transactional
+	public void persistWithoutRefresh() {
 		clusterGlobalLock.readLock().lock();
 		try {
 			writeLock.lock();
 			try {
 				if (!persisted) {
-					persistEntities();
-					refresh();
-					host.refresh();
-					serviceComponent.refresh();
+					// the owning entities are managed within this transaction, so linking both sides in memory is enough and no merge is needed
+					linkEntities(hostDAO.findByName(getHostName()));
+					
+					hostComponentStateDAO.create(stateEntity);
+					hostComponentDesiredStateDAO.create(desiredStateEntity);
 					persisted = true;
 				} else {
 					saveIfPersisted();
@@ -851,12 +742,26 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 		} finally {
 			clusterGlobalLock.readLock().unlock();
 		}
-		
 	}
 	
 	@Transactional
 	protected void persistEntities() {
 		HostEntity hostEntity = hostDAO.findByName(getHostName());
+		ServiceComponentDesiredStateEntity serviceComponentDesiredStateEntity = linkEntities(hostEntity);
+		
+		hostComponentStateDAO.create(stateEntity);
+		hostComponentDesiredStateDAO.create(desiredStateEntity);
+		
+		serviceComponentDesiredStateDAO.merge(serviceComponentDesiredStateEntity);
+		hostDAO.merge(hostEntity);
+	}
+	
+	/**
+	 * Link the state entities of this host component with the given host entity and the desired state entity of the service component.
+	 * 
+	 * @return the desired state entity of the service component
+	 */
+	private ServiceComponentDesiredStateEntity linkEntities(HostEntity hostEntity) {
 		hostEntity.getHostComponentStateEntities().add(stateEntity);
 		hostEntity.getHostComponentDesiredStateEntities().add(desiredStateEntity);
 		
@@ -872,12 +777,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 		desiredStateEntity.setHostEntity(hostEntity);
 		stateEntity.setServiceComponentDesiredStateEntity(serviceComponentDesiredStateEntity);
 		stateEntity.setHostEntity(hostEntity);
-		
-		hostComponentStateDAO.create(stateEntity);
-		hostComponentDesiredStateDAO.create(desiredStateEntity);
-		
-		serviceComponentDesiredStateDAO.merge(serviceComponentDesiredStateEntity);
-		hostDAO.merge(hostEntity);
+		return serviceComponentDesiredStateEntity;
 	}
 	
 	@Override
@@ -902,6 +802,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 					desiredStateEntity = hostComponentDesiredStateDAO.findByPK(dpk);
 					hostComponentStateDAO.refresh(stateEntity);
 					hostComponentDesiredStateDAO.refresh(desiredStateEntity);
+					publishSnapshot();
 				}
 			} finally {
 				writeLock.unlock();
@@ -922,20 +823,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public boolean canBeRemoved() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				
-				return (getState().isRemovableState());
-				
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		return (getState().isRemovableState());
 	}
 	
 	@Override
@@ -998,7 +886,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			writeLock.lock();
 			try {
 				LOG.debug("Updating actual config tags: " + configTags);
-				actualConfigs = new HashMap<String, HostConfig>();
+				Map<String, HostConfig> newActualConfigs = new HashMap<String, HostConfig>();
 				
 				for (Entry<String, Map<String, String>> entry : configTags.entrySet()) {
 					String type = entry.getKey();
@@ -1009,7 +897,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 					
 					HostConfig hc = new HostConfig();
 					hc.setDefaultVersionTag(tag);
-					actualConfigs.put(type, hc);
+					newActualConfigs.put(type, hc);
 					
 					if (!values.isEmpty()) {
 						for (Entry<String, String> overrideEntry : values.entrySet()) {
@@ -1021,6 +909,10 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 						}
 					}
 				}
+				if (!newActualConfigs.equals(actualConfigs)) {
+					actualConfigs = newActualConfigs;
+					StateVersions.increment(StateVersions.Category.CLUSTERS);
+				}
 			} finally {
 				writeLock.unlock();
 			}
@@ -1031,33 +923,12 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public Map<String, HostConfig> getActualConfigs() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return actualConfigs;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
-		
+		return actualConfigs;
 	}
 	
 	@Override
 	public HostState getHostState() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return host.getState();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return host.getState();
 	}
 	
 	@Override
@@ -1068,6 +939,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			try {
 				desiredStateEntity.setMaintenanceState(state);
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -1078,17 +950,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public MaintenanceState getMaintenanceState() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return desiredStateEntity.getMaintenanceState();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return snapshot.maintenanceState;
 	}
 	
 	@Override
@@ -1097,7 +959,10 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 		try {
 			writeLock.lock();
 			try {
-				processes = Collections.unmodifiableList(procs);
+				if (!procs.equals(processes)) {
+					processes = Collections.unmodifiableList(procs);
+					StateVersions.increment(StateVersions.Category.CLUSTERS);
+				}
 			} finally {
 				writeLock.unlock();
 			}
@@ -1108,32 +973,12 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 	
 	@Override
 	public List<Map<String, String>> getProcesses() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return processes;
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return processes;
 	}
 	
 	@Override
 	public boolean isRestartRequired() {
-		clusterGlobalLock.readLock().lock();
-		try {
-			readLock.lock();
-			try {
-				return desiredStateEntity.isRestartRequired();
-			} finally {
-				readLock.unlock();
-			}
-		} finally {
-			clusterGlobalLock.readLock().unlock();
-		}
+		return snapshot.restartRequired;
 	}
 	
 	@Override
@@ -1144,6 +989,7 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			try {
 				desiredStateEntity.setRestartRequired(restartRequired);
 				saveIfPersisted();
+				publishSnapshot();
 			} finally {
 				writeLock.unlock();
 			}
@@ -1151,4 +997,47 @@ public class ServiceComponentHostImpl implements ServiceComponentHost {
 			clusterGlobalLock.readLock().unlock();
 		}
 	}
+	
+	/**
+	 * Publish the current state of the state machine and the entities to the getters. Called with the write lock held after every change.
+	 */
+	private void publishSnapshot() {
+		StateSnapshot previous = snapshot;
+		snapshot = new StateSnapshot(stateMachine.getCurrentState(), stateEntity, desiredStateEntity);
+		if (!snapshot.isSameAs(previous)) {
+			StateVersions.increment(StateVersions.Category.CLUSTERS);
+		}
+	}
+	
+	/**
+	 * Immutable copy of the mutable state of a host component.
+	 */
+	private static class StateSnapshot {
+		private final State state;
+		private final String stackVersion;
+		private final State desiredState;
+		private final String desiredStackVersion;
+		private final HostComponentAdminState adminState;
+		private final MaintenanceState maintenanceState;
+		private final boolean restartRequired;
+		
+		StateSnapshot(State state, HostComponentStateEntity stateEntity, HostComponentDesiredStateEntity desiredStateEntity) {
+			this.state = state;
+			this.stackVersion = stateEntity.getCurrentStackVersion();
+			this.desiredState = desiredStateEntity.getDesiredState();
+			this.desiredStackVersion = desiredStateEntity.getDesiredStackVersion();
+			this.adminState = desiredStateEntity.getAdminState();
+			this.maintenanceState = desiredStateEntity.getMaintenanceState();
+			this.restartRequired = desiredStateEntity.isRestartRequired();
+		}
+		
+		boolean isSameAs(StateSnapshot other) {
+			return other != null && state == other.state && equal(stackVersion, other.stackVersion) && desiredState == other.desiredState && equal(desiredStackVersion, other.desiredStackVersion)
+					&& adminState == other.adminState && maintenanceState == other.maintenanceState && restartRequired == other.restartRequired;
+		}
+		
+		private static boolean equal(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
 }
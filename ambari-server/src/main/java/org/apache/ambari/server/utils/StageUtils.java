@@ -6,6 +6,8 @@
 package org.apache.ambari.server.utils;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.Role;
@@ -35,6 +37,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -57,6 +60,11 @@ public class StageUtils {
 	private static Map<String, String> decommissionedToClusterInfoKeyMap = new HashMap<String, String>();
 	private volatile static Gson gson;
 	
+	/**
+	 * The last cluster host info computed for each cluster. Keys are compared by identity and held weakly so that a removed cluster does not stay reachable from here.
+	 */
+	private static final Cache<Cluster, CachedClusterHostInfo> clusterHostInfoCache = CacheBuilder.newBuilder().weakKeys().build();
+	
 	private static String server_hostname;
 	static {
 		try {
@@ -193,11 +201,34 @@ public class StageUtils {
 		return mapper.readValue(is, clazz);
 	}
 	
+	/**
+	 * Get the cluster host info of the given cluster. The result is computed once per cluster topology version and shared by all of the stages built against the same topology, so it must not be
+	 * modified.
+	 * 
+	 * @param allHosts the hosts of the cluster keyed by host name
+	 * @param cluster the cluster
+	 * 
+	 * @return an unmodifiable map of cluster host info key to hosts
+	 */
 	public static Map<String, Set<String>> getClusterHostInfo(Map<String, Host> allHosts, Cluster cluster) throws AmbariException {
-		
-		Map<String, SortedSet<Integer>> hostRolesInfo = new HashMap<String, SortedSet<Integer>>();
-		
-		Map<String, Set<String>> clusterHostInfo = new HashMap<String, Set<String>>();
+		return getCachedClusterHostInfo(allHosts, cluster).getClusterHostInfo();
+	}
+	
+	/**
+	 * Get the JSON form of the cluster host info of the given cluster. The JSON is cached along with the cluster host info.
+	 * 
+	 * @param allHosts the hosts of the cluster keyed by host name
+	 * @param cluster the cluster
+	 * 
+	 * @return the cluster host info as JSON
+	 */
+	public static String getClusterHostInfoJson(Map<String, Host> allHosts, Cluster cluster) throws AmbariException {
+		return getCachedClusterHostInfo(allHosts, cluster).getJson();
+	}
+	
+	private static CachedClusterHostInfo getCachedClusterHostInfo(Map<String, Host> allHosts, Cluster cluster) throws AmbariException {
+		// Read the version before the structure so that a concurrent change can only make the cached entry look older than it is
+		long topologyVersion = cluster.getTopologyVersion();
 		
 		// Fill hosts and ports lists
 		Set<String> hostsSet = new LinkedHashSet<String>();
@@ -213,6 +244,25 @@ public class StageUtils {
 		
 		List<String> hostsList = new ArrayList<String>(hostsSet);
 		
+		CachedClusterHostInfo cached = clusterHostInfoCache.getIfPresent(cluster);
+		if (cached != null && cached.isValid(topologyVersion, hostsList, portsList)) { return cached; }
+		
+		cached = new CachedClusterHostInfo(topologyVersion, hostsList, portsList, buildClusterHostInfo(hostsSet, hostsList, portsList, cluster));
+		clusterHostInfoCache.put(cluster, cached);
+		return cached;
+	}
+	
+	private static Map<String, Set<String>> buildClusterHostInfo(Set<String> hostsSet, List<String> hostsList, List<Integer> portsList, Cluster cluster) throws AmbariException {
+		
+		Map<String, SortedSet<Integer>> hostRolesInfo = new HashMap<String, SortedSet<Integer>>();
+		
+		Map<String, Set<String>> clusterHostInfo = new HashMap<String, Set<String>>();
+		
+		Map<String, Integer> hostIndexes = new HashMap<String, Integer>();
+		for (int i = 0; i < hostsList.size(); i++) {
+			hostIndexes.put(hostsList.get(i), i);
+		}
+		
 		// Fill host roles
 		
 		// Fill hosts for services
@@ -236,7 +286,13 @@ public class StageUtils {
 					continue;
 				}
 				
-				for (String hostName : serviceComponent.getServiceComponentHosts().keySet()) {
+				for (Entry<String, ServiceComponentHost> hostEntry : serviceComponent.getServiceComponentHosts().entrySet()) {
+					
+					String hostName = hostEntry.getKey();
+					Integer hostIndex = hostIndexes.get(hostName);
+					if (hostIndex == null) {
+						hostIndex = -1;
+					}
 					
 					if (roleName != null) {
 						SortedSet<Integer> hostsForComponentsHost = hostRolesInfo.get(roleName);
@@ -246,13 +302,12 @@ public class StageUtils {
 							hostRolesInfo.put(roleName, hostsForComponentsHost);
 						}
 						
-						int hostIndex = hostsList.indexOf(hostName);
 						// Add index of host to current host role
 						hostsForComponentsHost.add(hostIndex);
 					}
 					
 					if (decomRoleName != null) {
-						ServiceComponentHost scHost = serviceComponent.getServiceComponentHost(hostName);
+						ServiceComponentHost scHost = hostEntry.getValue();
 						if (scHost.getComponentAdminState() == HostComponentAdminState.DECOMMISSIONED) {
 							SortedSet<Integer> hostsForComponentsHost = hostRolesInfo.get(decomRoleName);
 							
@@ -261,7 +316,6 @@ public class StageUtils {
 								hostRolesInfo.put(decomRoleName, hostsForComponentsHost);
 							}
 							
-							int hostIndex = hostsList.indexOf(hostName);
 							// Add index of host to current host role
 							hostsForComponentsHost.add(hostIndex);
 						}
@@ -369,4 +423,44 @@ public class StageUtils {
 	public static String getHostName() {
 		return server_hostname;
 	}
+	
+	// ----- inner classes -----------------------------------------------------
+	
+	/**
+	 * Cluster host info computed for a topology version and a list of hosts and ping ports.
+	 */
+	private static class CachedClusterHostInfo {
+		private final long topologyVersion;
+		private final List<String> hostsList;
+		private final List<Integer> portsList;
+		private final Map<String, Set<String>> clusterHostInfo;
+		private volatile String json;
+		
+		CachedClusterHostInfo(long topologyVersion, List<String> hostsList, List<Integer> portsList, Map<String, Set<String>> clusterHostInfo) {
+			this.topologyVersion = topologyVersion;
+			this.hostsList = hostsList;
+			this.portsList = portsList;
+			
+			Map<String, Set<String>> unmodifiableInfo = new HashMap<String, Set<String>>();
+			for (Entry<String, Set<String>> entry : clusterHostInfo.entrySet()) {
+				unmodifiableInfo.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+			}
+			this.clusterHostInfo = Collections.unmodifiableMap(unmodifiableInfo);
+		}
+		
+		boolean isValid(long topologyVersion, List<String> hostsList, List<Integer> portsList) {
+			return this.topologyVersion == topologyVersion && this.hostsList.equals(hostsList) && this.portsList.equals(portsList);
+		}
+		
+		Map<String, Set<String>> getClusterHostInfo() {
+			return clusterHostInfo;
+		}
+		
+		String getJson() {
+			if (json == null) {
+				json = getGson().toJson(clusterHostInfo);
+			}
+			return json;
+		}
+	}
 }
@@ -9,6 +9,7 @@ package org.apache.ambari.server.view;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import org.apache.ambari.server.configuration.ComponentSSLConfiguration;
+import org.apache.ambari.server.orm.entities.ViewInstanceDataEntity;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntity;
 import org.apache.ambari.server.view.persistence.DataStoreImpl;
 import org.apache.ambari.server.view.persistence.DataStoreModule;
@@ -86,18 +87,22 @@ public class ViewContextImpl implements ViewContext {
 	
 	@Override
 	public void putInstanceData(String key, String value) {
-		viewInstanceEntity.putInstanceData(key, value);
-		viewRegistry.updateViewInstance(viewInstanceEntity);
+		viewRegistry.putInstanceData(viewInstanceEntity, key, value);
 	}
 	
 	@Override
 	public String getInstanceData(String key) {
-		return viewInstanceEntity.getInstanceDataMap().get(key);
+		synchronized (viewInstanceEntity) {
+			ViewInstanceDataEntity dataEntity = viewInstanceEntity.getInstanceData(key);
+			return dataEntity == null ? null : dataEntity.getValue();
+		}
 	}
 	
 	@Override
 	public Map<String, String> getInstanceData() {
-		return Collections.unmodifiableMap(viewInstanceEntity.getInstanceDataMap());
+		synchronized (viewInstanceEntity) {
+			return Collections.unmodifiableMap(viewInstanceEntity.getInstanceDataMap());
+		}
 	}
 	
 	@Override
@@ -21,6 +21,7 @@ import org.apache.ambari.server.orm.dao.ViewInstanceDAO;
 import org.apache.ambari.server.orm.entities.ViewEntity;
 import org.apache.ambari.server.orm.entities.ViewEntityEntity;
 import org.apache.ambari.server.orm.entities.ViewInstanceDataEntity;
+import org.apache.ambari.server.orm.entities.ViewInstanceDataEntityPK;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntity;
 import org.apache.ambari.server.orm.entities.ViewParameterEntity;
 import org.apache.ambari.server.orm.entities.ViewResourceEntity;
@@ -43,6 +44,7 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import java.beans.IntrospectionException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -55,12 +57,23 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.zip.CRC32;
 
 /**
  * Registry for view and view instance definitions.
@@ -74,6 +87,16 @@ public class ViewRegistry {
 	private static final String ARCHIVE_CLASSES_DIR = "WEB-INF/classes";
 	private static final String ARCHIVE_LIB_DIR = "WEB-INF/lib";
 	private static final String EXTRACTED_ARCHIVES_DIR = "work";
+	private static final String ARCHIVE_CHECKSUM_PREFIX = ".checksum-";
+	private static final int BUFFER_SIZE = 8192;
+	
+	/**
+	 * The maximum number of view archives read at the same time.
+	 */
+	private static final int MAX_ARCHIVE_READER_THREADS = 4;
+	private static final long INSTANCE_DATA_FLUSH_DELAY_MILLIS = 500L;
+	private static final int INSTANCE_DATA_BATCH_SIZE = 100;
+	private static final long INSTANCE_DATA_MAX_RETRY_DELAY_MILLIS = 60000L;
 	
 	/**
 	 * Mapping of view names to view definitions.
@@ -90,6 +113,31 @@ public class ViewRegistry {
 	 */
 	private final Map<String, Set<SubResourceDefinition>> subResourceDefinitionsMap = new HashMap<String, Set<SubResourceDefinition>>();
 	
+	/**
+	 * The keys of the instance data changed but not yet persisted, by view instance.
+	 */
+	private final Map<ViewInstanceEntity, Set<String>> dirtyInstanceData = new HashMap<ViewInstanceEntity, Set<String>>();
+	
+	/**
+	 * Lock held while persisting instance data so that the changes are written in order.
+	 */
+	private final Object instanceDataFlushLock = new Object();
+	
+	/**
+	 * Executor of the delayed instance data flushes.
+	 */
+	private ScheduledExecutorService instanceDataExecutor = null;
+	
+	/**
+	 * Indicates whether an instance data flush is scheduled.
+	 */
+	private boolean instanceDataFlushScheduled = false;
+	
+	/**
+	 * The number of consecutive instance data flushes that failed. The next flush is delayed accordingly.
+	 */
+	private int instanceDataFlushFailures = 0;
+	
 	/**
 	 * Helper class.
 	 */
@@ -264,32 +312,29 @@ public class ViewRegistry {
 				File[] files = viewDir.listFiles();
 				
 				if (files != null) {
-					for (File archiveFile : files) {
-						if (!archiveFile.isDirectory()) {
-							try {
-								ViewConfig viewConfig = helper.getViewConfigFromArchive(archiveFile);
-								
-								String viewName = ViewEntity.getViewName(viewConfig.getName(), viewConfig.getVersion());
-								String archivePath = extractedArchivesPath + File.separator + viewName;
-								
-								// extract the archive and get the class loader
-								ClassLoader cl = extractViewArchive(archiveFile, helper.getFile(archivePath));
-								
-								ViewEntity viewDefinition = installView(viewConfig, configuration, cl, archivePath);
+					Map<File, Future<ViewArchive>> archives = readArchives(files, extractedArchivesPath);
+					
+					// install the views one at a time, in the order of the archive files
+					for (Map.Entry<File, Future<ViewArchive>> entry : archives.entrySet()) {
+						File archiveFile = entry.getKey();
+						try {
+							ViewArchive archive = getArchive(entry.getValue());
+							ViewConfig viewConfig = archive.viewConfig;
+							
+							ViewEntity viewDefinition = installView(viewConfig, configuration, archive.classLoader, archive.archivePath);
+							
+							for (InstanceConfig instanceConfig : viewConfig.getInstances()) {
+								ViewInstanceEntity viewInstanceDefinition = new ViewInstanceEntity(viewDefinition, instanceConfig);
 								
-								for (InstanceConfig instanceConfig : viewConfig.getInstances()) {
-									ViewInstanceEntity viewInstanceDefinition = new ViewInstanceEntity(viewDefinition, instanceConfig);
-									
-									for (PropertyConfig propertyConfig : instanceConfig.getProperties()) {
-										viewInstanceDefinition.putProperty(propertyConfig.getKey(), propertyConfig.getValue());
-									}
-									
-									installViewInstance(viewDefinition, viewInstanceDefinition);
-									instanceDefinitions.add(viewInstanceDefinition);
+								for (PropertyConfig propertyConfig : instanceConfig.getProperties()) {
+									viewInstanceDefinition.putProperty(propertyConfig.getKey(), propertyConfig.getValue());
 								}
-							} catch (Exception e) {
-								LOG.error("Caught exception loading view from " + archiveFile.getAbsolutePath(), e);
+								
+								installViewInstance(viewDefinition, viewInstanceDefinition);
+								instanceDefinitions.add(viewInstanceDefinition);
 							}
+						} catch (Exception e) {
+							LOG.error("Caught exception loading view from " + archiveFile.getAbsolutePath(), e);
 						}
 					}
 					instanceDefinitions.addAll(persistViews());
@@ -319,11 +364,7 @@ public class ViewRegistry {
 					LOG.debug("Creating view instance " + viewName + "/" + version + "/" + instanceName);
 				}
 				instanceDAO.create(instanceEntity);
-				try {
-					installViewInstance(viewEntity, instanceEntity);
-				} catch (ClassNotFoundException e) {
-					LOG.error("Caught exception installing view instance.", e);
-				}
+				installViewInstance(viewEntity, instanceEntity);
 			}
 		}
 	}
@@ -351,24 +392,72 @@ public class ViewRegistry {
 				entity.setProperties(instanceEntity.getProperties());
 				entity.setData(instanceEntity.getData());
 				
+				// the merge writes all of the instance data
+				synchronized (dirtyInstanceData) {
+					dirtyInstanceData.remove(entity);
+				}
 				instanceDAO.merge(entity);
 			}
 		}
 	}
 	
 	/**
-	 * Remove the data entry keyed by the given key from the given instance entity.
+	 * Associate the given value with the given key in the data of the given instance entity. The change is visible right away and persisted by the next
+	 * instance data flush.
+	 * 
+	 * @param instanceEntity the instance entity
+	 * @param key the data key
+	 * @param value the data value
+	 */
+	public void putInstanceData(ViewInstanceEntity instanceEntity, String key, String value) {
+		synchronized (instanceEntity) {
+			instanceEntity.putInstanceData(key, value);
+		}
+		addDirtyInstanceData(instanceEntity, Collections.singleton(key), true);
+	}
+	
+	/**
+	 * Remove the data entry keyed by the given key from the given instance entity. The change is visible right away and persisted by the next instance
+	 * data flush.
 	 * 
 	 * @param instanceEntity the instance entity
 	 * @param key the data key
 	 */
 	public void removeInstanceData(ViewInstanceEntity instanceEntity, String key) {
-		ViewInstanceDataEntity dataEntity = instanceEntity.getInstanceData(key);
-		if (dataEntity != null) {
-			instanceDAO.removeData(dataEntity);
+		synchronized (instanceEntity) {
+			instanceEntity.removeInstanceData(key);
+		}
+		addDirtyInstanceData(instanceEntity, Collections.singleton(key), true);
+	}
+	
+	/**
+	 * Persist the instance data changed since the last flush. Only the changed keys are written, those of each instance in a single transaction.
+	 * Instance data changes are flushed shortly after they are made, or right away once a batch of changes is pending.
+	 */
+	public void flushInstanceData() {
+		synchronized (instanceDataFlushLock) {
+			Map<ViewInstanceEntity, Set<String>> dirty;
+			synchronized (dirtyInstanceData) {
+				if (dirtyInstanceData.isEmpty()) { return; }
+				dirty = new HashMap<ViewInstanceEntity, Set<String>>(dirtyInstanceData);
+				dirtyInstanceData.clear();
+			}
+			boolean failed = false;
+			for (Map.Entry<ViewInstanceEntity, Set<String>> entry : dirty.entrySet()) {
+				if (!flushInstanceData(entry.getKey(), entry.getValue())) {
+					failed = true;
+				}
+			}
+			synchronized (dirtyInstanceData) {
+				if (failed) {
+					// retry the changes that could not be written, backing off while the database is unavailable
+					instanceDataFlushFailures++;
+					scheduleInstanceDataFlush();
+				} else {
+					instanceDataFlushFailures = 0;
+				}
+			}
 		}
-		instanceEntity.removeInstanceData(key);
-		instanceDAO.merge(instanceEntity);
 	}
 	
 	/**
@@ -389,6 +478,9 @@ public class ViewRegistry {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("Deleting view instance " + viewName + "/" + version + "/" + instanceName);
 				}
+				synchronized (dirtyInstanceData) {
+					dirtyInstanceData.remove(instanceEntity);
+				}
 				instanceDAO.remove(instanceEntity);
 				viewEntity.removeInstanceDefinition(instanceName);
 				removeInstanceDefinition(viewEntity, instanceName);
@@ -425,6 +517,10 @@ public class ViewRegistry {
 		viewDefinitions.clear();
 		viewInstanceDefinitions.clear();
 		subResourceDefinitionsMap.clear();
+		synchronized (dirtyInstanceData) {
+			dirtyInstanceData.clear();
+			instanceDataFlushFailures = 0;
+		}
 	}
 	
 	/**
@@ -436,6 +532,94 @@ public class ViewRegistry {
 		this.helper = helper;
 	}
 	
+	// mark the given keys of the given instance data as changed, flushing or scheduling a flush of the changes
+	private void addDirtyInstanceData(ViewInstanceEntity instanceEntity, Collection<String> keys, boolean scheduleFlush) {
+		boolean flush = false;
+		synchronized (dirtyInstanceData) {
+			Set<String> dirtyKeys = dirtyInstanceData.get(instanceEntity);
+			if (dirtyKeys == null) {
+				dirtyKeys = new HashSet<String>();
+				dirtyInstanceData.put(instanceEntity, dirtyKeys);
+			}
+			dirtyKeys.addAll(keys);
+			
+			if (scheduleFlush) {
+				// a full batch is written right away unless the last flush failed, in which case the scheduled retry writes it
+				if (dirtyKeys.size() >= INSTANCE_DATA_BATCH_SIZE && instanceDataFlushFailures == 0) {
+					flush = true;
+				} else {
+					scheduleInstanceDataFlush();
+				}
+			}
+		}
+		if (flush) {
+			flushInstanceData();
+		}
+	}
+	
+	// schedule a flush of the instance data unless one is already scheduled; the caller must hold the dirty instance data lock
+	private void scheduleInstanceDataFlush() {
+		if (instanceDataFlushScheduled) { return; }
+		
+		// double the delay after every failed flush, up to a maximum
+		long delay = INSTANCE_DATA_FLUSH_DELAY_MILLIS << Math.min(instanceDataFlushFailures, 7);
+		instanceDataFlushScheduled = true;
+		getInstanceDataExecutor().schedule(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (dirtyInstanceData) {
+					instanceDataFlushScheduled = false;
+				}
+				flushInstanceData();
+			}
+		}, Math.min(delay, INSTANCE_DATA_MAX_RETRY_DELAY_MILLIS), TimeUnit.MILLISECONDS);
+	}
+	
+	// persist the current values of the given keys of the given instance data, returning false if they could not be written
+	private boolean flushInstanceData(ViewInstanceEntity instanceEntity, Set<String> keys) {
+		Collection<ViewInstanceDataEntity> dataEntities = new LinkedList<ViewInstanceDataEntity>();
+		Collection<ViewInstanceDataEntityPK> removedKeys = new LinkedList<ViewInstanceDataEntityPK>();
+		
+		synchronized (instanceEntity) {
+			for (String key : keys) {
+				ViewInstanceDataEntity dataEntity = instanceEntity.getInstanceData(key);
+				if (dataEntity == null) {
+					ViewInstanceDataEntityPK pk = new ViewInstanceDataEntityPK();
+					pk.setViewName(instanceEntity.getViewName());
+					pk.setViewInstanceName(instanceEntity.getName());
+					pk.setName(key);
+					removedKeys.add(pk);
+				} else {
+					dataEntities.add(dataEntity);
+				}
+			}
+		}
+		try {
+			instanceDAO.updateData(dataEntities, removedKeys);
+		} catch (RuntimeException e) {
+			LOG.error("Caught exception persisting the data of view instance " + instanceEntity.getViewName() + "/" + instanceEntity.getName() + ".", e);
+			// keep the changes for the next flush
+			addDirtyInstanceData(instanceEntity, keys, false);
+			return false;
+		}
+		return true;
+	}
+	
+	// get the executor of the delayed instance data flushes
+	private synchronized ScheduledExecutorService getInstanceDataExecutor() {
+		if (instanceDataExecutor == null) {
+			instanceDataExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "view-instance-data-flush");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return instanceDataExecutor;
+	}
+	
 	// get a view entity for the given internal view name
 	private ViewEntity getDefinition(String viewName) {
 		return viewDefinitions.get(viewName);
@@ -508,10 +692,28 @@ public class ViewRegistry {
 		return viewDefinition;
 	}
 	
-	// install a view instance definition
-	private void installViewInstance(ViewEntity viewDefinition, ViewInstanceEntity viewInstanceDefinition) throws ClassNotFoundException {
+	// install a view instance definition; the services and resource providers of the instance are created on its first request
+	private void installViewInstance(final ViewEntity viewDefinition, final ViewInstanceEntity viewInstanceDefinition) {
 		viewInstanceDefinition.setViewEntity(viewDefinition);
+		viewInstanceDefinition.setServiceInitializer(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					installServices(viewDefinition, viewInstanceDefinition);
+				} catch (ClassNotFoundException e) {
+					LOG.error("Caught exception initializing view instance " + viewDefinition.getName() + "/" + viewInstanceDefinition.getName() + ".", e);
+				}
+			}
+		});
 		
+		setPersistenceEntities(viewInstanceDefinition);
+		
+		viewDefinition.addInstanceDefinition(viewInstanceDefinition);
+		addInstanceDefinition(viewDefinition, viewInstanceDefinition);
+	}
+	
+	// create the services and resource providers of a view instance definition
+	private void installServices(ViewEntity viewDefinition, ViewInstanceEntity viewInstanceDefinition) throws ClassNotFoundException {
 		ViewContext viewInstanceContext = new ViewContextImpl(viewInstanceDefinition, this);
 		
 		ViewExternalSubResourceService externalSubResourceService = new ViewExternalSubResourceService(viewDefinition.getExternalResourceType(), viewInstanceDefinition);
@@ -537,11 +739,6 @@ public class ViewRegistry {
 				viewInstanceDefinition.addResourceProvider(type, getProvider(resourceConfig.getProviderClass(cl), viewInstanceContext));
 			}
 		}
-		
-		setPersistenceEntities(viewInstanceDefinition);
-		
-		viewDefinition.addInstanceDefinition(viewInstanceDefinition);
-		addInstanceDefinition(viewDefinition, viewInstanceDefinition);
 	}
 	
 	// Set the entities defined in the view persistence element for the given view instance
@@ -595,7 +792,7 @@ public class ViewRegistry {
 	}
 	
 	// make sure that the views in the ambari db match the registry
-	private Set<ViewInstanceEntity> persistViews() throws ClassNotFoundException {
+	private Set<ViewInstanceEntity> persistViews() {
 		
 		Set<ViewInstanceEntity> instanceDefinitions = new HashSet<ViewInstanceEntity>();
 		Set<String> persistedViews = new HashSet<String>();
@@ -652,19 +849,96 @@ public class ViewRegistry {
 		return true;
 	}
 	
-	// extract the given view archive to the given archive directory
+	// read the given view archives; the configurations are parsed and the archives extracted in parallel
+	private Map<File, Future<ViewArchive>> readArchives(File[] files, final String extractedArchivesPath) {
+		Map<File, Future<ViewArchive>> archives = new LinkedHashMap<File, Future<ViewArchive>>();
+		List<File> archiveFiles = new LinkedList<File>();
+		
+		for (File file : files) {
+			if (!file.isDirectory()) {
+				archiveFiles.add(file);
+			}
+		}
+		
+		ExecutorService executor = null;
+		if (archiveFiles.size() > 1) {
+			executor = Executors.newFixedThreadPool(Math.min(archiveFiles.size(), MAX_ARCHIVE_READER_THREADS), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "view-archive-reader");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		try {
+			for (final File archiveFile : archiveFiles) {
+				Callable<ViewArchive> reader = new Callable<ViewArchive>() {
+					@Override
+					public ViewArchive call() throws Exception {
+						return readArchive(archiveFile, extractedArchivesPath);
+					}
+				};
+				FutureTask<ViewArchive> future = new FutureTask<ViewArchive>(reader);
+				if (executor == null) {
+					future.run();
+				} else {
+					executor.execute(future);
+				}
+				archives.put(archiveFile, future);
+			}
+		} finally {
+			if (executor != null) {
+				// the submitted archives are still read
+				executor.shutdown();
+			}
+		}
+		return archives;
+	}
+	
+	// read the configuration of the given view archive, extract it and get its class loader
+	private ViewArchive readArchive(File archiveFile, String extractedArchivesPath) throws JAXBException, IOException {
+		ViewConfig viewConfig = helper.getViewConfigFromArchive(archiveFile);
+		
+		String viewName = ViewEntity.getViewName(viewConfig.getName(), viewConfig.getVersion());
+		String archivePath = extractedArchivesPath + File.separator + viewName;
+		
+		ClassLoader cl = extractViewArchive(archiveFile, helper.getFile(archivePath));
+		
+		return new ViewArchive(viewConfig, cl, archivePath);
+	}
+	
+	// wait for the given view archive to be read
+	private static ViewArchive getArchive(Future<ViewArchive> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause : e;
+		}
+	}
+	
+	// extract the given view archive to the given archive directory unless it has already been extracted from an archive with the same checksum
 	private ClassLoader extractViewArchive(File viewArchive, File archiveDir) throws IOException {
 		
-		// Skip if the archive has already been extracted
-		if (!archiveDir.exists()) {
-			
-			String archivePath = archiveDir.getAbsolutePath();
-			
-			LOG.info("Creating archive folder " + archivePath + ".");
+		String archivePath = archiveDir.getAbsolutePath();
+		String checksumPath = archivePath + File.separator + ARCHIVE_CHECKSUM_PREFIX + helper.getChecksum(viewArchive);
+		
+		if (archiveDir.exists()) {
+			// Skip if the archive has already been extracted
+			if (helper.getFile(checksumPath).exists()) { return getArchiveClassLoader(archiveDir); }
 			
-			if (archiveDir.mkdir()) {
-				JarFile viewJarFile = helper.getJarFile(viewArchive);
+			LOG.info("Archive " + viewArchive.getName() + " has changed, removing archive folder " + archivePath + ".");
+			deleteDirectory(archiveDir);
+		}
+		
+		LOG.info("Creating archive folder " + archivePath + ".");
+		
+		if (archiveDir.mkdir()) {
+			JarFile viewJarFile = helper.getJarFile(viewArchive);
+			try {
 				Enumeration enumeration = viewJarFile.entries();
+				byte[] buffer = new byte[BUFFER_SIZE];
 				
 				LOG.info("Extracting files from " + viewArchive.getName() + ":");
 				
@@ -677,16 +951,22 @@ public class ViewRegistry {
 					File entryFile = helper.getFile(entryPath);
 					
 					if (jarEntry.isDirectory()) {
-						if (!entryFile.mkdir()) {
+						if (!entryFile.exists() && !entryFile.mkdirs()) {
 							LOG.error("Could not create archive entry directory " + entryPath + ".");
 						}
 					} else {
+						// entries may come before the entry of their directory
+						File parentDir = entryFile.getParentFile();
+						if (parentDir != null && !parentDir.exists()) {
+							parentDir.mkdirs();
+						}
 						InputStream is = viewJarFile.getInputStream(jarEntry);
 						try {
 							FileOutputStream fos = helper.getFileOutputStream(entryFile);
 							try {
-								while (is.available() > 0) {
-									fos.write(is.read());
+								int count;
+								while ((count = is.read(buffer)) != -1) {
+									fos.write(buffer, 0, count);
 								}
 							} finally {
 								fos.close();
@@ -696,9 +976,14 @@ public class ViewRegistry {
 						}
 					}
 				}
-			} else {
-				LOG.error("Could not create archive directory " + archivePath + ".");
+			} finally {
+				viewJarFile.close();
 			}
+			
+			// mark the archive as extracted
+			helper.getFileOutputStream(helper.getFile(checksumPath)).close();
+		} else {
+			LOG.error("Could not create archive directory " + archivePath + ".");
 		}
 		return getArchiveClassLoader(archiveDir);
 	}
@@ -736,6 +1021,23 @@ public class ViewRegistry {
 		return URLClassLoader.newInstance(urlList.toArray(new URL[urlList.size()]));
 	}
 	
+	// delete the given directory and its contents
+	private static void deleteDirectory(File dir) {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isDirectory()) {
+					deleteDirectory(file);
+				} else if (!file.delete()) {
+					LOG.error("Could not delete " + file.getAbsolutePath() + ".");
+				}
+			}
+		}
+		if (!dir.delete()) {
+			LOG.error("Could not delete " + dir.getAbsolutePath() + ".");
+		}
+	}
+	
 	/**
 	 * Static initialization of DAO.
 	 * 
@@ -772,6 +1074,11 @@ public class ViewRegistry {
 	 */
 	protected static class ViewRegistryHelper {
 		
+		/**
+		 * The JAXB context of the view configuration; created once as it is expensive to create and thread safe.
+		 */
+		private JAXBContext jaxbContext = null;
+		
 		/**
 		 * Get the view configuration from the given archive file.
 		 * 
@@ -782,8 +1089,7 @@ public class ViewRegistry {
 			ClassLoader cl = URLClassLoader.newInstance(new URL[] { archiveFile.toURI().toURL() });
 			
 			InputStream configStream = cl.getResourceAsStream(VIEW_XML);
-			JAXBContext jaxbContext = JAXBContext.newInstance(ViewConfig.class);
-			Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+			Unmarshaller jaxbUnmarshaller = getJAXBContext().createUnmarshaller();
 			
 			return (ViewConfig) jaxbUnmarshaller.unmarshal(configStream);
 		}
@@ -817,5 +1123,51 @@ public class ViewRegistry {
 		public JarFile getJarFile(File file) throws IOException {
 			return new JarFile(file);
 		}
+		
+		/**
+		 * Get the checksum of the contents of the given file.
+		 * 
+		 * @param file the file
+		 * @return the checksum as a hex string
+		 */
+		public String getChecksum(File file) throws IOException {
+			CRC32 crc = new CRC32();
+			InputStream is = new FileInputStream(file);
+			try {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int count;
+				while ((count = is.read(buffer)) != -1) {
+					crc.update(buffer, 0, count);
+				}
+			} finally {
+				is.close();
+			}
+			return Long.toHexString(crc.getValue()) + "-" + Long.toHexString(file.length());
+		}
+		
+		// get the JAXB context of the view configuration
+		private synchronized JAXBContext getJAXBContext() throws JAXBException {
+			if (jaxbContext == null) {
+				jaxbContext = JAXBContext.newInstance(ViewConfig.class);
+			}
+			return jaxbContext;
+		}
+	}
+	
+	// ----- inner class : ViewArchive -----------------------------------------
+	
+	/**
+	 * A view archive that has been read and extracted.
+	 */
+	private static class ViewArchive {
+		private final ViewConfig viewConfig;
+		private final ClassLoader classLoader;
+		private final String archivePath;
+		
+		private ViewArchive(ViewConfig viewConfig, ClassLoader classLoader, String archivePath) {
+			this.viewConfig = viewConfig;
+			this.classLoader = classLoader;
+			this.archivePath = archivePath;
+		}
 	}
 }
@@ -27,6 +27,7 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -47,7 +48,12 @@ public class ViewSubResourceProvider extends AbstractResourceProvider {
 	private final ViewEntity viewDefinition;
 	private final String pkField;
 	private final Resource.Type type;
-	private final Map<String, PropertyDescriptor> descriptorMap;
+	
+	/**
+	 * The read methods of the resource bean class keyed by property id; resolved once so that building a resource does not look up the
+	 * accessors of every bean.
+	 */
+	private final Map<String, Method> readMethodMap;
 	
 	private final Set<String> pkPropertyIds;
 	
@@ -69,7 +75,7 @@ public class ViewSubResourceProvider extends AbstractResourceProvider {
 		this.viewDefinition = viewDefinition;
 		this.pkPropertyIds = new HashSet<String>(getKeyPropertyIds().values());
 		this.type = type;
-		this.descriptorMap = getDescriptorMap(clazz);
+		this.readMethodMap = getReadMethodMap(clazz);
 	}
 	
 	// ----- ResourceProvider --------------------------------------------------
@@ -221,8 +227,8 @@ public class ViewSubResourceProvider extends AbstractResourceProvider {
 		resource.setProperty(VIEW_VERSION_PROPERTY_ID, viewVersion);
 		resource.setProperty(INSTANCE_NAME_PROPERTY_ID, instanceName);
 		
-		for (Map.Entry<String, PropertyDescriptor> entry : descriptorMap.entrySet()) {
-			Object value = entry.getValue().getReadMethod().invoke(bean);
+		for (Map.Entry<String, Method> entry : readMethodMap.entrySet()) {
+			Object value = entry.getValue().invoke(bean);
 			
 			setResourceProperty(resource, entry.getKey(), value, requestedIds);
 		}
@@ -263,6 +269,20 @@ public class ViewSubResourceProvider extends AbstractResourceProvider {
 		return descriptorMap;
 	}
 	
+	// get a map of the read methods for the given bean class
+	private static Map<String, Method> getReadMethodMap(Class<?> clazz) throws IntrospectionException {
+		Map<String, Method> readMethodMap = new HashMap<String, Method>();
+		
+		for (Map.Entry<String, PropertyDescriptor> entry : getDescriptorMap(clazz).entrySet()) {
+			Method readMethod = entry.getValue().getReadMethod();
+			if (!readMethod.isAccessible()) {
+				readMethod.setAccessible(true);
+			}
+			readMethodMap.put(entry.getKey(), readMethod);
+		}
+		return readMethodMap;
+	}
+	
 	// get the key property ids for the resource
 	private static Map<Resource.Type, String> getKeyPropertyIds(String pkField, Resource.Type type) {
 		
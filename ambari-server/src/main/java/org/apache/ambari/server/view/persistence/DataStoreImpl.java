@@ -32,10 +32,13 @@ import java.lang.reflect.ParameterizedType;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A data store implementation that uses dynamic JPA entities to persist view entities to the Ambari database.
@@ -87,6 +90,11 @@ public class DataStoreImpl implements DataStore {
 	 */
 	private final Map<String, JPADynamicTypeBuilder> typeBuilderMap = new HashMap<String, JPADynamicTypeBuilder>();
 	
+	/**
+	 * Map of bean accessors keyed by view entity class.
+	 */
+	private final ConcurrentMap<Class<?>, EntityAccessor> accessorMap = new ConcurrentHashMap<Class<?>, EntityAccessor>();
+	
 	/**
 	 * Indicates whether or not the data store has been initialized.
 	 */
@@ -180,16 +188,30 @@ public class DataStoreImpl implements DataStore {
 	
 	@Override
 	public <T> Collection<T> findAll(Class<T> clazz, String whereClause) throws PersistenceException {
+		return findAll(clazz, whereClause, 0, -1);
+	}
+	
+	@Override
+	public <T> Collection<T> findAll(Class<T> clazz, String whereClause, int firstResult, int maxResults) throws PersistenceException {
 		checkInitialize();
 		
+		boolean paged = firstResult > 0 || maxResults >= 0;
+		
 		EntityManager em = getEntityManager();
 		try {
-			Collection<T> resources = new HashSet<T>();
+			Collection<T> resources = new LinkedList<T>();
 			DynamicType type = getDynamicEntityType(clazz);
 			
 			if (type != null) {
 				try {
-					Query query = em.createQuery(getSelectStatement(clazz, whereClause));
+					Query query = em.createQuery(getSelectStatement(clazz, whereClause, paged));
+					
+					if (firstResult > 0) {
+						query.setFirstResult(firstResult);
+					}
+					if (maxResults >= 0) {
+						query.setMaxResults(maxResults);
+					}
 					
 					List dynamicEntities = query.getResultList();
 					
@@ -359,7 +381,7 @@ public class DataStoreImpl implements DataStore {
 						
 						if (Collection.class.isAssignableFrom(valueClass)) {
 							
-							Class<?> typeClass = getParameterizedTypeClass(clazz, propertyName);
+							Class<?> typeClass = getAccessor(clazz).getParameterizedTypeClass(propertyName);
 							Collection<Object> collection = dynamicEntity.get(propertyName);
 							
 							collection.clear();
@@ -395,19 +417,16 @@ public class DataStoreImpl implements DataStore {
 	// convert the given dynamic entity to a view entity
 	private <T> T toEntity(Class<T> clazz, DynamicType type, DynamicEntity entity) throws IntrospectionException, InvocationTargetException, IllegalAccessException, InstantiationException, NoSuchFieldException {
 		T resource = clazz.newInstance();
-		
-		Map<String, Object> properties = new HashMap<String, Object>();
+		EntityAccessor accessor = getAccessor(clazz);
 		
 		for (String propertyName : type.getPropertiesNames()) {
-			properties.put(propertyName, entity.get(propertyName));
+			setEntityProperty(resource, accessor, propertyName, entity.get(propertyName));
 		}
-		setEntityProperties(resource, properties);
-		
 		return resource;
 	}
 	
-	// build a JPA select statement from the given view entity class and where clause
-	private <T> String getSelectStatement(Class<T> clazz, String whereClause) throws IntrospectionException {
+	// build a JPA select statement from the given view entity class and where clause; paged results are ordered by id
+	private <T> String getSelectStatement(Class<T> clazz, String whereClause, boolean ordered) throws IntrospectionException, PersistenceException {
 		StringBuilder stringBuilder = new StringBuilder();
 		String entityName = entityClassMap.get(clazz);
 		
@@ -415,7 +434,7 @@ public class DataStoreImpl implements DataStore {
 		if (whereClause != null) {
 			stringBuilder.append(" WHERE");
 			
-			Set<String> propertyNames = getPropertyNames(clazz);
+			Set<String> propertyNames = getAccessor(clazz).getPropertyNames();
 			StringTokenizer tokenizer = new StringTokenizer(whereClause, " \t\n\r\f+-*/=><()\"", true);
 			boolean quoted = false;
 			
@@ -431,68 +450,72 @@ public class DataStoreImpl implements DataStore {
 				}
 			}
 		}
+		if (ordered) {
+			stringBuilder.append(" ORDER BY e.").append(getIdFieldName(clazz));
+		}
 		return stringBuilder.toString();
 	}
 	
 	// get a map of properties from the given view entity
 	private Map<String, Object> getEntityProperties(Object entity) throws IntrospectionException, InvocationTargetException, IllegalAccessException {
-		Map<String, Object> properties = new HashMap<String, Object>();
+		Map<String, Method> readMethods = getAccessor(entity.getClass()).getReadMethods();
+		Map<String, Object> properties = new HashMap<String, Object>(readMethods.size() * 2);
 		
-		for (PropertyDescriptor pd : Introspector.getBeanInfo(entity.getClass()).getPropertyDescriptors()) {
-			String name = pd.getName();
-			Method readMethod = pd.getReadMethod();
-			if (readMethod != null) {
-				properties.put(name, readMethod.invoke(entity));
-			}
+		for (Map.Entry<String, Method> entry : readMethods.entrySet()) {
+			properties.put(entry.getKey(), entry.getValue().invoke(entity));
 		}
 		return properties;
 	}
 	
-	// set the properties on the given view entity from the given map of properties; convert all
+	// set the named property on the given view entity to the given value; convert all
 	// DynamicEntity values to their associated view entity types
-	private void setEntityProperties(Object entity, Map<String, Object> properties) throws IntrospectionException, InvocationTargetException, IllegalAccessException, InstantiationException, NoSuchFieldException {
-		for (PropertyDescriptor pd : Introspector.getBeanInfo(entity.getClass()).getPropertyDescriptors()) {
-			String name = pd.getName();
-			if (properties.containsKey(name)) {
+	private void setEntityProperty(Object entity, EntityAccessor accessor, String name, Object value) throws IntrospectionException, InvocationTargetException, IllegalAccessException, InstantiationException, NoSuchFieldException {
+		Method writeMethod = accessor.getWriteMethod(name);
+		if (writeMethod != null) {
+			
+			if (value instanceof Collection) {
+				Set<Object> newCollection = new HashSet<Object>();
 				
-				Method writeMethod = pd.getWriteMethod();
-				if (writeMethod != null) {
+				for (Object collectionValue : (Collection) value) {
 					
-					Object value = properties.get(name);
-					
-					if (value instanceof Collection) {
-						Set<Object> newCollection = new HashSet<Object>();
+					if (collectionValue instanceof DynamicEntity) {
 						
-						for (Object collectionValue : (Collection) value) {
-							
-							if (collectionValue instanceof DynamicEntity) {
-								
-								Class<?> clazz = entity.getClass();
-								Class<?> parameterizedTypeClass = getParameterizedTypeClass(clazz, pd.getName());
-								
-								collectionValue = toEntity(parameterizedTypeClass, getDynamicEntityType(parameterizedTypeClass), (DynamicEntity) collectionValue);
-							}
-							if (collectionValue != null) {
-								newCollection.add(collectionValue);
-							}
-						}
-						writeMethod.invoke(entity, newCollection);
-					} else {
-						if (value instanceof DynamicEntity) {
-							
-							Class<?> clazz = pd.getPropertyType();
-							
-							value = toEntity(clazz, getDynamicEntityType(clazz), (DynamicEntity) value);
-						}
-						if (value != null) {
-							writeMethod.invoke(entity, value);
-						}
+						Class<?> parameterizedTypeClass = accessor.getParameterizedTypeClass(name);
+						
+						collectionValue = toEntity(parameterizedTypeClass, getDynamicEntityType(parameterizedTypeClass), (DynamicEntity) collectionValue);
+					}
+					if (collectionValue != null) {
+						newCollection.add(collectionValue);
 					}
 				}
+				writeMethod.invoke(entity, newCollection);
+			} else {
+				if (value instanceof DynamicEntity) {
+					
+					Class<?> clazz = writeMethod.getParameterTypes()[0];
+					
+					value = toEntity(clazz, getDynamicEntityType(clazz), (DynamicEntity) value);
+				}
+				if (value != null) {
+					writeMethod.invoke(entity, value);
+				}
 			}
 		}
 	}
 	
+	// get the accessor for the given view entity class, introspecting the class only once
+	private EntityAccessor getAccessor(Class<?> clazz) throws IntrospectionException {
+		EntityAccessor accessor = accessorMap.get(clazz);
+		if (accessor == null) {
+			accessor = new EntityAccessor(clazz);
+			EntityAccessor existing = accessorMap.putIfAbsent(clazz, accessor);
+			if (existing != null) {
+				accessor = existing;
+			}
+		}
+		return accessor;
+	}
+	
 	// determine whether or not a property of the given type should be a direct mapping in the dynamic entity
 	private boolean isDirectMappingType(Class<?> propertyType) {
 		return !Collection.class.isAssignableFrom(propertyType) && entityClassMap.get(propertyType) == null;
@@ -527,15 +550,6 @@ public class DataStoreImpl implements DataStore {
 		return descriptorMap;
 	}
 	
-	// get the property names for the given view entity class
-	private static Set<String> getPropertyNames(Class clazz) throws IntrospectionException {
-		Set<String> propertyNames = new HashSet<String>();
-		for (PropertyDescriptor pd : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
-			propertyNames.add(pd.getName());
-		}
-		return propertyNames;
-	}
-	
 	// get the parameterized type class for the given field of the given class
 	private static Class<?> getParameterizedTypeClass(Class clazz, String fieldName) throws NoSuchFieldException {
 		Field field = clazz.getDeclaredField(fieldName);
@@ -566,4 +580,108 @@ public class DataStoreImpl implements DataStore {
 	private EntityManager getEntityManager() {
 		return entityManagerFactory.createEntityManager();
 	}
+	
+	// ----- inner class : EntityAccessor --------------------------------------
+	
+	/**
+	 * The bean properties of a view entity class, introspected once and kept with their read and write methods so that converting an entity does not
+	 * introspect the class again.
+	 */
+	private static class EntityAccessor {
+		/**
+		 * The entity class.
+		 */
+		private final Class<?> clazz;
+		
+		/**
+		 * The names of all of the bean properties.
+		 */
+		private final Set<String> propertyNames = new HashSet<String>();
+		
+		/**
+		 * The read methods keyed by property name.
+		 */
+		private final Map<String, Method> readMethods = new HashMap<String, Method>();
+		
+		/**
+		 * The write methods keyed by property name.
+		 */
+		private final Map<String, Method> writeMethods = new HashMap<String, Method>();
+		
+		/**
+		 * The element classes of the collection properties keyed by property name; resolved on first use.
+		 */
+		private final ConcurrentMap<String, Class<?>> parameterizedTypeClasses = new ConcurrentHashMap<String, Class<?>>();
+		
+		// ----- Constructors ----------------------------------------------------
+		
+		/**
+		 * Construct an accessor for the given view entity class.
+		 * 
+		 * @param clazz the view entity class
+		 * @throws IntrospectionException if the class can not be introspected
+		 */
+		private EntityAccessor(Class<?> clazz) throws IntrospectionException {
+			this.clazz = clazz;
+			for (PropertyDescriptor pd : Introspector.getBeanInfo(clazz).getPropertyDescriptors()) {
+				String name = pd.getName();
+				propertyNames.add(name);
+				
+				Method readMethod = pd.getReadMethod();
+				if (readMethod != null) {
+					readMethods.put(name, accessible(readMethod));
+				}
+				Method writeMethod = pd.getWriteMethod();
+				if (writeMethod != null) {
+					writeMethods.put(name, accessible(writeMethod));
+				}
+			}
+		}
+		
+		// ----- EntityAccessor --------------------------------------------------
+		
+		/**
+		 * @return the names of all of the bean properties
+		 */
+		private Set<String> getPropertyNames() {
+			return propertyNames;
+		}
+		
+		/**
+		 * @return the read methods keyed by property name
+		 */
+		private Map<String, Method> getReadMethods() {
+			return readMethods;
+		}
+		
+		/**
+		 * @param name the property name
+		 * @return the write method of the named property; null if the property is read only
+		 */
+		private Method getWriteMethod(String name) {
+			return writeMethods.get(name);
+		}
+		
+		/**
+		 * @param name the collection property name
+		 * @return the element class of the named collection property
+		 * @throws NoSuchFieldException if the class declares no field of the given name
+		 */
+		private Class<?> getParameterizedTypeClass(String name) throws NoSuchFieldException {
+			Class<?> typeClass = parameterizedTypeClasses.get(name);
+			if (typeClass == null) {
+				typeClass = DataStoreImpl.getParameterizedTypeClass(clazz, name);
+				parameterizedTypeClasses.put(name, typeClass);
+			}
+			return typeClass;
+		}
+		
+		// suppress the access checks of the given accessor method
+		private static Method accessible(Method method) {
+			if (!method.isAccessible()) {
+				method.setAccessible(true);
+			}
+			return method;
+		}
+	}
 }
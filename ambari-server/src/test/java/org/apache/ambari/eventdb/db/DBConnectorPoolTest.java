@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.eventdb.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * DBConnectorPool tests.
+ */
+public class DBConnectorPoolTest {
+	private static final String URL = "jdbc:derby:memory:rcaPoolTest;create=true";
+	private static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+	
+	private DBConnectorPool pool;
+	
+	@After
+	public void tearDown() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+	
+	@Test
+	public void testConnectorReused() throws Exception {
+		pool = new DBConnectorPool(URL, DRIVER, "", "", 2, 1000, 60000);
+		
+		PostgresConnector connector = pool.borrow();
+		assertEquals(1, pool.getActiveCount());
+		connector.close();
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(1, pool.getIdleCount());
+		assertTrue(connector.isOpen());
+		
+		assertSame(connector, pool.borrow());
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(2, pool.getBorrowedCount());
+	}
+	
+	@Test
+	public void testStatementsReused() throws Exception {
+		pool = new DBConnectorPool(URL, DRIVER, "", "", 1, 1000, 60000);
+		
+		PostgresConnector connector = pool.borrow();
+		String query = "VALUES 1";
+		assertSame(connector.prepareStatement(query), connector.prepareStatement(query));
+		connector.close();
+		
+		assertSame(connector, pool.borrow());
+		assertSame(connector.prepareStatement(query), connector.prepareStatement(query));
+	}
+	
+	@Test
+	public void testBoundedConcurrency() throws Exception {
+		pool = new DBConnectorPool(URL, DRIVER, "", "", 1, 50, 60000);
+		
+		PostgresConnector connector = pool.borrow();
+		try {
+			pool.borrow();
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(1, pool.getTimeoutCount());
+		assertEquals(1, pool.getWaitCount());
+		
+		// closing twice returns the connector once
+		connector.close();
+		connector.close();
+		assertEquals(1, pool.getIdleCount());
+		
+		PostgresConnector other = pool.borrow();
+		assertSame(connector, other);
+		try {
+			pool.borrow();
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testIdleConnectorDiscarded() throws Exception {
+		pool = new DBConnectorPool(URL, DRIVER, "", "", 1, 1000, 0);
+		
+		PostgresConnector connector = pool.borrow();
+		connector.close();
+		Thread.sleep(10);
+		
+		PostgresConnector other = pool.borrow();
+		assertNotSame(connector, other);
+		assertFalse(connector.isOpen());
+		assertEquals(1, pool.getDiscardedCount());
+		assertEquals(2, pool.getCreatedCount());
+	}
+}
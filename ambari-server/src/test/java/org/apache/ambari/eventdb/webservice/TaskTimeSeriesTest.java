@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.eventdb.webservice;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ambari.eventdb.model.TaskData;
+import org.apache.ambari.eventdb.model.TaskData.Point;
+import org.junit.Test;
+
+/**
+ * TaskTimeSeries tests.
+ */
+public class TaskTimeSeriesTest {
+	
+	@Test
+	public void testCounts() {
+		TaskTimeSeries series = new TaskTimeSeries(100, 110, 2);
+		series.handle("MAP", 101000, 0, 104500);
+		series.handle("REDUCE", 103000, 105000, 108000);
+		series.handle("SETUP", 100000, 0, 110000);
+		TaskData data = new TaskData();
+		series.setTaskData(data);
+		
+		assertCounts(data.getMapData(), 1, 1, 1, 0, 0);
+		assertCounts(data.getShuffleData(), 0, 1, 1, 0, 0);
+		assertCounts(data.getReduceData(), 0, 0, 0, 1, 1);
+		assertEquals(100, data.getMapData().get(0).getX());
+		assertEquals(108, data.getMapData().get(4).getX());
+	}
+	
+	@Test
+	public void testMatchesPerStepCounting() {
+		Random random = new Random(42);
+		double submitTimeSecs = 1000;
+		double finishTimeSecs = 1500;
+		double step = 3.7;
+		
+		int tasks = 500;
+		String[] types = new String[tasks];
+		long[][] times = new long[tasks][3];
+		TaskTimeSeries series = new TaskTimeSeries(submitTimeSecs, finishTimeSecs, step);
+		for (int i = 0; i < tasks; i++) {
+			types[i] = random.nextBoolean() ? "MAP" : "REDUCE";
+			long start = 950000 + random.nextInt(600000);
+			long shuffleFinish = start + random.nextInt(100000);
+			long finish = shuffleFinish + random.nextInt(100000);
+			times[i] = new long[] { start, shuffleFinish, finish };
+			series.handle(types[i], start, shuffleFinish, finish);
+		}
+		TaskData data = new TaskData();
+		series.setTaskData(data);
+		
+		int i = 0;
+		for (double time = submitTimeSecs; time < finishTimeSecs; time += step, i++) {
+			int maps = 0;
+			int shuffles = 0;
+			int reduces = 0;
+			for (int t = 0; t < tasks; t++) {
+				if (types[t].equals("MAP")) {
+					if ((times[t][0] / 1000.0) <= (time + step) && (times[t][2] / 1000.0) >= time) maps++;
+				} else {
+					if ((times[t][0] / 1000.0) <= (time + step) && (times[t][1] / 1000.0) >= time) shuffles++;
+					else if ((times[t][1] / 1000.0) < (time + step) && (times[t][2] / 1000.0) >= time) reduces++;
+				}
+			}
+			assertEquals(Math.round(time), data.getMapData().get(i).getX());
+			assertEquals(maps, data.getMapData().get(i).getY());
+			assertEquals(shuffles, data.getShuffleData().get(i).getY());
+			assertEquals(reduces, data.getReduceData().get(i).getY());
+		}
+		assertEquals(i, data.getMapData().size());
+	}
+	
+	private static void assertCounts(List<Point> points, int... counts) {
+		assertEquals(counts.length, points.size());
+		for (int i = 0; i < counts.length; i++) {
+			assertEquals(counts[i], points.get(i).getY());
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.orm.GuiceJpaInitializer;
+import org.apache.ambari.server.orm.InMemoryDefaultTestModule;
+import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.svccomphost.ServiceComponentHostStartEvent;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+
+/**
+ * Measures {@link ActionDBAccessorImpl#persistActions(Request)} for a restart of a large cluster against the embedded in-memory database. This is not a unit test and is not run by the build;
+ * run it with the test classpath:
+ *
+ * <pre>
+ * java -cp ... org.apache.ambari.server.actionmanager.PersistActionsBenchmark [hosts] [iterations]
+ * </pre>
+ */
+public class PersistActionsBenchmark {
+	
+	private static final String CLUSTER_NAME = "cluster1";
+	
+	public static void main(String[] args) throws Exception {
+		int hostCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		
+		Injector injector = Guice.createInjector(new InMemoryDefaultTestModule());
+		injector.getInstance(GuiceJpaInitializer.class);
+		try {
+			Clusters clusters = injector.getInstance(Clusters.class);
+			clusters.addCluster(CLUSTER_NAME);
+			for (int i = 0; i < hostCount; i++) {
+				clusters.addHost(getHostName(i));
+				clusters.getHost(getHostName(i)).persist();
+			}
+			ActionDBAccessor db = injector.getInstance(ActionDBAccessorImpl.class);
+			
+			// the first request warms up the persistence unit and is not measured
+			long requestId = 1;
+			db.persistActions(createRestartRequest(clusters, requestId++, hostCount));
+			
+			long total = 0;
+			for (int i = 0; i < iterations; i++) {
+				Request request = createRestartRequest(clusters, requestId++, hostCount);
+				long start = System.nanoTime();
+				db.persistActions(request);
+				long elapsed = System.nanoTime() - start;
+				total += elapsed;
+				System.out.println("Persisted " + (2 * hostCount) + " tasks in " + (elapsed / 1000000) + " ms");
+			}
+			System.out.println("Average over " + iterations + " requests: " + (total / iterations / 1000000) + " ms");
+		} finally {
+			injector.getInstance(PersistService.class).stop();
+		}
+	}
+	
+	/**
+	 * Create a request that stops and then starts a DATANODE on every host.
+	 */
+	private static Request createRestartRequest(Clusters clusters, long requestId, int hostCount) {
+		List<Stage> stages = new ArrayList<Stage>();
+		RoleCommand[] commands = { RoleCommand.STOP, RoleCommand.START };
+		for (int stageId = 0; stageId < commands.length; stageId++) {
+			Stage stage = new Stage(requestId, "/tmp/ambari", CLUSTER_NAME, "restart all", "clusterHostInfo");
+			stage.setStageId(stageId);
+			for (int i = 0; i < hostCount; i++) {
+				String hostName = getHostName(i);
+				stage.addHostRoleExecutionCommand(hostName, Role.DATANODE, commands[stageId], new ServiceComponentHostStartEvent(Role.DATANODE.toString(), hostName, System.currentTimeMillis()),
+						CLUSTER_NAME, "HDFS");
+			}
+			stages.add(stage);
+		}
+		return new Request(stages, clusters);
+	}
+	
+	private static String getHostName(int index) {
+		return "host" + index;
+	}
+}
@@ -10,8 +10,12 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import junit.framework.Assert;
 
@@ -38,6 +42,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheStats;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
@@ -140,6 +145,36 @@ public class TestActionDBAccessorImpl {
 		}
 	}
 	
+	@Test
+	public void testPersistActionsForManyHosts() throws AmbariException {
+		int hostCount = 20;
+		Stage s = new Stage(requestId, "/a/b", "cluster1", "action db accessor test", "clusterHostInfo");
+		s.setStageId(stageId);
+		for (int i = 0; i < hostCount; i++) {
+			String hostname = "bulkhost" + i;
+			clusters.addHost(hostname);
+			clusters.getHost(hostname).persist();
+			s.addHostRoleExecutionCommand(hostname, Role.DATANODE, RoleCommand.START, new ServiceComponentHostStartEvent(Role.DATANODE.toString(), hostname, System.currentTimeMillis()), "cluster1", "HDFS");
+		}
+		List<Stage> stages = new ArrayList<Stage>();
+		stages.add(s);
+		db.persistActions(new Request(stages, clusters));
+		
+		List<HostRoleCommand> commands = db.getRequestTasks(requestId);
+		assertEquals(hostCount, commands.size());
+		Set<Long> taskIds = new HashSet<Long>();
+		for (HostRoleCommand command : commands) {
+			taskIds.add(command.getTaskId());
+			assertNotNull(executionCommandDAO.findByPK(command.getTaskId()));
+		}
+		assertEquals(hostCount, taskIds.size());
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testPersistActionsUnknownHost() {
+		populateActionDB(db, "unknownhost", requestId, stageId);
+	}
+	
 	@Test
 	public void testHostRoleScheduled() throws InterruptedException {
 		populateActionDB(db, hostName, requestId, stageId);
@@ -241,6 +276,56 @@ public class TestActionDBAccessorImpl {
 		
 	}
 	
+	@Test
+	public void testGetRequestTaskStatusCounts() {
+		populateActionDB(db, hostName, requestId, stageId);
+		
+		CommandReport commandReport = new CommandReport();
+		commandReport.setStatus(HostRoleStatus.COMPLETED.toString());
+		commandReport.setStdOut("");
+		commandReport.setStdErr("");
+		commandReport.setStructuredOut("");
+		commandReport.setExitCode(0);
+		db.updateHostRoleState(hostName, requestId, stageId, Role.HBASE_MASTER.toString(), commandReport);
+		
+		Map<Long, Map<HostRoleStatus, Integer>> counts = db.getRequestTaskStatusCounts(Arrays.asList(requestId, requestId + 1));
+		assertEquals(1, counts.size());
+		assertEquals(Integer.valueOf(1), counts.get(requestId).get(HostRoleStatus.COMPLETED));
+		assertEquals(Integer.valueOf(1), counts.get(requestId).get(HostRoleStatus.PENDING));
+		assertEquals(2, counts.get(requestId).size());
+	}
+	
+	@Test
+	public void testHostRoleCommandCache() {
+		populateActionDB(db, hostName, requestId, stageId);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			sb.append("1234567890");
+		}
+		
+		CommandReport commandReport = new CommandReport();
+		commandReport.setStatus(HostRoleStatus.COMPLETED.toString());
+		commandReport.setStdOut("small output");
+		commandReport.setStdErr("");
+		commandReport.setStructuredOut("");
+		commandReport.setExitCode(0);
+		db.updateHostRoleState(hostName, requestId, stageId, Role.HBASE_MASTER.toString(), commandReport);
+		
+		// commands with large output are not cached
+		commandReport.setStdOut(sb.toString());
+		db.updateHostRoleState(hostName, requestId, stageId, Role.HBASE_REGIONSERVER.toString(), commandReport);
+		
+		List<Long> taskIds = hostRoleCommandDAO.findTaskIdsByRequest(requestId);
+		assertEquals(2, db.getTasks(taskIds).size());
+		
+		CacheStats before = ((ActionDBAccessorImpl) db).getHostRoleCommandCacheStats();
+		assertEquals(2, db.getTasks(taskIds).size());
+		CacheStats after = ((ActionDBAccessorImpl) db).getHostRoleCommandCacheStats();
+		
+		assertEquals(1, after.hitCount() - before.hitCount());
+		assertEquals(1, after.missCount() - before.missCount());
+	}
+	
 	@Test
 	public void testGetRequestsByStatus() throws AmbariException {
 		List<Long> requestIds = new ArrayList<Long>();
@@ -0,0 +1,178 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.actionmanager;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ambari.server.AmbariException;
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.agent.CommandReport;
+import org.apache.ambari.server.configuration.Configuration;
+import org.apache.ambari.server.orm.GuiceJpaInitializer;
+import org.apache.ambari.server.orm.InMemoryDefaultTestModule;
+import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
+import org.apache.ambari.server.orm.dao.RequestDAO;
+import org.apache.ambari.server.state.Clusters;
+import org.apache.ambari.server.state.svccomphost.ServiceComponentHostStartEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+
+public class TestRequestArchiver {
+	
+	private long requestId = 23;
+	private long stageId = 31;
+	private String hostName = "host1";
+	private String clusterName = "cluster1";
+	private Injector injector;
+	
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+	
+	@Inject
+	private Clusters clusters;
+	@Inject
+	private ActionDBAccessor db;
+	@Inject
+	private RequestArchiver archiver;
+	@Inject
+	private RequestDAO requestDAO;
+	@Inject
+	private HostRoleCommandDAO hostRoleCommandDAO;
+	
+	@Before
+	public void setup() throws Exception {
+		InMemoryDefaultTestModule module = new InMemoryDefaultTestModule();
+		module.getProperties().setProperty(Configuration.REQUEST_ARCHIVE_DIR_KEY, tmpFolder.newFolder("requests").getAbsolutePath());
+		injector = Guice.createInjector(module);
+		injector.getInstance(GuiceJpaInitializer.class);
+		injector.injectMembers(this);
+		clusters.addHost(hostName);
+		clusters.getHost(hostName).persist();
+		clusters.addCluster(clusterName);
+	}
+	
+	@After
+	public void tearDown() throws AmbariException {
+		injector.getInstance(PersistService.class).stop();
+	}
+	
+	@Test
+	public void testArchiveCompletedRequest() {
+		populateActionDB(requestId);
+		completeTask(requestId, Role.HBASE_MASTER);
+		completeTask(requestId, Role.HBASE_REGIONSERVER);
+		
+		assertEquals(1, archiver.archiveRequests(System.currentTimeMillis() + 1000));
+		
+		assertNull(requestDAO.findByPK(requestId));
+		assertTrue(hostRoleCommandDAO.findByRequest(requestId).isEmpty());
+		assertTrue(db.isRequestArchived(requestId));
+		
+		List<HostRoleCommand> commands = db.getRequestTasks(requestId);
+		assertEquals(2, commands.size());
+		for (HostRoleCommand command : commands) {
+			assertEquals(requestId, command.getRequestId());
+			assertEquals(stageId, command.getStageId());
+			assertEquals(hostName, command.getHostName());
+			assertEquals(HostRoleStatus.COMPLETED, command.getStatus());
+			assertEquals("stdout", command.getStdout());
+		}
+		
+		List<Request> requests = db.getRequests(Collections.singletonList(requestId));
+		assertEquals(1, requests.size());
+		assertEquals(requestId, requests.get(0).getRequestId());
+		assertEquals(clusterName, requests.get(0).getClusterName());
+		assertEquals("request archiver test", db.getRequestContext(requestId));
+		
+		Map<Long, Map<HostRoleStatus, Integer>> counts = db.getRequestTaskStatusCounts(Collections.singletonList(requestId));
+		assertEquals(Integer.valueOf(2), counts.get(requestId).get(HostRoleStatus.COMPLETED));
+	}
+	
+	@Test
+	public void testActiveRequestNotArchived() {
+		populateActionDB(requestId);
+		completeTask(requestId, Role.HBASE_MASTER);
+		
+		assertEquals(0, archiver.archiveRequests(System.currentTimeMillis() + 1000));
+		assertFalse(db.isRequestArchived(requestId));
+		assertEquals(2, db.getRequestTasks(requestId).size());
+	}
+	
+	@Test
+	public void testRecentRequestNotArchived() {
+		populateActionDB(requestId);
+		completeTask(requestId, Role.HBASE_MASTER);
+		completeTask(requestId, Role.HBASE_REGIONSERVER);
+		
+		assertEquals(0, archiver.archiveRequests(System.currentTimeMillis() - 60000));
+		assertFalse(db.isRequestArchived(requestId));
+	}
+	
+	@Test
+	public void testUnknownRequestsSkipped() {
+		HostRoleCommandDAO hostRoleCommandDAO = createMock(HostRoleCommandDAO.class);
+		RequestDAO requestDAO = createMock(RequestDAO.class);
+		Configuration configuration = createNiceMock(Configuration.class);
+		
+		// a full batch of requests whose request rows are gone must not be returned again
+		List<Long> requestIds = new ArrayList<Long>();
+		for (long id = 1; id <= 100; id++) {
+			requestIds.add(id);
+			expect(requestDAO.findByPK(id)).andReturn(null);
+		}
+		expect(hostRoleCommandDAO.findRequestIdsCompletedBefore(1000L, -1L, 100)).andReturn(requestIds);
+		expect(hostRoleCommandDAO.findRequestIdsCompletedBefore(1000L, 100L, 100)).andReturn(Collections.<Long> emptyList());
+		replay(hostRoleCommandDAO, requestDAO, configuration);
+		
+		RequestArchiver archiver = new RequestArchiver(requestDAO, hostRoleCommandDAO, injector.getInstance(RequestArchive.class), null, configuration);
+		assertEquals(0, archiver.archiveRequests(1000L));
+		
+		verify(hostRoleCommandDAO, requestDAO);
+	}
+	
+	private void populateActionDB(long requestId) {
+		Stage s = new Stage(requestId, "/a/b", clusterName, "request archiver test", "clusterHostInfo");
+		s.setStageId(stageId);
+		s.addHostRoleExecutionCommand(hostName, Role.HBASE_MASTER, RoleCommand.START, new ServiceComponentHostStartEvent(Role.HBASE_MASTER.toString(), hostName, System.currentTimeMillis()), clusterName, "HBASE");
+		s.addHostRoleExecutionCommand(hostName, Role.HBASE_REGIONSERVER, RoleCommand.START, new ServiceComponentHostStartEvent(Role.HBASE_REGIONSERVER.toString(), hostName, System.currentTimeMillis()), clusterName,
+				"HBASE");
+		List<Stage> stages = new ArrayList<Stage>();
+		stages.add(s);
+		db.persistActions(new Request(stages, clusters));
+	}
+	
+	private void completeTask(long requestId, Role role) {
+		CommandReport commandReport = new CommandReport();
+		commandReport.setStatus(HostRoleStatus.COMPLETED.toString());
+		commandReport.setStdOut("stdout");
+		commandReport.setStdErr("");
+		commandReport.setStructuredOut("");
+		commandReport.setExitCode(0);
+		db.updateHostRoleState(hostName, requestId, stageId, role.toString(), commandReport);
+	}
+}
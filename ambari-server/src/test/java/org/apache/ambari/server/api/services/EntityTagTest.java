@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.api.services;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.ambari.server.api.resources.ResourceDefinition;
+import org.apache.ambari.server.api.resources.ResourceInstance;
+import org.apache.ambari.server.api.services.parsers.RequestBodyParser;
+import org.apache.ambari.server.api.services.serializers.ResultSerializer;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.state.StateVersions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+
+/**
+ * Tests of the entity tags and conditional read requests handled by BaseService.
+ */
+public class EntityTagTest {
+	
+	private static final String HOST_FIELDS = "Hosts/host_status,Hosts/host_state";
+	
+	private ResourceInstance resource = createNiceMock(ResourceInstance.class);
+	private ResourceDefinition resourceDefinition = createNiceMock(ResourceDefinition.class);
+	private RequestFactory requestFactory = createNiceMock(RequestFactory.class);
+	private Request request = createNiceMock(Request.class);
+	private Result result = createNiceMock(Result.class);
+	private RequestBodyParser bodyParser = createNiceMock(RequestBodyParser.class);
+	private ResultSerializer serializer = createNiceMock(ResultSerializer.class);
+	
+	@Before
+	public void setup() throws Exception {
+		BaseService.init(null, true);
+		
+		expect(resource.getResourceDefinition()).andReturn(resourceDefinition).anyTimes();
+		expect(resourceDefinition.getType()).andReturn(Resource.Type.Host).anyTimes();
+		expect(bodyParser.parse(null)).andReturn(Collections.singleton(createNiceMock(RequestBody.class))).anyTimes();
+		expect(requestFactory.createRequest((HttpHeaders) anyObject(), (RequestBody) anyObject(), (UriInfo) anyObject(), (Request.Type) anyObject(), (ResourceInstance) anyObject())).andReturn(request)
+				.anyTimes();
+		expect(result.getStatus()).andReturn(new ResultStatus(ResultStatus.STATUS.OK)).anyTimes();
+		expect(serializer.serialize(result)).andReturn("host").anyTimes();
+	}
+	
+	@After
+	public void teardown() {
+		BaseService.init(null, false);
+	}
+	
+	@Test
+	public void testNotModified() {
+		expect(request.process()).andReturn(result).once();
+		replay(resource, resourceDefinition, requestFactory, request, result, bodyParser, serializer);
+		
+		Response response = get(null, HOST_FIELDS);
+		assertEquals(200, response.getStatus());
+		EntityTag entityTag = getEntityTag(response);
+		assertNotNull(entityTag);
+		
+		// The request is not executed again while the tag matches
+		response = get("\"" + entityTag.getValue() + "\"", HOST_FIELDS);
+		assertEquals(304, response.getStatus());
+		assertEquals(entityTag, getEntityTag(response));
+		
+		response = get("W/\"other\", \"" + entityTag.getValue() + "\"", HOST_FIELDS);
+		assertEquals(304, response.getStatus());
+		
+		verify(request);
+	}
+	
+	@Test
+	public void testTagNotMatching() {
+		expect(request.process()).andReturn(result).times(3);
+		replay(resource, resourceDefinition, requestFactory, request, result, bodyParser, serializer);
+		
+		EntityTag entityTag = getEntityTag(get(null, HOST_FIELDS));
+		
+		assertEquals(200, get("\"other\"", HOST_FIELDS).getStatus());
+		
+		// A tag issued for other fields does not match
+		assertEquals(200, get("\"" + entityTag.getValue() + "\"", "Hosts/host_name").getStatus());
+		
+		verify(request);
+	}
+	
+	@Test
+	public void testVersionChange() {
+		expect(request.process()).andReturn(result).times(2);
+		replay(resource, resourceDefinition, requestFactory, request, result, bodyParser, serializer);
+		
+		EntityTag entityTag = getEntityTag(get(null, HOST_FIELDS));
+		assertEquals(StateVersions.getVersionTag(StateVersions.Category.CLUSTERS, StateVersions.Category.HOSTS, StateVersions.Category.HOST_HEARTBEATS),
+				entityTag.getValue().substring(0, entityTag.getValue().lastIndexOf('-')));
+		
+		StateVersions.increment(StateVersions.Category.HOST_HEARTBEATS);
+		
+		Response response = get("\"" + entityTag.getValue() + "\"", HOST_FIELDS);
+		assertEquals(200, response.getStatus());
+		assertFalse(entityTag.equals(getEntityTag(response)));
+		
+		verify(request);
+	}
+	
+	@Test
+	public void testUnversionedFieldsNotTagged() {
+		expect(request.process()).andReturn(result).times(3);
+		replay(resource, resourceDefinition, requestFactory, request, result, bodyParser, serializer);
+		
+		assertNull(getEntityTag(get(null, "Hosts/host_status,metrics/cpu")));
+		assertNull(getEntityTag(get(null, "*")));
+		assertNull(getEntityTag(get(null, null)));
+		
+		verify(request);
+	}
+	
+	private Response get(String ifNoneMatch, String fields) {
+		HttpHeaders headers = createNiceMock(HttpHeaders.class);
+		expect(headers.getRequestHeader(HttpHeaders.IF_NONE_MATCH)).andReturn(ifNoneMatch == null ? null : Collections.singletonList(ifNoneMatch)).anyTimes();
+		
+		MultivaluedMap<String, String> parameters = new MultivaluedMapImpl();
+		if (fields != null) {
+			parameters.add("fields", fields);
+		}
+		parameters.add("_", Long.toString(System.nanoTime()));
+		UriInfo uriInfo = createNiceMock(UriInfo.class);
+		expect(uriInfo.getQueryParameters()).andReturn(parameters).anyTimes();
+		expect(uriInfo.getPath()).andReturn("clusters/c1/hosts/h1").anyTimes();
+		
+		replay(headers, uriInfo);
+		return new TestService().get(headers, uriInfo);
+	}
+	
+	private static EntityTag getEntityTag(Response response) {
+		return (EntityTag) response.getMetadata().getFirst(HttpHeaders.ETAG);
+	}
+	
+	private class TestService extends BaseService {
+		
+		private Response get(HttpHeaders headers, UriInfo uriInfo) {
+			return handleRequest(headers, null, uriInfo, Request.Type.GET, resource);
+		}
+		
+		@Override
+		RequestFactory getRequestFactory() {
+			return requestFactory;
+		}
+		
+		@Override
+		protected RequestBodyParser getBodyParser() {
+			return bodyParser;
+		}
+		
+		@Override
+		protected ResultSerializer getResultSerializer() {
+			return serializer;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.api.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ambari.server.api.services.ReadRequestCoalescer.SerializedResponse;
+import org.junit.Test;
+
+/**
+ * ReadRequestCoalescer tests.
+ */
+public class ReadRequestCoalescerTest {
+	
+	@Test
+	public void testConcurrentRequestsShareExecution() throws Exception {
+		final ReadRequestCoalescer coalescer = new ReadRequestCoalescer(0);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger executions = new AtomicInteger();
+		
+		final Callable<SerializedResponse> execution = new Callable<SerializedResponse>() {
+			@Override
+			public SerializedResponse call() throws Exception {
+				executions.incrementAndGet();
+				started.countDown();
+				release.await(10, TimeUnit.SECONDS);
+				return new SerializedResponse(200, "response");
+			}
+		};
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<SerializedResponse> first = executor.submit(new Callable<SerializedResponse>() {
+				@Override
+				public SerializedResponse call() {
+					return coalescer.execute("user /clusters/c1", execution);
+				}
+			});
+			started.await(10, TimeUnit.SECONDS);
+			Future<SerializedResponse> second = executor.submit(new Callable<SerializedResponse>() {
+				@Override
+				public SerializedResponse call() {
+					return coalescer.execute("user /clusters/c1", execution);
+				}
+			});
+			// give the second request time to join the one in flight
+			Thread.sleep(200);
+			release.countDown();
+			
+			assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+			assertEquals(1, executions.get());
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		// nothing is kept once the execution completed
+		assertNotSame(coalescer.execute("user /clusters/c1", execution), coalescer.execute("user /clusters/c1", execution));
+		assertEquals(3, executions.get());
+	}
+	
+	@Test
+	public void testDifferentKeysExecuteSeparately() {
+		ReadRequestCoalescer coalescer = new ReadRequestCoalescer(60000);
+		AtomicInteger executions = new AtomicInteger();
+		
+		coalescer.execute("user1 /clusters/c1", new CountingExecution(executions, 200));
+		coalescer.execute("user2 /clusters/c1", new CountingExecution(executions, 200));
+		assertEquals(2, executions.get());
+	}
+	
+	@Test
+	public void testSuccessfulResponsesCached() {
+		ReadRequestCoalescer coalescer = new ReadRequestCoalescer(60000);
+		AtomicInteger executions = new AtomicInteger();
+		
+		SerializedResponse response = coalescer.execute("user /clusters/c1", new CountingExecution(executions, 200));
+		assertSame(response, coalescer.execute("user /clusters/c1", new CountingExecution(executions, 200)));
+		assertEquals(1, executions.get());
+		
+		coalescer.execute("user /clusters/c2", new CountingExecution(executions, 404));
+		coalescer.execute("user /clusters/c2", new CountingExecution(executions, 404));
+		assertEquals(3, executions.get());
+	}
+	
+	@Test
+	public void testExecutionFailurePropagated() {
+		ReadRequestCoalescer coalescer = new ReadRequestCoalescer(0);
+		try {
+			coalescer.execute("user /clusters/c1", new Callable<SerializedResponse>() {
+				@Override
+				public SerializedResponse call() {
+					throw new IllegalStateException("failed");
+				}
+			});
+			fail("Expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertEquals("failed", e.getMessage());
+		}
+	}
+	
+	private static class CountingExecution implements Callable<SerializedResponse> {
+		private final AtomicInteger executions;
+		private final int statusCode;
+		
+		CountingExecution(AtomicInteger executions, int statusCode) {
+			this.executions = executions;
+			this.statusCode = statusCode;
+		}
+		
+		@Override
+		public SerializedResponse call() {
+			executions.incrementAndGet();
+			return new SerializedResponse(statusCode, "response");
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.api.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import org.apache.ambari.server.state.StateVersions;
+import org.apache.ambari.server.utils.StageUtils;
+import org.junit.Test;
+
+/**
+ * StateVersionService tests.
+ */
+public class StateVersionServiceTest {
+	
+	@Test
+	public void testGetVersions() {
+		Map<?, ?> versions = getVersions(null);
+		assertEquals(StateVersions.getEpoch(), ((Number) versions.get("epoch")).longValue());
+		assertEquals(StateVersions.getVersion(StateVersions.Category.REQUESTS), ((Number) versions.get("requests")).longValue());
+		assertEquals(StateVersions.getVersionTag(StateVersions.Category.values()), versions.get("version"));
+		assertNull(versions.get("changed"));
+	}
+	
+	@Test
+	public void testChangedSince() {
+		String version = (String) getVersions(null).get("version");
+		assertEquals(Boolean.FALSE, getVersions(version).get("changed"));
+		
+		StateVersions.increment(StateVersions.Category.REQUESTS);
+		
+		Map<?, ?> versions = getVersions(version);
+		assertEquals(Boolean.TRUE, versions.get("changed"));
+		assertFalse(version.equals(versions.get("version")));
+	}
+	
+	@Test
+	public void testChangedSinceRestart() {
+		// A version of an earlier run of the server may have the same counter value but never the same epoch
+		String version = (String) getVersions(null).get("version");
+		String earlierVersion = Long.toHexString(StateVersions.getEpoch() - 1) + version.substring(version.indexOf('-'));
+		assertEquals(Boolean.TRUE, getVersions(earlierVersion).get("changed"));
+	}
+	
+	private static Map<?, ?> getVersions(String since) {
+		return StageUtils.getGson().fromJson(new StateVersionService().getVersions(since), Map.class);
+	}
+}
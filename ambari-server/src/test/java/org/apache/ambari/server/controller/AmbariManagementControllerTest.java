@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -67,6 +68,8 @@ import org.apache.ambari.server.customactions.ActionDefinition;
 import org.apache.ambari.server.orm.GuiceJpaInitializer;
 import org.apache.ambari.server.orm.InMemoryDefaultTestModule;
 import org.apache.ambari.server.orm.dao.ExecutionCommandDAO;
+import org.apache.ambari.server.orm.dao.HostComponentDesiredStateDAO;
+import org.apache.ambari.server.orm.dao.HostComponentStateDAO;
 import org.apache.ambari.server.orm.dao.HostDAO;
 import org.apache.ambari.server.orm.dao.RoleDAO;
 import org.apache.ambari.server.orm.entities.ExecutionCommandEntity;
@@ -846,6 +849,43 @@ public class AmbariManagementControllerTest {
 		Assert.assertNotNull(c1.getService("MAPREDUCE").getServiceComponent("TASKTRACKER"));
 	}
 	
+	@Test
+	public void testCreateServiceComponentHostsRegistrationFailure() throws AmbariException {
+		String clusterName = "foo1";
+		createCluster(clusterName);
+		clusters.getCluster(clusterName).setDesiredStackVersion(new StackId("HDP-2.0.1"));
+		createService(clusterName, "HDFS", null);
+		createServiceComponent(clusterName, "HDFS", "DATANODE", State.INIT);
+		createServiceComponent(clusterName, "HDFS", "NAMENODE", State.INIT);
+		addHost("h1", clusterName);
+		
+		// h2 is known but not mapped to the cluster, so its host component is written but can not be registered
+		clusters.addHost("h2");
+		setOsFamily(clusters.getHost("h2"), "redhat", "6.3");
+		clusters.getHost("h2").persist();
+		
+		Set<ServiceComponentHostRequest> requests = new LinkedHashSet<ServiceComponentHostRequest>();
+		requests.add(new ServiceComponentHostRequest(clusterName, "HDFS", "DATANODE", "h1", null));
+		requests.add(new ServiceComponentHostRequest(clusterName, "HDFS", "NAMENODE", "h2", null));
+		try {
+			((AmbariManagementControllerImpl) controller).persistServiceComponentHosts(requests);
+			fail("Registering a host component on a host outside of the cluster should fail");
+		} catch (AmbariException e) {
+			// Expected
+		}
+		
+		// neither the rows nor the host component registered before the failure are left behind
+		assertTrue(injector.getInstance(HostComponentStateDAO.class).findAll().isEmpty());
+		assertTrue(injector.getInstance(HostComponentDesiredStateDAO.class).findAll().isEmpty());
+		Cluster cluster = clusters.getCluster(clusterName);
+		assertTrue(cluster.getService("HDFS").getServiceComponent("DATANODE").getServiceComponentHosts().isEmpty());
+		assertTrue(cluster.getServiceComponentHosts("h1").isEmpty());
+		
+		// the host component can still be created afterwards
+		createServiceComponentHost(clusterName, "HDFS", "DATANODE", "h1", null);
+		assertEquals(1, injector.getInstance(HostComponentStateDAO.class).findAll().size());
+	}
+	
 	@Test
 	public void testCreateServiceComponentHostSimple() throws AmbariException {
 		String clusterName = "foo1";
@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.controller.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.apache.ambari.server.actionmanager.HostRoleStatus;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.utilities.PredicateBuilder;
+import org.apache.ambari.server.controller.utilities.PredicateHelper;
+import org.junit.Test;
+
+/**
+ * JpaPredicateVisitor tests.
+ */
+public class JpaPredicateVisitorTest {
+	
+	private static final String STATUS_PROPERTY_ID = "Tasks/status";
+	private static final String START_TIME_PROPERTY_ID = "Tasks/start_time";
+	private static final String HOST_NAME_PROPERTY_ID = "Tasks/host_name";
+	private static final String UNMAPPED_PROPERTY_ID = "Tasks/stdout";
+	
+	@Test
+	public void testEquals() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().property(STATUS_PROPERTY_ID).equals("FAILED").toPredicate());
+		
+		Assert.assertEquals("task.status = :p1", visitor.getCondition());
+		Assert.assertEquals(HostRoleStatus.FAILED, visitor.getParameters().get("p1"));
+		Assert.assertTrue(visitor.isComplete());
+	}
+	
+	@Test
+	public void testAndWithRange() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().property(STATUS_PROPERTY_ID).equals("FAILED").and().property(START_TIME_PROPERTY_ID).greaterThan("100").toPredicate());
+		
+		Assert.assertEquals("(task.status = :p1 AND task.startTime > :p2)", visitor.getCondition());
+		Map<String, Object> parameters = visitor.getParameters();
+		Assert.assertEquals(HostRoleStatus.FAILED, parameters.get("p1"));
+		Assert.assertEquals(100L, parameters.get("p2"));
+		Assert.assertTrue(visitor.isComplete());
+	}
+	
+	@Test
+	public void testRangeOnStringNotTranslated() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().property(HOST_NAME_PROPERTY_ID).greaterThan("host1").and().property(STATUS_PROPERTY_ID).equals("FAILED").toPredicate());
+		
+		Assert.assertEquals("task.status = :p1", visitor.getCondition());
+		Assert.assertFalse(visitor.isComplete());
+	}
+	
+	@Test
+	public void testOrAsIn() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().property(STATUS_PROPERTY_ID).equals("FAILED").or().property(STATUS_PROPERTY_ID).equals("ABORTED").toPredicate());
+		
+		Assert.assertEquals("task.status IN :p1", visitor.getCondition());
+		Assert.assertEquals(Arrays.asList(HostRoleStatus.FAILED, HostRoleStatus.ABORTED), visitor.getParameters().get("p1"));
+		Assert.assertTrue(visitor.isComplete());
+	}
+	
+	@Test
+	public void testOrWithUnmappedProperty() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().property(STATUS_PROPERTY_ID).equals("FAILED").or().property(UNMAPPED_PROPERTY_ID).equals("foo").toPredicate());
+		
+		Assert.assertNull(visitor.getCondition());
+		Assert.assertTrue(visitor.getParameters().isEmpty());
+		Assert.assertFalse(visitor.isComplete());
+	}
+	
+	@Test
+	public void testNotEquals() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().not().property(HOST_NAME_PROPERTY_ID).equals("host1").toPredicate());
+		
+		Assert.assertEquals("(task.hostName <> :p1 OR task.hostName IS NULL)", visitor.getCondition());
+		Assert.assertEquals("host1", visitor.getParameters().get("p1"));
+		Assert.assertTrue(visitor.isComplete());
+	}
+	
+	@Test
+	public void testInvalidValueNotTranslated() {
+		JpaPredicateVisitor visitor = visit(new PredicateBuilder().property(STATUS_PROPERTY_ID).equals("foo").toPredicate());
+		
+		Assert.assertNull(visitor.getCondition());
+		Assert.assertFalse(visitor.isComplete());
+	}
+	
+	private static JpaPredicateVisitor visit(Predicate predicate) {
+		JpaPredicateVisitor visitor = new JpaPredicateVisitor("task", "p").addAttribute(STATUS_PROPERTY_ID, "status", HostRoleStatus.class).addAttribute(START_TIME_PROPERTY_ID, "startTime", Long.class)
+				.addAttribute(HOST_NAME_PROPERTY_ID, "hostName", String.class);
+		PredicateHelper.visit(predicate, visitor);
+		return visitor;
+	}
+}
@@ -185,6 +185,50 @@ public class RequestResourceProviderTest {
 		verify(managementController, actionManager, hostRoleCommand);
 	}
 	
+	@Test
+	public void testGetResourcesWithTaskStatusCounts() throws Exception {
+		Resource.Type type = Resource.Type.Request;
+		
+		AmbariManagementController managementController = createMock(AmbariManagementController.class);
+		ActionManager actionManager = createNiceMock(ActionManager.class);
+		
+		// the commands of the request must not be loaded when the counts are available
+		org.apache.ambari.server.actionmanager.Request requestMock = createNiceMock(org.apache.ambari.server.actionmanager.Request.class);
+		expect(requestMock.getCommands()).andThrow(new AssertionError("commands should not be loaded")).anyTimes();
+		expect(requestMock.getRequestId()).andReturn(100L).anyTimes();
+		
+		Map<HostRoleStatus, Integer> counts = new HashMap<HostRoleStatus, Integer>();
+		counts.put(HostRoleStatus.COMPLETED, 2);
+		counts.put(HostRoleStatus.FAILED, 1);
+		counts.put(HostRoleStatus.QUEUED, 1);
+		
+		// set expectations
+		expect(managementController.getActionManager()).andReturn(actionManager);
+		expect(actionManager.getRequests(Collections.singletonList(100L))).andReturn(Collections.singletonList(requestMock));
+		expect(actionManager.getRequestTaskStatusCounts(Collections.singletonList(100L))).andReturn(Collections.singletonMap(100L, counts));
+		
+		// replay
+		replay(managementController, actionManager, requestMock);
+		
+		ResourceProvider provider = AbstractControllerResourceProvider.getResourceProvider(type, PropertyHelper.getPropertyIds(type), PropertyHelper.getKeyPropertyIds(type), managementController);
+		
+		Predicate predicate = new PredicateBuilder().property(RequestResourceProvider.REQUEST_ID_PROPERTY_ID).equals("100").toPredicate();
+		Request request = PropertyHelper.getReadRequest(Collections.<String> emptySet());
+		Set<Resource> resources = provider.getResources(request, predicate);
+		
+		Assert.assertEquals(1, resources.size());
+		Resource resource = resources.iterator().next();
+		Assert.assertEquals("FAILED", resource.getPropertyValue(RequestResourceProvider.REQUEST_STATUS_PROPERTY_ID));
+		Assert.assertEquals(4, resource.getPropertyValue(RequestResourceProvider.REQUEST_TASK_CNT_ID));
+		Assert.assertEquals(3, resource.getPropertyValue(RequestResourceProvider.REQUEST_COMPLETED_TASK_CNT_ID));
+		Assert.assertEquals(1, resource.getPropertyValue(RequestResourceProvider.REQUEST_FAILED_TASK_CNT_ID));
+		Assert.assertEquals(1, resource.getPropertyValue(RequestResourceProvider.REQUEST_QUEUED_TASK_CNT_ID));
+		Assert.assertEquals((1 * 0.09 + 3) / 4 * 100.0, (Double) resource.getPropertyValue(RequestResourceProvider.REQUEST_PROGRESS_PERCENT_ID), 0.001);
+		
+		// verify
+		verify(managementController, actionManager);
+	}
+	
 	@Test
 	public void testGetResourcesWithRequestSchedule() throws Exception {
 		Resource.Type type = Resource.Type.Request;
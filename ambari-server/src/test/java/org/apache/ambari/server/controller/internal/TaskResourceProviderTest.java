@@ -6,6 +6,10 @@
 
 package org.apache.ambari.server.controller.internal;
 
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.actionmanager.ActionManager;
+import org.apache.ambari.server.actionmanager.HostRoleCommand;
 import org.apache.ambari.server.controller.AmbariManagementController;
 import org.apache.ambari.server.controller.RequestStatusResponse;
 import org.apache.ambari.server.controller.TaskStatusResponse;
@@ -15,18 +19,28 @@ import org.apache.ambari.server.controller.spi.Resource;
 import org.apache.ambari.server.controller.spi.ResourceProvider;
 import org.apache.ambari.server.controller.utilities.PredicateBuilder;
 import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.apache.ambari.server.orm.dao.HostRoleCommandDAO;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 
@@ -110,6 +124,68 @@ public class TaskResourceProviderTest {
 		verify(managementController);
 	}
 	
+	@Test
+	public void testGetResources_pushDownPerCluster() throws Exception {
+		Resource.Type type = Resource.Type.Task;
+		
+		AmbariManagementController managementController = createNiceMock(AmbariManagementController.class);
+		ActionManager actionManager = createNiceMock(ActionManager.class);
+		HostRoleCommandDAO hostRoleCommandDAO = createMock(HostRoleCommandDAO.class);
+		
+		// each cluster's query is limited to the requests of that cluster
+		expect(hostRoleCommandDAO.findTaskIdsByCondition(anyObject(String.class), EasyMock.<Map<String, Object>> anyObject(), eq(true), EasyMock.<Integer> isNull())).andAnswer(new IAnswer<List<Long>>() {
+			@Override
+			public List<Long> answer() throws Throwable {
+				Assert.assertTrue(((String) getCurrentArguments()[0]).endsWith("AND task.requestId IN :requestIds"));
+				Set<?> requestIds = (Set<?>) ((Map<?, ?>) getCurrentArguments()[1]).get("requestIds");
+				Assert.assertEquals(1, requestIds.size());
+				return Collections.singletonList(requestIds.contains(100L) ? 1L : 2L);
+			}
+		}).times(2);
+		expect(managementController.getActionManager()).andReturn(actionManager).anyTimes();
+		expect(actionManager.getTasks(EasyMock.<Collection<Long>> anyObject())).andAnswer(new IAnswer<Collection<HostRoleCommand>>() {
+			@Override
+			public Collection<HostRoleCommand> answer() throws Throwable {
+				List<HostRoleCommand> commands = new ArrayList<HostRoleCommand>();
+				for (Object taskId : (Collection<?>) getCurrentArguments()[0]) {
+					HostRoleCommand command = new HostRoleCommand("host1", Role.DATANODE, null, RoleCommand.START);
+					command.setTaskId((Long) taskId);
+					commands.add(command);
+				}
+				return commands;
+			}
+		}).anyTimes();
+		
+		// replay
+		replay(managementController, actionManager, hostRoleCommandDAO);
+		
+		TaskResourceProvider.init(hostRoleCommandDAO);
+		try {
+			ResourceProvider provider = AbstractControllerResourceProvider.getResourceProvider(type, PropertyHelper.getPropertyIds(type), PropertyHelper.getKeyPropertyIds(type), managementController);
+			
+			Set<String> propertyIds = new HashSet<String>();
+			propertyIds.add(TaskResourceProvider.TASK_ID_PROPERTY_ID);
+			propertyIds.add(TaskResourceProvider.TASK_CLUSTER_NAME_PROPERTY_ID);
+			
+			Predicate predicate = new PredicateBuilder().begin().property(TaskResourceProvider.TASK_CLUSTER_NAME_PROPERTY_ID).equals("c1").and().property(TaskResourceProvider.TASK_REQUEST_ID_PROPERTY_ID)
+					.equals("100").and().property(TaskResourceProvider.TASK_STATUS_PROPERTY_ID).equals("PENDING").end().or().begin().property(TaskResourceProvider.TASK_CLUSTER_NAME_PROPERTY_ID)
+					.equals("c2").and().property(TaskResourceProvider.TASK_REQUEST_ID_PROPERTY_ID).equals("200").and().property(TaskResourceProvider.TASK_STATUS_PROPERTY_ID).equals("PENDING").end()
+					.toPredicate();
+			Set<Resource> resources = provider.getResources(PropertyHelper.getReadRequest(propertyIds), predicate);
+			
+			Assert.assertEquals(2, resources.size());
+			for (Resource resource : resources) {
+				long taskId = (Long) resource.getPropertyValue(TaskResourceProvider.TASK_ID_PROPERTY_ID);
+				Assert.assertEquals(taskId == 1L ? "c1" : "c2", resource.getPropertyValue(TaskResourceProvider.TASK_CLUSTER_NAME_PROPERTY_ID));
+			}
+		} finally {
+			TaskResourceProvider.init(null);
+		}
+		
+		// verify
+		verify(hostRoleCommandDAO);
+	}
+	
 	@Test
 	public void testUpdateResources() throws Exception {
 		Resource.Type type = Resource.Type.Task;
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.controller.predicate;
+
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.apache.ambari.server.controller.internal.ResourceImpl;
+import org.apache.ambari.server.controller.spi.Predicate;
+import org.apache.ambari.server.controller.spi.Resource;
+import org.apache.ambari.server.controller.utilities.PredicateBuilder;
+import org.apache.ambari.server.controller.utilities.PropertyHelper;
+import org.junit.Test;
+
+/**
+ * CompiledPredicate tests.
+ */
+public class CompiledPredicateTest {
+	
+	private static final String PROPERTY_ID1 = PropertyHelper.getPropertyId("category1", "foo");
+	private static final String PROPERTY_ID2 = PropertyHelper.getPropertyId("category1/sub", "bar");
+	private static final String PROPERTY_ID3 = PropertyHelper.getPropertyId(null, "baz");
+	
+	@Test
+	public void testEvaluateComparison() {
+		Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+		
+		assertSameResult(new EqualsPredicate<Integer>(PROPERTY_ID1, 10), resource);
+		
+		resource.setProperty(PROPERTY_ID1, 10);
+		assertSameResult(new EqualsPredicate<Integer>(PROPERTY_ID1, 10), resource);
+		assertSameResult(new GreaterPredicate<Integer>(PROPERTY_ID1, 5), resource);
+		assertSameResult(new GreaterEqualsPredicate<Integer>(PROPERTY_ID1, 10), resource);
+		assertSameResult(new LessPredicate<Integer>(PROPERTY_ID1, 5), resource);
+		assertSameResult(new LessEqualsPredicate<Integer>(PROPERTY_ID1, 10), resource);
+		
+		resource.setProperty(PROPERTY_ID1, "10.5");
+		assertSameResult(new EqualsPredicate<String>(PROPERTY_ID1, "10.5"), resource);
+		assertSameResult(new GreaterPredicate<String>(PROPERTY_ID1, "10.2"), resource);
+		assertSameResult(new LessPredicate<Integer>(PROPERTY_ID1, 11), resource);
+		
+		resource.setProperty(PROPERTY_ID2, "value1");
+		assertSameResult(new EqualsPredicate<String>(PROPERTY_ID2, "value1"), resource);
+		assertSameResult(new EqualsPredicate<String>(PROPERTY_ID2, "value2"), resource);
+		assertSameResult(new LessPredicate<String>(PROPERTY_ID2, "value2"), resource);
+		
+		resource.setProperty(PROPERTY_ID3, "top");
+		assertSameResult(new EqualsPredicate<String>(PROPERTY_ID3, "top"), resource);
+	}
+	
+	@Test
+	public void testEvaluateNumericFractions() {
+		Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+		resource.setProperty(PROPERTY_ID1, 1.5);
+		
+		Predicate predicate = CompiledPredicate.compile(new GreaterPredicate<Double>(PROPERTY_ID1, 1.2));
+		Assert.assertTrue(predicate.evaluate(resource));
+		
+		predicate = CompiledPredicate.compile(new EqualsPredicate<Double>(PROPERTY_ID1, 1.2));
+		Assert.assertFalse(predicate.evaluate(resource));
+	}
+	
+	@Test
+	public void testEvaluateNullValue() {
+		Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+		Predicate predicate = CompiledPredicate.compile(new EqualsPredicate<String>(PROPERTY_ID1, null));
+		
+		Assert.assertTrue(predicate.evaluate(resource));
+		
+		resource.setProperty(PROPERTY_ID1, "value1");
+		Assert.assertFalse(predicate.evaluate(resource));
+	}
+	
+	@Test
+	public void testEvaluateArrayAndUnary() {
+		Predicate source = new PredicateBuilder().property(PROPERTY_ID1).equals("value1").and().not().property(PROPERTY_ID2).greaterThan(10).or().property(PROPERTY_ID3)
+				.equals("value3").toPredicate();
+		
+		Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+		assertSameResult(source, resource);
+		
+		resource.setProperty(PROPERTY_ID1, "value1");
+		resource.setProperty(PROPERTY_ID2, 5);
+		assertSameResult(source, resource);
+		
+		resource.setProperty(PROPERTY_ID2, 50);
+		assertSameResult(source, resource);
+		
+		resource.setProperty(PROPERTY_ID1, "value2");
+		resource.setProperty(PROPERTY_ID3, "value3");
+		assertSameResult(source, resource);
+	}
+	
+	@Test
+	public void testEvaluateCategoryAndAlways() {
+		Resource resource = new ResourceImpl(Resource.Type.HostComponent);
+		resource.addCategory("category1");
+		
+		assertSameResult(new CategoryIsEmptyPredicate("category1"), resource);
+		assertSameResult(new AndPredicate(AlwaysPredicate.INSTANCE, new CategoryIsEmptyPredicate("category1")), resource);
+		
+		resource.setProperty(PROPERTY_ID1, "value1");
+		assertSameResult(new CategoryIsEmptyPredicate("category1"), resource);
+	}
+	
+	@Test
+	public void testEqualsAndVisit() {
+		Predicate source = new AndPredicate(new EqualsPredicate<String>(PROPERTY_ID1, "value1"), new EqualsPredicate<String>(PROPERTY_ID2, "value2"));
+		Predicate compiled = CompiledPredicate.compile(source);
+		
+		Predicate other = new AndPredicate(new EqualsPredicate<String>(PROPERTY_ID1, "value1"), new EqualsPredicate<String>(PROPERTY_ID2, "value2"));
+		Assert.assertEquals(compiled, CompiledPredicate.compile(other));
+		Assert.assertEquals(compiled.hashCode(), CompiledPredicate.compile(other).hashCode());
+		// a compiled predicate is only equal to another compiled predicate, keeping equals symmetric
+		Assert.assertFalse(compiled.equals(source));
+		Assert.assertFalse(source.equals(compiled));
+		Assert.assertEquals(source.toString(), compiled.toString());
+		Assert.assertSame(compiled, CompiledPredicate.compile(compiled));
+		Assert.assertNull(CompiledPredicate.compile(null));
+		
+		Set<String> propertyIds = ((BasePredicate) compiled).getPropertyIds();
+		Assert.assertEquals(2, propertyIds.size());
+		Assert.assertTrue(propertyIds.contains(PROPERTY_ID1));
+		Assert.assertTrue(propertyIds.contains(PROPERTY_ID2));
+		
+		TestPredicateVisitor visitor = new TestPredicateVisitor();
+		((BasePredicate) compiled).accept(visitor);
+		Assert.assertSame(source, visitor.visited);
+	}
+	
+	private static void assertSameResult(Predicate source, Resource resource) {
+		Assert.assertEquals(source.evaluate(resource), CompiledPredicate.compile(source).evaluate(resource));
+	}
+	
+	private static class TestPredicateVisitor implements PredicateVisitor {
+		private Predicate visited;
+		
+		@Override
+		public void acceptComparisonPredicate(ComparisonPredicate predicate) {
+			visited = predicate;
+		}
+		
+		@Override
+		public void acceptArrayPredicate(ArrayPredicate predicate) {
+			visited = predicate;
+		}
+		
+		@Override
+		public void acceptUnaryPredicate(UnaryPredicate predicate) {
+			visited = predicate;
+		}
+		
+		@Override
+		public void acceptAlwaysPredicate(AlwaysPredicate predicate) {
+			visited = predicate;
+		}
+		
+		@Override
+		public void acceptCategoryPredicate(CategoryPredicate predicate) {
+			visited = predicate;
+		}
+	}
+}
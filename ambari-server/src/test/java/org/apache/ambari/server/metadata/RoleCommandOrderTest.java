@@ -8,6 +8,7 @@ package org.apache.ambari.server.metadata;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
@@ -227,6 +228,63 @@ public class RoleCommandOrderTest {
 		verify(hdfsService);
 	}
 	
+	@Test
+	public void testInitializeReusesCompiledDependencies() throws AmbariException {
+		RoleCommandOrder rco1 = injector.getInstance(RoleCommandOrder.class);
+		rco1.initialize(createHDFSCluster());
+		RoleCommandOrder rco2 = injector.getInstance(RoleCommandOrder.class);
+		rco2.initialize(createHDFSCluster());
+		
+		assertEquals(0, rco1.compareDeps(rco2));
+		assertSame(rco1.getDependencyMatrix(), rco2.getDependencyMatrix());
+		
+		// The matrix holds exactly the dependencies of the map
+		RoleCommandOrder.DependencyMatrix matrix = rco2.getDependencyMatrix();
+		int dependencyCount = 0;
+		for (Map.Entry<RoleCommandPair, Set<RoleCommandPair>> entry : rco2.getDependencies().entrySet()) {
+			int blocked = matrix.indexOf(entry.getKey().getRole(), entry.getKey().getCmd());
+			for (RoleCommandPair blocker : entry.getValue()) {
+				assertTrue(matrix.isBlockedBy(blocked, matrix.indexOf(blocker.getRole(), blocker.getCmd())));
+			}
+			dependencyCount += entry.getValue().size();
+		}
+		int bitCount = 0;
+		for (int i = 0; i < matrix.size(); i++) {
+			bitCount += matrix.getBlockers(i).cardinality();
+		}
+		assertEquals(dependencyCount, bitCount);
+	}
+	
+	@Test
+	public void testReusedDependenciesCanBeExtended() throws Exception {
+		RoleCommandOrder rco1 = injector.getInstance(RoleCommandOrder.class);
+		rco1.initialize(createHDFSCluster());
+		RoleCommandOrder rco2 = injector.getInstance(RoleCommandOrder.class);
+		rco2.initialize(createHDFSCluster());
+		
+		InputStream testJsonIS = getClass().getClassLoader().getResourceAsStream(TEST_RCO_DATA_FILE);
+		Map<String, Object> testData = new ObjectMapper().readValue(testJsonIS, new TypeReference<Map<String, Object>>() {
+		});
+		rco2.addDependencies(testData);
+		
+		// The dependencies compiled for the first instance and reused by later ones are not changed
+		assertEquals(1, rco1.compareDeps(rco2));
+		RoleCommandOrder rco3 = injector.getInstance(RoleCommandOrder.class);
+		rco3.initialize(createHDFSCluster());
+		assertEquals(0, rco1.compareDeps(rco3));
+	}
+	
+	private ClusterImpl createHDFSCluster() throws AmbariException {
+		ClusterImpl cluster = createMock(ClusterImpl.class);
+		Service hdfsService = createMock(Service.class);
+		expect(cluster.getService("GLUSTERFS")).andReturn(null);
+		expect(cluster.getService("HDFS")).andReturn(hdfsService).atLeastOnce();
+		expect(hdfsService.getServiceComponent("JOURNALNODE")).andReturn(null);
+		expect(cluster.getCurrentStackVersion()).andReturn(new StackId("HDP", "2.0.6"));
+		replay(cluster, hdfsService);
+		return cluster;
+	}
+	
 	private boolean dependenciesContainBlockedRole(Map<RoleCommandPair, Set<RoleCommandPair>> deps, Role blocked) {
 		for (RoleCommandPair blockedPair : deps.keySet()) {
 			if (blockedPair.getRole() == blocked) { return true; }
@@ -14,9 +14,13 @@ import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertSame;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import javax.persistence.EntityManager;
 
 import org.apache.ambari.server.orm.entities.ViewInstanceDataEntity;
+import org.apache.ambari.server.orm.entities.ViewInstanceDataEntityPK;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -68,4 +72,33 @@ public class ViewInstanceDAOTest {
 		
 		verify(entityManagerProvider, entityManager);
 	}
+	
+	@Test
+	public void testUpdateData() throws Exception {
+		ViewInstanceDataEntity entity = new ViewInstanceDataEntity();
+		ViewInstanceDataEntity entity2 = new ViewInstanceDataEntity();
+		ViewInstanceDataEntityPK pk = getPK("removed");
+		ViewInstanceDataEntityPK pk2 = getPK("missing");
+		
+		// set expectations
+		expect(entityManager.merge(eq(entity))).andReturn(entity);
+		expect(entityManager.find(ViewInstanceDataEntity.class, pk)).andReturn(entity2);
+		entityManager.remove(eq(entity2));
+		expect(entityManager.find(ViewInstanceDataEntity.class, pk2)).andReturn(null);
+		replay(entityManager);
+		
+		ViewInstanceDAO dao = new ViewInstanceDAO();
+		dao.entityManagerProvider = entityManagerProvider;
+		dao.updateData(Collections.singletonList(entity), Arrays.asList(pk, pk2));
+		
+		verify(entityManagerProvider, entityManager);
+	}
+	
+	private static ViewInstanceDataEntityPK getPK(String name) {
+		ViewInstanceDataEntityPK pk = new ViewInstanceDataEntityPK();
+		pk.setViewName("MY_VIEW{1.0.0}");
+		pk.setViewInstanceName("INSTANCE1");
+		pk.setName(name);
+		return pk;
+	}
 }
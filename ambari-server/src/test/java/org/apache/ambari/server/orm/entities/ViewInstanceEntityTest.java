@@ -80,6 +80,29 @@ public class ViewInstanceEntityTest {
 		Assert.assertEquals(service2, viewInstanceDefinition.getService("subresources"));
 	}
 	
+	@Test
+	public void testServiceInitializer() throws Exception {
+		final ViewInstanceEntity viewInstanceDefinition = getViewInstanceEntity();
+		
+		final Object service = new Object();
+		final int[] runs = new int[1];
+		
+		viewInstanceDefinition.setServiceInitializer(new Runnable() {
+			@Override
+			public void run() {
+				runs[0]++;
+				viewInstanceDefinition.addService("resources", service);
+				// a lookup made while initializing does not run the initializer again
+				Assert.assertNull(viewInstanceDefinition.getService("subresources"));
+			}
+		});
+		
+		Assert.assertEquals(0, runs[0]);
+		Assert.assertEquals(service, viewInstanceDefinition.getService("resources"));
+		Assert.assertEquals(service, viewInstanceDefinition.getService("resources"));
+		Assert.assertEquals(1, runs[0]);
+	}
+	
 	@Test
 	public void testAddGetResourceProvider() throws Exception {
 		ViewInstanceEntity viewInstanceDefinition = getViewInstanceEntity();
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.stageplanner;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.apache.ambari.server.Role;
+import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.actionmanager.Stage;
+import org.apache.ambari.server.metadata.RoleCommandOrder;
+import org.apache.ambari.server.orm.GuiceJpaInitializer;
+import org.apache.ambari.server.orm.InMemoryDefaultTestModule;
+import org.apache.ambari.server.state.StackId;
+import org.apache.ambari.server.state.cluster.ClusterImpl;
+import org.apache.ambari.server.state.svccomphost.ServiceComponentHostInstallEvent;
+import org.apache.ambari.server.state.svccomphost.ServiceComponentHostStartEvent;
+import org.apache.ambari.server.utils.StageUtils;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+
+/**
+ * Measures the planning of the stages of a request that starts a full HDP 2.0.6 service set, including the initialization of the role command order. This is not a unit test and is not run by
+ * the build; run it with the test classpath:
+ *
+ * <pre>
+ * java -cp ... org.apache.ambari.server.stageplanner.StagePlannerBenchmark [hosts] [iterations]
+ * </pre>
+ */
+public class StagePlannerBenchmark {
+	
+	public static void main(String[] args) throws Exception {
+		int hostCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		
+		Injector injector = Guice.createInjector(new InMemoryDefaultTestModule());
+		injector.getInstance(GuiceJpaInitializer.class);
+		try {
+			ClusterImpl cluster = mock(ClusterImpl.class);
+			when(cluster.getCurrentStackVersion()).thenReturn(new StackId("HDP-2.0.6"));
+			Stage stage = createStartRequestStage(hostCount);
+			
+			// the first plan loads the role command order and is not measured
+			int stageCount = plan(injector, cluster, stage).size();
+			
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				plan(injector, cluster, stage);
+			}
+			System.out.println("Planned " + stageCount + " stages for " + hostCount + " hosts in " + (System.nanoTime() - start) / iterations / 1000 + " us per request");
+		} finally {
+			injector.getInstance(PersistService.class).stop();
+		}
+	}
+	
+	private static List<Stage> plan(Injector injector, ClusterImpl cluster, Stage stage) {
+		RoleCommandOrder rco = injector.getInstance(RoleCommandOrder.class);
+		rco.initialize(cluster);
+		RoleGraph rg = new RoleGraph(rco);
+		rg.build(stage);
+		return rg.getStages();
+	}
+	
+	/**
+	 * Create a stage that starts the masters and slaves and installs the clients of a full service set.
+	 */
+	private static Stage createStartRequestStage(int hostCount) {
+		Role[] masters = { Role.SECONDARY_NAMENODE, Role.RESOURCEMANAGER, Role.HISTORYSERVER, Role.ZOOKEEPER_SERVER, Role.HBASE_MASTER, Role.HIVE_METASTORE, Role.HIVE_SERVER, Role.MYSQL_SERVER,
+				Role.WEBHCAT_SERVER, Role.OOZIE_SERVER, Role.GANGLIA_SERVER, Role.NAGIOS_SERVER };
+		Role[] slaves = { Role.DATANODE, Role.NODEMANAGER, Role.HBASE_REGIONSERVER, Role.GANGLIA_MONITOR };
+		Role[] clients = { Role.HDFS_CLIENT, Role.YARN_CLIENT, Role.ZOOKEEPER_CLIENT, Role.HBASE_CLIENT, Role.HIVE_CLIENT, Role.OOZIE_CLIENT, Role.PIG, Role.SQOOP };
+		
+		long now = System.currentTimeMillis();
+		Stage stage = StageUtils.getATestStage(1, 1, "host0");
+		for (int i = 0; i < masters.length; i++) {
+			String host = "host" + i;
+			stage.addHostRoleExecutionCommand(host, masters[i], RoleCommand.START, new ServiceComponentHostStartEvent(masters[i].toString(), host, now), "cluster1", "SERVICE");
+		}
+		for (int i = 0; i < hostCount; i++) {
+			String host = "slave" + i;
+			for (Role slave : slaves) {
+				stage.addHostRoleExecutionCommand(host, slave, RoleCommand.START, new ServiceComponentHostStartEvent(slave.toString(), host, now), "cluster1", "SERVICE");
+			}
+			for (Role client : clients) {
+				stage.addHostRoleExecutionCommand(host, client, RoleCommand.INSTALL, new ServiceComponentHostInstallEvent(client.toString(), host, now, "HDP-2.0.6"), "cluster1", "SERVICE");
+			}
+		}
+		return stage;
+	}
+}
@@ -6,20 +6,25 @@
 package org.apache.ambari.server.stageplanner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ambari.server.AmbariException;
 import org.apache.ambari.server.Role;
 import org.apache.ambari.server.RoleCommand;
+import org.apache.ambari.server.actionmanager.HostRoleCommand;
 import org.apache.ambari.server.actionmanager.Stage;
 import org.apache.ambari.server.metadata.RoleCommandOrder;
 import org.apache.ambari.server.orm.GuiceJpaInitializer;
 import org.apache.ambari.server.orm.InMemoryDefaultTestModule;
 import org.apache.ambari.server.state.StackId;
 import org.apache.ambari.server.state.cluster.ClusterImpl;
+import org.apache.ambari.server.state.svccomphost.ServiceComponentHostInstallEvent;
 import org.apache.ambari.server.state.svccomphost.ServiceComponentHostStartEvent;
 import org.apache.ambari.server.utils.StageUtils;
 import org.junit.After;
@@ -117,4 +122,76 @@ public class TestStagePlanner {
 		}
 		assertEquals(5, outStages.size());
 	}
+	
+	@Test
+	public void testFullStackPlan() {
+		RoleCommandOrder rco = injector.getInstance(RoleCommandOrder.class);
+		ClusterImpl cluster = mock(ClusterImpl.class);
+		when(cluster.getCurrentStackVersion()).thenReturn(new StackId("HDP-2.0.6"));
+		rco.initialize(cluster);
+		
+		Role[] masters = { Role.SECONDARY_NAMENODE, Role.RESOURCEMANAGER, Role.HISTORYSERVER, Role.ZOOKEEPER_SERVER, Role.HBASE_MASTER, Role.HIVE_METASTORE, Role.HIVE_SERVER, Role.MYSQL_SERVER,
+				Role.WEBHCAT_SERVER, Role.OOZIE_SERVER, Role.GANGLIA_SERVER, Role.NAGIOS_SERVER };
+		Role[] slaves = { Role.DATANODE, Role.NODEMANAGER, Role.HBASE_REGIONSERVER, Role.GANGLIA_MONITOR };
+		Role[] clients = { Role.HDFS_CLIENT, Role.YARN_CLIENT, Role.ZOOKEEPER_CLIENT, Role.HBASE_CLIENT, Role.HIVE_CLIENT, Role.OOZIE_CLIENT, Role.PIG, Role.SQOOP };
+		
+		long now = System.currentTimeMillis();
+		Stage stage = StageUtils.getATestStage(1, 1, "host0");
+		for (int i = 0; i < masters.length; i++) {
+			String host = "host" + i;
+			stage.addHostRoleExecutionCommand(host, masters[i], RoleCommand.START, new ServiceComponentHostStartEvent(masters[i].toString(), host, now), "cluster1", "SERVICE");
+		}
+		for (int i = 0; i < 50; i++) {
+			String host = "slave" + i;
+			for (Role slave : slaves) {
+				stage.addHostRoleExecutionCommand(host, slave, RoleCommand.START, new ServiceComponentHostStartEvent(slave.toString(), host, now), "cluster1", "SERVICE");
+			}
+			for (Role client : clients) {
+				stage.addHostRoleExecutionCommand(host, client, RoleCommand.INSTALL, new ServiceComponentHostInstallEvent(client.toString(), host, now, "HDP-2.0.6"), "cluster1", "SERVICE");
+			}
+		}
+		
+		RoleGraph rg = new RoleGraph(rco);
+		rg.build(stage);
+		List<Stage> outStages = rg.getStages();
+		
+		// Every role must come after all of the roles it is ordered after and in parallel with the roles of its own stage
+		List<List<RoleGraphNode>> stageNodes = new ArrayList<List<RoleGraphNode>>();
+		int commandCount = 0;
+		for (Stage outStage : outStages) {
+			List<RoleGraphNode> nodes = new ArrayList<RoleGraphNode>();
+			for (Map<String, HostRoleCommand> hostCommands : outStage.getHostRoleCommands().values()) {
+				for (HostRoleCommand command : hostCommands.values()) {
+					nodes.add(new RoleGraphNode(command.getRole(), command.getRoleCommand()));
+					commandCount++;
+				}
+			}
+			stageNodes.add(nodes);
+		}
+		assertEquals(1 + masters.length + 50 * (slaves.length + clients.length), commandCount);
+		
+		// The installs have no dependencies on the other commands, so they all run first and together
+		for (RoleGraphNode rgn : stageNodes.get(0)) {
+			assertEquals(RoleCommand.INSTALL, rgn.getCommand());
+		}
+		assertEquals(1 + 50 * clients.length, stageNodes.get(0).size());
+		for (int i = 1; i < stageNodes.size(); i++) {
+			assertFalse(stageNodes.get(i).isEmpty());
+			for (RoleGraphNode rgn : stageNodes.get(i)) {
+				assertFalse(RoleCommand.INSTALL.equals(rgn.getCommand()));
+			}
+		}
+		for (int i = 0; i < stageNodes.size(); i++) {
+			for (RoleGraphNode rgnI : stageNodes.get(i)) {
+				for (RoleGraphNode rgnJ : stageNodes.get(i)) {
+					assertEquals(rgnI + " and " + rgnJ, 0, rco.order(rgnI, rgnJ));
+				}
+				for (int j = i + 1; j < stageNodes.size(); j++) {
+					for (RoleGraphNode rgnJ : stageNodes.get(j)) {
+						assertFalse(rgnI + " after " + rgnJ, rco.order(rgnI, rgnJ) == 1);
+					}
+				}
+			}
+		}
+	}
 }
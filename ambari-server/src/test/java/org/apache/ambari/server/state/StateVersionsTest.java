@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package org.apache.ambari.server.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.ambari.server.state.StateVersions.Category;
+import org.junit.Test;
+
+/**
+ * StateVersions tests.
+ */
+public class StateVersionsTest {
+	
+	@Test
+	public void testIncrement() {
+		long clusters = StateVersions.getVersion(Category.CLUSTERS);
+		long hosts = StateVersions.getVersion(Category.HOSTS);
+		long requests = StateVersions.getVersion(Category.REQUESTS);
+		long combined = StateVersions.getVersion(Category.CLUSTERS, Category.HOSTS);
+		
+		StateVersions.increment(Category.CLUSTERS);
+		
+		assertEquals(clusters + 1, StateVersions.getVersion(Category.CLUSTERS));
+		assertEquals(hosts, StateVersions.getVersion(Category.HOSTS));
+		assertEquals(requests, StateVersions.getVersion(Category.REQUESTS));
+		assertEquals(combined + 1, StateVersions.getVersion(Category.CLUSTERS, Category.HOSTS));
+		
+		StateVersions.increment(Category.HOSTS);
+		
+		assertEquals(combined + 2, StateVersions.getVersion(Category.CLUSTERS, Category.HOSTS));
+		assertEquals(requests, StateVersions.getVersion(Category.REQUESTS));
+	}
+	
+	@Test
+	public void testVersionTag() {
+		String tag = StateVersions.getVersionTag(Category.CLUSTERS, Category.HOSTS);
+		assertEquals(Long.toHexString(StateVersions.getEpoch()) + "-" + StateVersions.getVersion(Category.CLUSTERS, Category.HOSTS), tag);
+		
+		StateVersions.increment(Category.REQUESTS);
+		assertEquals(tag, StateVersions.getVersionTag(Category.CLUSTERS, Category.HOSTS));
+		
+		StateVersions.increment(Category.HOSTS);
+		assertFalse(tag.equals(StateVersions.getVersionTag(Category.CLUSTERS, Category.HOSTS)));
+	}
+}
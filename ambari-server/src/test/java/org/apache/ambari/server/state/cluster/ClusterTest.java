@@ -295,6 +295,102 @@ public class ClusterTest {
 		Assert.assertEquals(2, scHosts.size());
 	}
 	
+	@Test
+	public void testTopologySnapshot() throws AmbariException {
+		long version = c1.getTopologyVersion();
+		
+		Service s = serviceFactory.createNew(c1, "HDFS");
+		c1.addService(s);
+		s.persist();
+		Assert.assertTrue(c1.getTopologyVersion() > version);
+		
+		ServiceComponent sc = serviceComponentFactory.createNew(s, "NAMENODE");
+		s.addServiceComponent(sc);
+		sc.persist();
+		ServiceComponentHost sch = serviceComponentHostFactory.createNew(sc, "h1");
+		
+		version = c1.getTopologyVersion();
+		List<ServiceComponentHost> before = c1.getServiceComponentHosts("h1");
+		sc.addServiceComponentHost(sch);
+		sch.persist();
+		
+		Assert.assertTrue(c1.getTopologyVersion() > version);
+		Assert.assertTrue(before.isEmpty());
+		Assert.assertEquals(1, c1.getServiceComponentHosts("h1").size());
+		Assert.assertSame(sch, c1.getServiceComponentHosts("h1").get(0));
+		
+		// callers get their own copy of the host components
+		c1.getServiceComponentHosts("h1").clear();
+		Assert.assertEquals(1, c1.getServiceComponentHosts("h1").size());
+		
+		// the snapshot is only rebuilt after a change
+		ClusterTopology topology = ((ClusterImpl) c1).getTopology();
+		Assert.assertEquals(c1.getTopologyVersion(), topology.getVersion());
+		Assert.assertSame(topology, ((ClusterImpl) c1).getTopology());
+		c1.invalidateTopology();
+		Assert.assertNotSame(topology, ((ClusterImpl) c1).getTopology());
+		Assert.assertEquals(c1.getTopologyVersion(), ((ClusterImpl) c1).getTopology().getVersion());
+	}
+	
+	@Test
+	public void testAddServiceComponentHosts() throws AmbariException {
+		clusters.addHost("h2");
+		Host host = clusters.getHost("h2");
+		Map<String, String> hostAttributes = new HashMap<String, String>();
+		hostAttributes.put("os_family", "redhat");
+		hostAttributes.put("os_release_version", "5.9");
+		host.setHostAttributes(hostAttributes);
+		host.persist();
+		clusters.mapHostToCluster("h2", "c1");
+		
+		Service s = serviceFactory.createNew(c1, "HDFS");
+		c1.addService(s);
+		s.persist();
+		ServiceComponent nameNode = serviceComponentFactory.createNew(s, "NAMENODE");
+		s.addServiceComponent(nameNode);
+		nameNode.persist();
+		ServiceComponent dataNode = serviceComponentFactory.createNew(s, "DATANODE");
+		s.addServiceComponent(dataNode);
+		dataNode.persist();
+		
+		ServiceComponentHost nn1 = serviceComponentHostFactory.createNew(nameNode, "h1");
+		ServiceComponentHost dn1 = serviceComponentHostFactory.createNew(dataNode, "h1");
+		ServiceComponentHost dn2 = serviceComponentHostFactory.createNew(dataNode, "h2");
+		
+		// a batch is validated as a whole before anything is added
+		try {
+			c1.addServiceComponentHosts(Arrays.asList(dn1, dn2, serviceComponentHostFactory.createNew(dataNode, "h2")));
+			fail("Expected error for duplicate host component in batch");
+		} catch (AmbariException e) {
+			// expected
+		}
+		Assert.assertTrue(c1.getServiceComponentHosts("h1").isEmpty());
+		Assert.assertTrue(c1.getServiceComponentHosts("h2").isEmpty());
+		
+		long version = c1.getTopologyVersion();
+		Map<String, ServiceComponentHost> dataNodes = new HashMap<String, ServiceComponentHost>();
+		dataNodes.put("h1", dn1);
+		dataNodes.put("h2", dn2);
+		dataNode.addServiceComponentHosts(dataNodes);
+		nameNode.addServiceComponentHosts(Collections.singletonMap("h1", nn1));
+		Assert.assertTrue(c1.getTopologyVersion() > version);
+		
+		Assert.assertSame(dn1, c1.getServiceComponentHost("HDFS", "DATANODE", "h1"));
+		Assert.assertSame(dn2, c1.getServiceComponentHost("HDFS", "DATANODE", "h2"));
+		Assert.assertSame(nn1, c1.getServiceComponentHost("HDFS", "NAMENODE", "h1"));
+		Assert.assertEquals(2, c1.getServiceComponentHosts("h1").size());
+		Assert.assertTrue(c1.getServiceComponentHosts("h1").containsAll(Arrays.asList(nn1, dn1)));
+		Assert.assertEquals(Collections.singletonList(dn2), c1.getServiceComponentHosts("h2"));
+		Assert.assertEquals(2, dataNode.getServiceComponentHosts().size());
+		
+		try {
+			c1.addServiceComponentHosts(Collections.singletonList(serviceComponentHostFactory.createNew(dataNode, "h1")));
+			fail("Expected error for existing host component");
+		} catch (AmbariException e) {
+			// expected
+		}
+	}
+	
 	@Test
 	public void testGetAndSetConfigs() {
 		Config config1 = configFactory.createNew(c1, "global", new HashMap<String, String>() {
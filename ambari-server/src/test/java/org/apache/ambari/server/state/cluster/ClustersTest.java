@@ -220,6 +220,13 @@ public class ClustersTest {
 		Set<Cluster> c = clusters.getClustersForHost(h3);
 		Assert.assertEquals(0, c.size());
 		
+		try {
+			clusters.getClustersForHost("unknownhost");
+			fail("Expected exception for unknown host");
+		} catch (HostNotFoundException e) {
+			// expected
+		}
+		
 		clusters.mapHostToCluster(h1, c1);
 		clusters.mapHostToCluster(h2, c1);
 		
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license agreements. See the NOTICE file distributed with this work for additional information regarding copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with the License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package org.apache.ambari.server.state.fsm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StateMachineFactoryTest {
+	
+	private enum TestState {
+		INIT, RUNNING, DONE, FAILED
+	}
+	
+	private enum TestEventType {
+		START, FINISH, FAIL, RESET, UNUSED
+	}
+	
+	private static class Counter {
+		final AtomicInteger hooks = new AtomicInteger();
+	}
+	
+	private static final SingleArcTransition<Counter, Object> COUNTING_HOOK = new SingleArcTransition<Counter, Object>() {
+		@Override
+		public void transition(Counter operand, Object event) {
+			operand.hooks.incrementAndGet();
+		}
+	};
+	
+	private static StateMachineFactory<Counter, TestState, TestEventType, Object> newFactory() {
+		return new StateMachineFactory<Counter, TestState, TestEventType, Object>(TestState.INIT).addTransition(TestState.INIT, TestState.RUNNING, TestEventType.START, COUNTING_HOOK)
+				.addTransition(TestState.RUNNING, TestState.DONE, TestEventType.FINISH, COUNTING_HOOK).addTransition(TestState.RUNNING, TestState.FAILED, TestEventType.FAIL)
+				.addTransition(TestState.FAILED, TestState.INIT, EnumSet.of(TestEventType.RESET, TestEventType.START), null)
+				.addTransition(TestState.DONE, EnumSet.of(TestState.INIT, TestState.DONE), TestEventType.RESET, new MultipleArcTransition<Counter, Object, TestState>() {
+					@Override
+					public TestState transition(Counter operand, Object event) {
+						return operand.hooks.get() > 2 ? TestState.DONE : TestState.INIT;
+					}
+				});
+	}
+	
+	@Test
+	public void testTransitions() throws Exception {
+		for (StateMachineFactory<Counter, TestState, TestEventType, Object> factory : newFactories()) {
+			Counter counter = new Counter();
+			StateMachine<TestState, TestEventType, Object> stateMachine = factory.make(counter);
+			assertEquals(TestState.INIT, stateMachine.getCurrentState());
+			assertEquals(TestState.RUNNING, stateMachine.doTransition(TestEventType.START, null));
+			assertEquals(TestState.FAILED, stateMachine.doTransition(TestEventType.FAIL, null));
+			assertEquals(TestState.INIT, stateMachine.doTransition(TestEventType.START, null));
+			assertEquals(TestState.RUNNING, stateMachine.doTransition(TestEventType.START, null));
+			assertEquals(TestState.DONE, stateMachine.doTransition(TestEventType.FINISH, null));
+			assertEquals(3, counter.hooks.get());
+			assertEquals(TestState.DONE, stateMachine.doTransition(TestEventType.RESET, null));
+			
+			try {
+				stateMachine.doTransition(TestEventType.UNUSED, null);
+				fail("Expected InvalidStateTransitionException");
+			} catch (InvalidStateTransitionException e) {
+				// expected
+			}
+			try {
+				factory.make(counter, TestState.INIT).doTransition(TestEventType.FINISH, null);
+				fail("Expected InvalidStateTransitionException");
+			} catch (InvalidStateTransitionException e) {
+				// expected
+			}
+			assertEquals(TestState.DONE, stateMachine.getCurrentState());
+		}
+	}
+	
+	@Test
+	public void testTransitionStatistics() throws Exception {
+		StateMachineFactory<Counter, TestState, TestEventType, Object> factory = newFactory().installTopologyWithStatistics();
+		for (int i = 0; i < 10; i++) {
+			StateMachine<TestState, TestEventType, Object> stateMachine = factory.make(new Counter());
+			stateMachine.doTransition(TestEventType.START, null);
+			stateMachine.doTransition(TestEventType.FINISH, null);
+		}
+		
+		StateMachineFactory.TransitionStatistics statistics = factory.getTransitionStatistics(TestState.INIT, TestEventType.START);
+		assertEquals(10, statistics.getCount());
+		long histogramCount = 0;
+		for (long bucket : statistics.getHistogram()) {
+			histogramCount += bucket;
+		}
+		assertEquals(10, histogramCount);
+		assertEquals(10, factory.getTransitionStatistics(TestState.RUNNING, TestEventType.FINISH).getCount());
+		assertEquals(0, factory.getTransitionStatistics(TestState.RUNNING, TestEventType.FAIL).getCount());
+		assertNull(factory.getTransitionStatistics(TestState.INIT, TestEventType.UNUSED));
+		assertNull(factory.getTransitionStatistics(TestState.DONE, TestEventType.START));
+		
+		assertNull(newFactory().installTopology().getTransitionStatistics(TestState.INIT, TestEventType.START));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static StateMachineFactory<Counter, TestState, TestEventType, Object>[] newFactories() {
+		return new StateMachineFactory[] { newFactory(), newFactory().installTopology(), newFactory().installTopologyWithStatistics() };
+	}
+}
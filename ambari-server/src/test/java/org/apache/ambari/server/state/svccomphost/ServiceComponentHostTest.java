@@ -6,8 +6,17 @@
 
 package org.apache.ambari.server.state.svccomphost;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
 
 import javax.persistence.EntityManager;
 
@@ -778,4 +787,63 @@ public class ServiceComponentHostTest {
 		
 	}
 	
+	@Test
+	public void testReadsDoNotBlockBehindWrites() throws Exception {
+		final ServiceComponentHost sch = createNewServiceComponentHost("HDFS", "NAMENODE", "h1", false);
+		sch.setState(State.INSTALLED);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			// a reader must get through while a writer holds the cluster lock
+			ReadWriteLock clusterGlobalLock = clusters.getCluster("C1").getClusterGlobalLock();
+			clusterGlobalLock.writeLock().lock();
+			try {
+				Future<State> future = executor.submit(new Callable<State>() {
+					@Override
+					public State call() throws Exception {
+						Assert.assertEquals("h1", sch.getHostName());
+						Assert.assertEquals("NAMENODE", sch.getServiceComponentName());
+						Assert.assertEquals(State.INIT, sch.getDesiredState());
+						Assert.assertEquals(MaintenanceState.OFF, sch.getMaintenanceState());
+						return sch.getState();
+					}
+				});
+				Assert.assertEquals(State.INSTALLED, future.get(10, TimeUnit.SECONDS));
+			} finally {
+				clusterGlobalLock.writeLock().unlock();
+			}
+			
+			// readers keep running while the state is changed and only ever see complete states
+			final AtomicBoolean done = new AtomicBoolean(false);
+			List<Future<Long>> readers = new ArrayList<Future<Long>>();
+			for (int i = 0; i < 4; i++) {
+				readers.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() throws Exception {
+						long reads = 0;
+						while (!done.get()) {
+							State state = sch.getState();
+							Assert.assertTrue(state == State.INSTALLED || state == State.STARTED);
+							Assert.assertEquals("h1", sch.getHostName());
+							reads++;
+						}
+						return reads;
+					}
+				}));
+			}
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < 200; i++) {
+				sch.setState(i % 2 == 0 ? State.STARTED : State.INSTALLED);
+			}
+			done.set(true);
+			long reads = 0;
+			for (Future<Long> reader : readers) {
+				reads += reader.get(10, TimeUnit.SECONDS);
+			}
+			LOG.info("Performed " + reads + " reads during 200 writes in " + (System.currentTimeMillis() - start) + " ms");
+			Assert.assertEquals(State.INSTALLED, sch.getState());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
 }
@@ -7,6 +7,9 @@ package org.apache.ambari.server.utils;
 
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.powermock.api.easymock.PowerMock.mockStaticPartial;
 import static org.powermock.api.easymock.PowerMock.replayAll;
@@ -137,6 +140,53 @@ public class TestStageUtils {
 		assertEquals(cmd, cmdDes);
 	}
 	
+	@Test
+	public void testGetClusterHostInfoCachedPerTopologyVersion() throws AmbariException {
+		Clusters fsm = injector.getInstance(Clusters.class);
+		List<String> hostList = Arrays.asList("h1", "h2", "h3");
+		
+		fsm.addCluster("c1");
+		Cluster cluster = fsm.getCluster("c1");
+		cluster.setDesiredStackVersion(new StackId(STACK_ID));
+		for (String host : hostList) {
+			fsm.addHost(host);
+			
+			Map<String, String> hostAttributes = new HashMap<String, String>();
+			hostAttributes.put("os_family", "redhat");
+			hostAttributes.put("os_release_version", "5.9");
+			fsm.getHost(host).setHostAttributes(hostAttributes);
+			fsm.getHost(host).persist();
+			fsm.mapHostToCluster(host, "c1");
+		}
+		
+		Map<String, List<Integer>> hdfsTopology = new HashMap<String, List<Integer>>();
+		hdfsTopology.put("NAMENODE", Collections.singletonList(0));
+		hdfsTopology.put("DATANODE", Arrays.asList(0, 1));
+		addService(cluster, hostList, hdfsTopology, "HDFS", injector);
+		
+		Map<String, Set<String>> info = StageUtils.getClusterHostInfo(fsm.getHostsForCluster("c1"), cluster);
+		assertSame(info, StageUtils.getClusterHostInfo(fsm.getHostsForCluster("c1"), cluster));
+		assertEquals(StageUtils.getGson().toJson(info), StageUtils.getClusterHostInfoJson(fsm.getHostsForCluster("c1"), cluster));
+		assertNull(info.get("decom_dn_hosts"));
+		
+		// Decommissioning bumps the topology version
+		cluster.getService("HDFS").getServiceComponent("DATANODE").getServiceComponentHost("h2").setComponentAdminState(HostComponentAdminState.DECOMMISSIONED);
+		cluster.invalidateTopology();
+		Map<String, Set<String>> decommissionedInfo = StageUtils.getClusterHostInfo(fsm.getHostsForCluster("c1"), cluster);
+		assertNotSame(info, decommissionedInfo);
+		assertEquals(1, decommissionedInfo.get("decom_dn_hosts").size());
+		
+		// So does adding a host component
+		cluster.getService("HDFS").getServiceComponent("DATANODE").addServiceComponentHost(serviceComponentHostFactory.createNew(cluster.getService("HDFS").getServiceComponent("DATANODE"), "h3"));
+		Map<String, Set<String>> addedInfo = StageUtils.getClusterHostInfo(fsm.getHostsForCluster("c1"), cluster);
+		assertNotSame(decommissionedInfo, addedInfo);
+		assertEquals(2, addedInfo.get("slave_hosts").size());
+		
+		// A changed ping port is picked up without a topology change
+		fsm.getHost("h3").setCurrentPingPort(8671);
+		assertNotSame(addedInfo, StageUtils.getClusterHostInfo(fsm.getHostsForCluster("c1"), cluster));
+	}
+	
 	@Test
 	@Ignore
 	public void testGetClusterHostInfo() throws AmbariException, UnknownHostException {
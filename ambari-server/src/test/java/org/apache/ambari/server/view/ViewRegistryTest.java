@@ -9,7 +9,10 @@ package org.apache.ambari.server.view;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 
@@ -40,6 +43,7 @@ import org.apache.ambari.server.orm.dao.ViewInstanceDAO;
 import org.apache.ambari.server.orm.entities.ViewEntity;
 import org.apache.ambari.server.orm.entities.ViewEntityTest;
 import org.apache.ambari.server.orm.entities.ViewInstanceDataEntity;
+import org.apache.ambari.server.orm.entities.ViewInstanceDataEntityPK;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntity;
 import org.apache.ambari.server.orm.entities.ViewInstanceEntityTest;
 import org.apache.ambari.server.view.configuration.InstanceConfig;
@@ -69,12 +73,14 @@ public class ViewRegistryTest {
 		File classesDir = createNiceMock(File.class);
 		File libDir = createNiceMock(File.class);
 		File fileEntry = createNiceMock(File.class);
+		File checksumFile = createNiceMock(File.class);
 		
 		JarFile viewJarFile = createNiceMock(JarFile.class);
 		Enumeration<JarEntry> enumeration = createMock(Enumeration.class);
 		JarEntry jarEntry = createNiceMock(JarEntry.class);
 		InputStream is = createMock(InputStream.class);
 		FileOutputStream fos = createMock(FileOutputStream.class);
+		FileOutputStream checksumFos = createMock(FileOutputStream.class);
 		
 		ViewDAO vDAO = createMock(ViewDAO.class);
 		
@@ -91,9 +97,11 @@ public class ViewRegistryTest {
 		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/view.xml", entryFile);
 		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/WEB-INF/classes", classesDir);
 		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/WEB-INF/lib", libDir);
+		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/.checksum-1234", checksumFile);
 		
 		Map<File, FileOutputStream> outputStreams = new HashMap<File, FileOutputStream>();
 		outputStreams.put(entryFile, fos);
+		outputStreams.put(checksumFile, checksumFos);
 		
 		Map<File, JarFile> jarFiles = new HashMap<File, JarFile>();
 		jarFiles.put(viewArchive, viewJarFile);
@@ -121,15 +129,16 @@ public class ViewRegistryTest {
 		expect(jarEntry.getName()).andReturn("view.xml");
 		expect(jarEntry.isDirectory()).andReturn(false);
 		
-		expect(is.available()).andReturn(1);
-		expect(is.available()).andReturn(0);
-		
-		expect(is.read()).andReturn(10);
-		fos.write(10);
+		expect(is.read(isA(byte[].class))).andReturn(1);
+		expect(is.read(isA(byte[].class))).andReturn(-1);
+		fos.write(isA(byte[].class), eq(0), eq(1));
 		
 		fos.close();
 		is.close();
 		
+		// the extracted archive is marked with the archive checksum
+		checksumFos.close();
+		
 		expect(extractedArchiveDir.exists()).andReturn(false);
 		expect(extractedArchiveDir.mkdir()).andReturn(true);
 		
@@ -147,7 +156,7 @@ public class ViewRegistryTest {
 		vDAO.create(capture(captureViewEntity));
 		
 		// replay mocks
-		replay(configuration, viewDir, extractedArchiveDir, viewArchive, archiveDir, entryFile, classesDir, libDir, fileEntry, viewJarFile, enumeration, jarEntry, is, fos, vDAO);
+		replay(configuration, viewDir, extractedArchiveDir, viewArchive, archiveDir, entryFile, classesDir, libDir, fileEntry, checksumFile, viewJarFile, enumeration, jarEntry, is, fos, checksumFos, vDAO);
 		
 		ViewRegistry registry = ViewRegistry.getInstance();
 		registry.setHelper(new TestViewRegistryHelper(viewConfigs, files, outputStreams, jarFiles));
@@ -158,7 +167,71 @@ public class ViewRegistryTest {
 		Assert.assertEquals("MY_VIEW", captureViewEntity.getValue().getCommonName());
 		
 		// verify mocks
-		verify(configuration, viewDir, extractedArchiveDir, viewArchive, archiveDir, entryFile, classesDir, libDir, fileEntry, viewJarFile, enumeration, jarEntry, is, fos, vDAO);
+		verify(configuration, viewDir, extractedArchiveDir, viewArchive, archiveDir, entryFile, classesDir, libDir, fileEntry, checksumFile, viewJarFile, enumeration, jarEntry, is, fos, checksumFos, vDAO);
+	}
+	
+	@Test
+	public void testReadViewArchives_unchanged() throws Exception {
+		Configuration configuration = createNiceMock(Configuration.class);
+		File viewDir = createNiceMock(File.class);
+		File extractedArchiveDir = createNiceMock(File.class);
+		File viewArchive = createNiceMock(File.class);
+		File archiveDir = createMock(File.class);
+		File classesDir = createNiceMock(File.class);
+		File libDir = createNiceMock(File.class);
+		File checksumFile = createNiceMock(File.class);
+		
+		ViewDAO vDAO = createMock(ViewDAO.class);
+		
+		ViewRegistry.setViewDAO(vDAO);
+		
+		ViewEntity viewDefinition = ViewEntityTest.getViewEntity();
+		
+		Map<File, ViewConfig> viewConfigs = Collections.singletonMap(viewArchive, viewDefinition.getConfiguration());
+		
+		Map<String, File> files = new HashMap<String, File>();
+		
+		files.put("/var/lib/ambari-server/resources/views/work", extractedArchiveDir);
+		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}", archiveDir);
+		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/WEB-INF/classes", classesDir);
+		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/WEB-INF/lib", libDir);
+		files.put("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}/.checksum-1234", checksumFile);
+		
+		// set expectations
+		expect(configuration.getViewsDir()).andReturn(viewDir);
+		expect(viewDir.getAbsolutePath()).andReturn("/var/lib/ambari-server/resources/views");
+		
+		expect(viewDir.listFiles()).andReturn(new File[] { viewArchive });
+		
+		expect(viewArchive.isDirectory()).andReturn(false);
+		
+		// the archive has been extracted from an archive with the same checksum
+		expect(archiveDir.exists()).andReturn(true);
+		expect(archiveDir.getAbsolutePath()).andReturn("/var/lib/ambari-server/resources/views/work/MY_VIEW{1.0.0}").anyTimes();
+		expect(archiveDir.toURI()).andReturn(new URI("file:./"));
+		expect(checksumFile.exists()).andReturn(true);
+		
+		expect(extractedArchiveDir.exists()).andReturn(true);
+		
+		Capture<ViewEntity> captureViewEntity = new Capture<ViewEntity>();
+		
+		expect(vDAO.findAll()).andReturn(Collections.<ViewEntity> emptyList());
+		vDAO.create(capture(captureViewEntity));
+		
+		// replay mocks
+		replay(configuration, viewDir, extractedArchiveDir, viewArchive, archiveDir, classesDir, libDir, checksumFile, vDAO);
+		
+		ViewRegistry registry = ViewRegistry.getInstance();
+		
+		registry.setHelper(new TestViewRegistryHelper(viewConfigs, files, Collections.<File, FileOutputStream> emptyMap(), Collections.<File, JarFile> emptyMap()));
+		
+		Set<ViewInstanceEntity> instanceEntities = registry.readViewArchives(configuration);
+		
+		Assert.assertEquals(2, instanceEntities.size());
+		Assert.assertEquals("MY_VIEW", captureViewEntity.getValue().getCommonName());
+		
+		// verify mocks
+		verify(configuration, viewDir, extractedArchiveDir, viewArchive, archiveDir, classesDir, libDir, checksumFile, vDAO);
 	}
 	
 	@Test
@@ -250,15 +323,96 @@ public class ViewRegistryTest {
 		
 		viewInstanceEntity.putInstanceData("foo", "value");
 		
-		ViewInstanceDataEntity dataEntity = viewInstanceEntity.getInstanceData("foo");
+		ViewInstanceDataEntityPK pk = new ViewInstanceDataEntityPK();
+		pk.setViewName(viewInstanceEntity.getViewName());
+		pk.setViewInstanceName(viewInstanceEntity.getName());
+		pk.setName("foo");
 		
-		viewInstanceDAO.removeData(dataEntity);
-		expect(viewInstanceDAO.merge(viewInstanceEntity)).andReturn(viewInstanceEntity);
+		// only the removed key is written
+		viewInstanceDAO.updateData(eq(Collections.<ViewInstanceDataEntity> emptyList()), eq(Collections.singletonList(pk)));
 		replay(viewDAO, viewInstanceDAO);
 		
 		registry.removeInstanceData(viewInstanceEntity, "foo");
 		
 		Assert.assertNull(viewInstanceEntity.getInstanceData("foo"));
+		
+		registry.flushInstanceData();
+		
+		verify(viewDAO, viewInstanceDAO);
+	}
+	
+	@Test
+	public void testPutInstanceData() throws Exception {
+		
+		ViewDAO viewDAO = createNiceMock(ViewDAO.class);
+		ViewInstanceDAO viewInstanceDAO = createMock(ViewInstanceDAO.class);
+		
+		ViewRegistry.init(viewDAO, viewInstanceDAO);
+		
+		ViewRegistry registry = ViewRegistry.getInstance();
+		
+		ViewInstanceEntity viewInstanceEntity = ViewInstanceEntityTest.getViewInstanceEntity();
+		
+		viewInstanceEntity.putInstanceData("other", "value");
+		
+		Capture<Collection<ViewInstanceDataEntity>> dataCapture = new Capture<Collection<ViewInstanceDataEntity>>();
+		
+		// the changes are written with a single update
+		viewInstanceDAO.updateData(capture(dataCapture), eq(Collections.<ViewInstanceDataEntityPK> emptyList()));
+		replay(viewDAO, viewInstanceDAO);
+		
+		registry.putInstanceData(viewInstanceEntity, "foo", "value1");
+		registry.putInstanceData(viewInstanceEntity, "foo", "value2");
+		registry.putInstanceData(viewInstanceEntity, "bar", "value3");
+		
+		Assert.assertEquals("value2", viewInstanceEntity.getInstanceData("foo").getValue());
+		
+		registry.flushInstanceData();
+		// nothing left to write
+		registry.flushInstanceData();
+		
+		Map<String, String> written = new HashMap<String, String>();
+		for (ViewInstanceDataEntity dataEntity : dataCapture.getValue()) {
+			written.put(dataEntity.getName(), dataEntity.getValue());
+		}
+		Assert.assertEquals(2, written.size());
+		Assert.assertEquals("value2", written.get("foo"));
+		Assert.assertEquals("value3", written.get("bar"));
+		
+		verify(viewDAO, viewInstanceDAO);
+	}
+	
+	@Test
+	public void testFlushInstanceDataRetried() throws Exception {
+		
+		ViewDAO viewDAO = createNiceMock(ViewDAO.class);
+		ViewInstanceDAO viewInstanceDAO = createMock(ViewInstanceDAO.class);
+		
+		ViewRegistry.init(viewDAO, viewInstanceDAO);
+		
+		ViewRegistry registry = ViewRegistry.getInstance();
+		
+		ViewInstanceEntity viewInstanceEntity = ViewInstanceEntityTest.getViewInstanceEntity();
+		
+		Capture<Collection<ViewInstanceDataEntity>> dataCapture = new Capture<Collection<ViewInstanceDataEntity>>();
+		
+		// the first write fails and the change is written again by a scheduled retry
+		viewInstanceDAO.updateData(isA(Collection.class), eq(Collections.<ViewInstanceDataEntityPK> emptyList()));
+		expectLastCall().andThrow(new RuntimeException("database unavailable"));
+		viewInstanceDAO.updateData(capture(dataCapture), eq(Collections.<ViewInstanceDataEntityPK> emptyList()));
+		replay(viewDAO, viewInstanceDAO);
+		
+		registry.putInstanceData(viewInstanceEntity, "foo", "value1");
+		registry.flushInstanceData();
+		
+		long deadline = System.currentTimeMillis() + 10000L;
+		while (!dataCapture.hasCaptured() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50L);
+		}
+		
+		Assert.assertTrue(dataCapture.hasCaptured());
+		Assert.assertEquals("value1", dataCapture.getValue().iterator().next().getValue());
+		
 		verify(viewDAO, viewInstanceDAO);
 	}
 	
@@ -306,6 +460,11 @@ public class ViewRegistryTest {
 		public JarFile getJarFile(File file) throws IOException {
 			return jarFiles.get(file);
 		}
+		
+		@Override
+		public String getChecksum(File file) throws IOException {
+			return "1234";
+		}
 	}
 	
 }
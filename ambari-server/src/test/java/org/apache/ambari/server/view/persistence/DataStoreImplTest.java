@@ -315,6 +315,62 @@ public class DataStoreImplTest {
 		verify(entityManagerFactory, entityManager, jpaDynamicHelper, dynamicEntity1, dynamicEntity2, dynamicEntity3, query, schemaManager);
 	}
 	
+	@Test
+	public void testFindAll_paged() throws Exception {
+		DynamicClassLoader classLoader = new DynamicClassLoader(DataStoreImplTest.class.getClassLoader());
+		
+		// create mocks
+		EntityManagerFactory entityManagerFactory = createMock(EntityManagerFactory.class);
+		EntityManager entityManager = createMock(EntityManager.class);
+		JPADynamicHelper jpaDynamicHelper = createNiceMock(JPADynamicHelper.class);
+		SchemaManager schemaManager = createNiceMock(SchemaManager.class);
+		DynamicEntity dynamicEntity1 = createMock(DynamicEntity.class);
+		DynamicEntity dynamicEntity2 = createMock(DynamicEntity.class);
+		Query query = createMock(Query.class);
+		
+		// set expectations
+		Capture<DynamicType> typeCapture = new Capture<DynamicType>();
+		jpaDynamicHelper.addTypes(eq(true), eq(true), capture(typeCapture));
+		
+		expect(entityManagerFactory.createEntityManager()).andReturn(entityManager);
+		expect(entityManager.createQuery("SELECT e FROM DataStoreImplTest$TestEntity1 e WHERE e.name='foo' ORDER BY e.id")).andReturn(query);
+		entityManager.close();
+		
+		expect(query.setFirstResult(10)).andReturn(query);
+		expect(query.setMaxResults(2)).andReturn(query);
+		
+		List<DynamicEntity> entityList = new LinkedList<DynamicEntity>();
+		entityList.add(dynamicEntity1);
+		entityList.add(dynamicEntity2);
+		
+		expect(query.getResultList()).andReturn(entityList);
+		
+		expect(dynamicEntity1.get("id")).andReturn(11);
+		expect(dynamicEntity1.get("name")).andReturn("foo");
+		
+		expect(dynamicEntity2.get("id")).andReturn(12);
+		expect(dynamicEntity2.get("name")).andReturn("foo");
+		
+		// replay mocks
+		replay(entityManagerFactory, entityManager, jpaDynamicHelper, dynamicEntity1, dynamicEntity2, query, schemaManager);
+		
+		DataStoreImpl dataStore = getDataStore(entityManagerFactory, jpaDynamicHelper, classLoader, schemaManager);
+		
+		Collection<TestEntity> entities = dataStore.findAll(TestEntity.class, "name='foo'", 10, 2);
+		
+		Assert.assertEquals(2, entities.size());
+		
+		// the page keeps the order of the query
+		int id = 11;
+		for (TestEntity entity : entities) {
+			Assert.assertEquals(id++, entity.getId());
+			Assert.assertEquals("foo", entity.getName());
+		}
+		
+		// verify mocks
+		verify(entityManagerFactory, entityManager, jpaDynamicHelper, dynamicEntity1, dynamicEntity2, query, schemaManager);
+	}
+	
 	private DataStoreImpl getDataStore(EntityManagerFactory entityManagerFactory, JPADynamicHelper jpaDynamicHelper, DynamicClassLoader classLoader, SchemaManager schemaManager) throws Exception {
 		ViewConfig viewConfig = ViewConfigTest.getConfig(xml);
 		ViewEntity viewDefinition = ViewEntityTest.getViewEntity(viewConfig);
@@ -50,4 +50,18 @@ public interface DataStore {
 	 * @throws PersistenceException
 	 */
 	public <T> Collection<T> findAll(Class<T> clazz, String whereClause) throws PersistenceException;
+	
+	/**
+	 * Find a page of the entities for the given where clause. The entities are ordered by their primary key so that consecutive pages do
+	 * not overlap. Specifying null for the where clause should page through all entities of the given class type.
+	 * 
+	 * @param clazz the entity class
+	 * @param whereClause the where clause; may be null
+	 * @param firstResult the position of the first entity to return, starting at 0
+	 * @param maxResults the maximum number of entities to return; a negative value returns all remaining entities
+	 * @param <T> the entity type
+	 * @return the entities of the requested page; empty collection if no entities can be found
+	 * @throws PersistenceException thrown if an error occurs trying to find the entities
+	 */
+	public <T> Collection<T> findAll(Class<T> clazz, String whereClause, int firstResult, int maxResults) throws PersistenceException;
 }
@@ -26,5 +26,11 @@ public interface LogStore {
   void persist(LoggingEvent originalEvent, Object parsedEvent) 
       throws IOException;
   
+  /**
+   * Write the events persisted since the last flush that may still be
+   * buffered by the store.
+   */
+  void flush() throws IOException;
+  
   void close() throws IOException;
 }
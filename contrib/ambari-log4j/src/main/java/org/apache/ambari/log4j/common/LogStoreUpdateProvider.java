@@ -29,4 +29,9 @@ public interface LogStoreUpdateProvider {
   void update(LoggingEvent originalEvent, Object parsedEvent) 
       throws IOException;
   
+  /**
+   * Write the updates not yet sent to the database.
+   */
+  void flush() throws IOException;
+  
 }
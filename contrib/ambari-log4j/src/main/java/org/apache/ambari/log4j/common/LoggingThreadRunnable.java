@@ -18,55 +18,66 @@
 package org.apache.ambari.log4j.common;
 
 import java.io.IOException;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.spi.LoggingEvent;
 
+/**
+ * Drains logging events from the queue in batches of up to batchSize events,
+ * parses them, persists the results and flushes the store once per batch.
+ * Waits at most flushInterval milliseconds for the first event of a batch.
+ */
 public class LoggingThreadRunnable implements Runnable {
   private static final Log LOG = LogFactory.getLog(LoggingThreadRunnable.class);
-  private static long WAIT_EMPTY_QUEUE = 60000;
-  private final Queue<LoggingEvent> events;
+  private final BlockingQueue<LoggingEvent> events;
   private final LogParser parser;
   private final LogStore store;
+  private final int batchSize;
+  private final long flushInterval;
   private final AtomicBoolean done = new AtomicBoolean(false);
   
+  private final AtomicLong persistedCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private final AtomicLong flushCount = new AtomicLong();
+  
   public LoggingThreadRunnable(
-      Queue<LoggingEvent> events, 
+      BlockingQueue<LoggingEvent> events, 
       LogParser parser, 
-      LogStore provider) {
+      LogStore provider,
+      int batchSize,
+      long flushInterval) {
     this.events = events;
     this.store = provider;
     this.parser = parser;
+    this.batchSize = Math.max(1, batchSize);
+    this.flushInterval = flushInterval;
   }
   
   @Override
   public void run() {
+    List<LoggingEvent> batch = new ArrayList<LoggingEvent>(batchSize);
     while (!done.get()) {
-      LoggingEvent event = null;
-      while ((event = events.poll()) != null) {
-        Object result = null;
-        try {
-          parser.addEventToParse(event);
-          while ((result = parser.getParseResult()) != null) {
-            try {
-              store.persist(event, result);
-            } catch (IOException e) {
-              LOG.warn("Failed to persist " + result);
-            }
-          }
-        } catch (IOException ioe) {
-          LOG.warn("Failed to parse log-event: " + event);
-        }
-      }
       try {
-        Thread.sleep(WAIT_EMPTY_QUEUE);
+        LoggingEvent event = events.poll(flushInterval, TimeUnit.MILLISECONDS);
+        if (event != null) {
+          batch.add(event);
+          events.drainTo(batch, batchSize - 1);
+          persist(batch);
+        }
       } catch(InterruptedException ie) {
         //ignore and continue
       }
-    	  
+    }
+    // persist what was queued before closing
+    while (events.drainTo(batch, batchSize) > 0) {
+      persist(batch);
     }
     try {
       store.close();
@@ -75,6 +86,55 @@ public class LoggingThreadRunnable implements Runnable {
     }
   }
   
+  private void persist(List<LoggingEvent> batch) {
+    for (LoggingEvent event : batch) {
+      Object result = null;
+      try {
+        parser.addEventToParse(event);
+        while ((result = parser.getParseResult()) != null) {
+          try {
+            store.persist(event, result);
+            persistedCount.incrementAndGet();
+          } catch (IOException e) {
+            failedCount.incrementAndGet();
+            LOG.warn("Failed to persist " + result);
+          }
+        }
+      } catch (IOException ioe) {
+        failedCount.incrementAndGet();
+        LOG.warn("Failed to parse log-event: " + event);
+      }
+    }
+    batch.clear();
+    try {
+      store.flush();
+      flushCount.incrementAndGet();
+    } catch (IOException ioe) {
+      LOG.warn("Failed to flush logStore", ioe);
+    }
+  }
+  
+  /**
+   * @return the number of parsed events handed to the store
+   */
+  public long getPersistedCount() {
+    return persistedCount.get();
+  }
+  
+  /**
+   * @return the number of events that could not be parsed or persisted
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+  
+  /**
+   * @return the number of times the store was flushed
+   */
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+  
   public void close() throws IOException {
     done.set(true);
   }
@@ -93,6 +93,13 @@ public class DatabaseStore implements LogStore {
     updateProvider.update(originalEvent, parsedEvent);
   }
 
+  @Override
+  public void flush() throws IOException {
+    if (this.initialized) {
+      updateProvider.flush();
+    }
+  }
+
   @Override
   public void close() throws IOException {
     try {
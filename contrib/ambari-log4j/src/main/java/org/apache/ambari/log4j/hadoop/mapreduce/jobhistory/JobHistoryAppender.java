@@ -18,8 +18,9 @@
 package org.apache.ambari.log4j.hadoop.mapreduce.jobhistory;
 
 import java.io.IOException;
-import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.ambari.log4j.common.LogParser;
 import org.apache.ambari.log4j.common.LogStore;
@@ -37,7 +38,12 @@ public class JobHistoryAppender extends AppenderSkeleton implements Appender {
 
   private static final Log LOG = LogFactory.getLog(JobHistoryAppender.class);
   
-  private final Queue<LoggingEvent> events;
+  private static final int DEFAULT_QUEUE_SIZE = 10000;
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+  
+  private volatile BlockingQueue<LoggingEvent> events;
+  private final AtomicLong droppedCount = new AtomicLong();
   private LoggingThreadRunnable logThreadRunnable;
   private Thread logThread;
 
@@ -51,6 +57,9 @@ public class JobHistoryAppender extends AppenderSkeleton implements Appender {
           LOG.info(((HistoryEvent)parsedEvent).toString());
         }
 
+        @Override
+        public void flush() throws IOException {}
+
         @Override
         public void close() throws IOException {}
   };
@@ -59,11 +68,15 @@ public class JobHistoryAppender extends AppenderSkeleton implements Appender {
   private String database;
   private String user;
   private String password;
+  private int queueSize = DEFAULT_QUEUE_SIZE;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+  private boolean blockWhenFull = false;
   
   private LogStore logStore;
   
   public JobHistoryAppender() {
-    events = new LinkedBlockingQueue<LoggingEvent>();
+    events = new LinkedBlockingQueue<LoggingEvent>(queueSize);
     logParser = new MapReduceJobHistoryParser();
     logStore = nullStore;
   }
@@ -102,6 +115,59 @@ public class JobHistoryAppender extends AppenderSkeleton implements Appender {
     this.password = password;
   }
 
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  /**
+   * @param queueSize the maximum number of events waiting to be stored
+   */
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @param batchSize the maximum number of events stored per flush
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public long getFlushInterval() {
+    return flushInterval;
+  }
+
+  /**
+   * @param flushInterval the time in milliseconds to wait for events before
+   * checking whether the appender was closed
+   */
+  public void setFlushInterval(long flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  public boolean getBlockWhenFull() {
+    return blockWhenFull;
+  }
+
+  /**
+   * @param blockWhenFull true to make logging wait while the queue is full,
+   * false to drop the events that do not fit
+   */
+  public void setBlockWhenFull(boolean blockWhenFull) {
+    this.blockWhenFull = blockWhenFull;
+  }
+
+  /**
+   * @return the number of events dropped because the queue was full
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
   /* --------------------------- */
 
   @Override
@@ -134,8 +200,10 @@ public class JobHistoryAppender extends AppenderSkeleton implements Appender {
               "Failed to create database store for " + database, e);
         }
       }
+      events = new LinkedBlockingQueue<LoggingEvent>(Math.max(1, queueSize));
       logThreadRunnable = 
-          new LoggingThreadRunnable(events, logParser, logStore);
+          new LoggingThreadRunnable(events, logParser, logStore, 
+              batchSize, flushInterval);
       logThread = new Thread(logThreadRunnable);
       logThread.setDaemon(true);
       logThread.start();
@@ -165,6 +233,20 @@ public class JobHistoryAppender extends AppenderSkeleton implements Appender {
 
   @Override
   protected void append(LoggingEvent event) {
-    events.add(event);
+    if (blockWhenFull) {
+      try {
+        events.put(event);
+        return;
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+    } else if (events.offer(event)) {
+      return;
+    }
+    long dropped = droppedCount.incrementAndGet();
+    if (dropped == 1 || dropped % 1000 == 0) {
+      LOG.warn("Job history queue full, dropped " + dropped + 
+          " events so far");
+    }
   }
 }
@@ -22,7 +22,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -84,6 +87,24 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
   private Map<Class<? extends HistoryEvent>, PreparedStatement> entitySqlMap =
       new HashMap<Class<? extends HistoryEvent>, PreparedStatement>();
   
+  /**
+   * Events whose update is a single statement that does not depend on the
+   * result of earlier statements; consecutive such events using the same
+   * statement are sent to the database as one JDBC batch.
+   */
+  private static final Set<Class<? extends HistoryEvent>> BATCHABLE_EVENTS =
+      new HashSet<Class<? extends HistoryEvent>>(Arrays.asList(
+          JobInitedEvent.class, JobStatusChangedEvent.class,
+          JobInfoChangeEvent.class, TaskStartedEvent.class,
+          TaskFinishedEvent.class, TaskFailedEvent.class,
+          TaskAttemptStartedEvent.class, TaskAttemptFinishedEvent.class,
+          TaskAttemptUnsuccessfulCompletionEvent.class,
+          MapAttemptFinishedEvent.class, ReduceAttemptFinishedEvent.class));
+  
+  private boolean batching = true;
+  private PreparedStatement pendingBatch = null;
+  private final List<Object[]> pendingEvents = new ArrayList<Object[]>();
+  
   @Override
   public void init(Connection connection) throws IOException {
     this.connection = connection;
@@ -492,6 +513,17 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       LOG.debug("No prepared statement for " + eventClass);
       return;
     }
+    
+    // keep the order of the updates: send the pending batch before any
+    // other statement runs
+    boolean batchable = batching && BATCHABLE_EVENTS.contains(eventClass);
+    if (pendingBatch != null && (!batchable || pendingBatch != entityPS)) {
+      executeBatch();
+    }
+    if (batchable) {
+      pendingBatch = entityPS;
+      pendingEvents.add(new Object[] {originalEvent, parsedEvent});
+    }
   
     if (eventClass == JobSubmittedEvent.class) {
       processJobSubmittedEvent(entityPS, workflowSelectPS, workflowPS, 
@@ -539,6 +571,37 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
     }
   }
   
+  private void execute(PreparedStatement entityPS) throws SQLException {
+    if (batching) {
+      entityPS.addBatch();
+    } else {
+      entityPS.executeUpdate();
+    }
+  }
+  
+  private void executeBatch() throws SQLException {
+    PreparedStatement ps = pendingBatch;
+    List<Object[]> events = new ArrayList<Object[]>(pendingEvents);
+    pendingBatch = null;
+    pendingEvents.clear();
+    try {
+      ps.executeBatch();
+    } catch (SQLException sqle) {
+      LOG.info("Failed to store a batch of " + events.size() + 
+          " events, storing them one at a time", sqle);
+      ps.clearBatch();
+      // updates are idempotent and inserts already stored fail as before
+      batching = false;
+      try {
+        for (Object[] event : events) {
+          doUpdates((LoggingEvent)event[0], event[1]);
+        }
+      } finally {
+        batching = true;
+      }
+    }
+  }
+  
   private void updateJobStatsAtFinish(String jobId) {
     try {
       jobEndUpdate.setString(1, "MAP");
@@ -814,7 +877,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setInt(3, historyEvent.getTotalReduces());
       entityPS.setString(4, historyEvent.getStatus());
       entityPS.setString(5, historyEvent.getJobId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + " for job " + 
           historyEvent.getJobId() + " into " + JOB_TABLE, sqle);
@@ -827,7 +890,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
     try {
       entityPS.setString(1, historyEvent.getStatus());
       entityPS.setString(2, historyEvent.getJobId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + " for job " + 
           historyEvent.getJobId() + " into " + JOB_TABLE, sqle);
@@ -841,7 +904,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setLong(1, historyEvent.getSubmitTime());
       entityPS.setLong(2, historyEvent.getLaunchTime());
       entityPS.setString(3, historyEvent.getJobId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + " for job " + 
           historyEvent.getJobId() + " into " + JOB_TABLE, sqle);
@@ -875,7 +938,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(3, historyEvent.getSplitLocations());
       entityPS.setLong(4, historyEvent.getStartTime());
       entityPS.setString(5, historyEvent.getTaskId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + " for task " + 
           historyEvent.getTaskId() + " into " + TASK_TABLE, sqle);
@@ -892,7 +955,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(3, historyEvent.getTaskStatus());
       entityPS.setLong(4, historyEvent.getFinishTime());
       entityPS.setString(5, historyEvent.getTaskId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + " for task " + 
           historyEvent.getTaskId() + " into " + TASK_TABLE, sqle);
@@ -915,7 +978,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
         entityPS.setString(6, "task_na");
       }
       entityPS.setString(7, historyEvent.getTaskId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + " for task " + 
           historyEvent.getTaskId() + " into " + TASK_TABLE, sqle);
@@ -935,7 +998,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(6, historyEvent.getLocality().toString());
       entityPS.setString(7, historyEvent.getAvataar().toString());
       entityPS.setString(8, historyEvent.getTaskAttemptId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + 
           " for taskAttempt " + historyEvent.getTaskAttemptId() + 
@@ -963,7 +1026,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(5, historyEvent.getTaskStatus());
       entityPS.setString(6, historyEvent.getHostname());
       entityPS.setString(7, historyEvent.getAttemptId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + 
           " for taskAttempt " + historyEvent.getAttemptId() + 
@@ -985,7 +1048,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(6, historyEvent.getHostname());
       entityPS.setString(7, historyEvent.getError());
       entityPS.setString(8, historyEvent.getTaskAttemptId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + 
           " for taskAttempt " + historyEvent.getTaskAttemptId() + 
@@ -1017,7 +1080,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(8, historyEvent.getTaskStatus());
       entityPS.setString(9, historyEvent.getHostname());
       entityPS.setString(10, historyEvent.getAttemptId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + 
           " for taskAttempt " + historyEvent.getAttemptId() + 
@@ -1050,7 +1113,7 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       entityPS.setString(9, historyEvent.getTaskStatus());
       entityPS.setString(10, historyEvent.getHostname());
       entityPS.setString(11, historyEvent.getAttemptId().toString());
-      entityPS.executeUpdate();
+      execute(entityPS);
     } catch (SQLException sqle) {
       LOG.info("Failed to store " + historyEvent.getEventType() + 
           " for taskAttempt " + historyEvent.getAttemptId() + 
@@ -1088,5 +1151,16 @@ public class MapReduceJobHistoryUpdater implements LogStoreUpdateProvider {
       throw new IOException(sqle);
     }
   }
+  
+  @Override
+  public void flush() throws IOException {
+    try {
+      if (pendingBatch != null) {
+        executeBatch();
+      }
+    } catch (SQLException sqle) {
+      throw new IOException(sqle);
+    }
+  }
 
 }
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ambari.log4j.common;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import junit.framework.TestCase;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+
+public class TestLoggingThreadRunnable extends TestCase {
+
+  class PassThroughParser implements LogParser {
+    private LoggingEvent event;
+
+    public void addEventToParse(LoggingEvent event) {
+      this.event = event;
+    }
+
+    public Object getParseResult() throws IOException {
+      Object result = event == null ? null : event.getMessage();
+      event = null;
+      return result;
+    }
+  }
+
+  class RecordingStore implements LogStore {
+    private final List<Object> persisted = new ArrayList<Object>();
+    private final List<Integer> flushed = new ArrayList<Integer>();
+    private boolean closed;
+
+    public synchronized void persist(LoggingEvent originalEvent,
+        Object parsedEvent) throws IOException {
+      persisted.add(parsedEvent);
+    }
+
+    public synchronized void flush() throws IOException {
+      flushed.add(persisted.size());
+    }
+
+    public synchronized void close() throws IOException {
+      closed = true;
+    }
+  }
+
+  public void testBatchesFlushedAndDrainedOnClose() throws Exception {
+    LinkedBlockingQueue<LoggingEvent> events =
+        new LinkedBlockingQueue<LoggingEvent>();
+    for (int i = 0; i < 5; i++) {
+      events.add(getEvent("event" + i));
+    }
+    RecordingStore store = new RecordingStore();
+    LoggingThreadRunnable runnable = new LoggingThreadRunnable(events,
+        new PassThroughParser(), store, 2, 10);
+
+    Thread thread = new Thread(runnable);
+    thread.start();
+    runnable.close();
+    thread.join(10000);
+
+    assertFalse(thread.isAlive());
+    assertTrue(store.closed);
+    assertEquals(5, store.persisted.size());
+    assertEquals("event0", store.persisted.get(0));
+    assertEquals("event4", store.persisted.get(4));
+    // at most two events per flush
+    int previous = 0;
+    for (int flushed : store.flushed) {
+      assertTrue(flushed - previous <= 2);
+      previous = flushed;
+    }
+    assertEquals(5, previous);
+    assertEquals(5, runnable.getPersistedCount());
+    assertEquals(0, runnable.getFailedCount());
+    assertEquals(store.flushed.size(), runnable.getFlushCount());
+  }
+
+  private static LoggingEvent getEvent(String message) {
+    return new LoggingEvent(TestLoggingThreadRunnable.class.getName(),
+        Logger.getLogger(TestLoggingThreadRunnable.class), Level.INFO,
+        message, null);
+  }
+}
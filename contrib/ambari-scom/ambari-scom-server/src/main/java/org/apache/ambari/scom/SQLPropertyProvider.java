@@ -36,14 +36,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.NumberFormat;
 import java.text.ParsePosition;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SQL based property/metrics provider required for ambari-scom.
+ * <p/>
+ * The metrics requested for all of the given resources are gathered first and
+ * retrieved with one query per batch of metrics rather than one query per metric.
+ * Batches are queried in parallel over a small number of connections and the
+ * results are fanned back out to the resources.
  */
 public class SQLPropertyProvider extends AbstractPropertyProvider {
 
@@ -60,7 +74,40 @@ public class SQLPropertyProvider extends AbstractPropertyProvider {
 
   // ----- Constants ---------------------------------------------------------
 
-  private static final String GET_METRICS_STATEMENT = "select * from dbo.ufGetMetrics(?, ?, ?, ?, ?, ?, ?)";
+  /**
+   * The maximum number of metrics retrieved by a single query.  Each metric
+   * takes 8 parameters, well below the 2100 parameters SQL Server accepts.
+   */
+  protected static final int BATCH_SIZE = 100;
+
+  /**
+   * The maximum number of batches queried at the same time, which bounds the
+   * number of connections used to retrieve metrics.
+   */
+  private static final int THREAD_POOL_SIZE = 4;
+  private static final long THREAD_POOL_TIMEOUT_MILLIS = 30000L;
+
+  private static final ExecutorService EXECUTOR_SERVICE;
+
+  static {
+    ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(THREAD_POOL_SIZE, THREAD_POOL_SIZE,
+        THREAD_POOL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+
+    threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+    EXECUTOR_SERVICE = threadPoolExecutor;
+  }
+
+  private static final String GET_METRICS_SELECT =
+      "select q.RequestId, m.RecordTimeStamp, m.MetricValue from (values ";
+
+  private static final String GET_METRICS_ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String GET_METRICS_APPLY =
+      ") as q(RequestId, StartTime, EndTime, RecordTypeContext, RecordTypeName, MetricName, ServiceName, NodeName) " +
+      "cross apply dbo.ufGetMetrics(q.StartTime, q.EndTime, q.RecordTypeContext, q.RecordTypeName, " +
+      "q.MetricName, q.ServiceName, q.NodeName) as m " +
+      "order by q.RequestId, m.RecordTimeStamp";
 
   protected final static Logger LOG =
       LoggerFactory.getLogger(SQLPropertyProvider.class);
@@ -89,28 +136,21 @@ public class SQLPropertyProvider extends AbstractPropertyProvider {
   @Override
   public Set<Resource> populateResources(Set<Resource> resources, Request request, Predicate predicate)
       throws SystemException {
-    Set<Resource> keepers = new HashSet<Resource>();
-    try {
-      Connection connection = connectionFactory.getConnection();
-      try {
-        PreparedStatement preparedStatement = connection.prepareStatement(GET_METRICS_STATEMENT);
-        try {
-          for (Resource resource : resources) {
-            if (populateResource(resource, request, predicate, preparedStatement)) {
-              keepers.add(resource);
-            }
-          }
-        } finally {
-          preparedStatement.close();
-        }
-      } finally {
-        connection.close();
+    Set<Resource>       keepers        = new HashSet<Resource>();
+    List<MetricRequest> metricRequests = new ArrayList<MetricRequest>();
+
+    for (Resource resource : resources) {
+      if (addMetricRequests(resource, request, predicate, metricRequests)) {
+        keepers.add(resource);
       }
-    } catch (SQLException e) {
-      if (LOG.isErrorEnabled()) {
-        LOG.error("Error during populateResources call : caught exception", e);
+    }
+
+    if (!metricRequests.isEmpty()) {
+      getMetrics(metricRequests);
+
+      for (MetricRequest metricRequest : metricRequests) {
+        metricRequest.setProperty();
       }
-      throw new SystemException("Error during populateResources call : caught exception", e);
     }
     return keepers;
   }
@@ -118,8 +158,9 @@ public class SQLPropertyProvider extends AbstractPropertyProvider {
 
   // ----- helper methods ----------------------------------------------------
 
-  // Populate the given resource
-  private boolean populateResource(Resource resource, Request request, Predicate predicate, PreparedStatement preparedStatement) throws SystemException {
+  // Add the metric requests for the given resource
+  private boolean addMetricRequests(Resource resource, Request request, Predicate predicate,
+                                    List<MetricRequest> metricRequests) throws SystemException {
 
     Set<String> ids = getRequestPropertyIds(request, predicate);
     if (ids.isEmpty()) {
@@ -171,25 +212,9 @@ public class SQLPropertyProvider extends AbstractPropertyProvider {
           int      size  = parts.length;
 
           if (size >= 3) {
-            List<DataPoint> dataPoints = getMetric(startTime, endTime, parts[size - 3], parts[size - 2], parts[size - 1],
-                                                   componentName.toLowerCase(), hostName, preparedStatement);
-
-            if (dataPoints != null) {
-              if (temporalInfo == null){
-                // return the value of the last data point
-                int          length = dataPoints.size();
-                Serializable value  = length > 0 ? dataPoints.get(length - 1).getValue() : 0;
-                resource.setProperty(propertyKey, value);
-              } else {
-
-                Number[][] dp = new Number[dataPoints.size()][2];
-                for (int i = 0; i < dp.length; i++) {
-                  dp[i][0] = dataPoints.get(i).getValue();
-                  dp[i][1] = dataPoints.get(i).getTimestamp();
-                }
-                resource.setProperty(propertyKey, dp);
-              }
-            }
+            metricRequests.add(new MetricRequest(resource, propertyKey, temporalInfo != null,
+                startTime, endTime, parts[size - 3], parts[size - 2], parts[size - 1],
+                componentName.toLowerCase(), hostName));
           } else {
             if (LOG.isWarnEnabled()) {
               LOG.warn("Can't get metrics for " + id + " : " + propertyId);
@@ -202,48 +227,116 @@ public class SQLPropertyProvider extends AbstractPropertyProvider {
     return true;
   }
 
-  // get a metric from a sql connection
-  private List<DataPoint> getMetric(long startTime, long endTime, String recordTypeContext,
-                        String recordTypeName, String metricName, String serviceName, String nodeName,
-                        PreparedStatement preparedStatement) throws SystemException {
+  // get the data points of the given metric requests, one query per batch
+  private void getMetrics(List<MetricRequest> metricRequests) throws SystemException {
+
+    int batches = (metricRequests.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+
+    if (batches == 1) {
+      // nothing to parallelize ... query on the calling thread
+      getMetricBatch(metricRequests);
+      return;
+    }
+
+    CompletionService<Void> completionService = new ExecutorCompletionService<Void>(EXECUTOR_SERVICE);
+
+    for (int i = 0; i < batches; ++i) {
+      int from = i * BATCH_SIZE;
+      int to   = Math.min(from + BATCH_SIZE, metricRequests.size());
 
-    if (recordTypeContext == null || recordTypeName == null || nodeName == null) {
-      return null;
+      completionService.submit(getMetricBatchCallable(metricRequests.subList(from, to)));
     }
 
-    int columnId = 1;
-    List<DataPoint> results;
     try {
-      preparedStatement.clearParameters();
+      for (int i = 0; i < batches; ++i) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SystemException("Interrupted during getMetrics call", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SystemException) {
+        throw (SystemException) cause;
+      }
+      throw new SystemException("Error during getMetrics call : caught exception - ", cause);
+    }
+  }
 
-      preparedStatement.setLong(columnId++, startTime);
-      preparedStatement.setLong(columnId++, endTime);
-      preparedStatement.setNString(columnId++, recordTypeContext);
-      preparedStatement.setNString(columnId++, recordTypeName);
-      preparedStatement.setNString(columnId++, metricName);
-      preparedStatement.setNString(columnId++, serviceName);
-      preparedStatement.setNString(columnId, nodeName);
+  // get a callable to query the given batch of metric requests
+  private Callable<Void> getMetricBatchCallable(final List<MetricRequest> metricRequests) {
+    return new Callable<Void>() {
+      public Void call() throws SystemException {
+        getMetricBatch(metricRequests);
+        return null;
+      }
+    };
+  }
+
+  // get the data points of a batch of metric requests from a sql connection
+  private void getMetricBatch(List<MetricRequest> metricRequests) throws SystemException {
+    try {
+      Connection connection = connectionFactory.getConnection();
+      try {
+        PreparedStatement preparedStatement = connection.prepareStatement(getMetricsStatement(metricRequests.size()));
+        try {
+          int columnId = 1;
+          for (int i = 0; i < metricRequests.size(); ++i) {
+            MetricRequest metricRequest = metricRequests.get(i);
+
+            preparedStatement.setInt(columnId++, i);
+            preparedStatement.setLong(columnId++, metricRequest.startTime);
+            preparedStatement.setLong(columnId++, metricRequest.endTime);
+            preparedStatement.setNString(columnId++, metricRequest.recordTypeContext);
+            preparedStatement.setNString(columnId++, metricRequest.recordTypeName);
+            preparedStatement.setNString(columnId++, metricRequest.metricName);
+            preparedStatement.setNString(columnId++, metricRequest.serviceName);
+            preparedStatement.setNString(columnId++, metricRequest.nodeName);
+          }
 
-      ResultSet rs = preparedStatement.executeQuery();
+          ResultSet rs = preparedStatement.executeQuery();
 
-      results = new LinkedList<DataPoint>();
+          if (rs != null) {
+            NumberFormat numberFormat = NumberFormat.getInstance();
 
-      if (rs != null) {
+            //(RequestId int, RecordTimeStamp bigint, MetricValue NVARCHAR(512))
+            while (rs.next()) {
+              int requestId = rs.getInt("RequestId");
 
-        //(RecordTimeStamp bigint, MetricValue NVARCHAR(512))
-        while (rs.next()) {
+              if (requestId < 0 || requestId >= metricRequests.size()) {
+                continue;
+              }
 
-          ParsePosition parsePosition = new ParsePosition(0);
-          NumberFormat  numberFormat  = NumberFormat.getInstance();
-          Number        parsedNumber  = numberFormat.parse(rs.getNString("MetricValue"), parsePosition);
+              ParsePosition parsePosition = new ParsePosition(0);
+              Number        parsedNumber  = numberFormat.parse(rs.getNString("MetricValue"), parsePosition);
 
-          results.add(new DataPoint(rs.getLong("RecordTimeStamp"), parsedNumber));
+              metricRequests.get(requestId).dataPoints.add(new DataPoint(rs.getLong("RecordTimeStamp"), parsedNumber));
+            }
+          }
+        } finally {
+          preparedStatement.close();
         }
+      } finally {
+        connection.close();
       }
     } catch (SQLException e) {
-      throw new SystemException("Error during getMetric call : caught exception - ", e);
+      if (LOG.isErrorEnabled()) {
+        LOG.error("Error during getMetrics call : caught exception", e);
+      }
+      throw new SystemException("Error during getMetrics call : caught exception - ", e);
     }
-    return results;
+  }
+
+  // get the statement querying the given number of metrics
+  private static String getMetricsStatement(int count) {
+    StringBuilder sb = new StringBuilder(GET_METRICS_SELECT);
+    for (int i = 0; i < count; ++i) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(GET_METRICS_ROW);
+    }
+    return sb.append(GET_METRICS_APPLY).toString();
   }
 
   // get the hostname for a given resource
@@ -254,6 +347,67 @@ public class SQLPropertyProvider extends AbstractPropertyProvider {
   }
 
 
+  // ----- inner class : MetricRequest ---------------------------------------
+
+  /**
+   * A single metric requested for a resource along with the data points
+   * retrieved for it.
+   */
+  private static class MetricRequest {
+    private final Resource resource;
+    private final String propertyKey;
+    private final boolean temporal;
+    private final long startTime;
+    private final long endTime;
+    private final String recordTypeContext;
+    private final String recordTypeName;
+    private final String metricName;
+    private final String serviceName;
+    private final String nodeName;
+    private final LinkedList<DataPoint> dataPoints = new LinkedList<DataPoint>();
+
+    // ----- Constructor -------------------------------------------------
+
+    private MetricRequest(Resource resource, String propertyKey, boolean temporal,
+                          long startTime, long endTime, String recordTypeContext,
+                          String recordTypeName, String metricName, String serviceName,
+                          String nodeName) {
+      this.resource          = resource;
+      this.propertyKey       = propertyKey;
+      this.temporal          = temporal;
+      this.startTime         = startTime;
+      this.endTime           = endTime;
+      this.recordTypeContext = recordTypeContext;
+      this.recordTypeName    = recordTypeName;
+      this.metricName        = metricName;
+      this.serviceName       = serviceName;
+      this.nodeName          = nodeName;
+    }
+
+    // ----- MetricRequest -----------------------------------------------
+
+    /**
+     * Set the retrieved data points as the property value of the resource.
+     */
+    private void setProperty() {
+      if (temporal) {
+        Number[][] dp = new Number[dataPoints.size()][2];
+        int i = 0;
+        for (DataPoint dataPoint : dataPoints) {
+          dp[i][0] = dataPoint.getValue();
+          dp[i][1] = dataPoint.getTimestamp();
+          ++i;
+        }
+        resource.setProperty(propertyKey, dp);
+      } else {
+        // return the value of the last data point
+        Serializable value = dataPoints.isEmpty() ? 0 : dataPoints.getLast().getValue();
+        resource.setProperty(propertyKey, value);
+      }
+    }
+  }
+
+
   // ----- inner class : DataPoint -------------------------------------------
 
   /**
@@ -375,20 +375,22 @@ public class SQLPropertyProviderTest {
     // set expectations
     expect(connectionFactory.getConnection()).andReturn(connection).once();
     expect(connection.prepareStatement((String) anyObject())).andReturn(statement).once();
+    // both metrics are retrieved by a single query
     expect(statement.executeQuery()).andReturn(resultSet).once();
     expect(resultSet.next()).andReturn(true);
+    expect(resultSet.getInt("RequestId")).andReturn(0);
     expect(resultSet.getLong("RecordTimeStamp")).andReturn(999990L);
     expect(resultSet.getNString("MetricValue")).andReturn("0");
     expect(resultSet.next()).andReturn(true);
+    expect(resultSet.getInt("RequestId")).andReturn(0);
     expect(resultSet.getLong("RecordTimeStamp")).andReturn(999991L);
     expect(resultSet.getNString("MetricValue")).andReturn("1");
-    expect(resultSet.next()).andReturn(false);
-
-    expect(statement.executeQuery()).andReturn(resultSet).once();
     expect(resultSet.next()).andReturn(true);
+    expect(resultSet.getInt("RequestId")).andReturn(1);
     expect(resultSet.getLong("RecordTimeStamp")).andReturn(999992L);
     expect(resultSet.getNString("MetricValue")).andReturn("2");
     expect(resultSet.next()).andReturn(true);
+    expect(resultSet.getInt("RequestId")).andReturn(1);
     expect(resultSet.getLong("RecordTimeStamp")).andReturn(999993L);
     expect(resultSet.getNString("MetricValue")).andReturn("3");
     expect(resultSet.next()).andReturn(false);
@@ -439,4 +441,67 @@ public class SQLPropertyProviderTest {
     // verify
     verify(connectionFactory, connection, statement, resultSet);
   }
+
+  @Test
+  public void testPopulateResources_multiResource() throws Exception {
+
+    ConnectionFactory connectionFactory = createNiceMock(ConnectionFactory.class);
+    Connection connection = createNiceMock(Connection.class);
+    PreparedStatement statement = createNiceMock(PreparedStatement.class);
+    ResultSet resultSet = createNiceMock(ResultSet.class);
+
+    // set expectations ... the metrics of both resources are retrieved by a single query
+    expect(connectionFactory.getConnection()).andReturn(connection).once();
+    expect(connection.prepareStatement((String) anyObject())).andReturn(statement).once();
+    expect(statement.executeQuery()).andReturn(resultSet).once();
+    expect(resultSet.next()).andReturn(true);
+    expect(resultSet.getInt("RequestId")).andReturn(1);
+    expect(resultSet.getLong("RecordTimeStamp")).andReturn(999991L);
+    expect(resultSet.getNString("MetricValue")).andReturn("1");
+    expect(resultSet.next()).andReturn(true);
+    expect(resultSet.getInt("RequestId")).andReturn(0);
+    expect(resultSet.getLong("RecordTimeStamp")).andReturn(999990L);
+    expect(resultSet.getNString("MetricValue")).andReturn("0");
+    expect(resultSet.next()).andReturn(false);
+
+    // replay
+    replay(connectionFactory, connection, statement, resultSet);
+
+    SQLPropertyProvider provider = new SQLPropertyProvider(
+        PropertyHelper.getGangliaPropertyIds(Resource.Type.HostComponent),
+        new TestHostInfoProvider(),
+        CLUSTER_NAME_PROPERTY_ID,
+        HOST_NAME_PROPERTY_ID,
+        COMPONENT_NAME_PROPERTY_ID,
+        connectionFactory);
+
+    Resource resource1 = new ResourceImpl(Resource.Type.HostComponent);
+
+    resource1.setProperty(CLUSTER_NAME_PROPERTY_ID, "c1");
+    resource1.setProperty(HOST_NAME_PROPERTY_ID, "domU-12-31-39-0E-34-E1.compute-1.internal");
+    resource1.setProperty(COMPONENT_NAME_PROPERTY_ID, "DATANODE");
+
+    Resource resource2 = new ResourceImpl(Resource.Type.HostComponent);
+
+    resource2.setProperty(CLUSTER_NAME_PROPERTY_ID, "c1");
+    resource2.setProperty(HOST_NAME_PROPERTY_ID, "domU-12-31-39-0E-34-E2.compute-1.internal");
+    resource2.setProperty(COMPONENT_NAME_PROPERTY_ID, "DATANODE");
+
+    Set<Resource> resources = new LinkedHashSet<Resource>();
+    resources.add(resource1);
+    resources.add(resource2);
+
+    // only ask for one property
+    Map<String, TemporalInfo> temporalInfoMap = new HashMap<String, TemporalInfo>();
+    Request request = PropertyHelper.getReadRequest(Collections.singleton(PROPERTY_ID_2), temporalInfoMap);
+
+    Assert.assertEquals(2, provider.populateResources(resources, request, null).size());
+
+    // each resource gets the value of its own metric
+    Assert.assertEquals(0L, resource1.getPropertyValue(PROPERTY_ID_2));
+    Assert.assertEquals(1L, resource2.getPropertyValue(PROPERTY_ID_2));
+
+    // verify
+    verify(connectionFactory, connection, statement, resultSet);
+  }
 }
@@ -20,14 +20,18 @@ package org.apache.hadoop.metrics2.sink;
 
 import com.microsoft.sqlserver.jdbc.SQLServerDriver;
 import org.apache.commons.configuration.SubsetConfiguration;
+import org.apache.hadoop.metrics2.MetricsTag;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
 
 import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 
@@ -89,15 +93,21 @@ public abstract class SqlServerSinkTest<T extends SqlServerSink> {
 
     SubsetConfiguration configuration = createNiceMock(SubsetConfiguration.class);
     Connection connection = createNiceMock(Connection.class);
+    CallableStatement cstmt = createNiceMock(CallableStatement.class);
 
     // set expectations
     expect(configuration.getParent()).andReturn(null);
     expect(configuration.getPrefix()).andReturn("prefix");
     expect(configuration.getString("databaseUrl")).andReturn("url");
-    connection.close();
+
+    // the call is prepared once and reused across flushes
+    expect(connection.prepareCall("{call dbo.uspInsertMetricValue(?, ?, ?)}")).andReturn(cstmt).once();
+    cstmt.addBatch();
+    expectLastCall().times(2);
+    expect(cstmt.executeBatch()).andReturn(new int[]{1}).times(2);
 
     // replay
-    replay(configuration, connection);
+    replay(configuration, connection, cstmt);
 
     SqlServerSink sink = createInstance();
 
@@ -105,9 +115,77 @@ public abstract class SqlServerSinkTest<T extends SqlServerSink> {
 
     SQLServerDriver.setConnection(connection);
     sink.ensureConnection();
+    sink.insertMetricValue(9999L, "metricName", "metricValue");
+    sink.flush();
+    sink.insertMetricValue(9999L, "metricName", "metricValue");
     sink.flush();
 
-    verify(configuration, connection);
+    verify(configuration, connection, cstmt);
+  }
+
+  @Test
+  public void testFlush_retry() throws Exception {
+
+    SubsetConfiguration configuration = createNiceMock(SubsetConfiguration.class);
+    Connection connection = createNiceMock(Connection.class);
+    CallableStatement cstmt = createNiceMock(CallableStatement.class);
+
+    // set expectations
+    expect(configuration.getParent()).andReturn(null);
+    expect(configuration.getPrefix()).andReturn("prefix");
+    expect(configuration.getString("databaseUrl")).andReturn("url");
+
+    expect(connection.prepareCall("{call dbo.uspGetMetricRecord(?, ?, ?, ?, ?, ?, ?, ?, ?)}")).andReturn(cstmt).once();
+    expect(cstmt.execute()).andThrow(new SQLException("failed")).once();
+    cstmt.close();
+    connection.close();
+
+    // replay
+    replay(configuration, connection, cstmt);
+
+    SqlServerSink sink = createInstance();
+
+    sink.init(configuration);
+
+    SQLServerDriver.setConnection(connection);
+
+    sink.bufferRecord(sink.createRecord("context", "typeName", new HashSet<MetricsTag>(), 9999L));
+    sink.flush();
+
+    // the record is kept ... and not written again until the backoff elapsed
+    Assert.assertEquals(1, sink.getBufferedRecordCount());
+    sink.flush();
+    Assert.assertEquals(1, sink.getBufferedRecordCount());
+
+    verify(configuration, connection, cstmt);
+  }
+
+  @Test
+  public void testBufferRecord_bounded() throws Exception {
+
+    SubsetConfiguration configuration = createNiceMock(SubsetConfiguration.class);
+
+    // set expectations
+    expect(configuration.getParent()).andReturn(null);
+    expect(configuration.getPrefix()).andReturn("prefix");
+    expect(configuration.getString("databaseUrl")).andReturn("url");
+    expect(configuration.getInt("maxBufferedRecords", 10000)).andReturn(2);
+
+    // replay
+    replay(configuration);
+
+    SqlServerSink sink = createInstance();
+
+    sink.init(configuration);
+
+    for (int i = 0; i < 3; i++) {
+      sink.bufferRecord(sink.createRecord("context", "typeName", new HashSet<MetricsTag>(), i));
+    }
+
+    Assert.assertEquals(2, sink.getBufferedRecordCount());
+    Assert.assertEquals(1, sink.getDroppedRecordCount());
+
+    verify(configuration);
   }
 
   @Test
@@ -205,7 +283,8 @@ public abstract class SqlServerSinkTest<T extends SqlServerSink> {
     cstmt.setLong(1, 9999L);
     cstmt.setNString(2, "metricName");
     cstmt.setNString(3, "metricValue");
-    expect(cstmt.execute()).andReturn(true);
+    cstmt.addBatch();
+    expect(cstmt.executeBatch()).andReturn(new int[]{1});
 
     // replay
     replay(configuration, connection, cstmt);
@@ -217,6 +296,7 @@ public abstract class SqlServerSinkTest<T extends SqlServerSink> {
     SQLServerDriver.setConnection(connection);
 
     sink.insertMetricValue(9999L, "metricName", "metricValue");
+    sink.flush();
 
     verify(configuration, connection, cstmt);
   }
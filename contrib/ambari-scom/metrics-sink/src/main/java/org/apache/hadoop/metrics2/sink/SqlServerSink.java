@@ -30,14 +30,34 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * This class stores published metrics to the SQL Server database.
+ * <p/>
+ * Records put to the sink are buffered and written when the sink is flushed.
+ * The connection and the prepared calls are kept open across flushes and the
+ * metric values are inserted in batches.  After a failed write the connection
+ * is closed and writes are retried with an exponential backoff while at most
+ * maxBufferedRecords records are kept, dropping the oldest ones.
  */
 public abstract class SqlServerSink implements MetricsSink {
   private static final String DATABASE_URL_KEY = "databaseUrl";
+  private static final String BATCH_SIZE_KEY = "batchSize";
+  private static final String MAX_BUFFERED_RECORDS_KEY = "maxBufferedRecords";
+  private static final String MAX_RETRY_INTERVAL_KEY = "maxRetryInterval";
+  private static final int DEFAULT_BATCH_SIZE = 500;
+  private static final int DEFAULT_MAX_BUFFERED_RECORDS = 10000;
+  private static final long DEFAULT_MAX_RETRY_INTERVAL = 60000L;
+  private static final long MIN_RETRY_INTERVAL = 1000L;
+  private static final String GET_METRIC_RECORD_CALL =
+      "{call dbo.uspGetMetricRecord(?, ?, ?, ?, ?, ?, ?, ?, ?)}";
+  private static final String INSERT_METRIC_VALUE_CALL =
+      "{call dbo.uspInsertMetricValue(?, ?, ?)}";
   private static final boolean DEBUG = true;
   private static final String NAME_URL_KEY = "fs.default.name";
   private static final Pattern NAME_URL_REGEX = Pattern.compile(
@@ -47,6 +67,16 @@ public abstract class SqlServerSink implements MetricsSink {
   private String currentServiceName = "";
   private String databaseUrl;
   private Connection conn = null;
+  private CallableStatement getMetricRecordStatement = null;
+  private CallableStatement insertMetricValueStatement = null;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private int maxBufferedRecords = DEFAULT_MAX_BUFFERED_RECORDS;
+  private long maxRetryInterval = DEFAULT_MAX_RETRY_INTERVAL;
+  private final LinkedList<BufferedRecord> bufferedRecords = new LinkedList<BufferedRecord>();
+  private int batchedValues = 0;
+  private long retryInterval = 0;
+  private long nextWriteTime = 0;
+  private long droppedRecords = 0;
   StringBuilder tagsListBuffer = new StringBuilder();
   String nodeName = null;
   String nodeIPAddress = null;
@@ -70,6 +100,12 @@ public abstract class SqlServerSink implements MetricsSink {
       throw new MetricsException(
           "databaseUrl required in the metrics2 configuration for SqlServerSink.");
 
+    batchSize = getPositiveInt(conf, BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE);
+    maxBufferedRecords = getPositiveInt(conf, MAX_BUFFERED_RECORDS_KEY,
+        DEFAULT_MAX_BUFFERED_RECORDS);
+    long retry = conf.getLong(MAX_RETRY_INTERVAL_KEY, DEFAULT_MAX_RETRY_INTERVAL);
+    maxRetryInterval = retry > 0 ? retry : DEFAULT_MAX_RETRY_INTERVAL;
+
     try {
       Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
     } catch (ClassNotFoundException cnfe) {
@@ -106,18 +142,126 @@ public abstract class SqlServerSink implements MetricsSink {
     return conf.getPrefix();
   }
 
+  private static int getPositiveInt(SubsetConfiguration conf, String key,
+                                    int defaultValue) {
+    int value = conf.getInt(key, defaultValue);
+    return value > 0 ? value : defaultValue;
+  }
+
   @Override
   public abstract void putMetrics(MetricsRecord record);
 
+  /**
+   * Write the buffered records and the batched metric values.  Nothing is
+   * written while backing off after a failed write.
+   */
   @Override
   public void flush() {
+    if (bufferedRecords.isEmpty() && batchedValues == 0)
+      return;
+
+    long now = System.currentTimeMillis();
+    if (now < nextWriteTime)
+      return;
+
+    if (!ensureConnection()) {
+      backOff(now);
+      return;
+    }
+
     try {
-      if (conn != null)
-        conn.close();
-    } catch (Exception e) {
-      // do nothing
+      writeBufferedRecords();
+      retryInterval = 0;
+      nextWriteTime = 0;
+      if (droppedRecords > 0) {
+        logger.warn("Dropped " + droppedRecords
+            + " metric records while the database was unavailable");
+        droppedRecords = 0;
+      }
+    } catch (SQLException e) {
+      if (DEBUG)
+        logger.info("Error during flush: " + e.toString());
+      closeConnection();
+      backOff(now);
     }
-    conn = null;
+  }
+
+  /**
+   * Buffer a record to be written on the next flush.  The oldest record is
+   * dropped if the buffer is full.
+   *
+   * @param record the record
+   */
+  protected void bufferRecord(BufferedRecord record) {
+    if (bufferedRecords.size() >= maxBufferedRecords) {
+      bufferedRecords.removeFirst();
+      droppedRecords++;
+    }
+    bufferedRecords.addLast(record);
+  }
+
+  /**
+   * Create a record to be buffered.
+   *
+   * @param recordTypeContext the record context
+   * @param recordTypeName    the record name
+   * @param tags              the record tags
+   * @param recordTimestamp   the record timestamp
+   *
+   * @return the record
+   */
+  protected BufferedRecord createRecord(String recordTypeContext,
+                                        String recordTypeName,
+                                        Iterable<MetricsTag> tags,
+                                        long recordTimestamp) {
+    return new BufferedRecord(recordTypeContext, recordTypeName,
+        getTagString(tags), recordTimestamp);
+  }
+
+  // write the buffered records, removing them from the buffer once their
+  // values are written
+  private void writeBufferedRecords() throws SQLException {
+    List<BufferedRecord> records = new ArrayList<BufferedRecord>(bufferedRecords);
+    String localNodeName = getLocalNodeName();
+    String localNodeIPAddress = getLocalNodeIPAddress();
+    String clusterNodeName = getClusterNodeName();
+
+    int batchedRecords = 0;
+    for (BufferedRecord record : records) {
+      long metricRecordID = callGetMetricRecord(record.recordTypeContext,
+          record.recordTypeName, localNodeName, localNodeIPAddress,
+          clusterNodeName, currentServiceName, record.tagPairs,
+          record.recordTimestamp);
+      for (String[] value : record.values) {
+        addMetricValue(metricRecordID, value[0], value[1]);
+      }
+      batchedRecords++;
+
+      // only execute between records so that a failed batch never leaves
+      // the values of a record partially written
+      if (batchedValues >= batchSize) {
+        executeBatch();
+        removeBufferedRecords(batchedRecords);
+        batchedRecords = 0;
+      }
+    }
+    executeBatch();
+    removeBufferedRecords(batchedRecords);
+  }
+
+  private void removeBufferedRecords(int count) {
+    for (int i = 0; i < count; i++) {
+      bufferedRecords.removeFirst();
+    }
+  }
+
+  private void backOff(long now) {
+    retryInterval = retryInterval == 0 ? MIN_RETRY_INTERVAL
+        : Math.min(retryInterval * 2, maxRetryInterval);
+    nextWriteTime = now + retryInterval;
+    if (DEBUG)
+      logger.info("Retrying metrics write in " + retryInterval + " ms, "
+          + bufferedRecords.size() + " records buffered");
   }
 
   public String getLocalNodeName() {
@@ -201,97 +345,124 @@ public abstract class SqlServerSink implements MetricsSink {
     return conn != null;
   }
 
+  // close the connection along with its prepared calls, discarding the
+  // batched metric values
+  private void closeConnection() {
+    closeStatement(getMetricRecordStatement);
+    closeStatement(insertMetricValueStatement);
+    getMetricRecordStatement = null;
+    insertMetricValueStatement = null;
+    batchedValues = 0;
+    try {
+      if (conn != null)
+        conn.close();
+    } catch (Exception e) {
+      // do nothing
+    }
+    conn = null;
+  }
+
+  private void closeStatement(CallableStatement cstmt) {
+    if (cstmt != null) {
+      try {
+        cstmt.close();
+      } catch (SQLException se) {
+        if (DEBUG)
+          logger.info("Error during close cstmt: " + se.toString());
+      }
+    }
+  }
+
   public long getMetricRecordID(String recordTypeContext,
                                 String recordTypeName, String nodeName, String sourceIP,
                                 String clusterName, String serviceName, String tagPairs, long recordTimestamp) {
-    CallableStatement cstmt = null;
-    long result;
-    if (recordTypeContext == null || recordTypeName == null || nodeName == null
-        || sourceIP == null || tagPairs == null)
-      return -1;
-
-    int colid = 1;
     try {
       if (ensureConnection()) {
-        cstmt = conn
-            .prepareCall("{call dbo.uspGetMetricRecord(?, ?, ?, ?, ?, ?, ?, ?, ?)}");
-        cstmt.setNString(colid++, recordTypeContext);
-        cstmt.setNString(colid++, recordTypeName);
-        cstmt.setNString(colid++, nodeName);
-        cstmt.setNString(colid++, sourceIP);
-        cstmt.setNString(colid++, clusterName);
-        cstmt.setNString(colid++, serviceName);
-        cstmt.setNString(colid++, tagPairs);
-        cstmt.setLong(colid++, recordTimestamp);
-        cstmt.registerOutParameter(colid, java.sql.Types.BIGINT);
-        cstmt.execute();
-        result = cstmt.getLong(colid);
-        if (cstmt.wasNull())
-          return -1;
-        return result;
+        return callGetMetricRecord(recordTypeContext, recordTypeName, nodeName,
+            sourceIP, clusterName, serviceName, tagPairs, recordTimestamp);
       }
     } catch (Exception e) {
       if (DEBUG)
         logger.info("Error during getMetricRecordID call sproc: "
             + e.toString());
-      flush();
-    } finally {
-      if (cstmt != null) {
-        try {
-          cstmt.close();
-        } catch (SQLException se) {
-          if (DEBUG)
-            logger.info("Error during getMetricRecordID close cstmt: "
-                + se.toString());
-        }
-        /*
-         * We don't close the connection here because we are likely to be
-         * writing
-         * metric values next and it is more efficient to share the connection.
-         */
-      }
+      closeConnection();
     }
     return -1;
   }
 
-  /* 
-   * TODO: Think about sending all of this in one SP call if JDBC supports table
-   * valued parameters.
+  /**
+   * Add a metric value to the batch of values written on the next flush or
+   * once the batch is full.
    */
   public void insertMetricValue(long metricRecordID, String metricName,
                                 String metricValue) {
-    CallableStatement cstmt = null;
-    if (metricRecordID < 0 || metricName == null || metricValue == null)
-      return;
     try {
       if (ensureConnection()) {
-        cstmt = conn.prepareCall("{call dbo.uspInsertMetricValue(?, ?, ?)}");
-        cstmt.setLong(1, metricRecordID);
-        cstmt.setNString(2, metricName);
-        cstmt.setNString(3, metricValue);
-        cstmt.execute();
+        addMetricValue(metricRecordID, metricName, metricValue);
+        if (batchedValues >= batchSize)
+          executeBatch();
       }
     } catch (Exception e) {
       if (DEBUG)
         logger.info("Error during insertMetricValue call sproc: "
             + e.toString());
-      flush();
-    } finally {
-      if (cstmt != null) {
-        try {
-          cstmt.close();
-        } catch (SQLException se) {
-          if (DEBUG)
-            logger.info("Error during insertMetricValue close cstmt: "
-                + se.toString());
-        }
-        /*
-         * We don't close the connection here because we are likely to be
-         * writing
-         * more metric values next and it is more efficient to share the
-         * connection.
-         */
-      }
+      closeConnection();
+    }
+  }
+
+  private long callGetMetricRecord(String recordTypeContext,
+                                   String recordTypeName, String nodeName, String sourceIP,
+                                   String clusterName, String serviceName, String tagPairs,
+                                   long recordTimestamp) throws SQLException {
+    if (recordTypeContext == null || recordTypeName == null || nodeName == null
+        || sourceIP == null || tagPairs == null)
+      return -1;
+
+    if (getMetricRecordStatement == null)
+      getMetricRecordStatement = conn.prepareCall(GET_METRIC_RECORD_CALL);
+
+    CallableStatement cstmt = getMetricRecordStatement;
+    int colid = 1;
+    cstmt.setNString(colid++, recordTypeContext);
+    cstmt.setNString(colid++, recordTypeName);
+    cstmt.setNString(colid++, nodeName);
+    cstmt.setNString(colid++, sourceIP);
+    cstmt.setNString(colid++, clusterName);
+    cstmt.setNString(colid++, serviceName);
+    cstmt.setNString(colid++, tagPairs);
+    cstmt.setLong(colid++, recordTimestamp);
+    cstmt.registerOutParameter(colid, java.sql.Types.BIGINT);
+    cstmt.execute();
+    long result = cstmt.getLong(colid);
+    if (cstmt.wasNull())
+      return -1;
+    return result;
+  }
+
+  /*
+   * The metric values are sent as a JDBC batch rather than as a table valued
+   * parameter, which the driver and the stored procedures don't support.
+   */
+  private void addMetricValue(long metricRecordID, String metricName,
+                              String metricValue) throws SQLException {
+    if (metricRecordID < 0 || metricName == null || metricValue == null)
+      return;
+
+    if (insertMetricValueStatement == null)
+      insertMetricValueStatement = conn.prepareCall(INSERT_METRIC_VALUE_CALL);
+
+    CallableStatement cstmt = insertMetricValueStatement;
+    cstmt.setLong(1, metricRecordID);
+    cstmt.setNString(2, metricName);
+    cstmt.setNString(3, metricValue);
+    cstmt.addBatch();
+    batchedValues++;
+  }
+
+  private void executeBatch() throws SQLException {
+    if (batchedValues > 0) {
+      insertMetricValueStatement.executeBatch();
+      batchedValues = 0;
     }
   }
 
@@ -302,4 +473,35 @@ public abstract class SqlServerSink implements MetricsSink {
   public int getBlockSize() {
     return blockSize;
   }
-}
\ No newline at end of file
+
+  public int getBufferedRecordCount() {
+    return bufferedRecords.size();
+  }
+
+  public long getDroppedRecordCount() {
+    return droppedRecords;
+  }
+
+  /**
+   * A metrics record buffered until the sink is flushed.
+   */
+  protected static class BufferedRecord {
+    private final String recordTypeContext;
+    private final String recordTypeName;
+    private final String tagPairs;
+    private final long recordTimestamp;
+    private final List<String[]> values = new ArrayList<String[]>();
+
+    BufferedRecord(String recordTypeContext, String recordTypeName,
+                   String tagPairs, long recordTimestamp) {
+      this.recordTypeContext = recordTypeContext;
+      this.recordTypeName = recordTypeName;
+      this.tagPairs = tagPairs;
+      this.recordTimestamp = recordTimestamp;
+    }
+
+    public void addValue(String metricName, String metricValue) {
+      values.add(new String[]{metricName, metricValue});
+    }
+  }
+}
@@ -23,19 +23,15 @@ import org.apache.hadoop.metrics2.MetricsRecord;
 public class SqlServerSinkHadoop1 extends SqlServerSink {
   @Override
   public void putMetrics(MetricsRecord record) {
-    long metricRecordID = getMetricRecordID(record.context(), record.name(),
-            getLocalNodeName(), getLocalNodeIPAddress(), getClusterNodeName(), getCurrentServiceName(),
-            getTagString(record.tags()), record.timestamp());
-    if (metricRecordID < 0)
-      return;
+    BufferedRecord bufferedRecord = createRecord(record.context(), record.name(),
+            record.tags(), record.timestamp());
 
     for (Metric metric : record.metrics()) {
-      insertMetricValue(metricRecordID, metric.name(), String.valueOf(metric
-              .value()));
+      bufferedRecord.addValue(metric.name(), String.valueOf(metric.value()));
       if (metric.name().equals("BlockCapacity")) {
-        insertMetricValue(metricRecordID, "BlockSize", Integer
-                .toString(getBlockSize()));
+        bufferedRecord.addValue("BlockSize", Integer.toString(getBlockSize()));
       }
     }
+    bufferRecord(bufferedRecord);
   }
 }
@@ -18,14 +18,25 @@
 
 package org.apache.ambari.view.filebrowser;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.FileNameMap;
 import java.net.URLConnection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -48,6 +59,7 @@ import javax.xml.bind.annotation.XmlElement;
 import com.google.gson.Gson;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.io.IOUtils;
 import org.apache.ambari.view.ViewContext;
 import org.json.simple.JSONObject;
 //import org.glassfish.jersey.server.ChunkedOutput;
@@ -57,19 +69,35 @@ import org.json.simple.JSONObject;
  */
 public class DownloadService extends HdfsService {
 
-    public static class DownloadRequest {
-        @XmlElement(nillable = false, required = true)
-        public String[] entries;
-        @XmlElement(required = false)
-        public boolean download;
-    }
+    // not defined by Response.Status in JAX-RS 1.1
+    private static final int SC_PARTIAL_CONTENT = 206;
+    private static final int SC_REQUESTED_RANGE_NOT_SATISFIABLE = 416;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFER_POOL_SIZE = 16;
+
+    /**
+     * Number of files read ahead of the zip entry being written
+     */
+    private static final int PREFETCH_DEPTH = 4;
+
+    /**
+     * Files up to this size are read whole while read ahead, larger ones are only opened
+     */
+    private static final long PREFETCH_MAX_FILE_SIZE = 1024 * 1024;
+
+    /**
+     * Copy buffers shared by all downloads
+     */
+    private static final BlockingQueue<byte[]> bufferPool =
+        new ArrayBlockingQueue<byte[]>(BUFFER_POOL_SIZE);
 
     public DownloadService(ViewContext context) {
         super(context);
     }
 
   /**
-   * Download entire file
+   * Download entire file, or the single byte range requested by the Range header
    * @param path path to file
    * @param download download as octet strem or as file mime type
    * @param headers http headers
@@ -81,11 +109,30 @@ public class DownloadService extends HdfsService {
     @Produces(MediaType.TEXT_PLAIN)
     public Response browse(@QueryParam("path") String path, @QueryParam("download") boolean download,
         @Context HttpHeaders headers, @Context UriInfo ui) {
+        FSDataInputStream fs = null;
+        boolean streaming = false;
         try {
             HdfsApi api = getApi(context);
             FileStatus status = api.getFileStatus(path);
-            FSDataInputStream fs = api.open(path);
-            ResponseBuilder result = Response.ok(fs);
+            long length = status.getLen();
+            long[] range = parseRange(getRangeHeader(headers), length);
+            if (range != null && range[0] >= length) {
+                return Response.status(SC_REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + length).build();
+            }
+            fs = api.open(path);
+            ResponseBuilder result;
+            if (range == null) {
+                result = Response.ok(streamFile(fs, length))
+                    .header("Content-Length", length);
+            } else {
+                long count = range[1] - range[0] + 1;
+                fs.seek(range[0]);
+                result = Response.status(SC_PARTIAL_CONTENT).entity(streamFile(fs, count))
+                    .header("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length)
+                    .header("Content-Length", count);
+            }
+            result.header("Accept-Ranges", "bytes");
             if (download) {
                 result.header("Content-Disposition",
                     "inline; filename=\"" + status.getPath().getName() + "\"").type(MediaType.APPLICATION_OCTET_STREAM);
@@ -95,33 +142,102 @@ public class DownloadService extends HdfsService {
                 result.header("Content-Disposition",
                     "filename=\"" + status.getPath().getName() + "\"").type(mimeType);
             }
-            return result.build();
+            Response response = result.build();
+            // from here on the stream is closed once the response has been written
+            streaming = true;
+            return response;
         } catch (FileNotFoundException ex) {
             return Response.ok(Response.Status.NOT_FOUND.getStatusCode())
                 .entity(ex.getMessage()).build();
         } catch (Exception ex) {
             return Response.ok(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode())
                 .entity(ex.getMessage()).build();
+        } finally {
+            if (!streaming) {
+                IOUtils.closeStream(fs);
+            }
         }
     }
 
-    private void zipFile(ZipOutputStream zip, String path)
-        throws InterruptedException, Exception {
+    private StreamingOutput streamFile(final FSDataInputStream in, final long count) {
+        return new StreamingOutput() {
+            public void write(OutputStream output) throws IOException,
+                WebApplicationException {
+                byte[] buffer = acquireBuffer();
+                try {
+                    copy(in, output, buffer, count);
+                } finally {
+                    releaseBuffer(buffer);
+                    in.close();
+                }
+            }
+        };
+    }
+
+    private static String getRangeHeader(HttpHeaders headers) {
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.getRequestHeader("Range");
+        return (values == null || values.size() != 1) ? null : values.get(0);
+    }
+
+    /**
+     * Parse a single byte range; multiple ranges are not supported
+     * @param header Range header
+     * @param length file length
+     * @return first and last byte of the range, the first one not before the file end if the range
+     * can not be satisfied; null if the header is absent or not a single byte range
+     */
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
         try {
-            zip.putNextEntry(new ZipEntry(path.substring(1)));
-            FSDataInputStream in = getApi(context).open(path);
-            byte[] chunk = new byte[1024];
-            while (in.read(chunk) != -1) {
-                zip.write(chunk);
+            if (first.isEmpty()) {
+                // the last bytes of the file
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) {
+                    return null;
+                }
+                return new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            return new long[] { start, Math.min(end, length - 1) };
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void zipFile(ZipOutputStream zip, PrefetchedFile file, byte[] buffer)
+        throws InterruptedException, IOException {
+        String name = file.path.substring(1);
+        try {
+            zip.putNextEntry(new ZipEntry(name));
+            InputStream in = file.getStream();
+            try {
+                copy(in, zip, buffer, -1);
+            } finally {
+                in.close();
             }
         } catch (IOException ex) {
-            logger.error("Error zipping file " + path.substring(1) + ": "
+            logger.error("Error zipping file " + name + ": "
                 + ex.getMessage());
-            zip.write(ex.getMessage().getBytes());
+            zip.write(String.valueOf(ex.getMessage()).getBytes());
         } finally {
             zip.closeEntry();
         }
-
     }
 
     private void zipDirectory(ZipOutputStream zip, String path) {
@@ -148,30 +264,51 @@ public class DownloadService extends HdfsService {
             public void write(OutputStream output) throws IOException,
                 WebApplicationException {
                 ZipOutputStream zip = new ZipOutputStream(output);
+                ExecutorService prefetcher = Executors.newFixedThreadPool(PREFETCH_DEPTH, new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "files-view-prefetch");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+                // files read ahead, in the order of their zip entries
+                Queue<PrefetchedFile> pending = new LinkedList<PrefetchedFile>();
+                byte[] buffer = acquireBuffer();
                 try {
                     HdfsApi api = getApi(context);
-                    Queue<String> files = new LinkedList<String>();
+                    Queue<FileStatus> files = new LinkedList<FileStatus>();
                     for (String file : request.entries) {
-                        files.add(file);
+                        files.add(api.getFileStatus(file));
                     }
                     while (!files.isEmpty()) {
-                        String path = files.poll();
-                        FileStatus status = api.getFileStatus(path);
+                        FileStatus status = files.poll();
+                        String path = org.apache.hadoop.fs.Path
+                            .getPathWithoutSchemeAndAuthority(status.getPath())
+                            .toString();
                         if (status.isDirectory()) {
                             FileStatus[] subdir = api.listdir(path);
                             for (FileStatus file : subdir) {
-                                files.add(org.apache.hadoop.fs.Path
-                                    .getPathWithoutSchemeAndAuthority(file.getPath())
-                                    .toString());
+                                files.add(file);
                             }
                             zipDirectory(zip, path);
                         } else {
-                            zipFile(zip, path);
+                            pending.add(new PrefetchedFile(prefetcher, api, path, status.getLen()));
+                            if (pending.size() > PREFETCH_DEPTH) {
+                                zipFile(zip, pending.poll(), buffer);
+                            }
                         }
                     }
+                    while (!pending.isEmpty()) {
+                        zipFile(zip, pending.poll(), buffer);
+                    }
                 } catch (Exception ex) {
                     logger.error("Error occured: " + ex.getMessage());
                 } finally {
+                    prefetcher.shutdownNow();
+                    for (PrefetchedFile file : pending) {
+                        file.discard();
+                    }
+                    releaseBuffer(buffer);
                     zip.close();
                 }
             }
@@ -193,20 +330,23 @@ public class DownloadService extends HdfsService {
         StreamingOutput result = new StreamingOutput() {
             public void write(OutputStream output) throws IOException,
                 WebApplicationException {
-                FSDataInputStream in = null;
-                for (String path : request.entries) {
-                    try {
-                        in = getApi(context).open(path);
-                        byte[] chunk = new byte[1024];
-                        while (in.read(chunk) != -1) {
-                            output.write(chunk);
+                byte[] buffer = acquireBuffer();
+                try {
+                    for (String path : request.entries) {
+                        FSDataInputStream in = null;
+                        try {
+                            in = getApi(context).open(path);
+                            copy(in, output, buffer, -1);
+                        } catch (Exception ex) {
+                            logger.error("Error concatenating file " + path + ": "
+                                + ex.getMessage());
+                        } finally {
+                            if (in != null)
+                                in.close();
                         }
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    } finally {
-                        if (in != null)
-                            in.close();
                     }
+                } finally {
+                    releaseBuffer(buffer);
                 }
             }
         };
@@ -297,6 +437,99 @@ public class DownloadService extends HdfsService {
         return uuid;
     }
 
+    private static byte[] acquireBuffer() {
+        byte[] buffer = bufferPool.poll();
+        return buffer == null ? new byte[BUFFER_SIZE] : buffer;
+    }
+
+    private static void releaseBuffer(byte[] buffer) {
+        bufferPool.offer(buffer);
+    }
+
+    /**
+     * Copy a stream, writing only the bytes actually read
+     * @param in input stream
+     * @param out output stream
+     * @param buffer copy buffer
+     * @param limit maximum number of bytes to copy; negative to copy the whole stream
+     * @return number of bytes copied
+     * @throws IOException
+     */
+    static long copy(InputStream in, OutputStream out, byte[] buffer, long limit)
+        throws IOException {
+        long copied = 0;
+        while (limit < 0 || copied < limit) {
+            int length = limit < 0 ? buffer.length : (int) Math.min(buffer.length, limit - copied);
+            int count = in.read(buffer, 0, length);
+            if (count == -1) {
+                break;
+            }
+            out.write(buffer, 0, count);
+            copied += count;
+        }
+        return copied;
+    }
+
+    /**
+     * File read ahead of its zip entry: opened by a prefetch thread and,
+     * if small, read whole
+     */
+    private static class PrefetchedFile {
+        private final String path;
+        private final Future<InputStream> stream;
+
+        PrefetchedFile(ExecutorService prefetcher, final HdfsApi api,
+                       final String path, final long length) {
+            this.path = path;
+            this.stream = prefetcher.submit(new Callable<InputStream>() {
+                public InputStream call() throws Exception {
+                    FSDataInputStream in = api.open(path);
+                    if (length > PREFETCH_MAX_FILE_SIZE) {
+                        return in;
+                    }
+                    try {
+                        byte[] content = new byte[(int) length];
+                        in.readFully(0, content);
+                        return new ByteArrayInputStream(content);
+                    } finally {
+                        in.close();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Wait for the file to be opened or read
+         * @return stream of the file contents
+         * @throws IOException if the file could not be read
+         * @throws InterruptedException
+         */
+        InputStream getStream() throws IOException, InterruptedException {
+            try {
+                return stream.get();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+
+        /**
+         * Stop reading the file, closing it if it has been opened
+         */
+        void discard() {
+            if (!stream.cancel(true) && !stream.isCancelled()) {
+                try {
+                    stream.get().close();
+                } catch (Exception ex) {
+                    logger.debug("Error closing file " + path + ": " + ex.getMessage());
+                }
+            }
+        }
+    }
+
     /*
      * Temporary use Stream Output
      *
@@ -23,16 +23,22 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.ambari.view.ViewContext;
@@ -155,6 +161,72 @@ public class FilebrowserTest{
     Response result = fileBrowserService.download().downloadGZip(dr);
   }
 
+  @Test
+  public void testStreamingZipFiles() throws Exception {
+    for (int i = 0; i < 6; i++) {
+      uploadFile("/tmp/", "testZip" + i, ".txt", "Hello world" + i);
+    }
+    DownloadService.DownloadRequest dr = new DownloadService.DownloadRequest();
+    dr.entries = new String[6];
+    for (int i = 0; i < 6; i++) {
+      dr.entries[i] = "/tmp/testZip" + i + ".txt";
+    }
+
+    Response result = fileBrowserService.download().downloadGZip(dr);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) result.getEntity()).write(out);
+
+    // entries keep the request order while later files are read ahead
+    ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+    for (int i = 0; i < 6; i++) {
+      ZipEntry entry = zip.getNextEntry();
+      Assert.assertEquals("tmp/testZip" + i + ".txt", entry.getName());
+      Assert.assertEquals("Hello world" + i, readFully(zip));
+    }
+    Assert.assertNull(zip.getNextEntry());
+  }
+
+  @Test
+  public void testDownloadRange() throws Exception {
+    uploadFile("/tmp/", "testRange", ".tmp", "Hello world");
+    HttpHeaders rangeHeaders = createNiceMock(HttpHeaders.class);
+    expect(rangeHeaders.getRequestHeader("Range")).andReturn(Collections.singletonList("bytes=6-")).anyTimes();
+    replay(rangeHeaders);
+
+    Response response = fileBrowserService.download().browse("/tmp/testRange.tmp", true, rangeHeaders, uriInfo);
+    Assert.assertEquals(206, response.getStatus());
+    Assert.assertEquals("bytes 6-10/11", response.getMetadata().getFirst("Content-Range"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    Assert.assertEquals("world", out.toString());
+  }
+
+  @Test
+  public void testDownloadRangeNotSatisfiable() throws Exception {
+    uploadFile("/tmp/", "testRange", ".tmp", "Hello world");
+    HttpHeaders rangeHeaders = createNiceMock(HttpHeaders.class);
+    expect(rangeHeaders.getRequestHeader("Range")).andReturn(Collections.singletonList("bytes=20-")).anyTimes();
+    replay(rangeHeaders);
+
+    Response response = fileBrowserService.download().browse("/tmp/testRange.tmp", true, rangeHeaders, uriInfo);
+    Assert.assertEquals(416, response.getStatus());
+    Assert.assertEquals("bytes */11", response.getMetadata().getFirst("Content-Range"));
+  }
+
+  @Test
+  public void testParseRange() throws Exception {
+    Assert.assertArrayEquals(new long[] { 0, 4 }, DownloadService.parseRange("bytes=0-4", 11));
+    Assert.assertArrayEquals(new long[] { 6, 10 }, DownloadService.parseRange("bytes=6-100", 11));
+    Assert.assertArrayEquals(new long[] { 8, 10 }, DownloadService.parseRange("bytes=-3", 11));
+    Assert.assertArrayEquals(new long[] { 0, 10 }, DownloadService.parseRange("bytes=-30", 11));
+    Assert.assertNull(DownloadService.parseRange("bytes=0-1,4-5", 11));
+    Assert.assertNull(DownloadService.parseRange("bytes=5-1", 11));
+    Assert.assertNull(DownloadService.parseRange("items=0-4", 11));
+    Assert.assertNull(DownloadService.parseRange(null, 11));
+    // a suffix range of an empty file starts at its end, so browse answers it with 416
+    Assert.assertArrayEquals(new long[] { 0, -1 }, DownloadService.parseRange("bytes=-5", 0));
+  }
+
   @Test
   public void testUsername() throws Exception {
     Assert.assertEquals(System.getProperty("user.name"), fileBrowserService.upload().getUsername(context));
@@ -162,6 +234,16 @@ public class FilebrowserTest{
     Assert.assertEquals("test-user", fileBrowserService.upload().getUsername(context));
   }
 
+  private static String readFully(InputStream in) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count;
+    while ((count = in.read(buffer)) != -1) {
+      out.write(buffer, 0, count);
+    }
+    return out.toString();
+  }
+
   private static <T> T getService(Class<T> clazz,
                                   final ViewResourceHandler viewResourceHandler,
                                   final ViewContext viewInstanceContext) {
@@ -0,0 +1,537 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.view.pig.persistence;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.ambari.view.ViewContext;
+import org.apache.ambari.view.pig.persistence.utils.FilteringStrategy;
+import org.apache.ambari.view.pig.persistence.utils.Indexed;
+import org.apache.ambari.view.pig.persistence.utils.ItemNotFound;
+import org.apache.ambari.view.pig.persistence.utils.OnlyOwnersFilteringStrategy;
+import org.apache.ambari.view.pig.persistence.utils.Owned;
+import org.apache.commons.configuration.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.ws.WebServiceException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Engine for storing objects to a local append-only log file.
+ *
+ * Every store and delete appends one line to the log. Stored objects are kept
+ * in memory indexed by class and id, and by owner, so loading never touches
+ * the file and never waits for a writer. The log is rewritten with only the
+ * live objects once it holds more obsolete lines than live ones.
+ *
+ * The log is kept next to the file configured by dataworker.storagePath; data
+ * of the properties file storage found there is imported on first use.
+ */
+public class LogKeyValueStorage implements Storage {
+  private final static Logger LOG =
+      LoggerFactory.getLogger(LogKeyValueStorage.class);
+
+  private static final String LOG_SUFFIX = ".log";
+  private static final String PUT = "PUT";
+  private static final String DELETE = "DEL";
+  private static final String INDEX = "IDX";
+  private static final String SEPARATOR = "\t";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * Number of obsolete lines the log may hold before it is compacted
+   */
+  private static final int MIN_COMPACTION_LINES = 1000;
+
+  protected final Gson gson = new Gson();
+  protected ViewContext context;
+
+  private final ConcurrentMap<String, ModelIndex> indexes =
+      new ConcurrentHashMap<String, ModelIndex>();
+
+  private volatile boolean opened = false;
+  private File logFile;
+  private Writer writer;
+  private int obsoleteLines = 0;
+
+  /**
+   * Constructor
+   * @param context View Context instance
+   */
+  public LogKeyValueStorage(ViewContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public synchronized void store(Indexed obj) {
+    ModelIndex index = getIndex(obj.getClass());
+
+    if (obj.getId() == null) {
+      obj.setId(Integer.toString(index.lastId + 1));
+    }
+
+    int id = Integer.parseInt(obj.getId());
+    String owner = (obj instanceof Owned) ? ((Owned) obj).getOwner() : null;
+    String json = serialize(obj);
+    append(getPutLine(obj.getClass().getName(), id, owner, json));
+    if (index.put(id, json, owner)) {
+      obsoleteLines++;
+    }
+    compactIfNeeded();
+  }
+
+  @Override
+  public <T extends Indexed> T load(Class<T> model, int id) throws ItemNotFound {
+    LOG.debug(String.format("Loading %s.%d", model.getName(), id));
+    String json = getIndex(model).items.get(id);
+    if (json == null) {
+      throw new ItemNotFound();
+    }
+    return deserialize(model, json);
+  }
+
+  @Override
+  public <T extends Indexed> List<T> loadAll(Class<T> model, FilteringStrategy filter) {
+    LOG.debug(String.format("Loading all %s-s", model.getName()));
+    ModelIndex index = getIndex(model);
+
+    Collection<String> jsons;
+    if (filter instanceof OnlyOwnersFilteringStrategy) {
+      jsons = index.getOwnedItems(((OnlyOwnersFilteringStrategy) filter).getUsername());
+    } else {
+      jsons = index.items.values();
+    }
+
+    ArrayList<T> list = new ArrayList<T>(jsons.size());
+    for (String json : jsons) {
+      T item = deserialize(model, json);
+      if ((filter == null) || filter.isConform(item)) {
+        list.add(item);
+      }
+    }
+    return list;
+  }
+
+  @Override
+  public <T extends Indexed> List<T> loadAll(Class<T> model) {
+    return loadAll(model, new OnlyOwnersFilteringStrategy(this.context.getUsername()));
+  }
+
+  @Override
+  public synchronized void delete(Class model, int id) {
+    LOG.debug(String.format("Deleting %s:%d", model.getName(), id));
+    if (getIndex(model).remove(id)) {
+      append(DELETE + SEPARATOR + model.getName() + SEPARATOR + id);
+      // both the stored line and the delete line are obsolete
+      obsoleteLines += 2;
+      compactIfNeeded();
+    }
+  }
+
+  @Override
+  public boolean exists(Class model, int id) {
+    return getIndex(model).items.containsKey(id);
+  }
+
+  protected String serialize(Indexed obj) {
+    return gson.toJson(obj);
+  }
+
+  protected <T extends Indexed> T deserialize(Class<T> model, String json) {
+    return gson.fromJson(json, model);
+  }
+
+  /**
+   * Returns the index of the given bean class, opening the storage if needed
+   * @param model bean class
+   * @return index
+   */
+  private ModelIndex getIndex(Class model) {
+    if (!opened) {
+      open();
+    }
+    return getIndex(model.getName());
+  }
+
+  private ModelIndex getIndex(String modelName) {
+    ModelIndex index = indexes.get(modelName);
+    if (index == null) {
+      index = new ModelIndex();
+      ModelIndex existing = indexes.putIfAbsent(modelName, index);
+      if (existing != null) {
+        index = existing;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Loads the log into memory, importing the properties file storage if there is no log yet
+   */
+  private synchronized void open() {
+    if (opened) {
+      return;
+    }
+    String fileName = context.getProperties().get("dataworker.storagePath");
+    if (fileName == null) {
+      String msg = "dataworker.storagePath is not configured!";
+      LOG.error(msg);
+      throw new WebServiceException(msg);
+    }
+    logFile = new File(fileName + LOG_SUFFIX);
+    try {
+      File tmpFile = getTmpFile();
+      if (!logFile.exists() && tmpFile.exists()) {
+        // compaction was interrupted after the complete log had been written
+        replaceLog(tmpFile);
+      }
+      if (logFile.exists()) {
+        truncatePartialLine();
+        replay();
+        writer = openWriter(logFile, true);
+      } else {
+        File legacyFile = new File(fileName);
+        if (legacyFile.exists()) {
+          importProperties(legacyFile);
+        }
+        compact();
+      }
+    } catch (IOException e) {
+      String msg = "Unable to open storage " + logFile;
+      LOG.error(msg, e);
+      throw new WebServiceException(msg, e);
+    }
+    opened = true;
+  }
+
+  /**
+   * Cuts off a last line left incomplete by a crash while appending, so that
+   * the next record does not end up on the same line
+   * @throws IOException
+   */
+  private void truncatePartialLine() throws IOException {
+    RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+    try {
+      long length = file.length();
+      // the end of the last complete line; '\n' never occurs inside a multi-byte character
+      long completeLength = 0;
+      byte[] buffer = new byte[4096];
+      for (long end = length; end > 0 && completeLength == 0; ) {
+        int count = (int) Math.min(buffer.length, end);
+        end -= count;
+        file.seek(end);
+        file.readFully(buffer, 0, count);
+        for (int i = count - 1; i >= 0; i--) {
+          if (buffer[i] == '\n') {
+            completeLength = end + i + 1;
+            break;
+          }
+        }
+      }
+      if (completeLength < length) {
+        LOG.warn(String.format("Discarding %d bytes of an incomplete last line of %s",
+            length - completeLength, logFile));
+        file.setLength(completeLength);
+      }
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Rebuilds the indexes from the log
+   * @throws IOException
+   */
+  private void replay() throws IOException {
+    BufferedReader reader = new BufferedReader(
+        new InputStreamReader(new FileInputStream(logFile), UTF8));
+    try {
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        String[] fields = line.split(SEPARATOR, 5);
+        try {
+          ModelIndex index = getIndex(fields[1]);
+          int id = Integer.parseInt(fields[2]);
+
+          if (PUT.equals(fields[0]) && fields.length == 5) {
+            String owner = fields[3].isEmpty() ? null : fields[3];
+            if (index.put(id, fields[4], owner)) {
+              obsoleteLines++;
+            }
+          } else if (DELETE.equals(fields[0])) {
+            index.remove(id);
+            index.lastId = Math.max(index.lastId, id);
+            obsoleteLines += 2;
+          } else if (INDEX.equals(fields[0])) {
+            index.lastId = Math.max(index.lastId, id);
+          } else {
+            LOG.warn(String.format("Skipping malformed line %d of %s", lineNumber, logFile));
+          }
+        } catch (RuntimeException e) {
+          LOG.warn(String.format("Skipping malformed line %d of %s", lineNumber, logFile));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Loads the objects of the properties file storage
+   * @param file properties file
+   */
+  private void importProperties(File file) {
+    LOG.info("Importing " + file + " to " + logFile);
+    try {
+      PersistentConfiguration config = new PersistentConfiguration(file.getPath());
+      JsonParser parser = new JsonParser();
+      for (Iterator keys = config.getKeys(); keys.hasNext(); ) {
+        String key = (String) keys.next();
+
+        if (key.endsWith(":index")) {
+          ModelIndex index = getIndex(key.substring(0, key.length() - ":index".length()));
+          index.lastId = Math.max(index.lastId, config.getInt(key, 0));
+          continue;
+        }
+
+        int separator = key.lastIndexOf('.');
+        if (separator < 0) {
+          continue;
+        }
+        int id;
+        try {
+          id = Integer.parseInt(key.substring(separator + 1));
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        String json = config.getString(key);
+        String owner = null;
+        JsonElement element = parser.parse(json);
+        if (element.isJsonObject()) {
+          JsonElement ownerElement = element.getAsJsonObject().get("owner");
+          if (ownerElement != null && ownerElement.isJsonPrimitive()) {
+            owner = ownerElement.getAsString();
+          }
+        }
+        getIndex(key.substring(0, separator)).put(id, json, owner);
+      }
+    } catch (ConfigurationException e) {
+      LOG.error("Unable to import " + file, e);
+    } catch (RuntimeException e) {
+      LOG.error("Unable to import " + file, e);
+    }
+  }
+
+  private void append(String line) {
+    try {
+      writer.write(line);
+      writer.write('\n');
+      writer.flush();
+    } catch (IOException e) {
+      String msg = "Unable to write to storage " + logFile;
+      LOG.error(msg, e);
+      throw new WebServiceException(msg, e);
+    }
+  }
+
+  private void compactIfNeeded() {
+    int liveLines = 0;
+    for (ModelIndex index : indexes.values()) {
+      liveLines += index.items.size();
+    }
+    if (obsoleteLines > MIN_COMPACTION_LINES && obsoleteLines > liveLines) {
+      try {
+        compact();
+      } catch (IOException e) {
+        LOG.error("Unable to compact storage " + logFile, e);
+      }
+    }
+  }
+
+  /**
+   * Rewrites the log with the live objects only, then reopens it for appending.
+   * If the log can not be replaced it stays open for appending, and if it was
+   * deleted without being replaced it is started over with the live objects.
+   * @throws IOException
+   */
+  private void compact() throws IOException {
+    File tmpFile = getTmpFile();
+    Writer tmpWriter = openWriter(tmpFile, false);
+    try {
+      writeLiveObjects(tmpWriter);
+    } finally {
+      tmpWriter.close();
+    }
+
+    if (writer != null) {
+      writer.close();
+      writer = null;
+    }
+    try {
+      replaceLog(tmpFile);
+      obsoleteLines = 0;
+    } finally {
+      boolean logLost = !logFile.exists();
+      writer = openWriter(logFile, true);
+      if (logLost) {
+        writeLiveObjects(writer);
+        writer.flush();
+      }
+    }
+  }
+
+  private void writeLiveObjects(Writer out) throws IOException {
+    for (Map.Entry<String, ModelIndex> entry : indexes.entrySet()) {
+      String modelName = entry.getKey();
+      ModelIndex index = entry.getValue();
+
+      out.write(INDEX + SEPARATOR + modelName + SEPARATOR + index.lastId + '\n');
+      for (Map.Entry<Integer, String> item : index.items.entrySet()) {
+        out.write(getPutLine(modelName, item.getKey(), index.owners.get(item.getKey()), item.getValue()));
+        out.write('\n');
+      }
+    }
+  }
+
+  private File getTmpFile() {
+    return new File(logFile.getPath() + ".tmp");
+  }
+
+  /**
+   * Replaces the log with the given compacted log
+   * @param tmpFile the compacted log
+   * @throws IOException if the log could not be replaced
+   */
+  protected void replaceLog(File tmpFile) throws IOException {
+    // renaming over an existing file fails on some platforms
+    if (!tmpFile.renameTo(logFile) && !(logFile.delete() && tmpFile.renameTo(logFile))) {
+      throw new IOException("Unable to replace " + logFile + " with " + tmpFile);
+    }
+  }
+
+  private static Writer openWriter(File file, boolean append) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), UTF8));
+  }
+
+  private static String getPutLine(String modelName, int id, String owner, String json) {
+    return PUT + SEPARATOR + modelName + SEPARATOR + id + SEPARATOR +
+        (owner == null ? "" : owner) + SEPARATOR + json;
+  }
+
+  /**
+   * Objects of one bean class, serialized and indexed by id and by owner.
+   * Written under the storage lock, read without locking.
+   */
+  private static class ModelIndex {
+    private final ConcurrentSkipListMap<Integer, String> items =
+        new ConcurrentSkipListMap<Integer, String>();
+    private final ConcurrentMap<Integer, String> owners =
+        new ConcurrentHashMap<Integer, String>();
+    private final ConcurrentMap<String, Set<Integer>> ownerIndex =
+        new ConcurrentHashMap<String, Set<Integer>>();
+    private volatile int lastId = 0;
+
+    /**
+     * Put an object
+     * @return true if an object with the same id was replaced
+     */
+    private boolean put(int id, String json, String owner) {
+      String previousOwner = (owner == null) ? owners.remove(id) : owners.put(id, owner);
+      if (previousOwner != null && !previousOwner.equals(owner)) {
+        getOwnerIds(previousOwner).remove(id);
+      }
+      if (owner != null) {
+        getOwnerIds(owner).add(id);
+      }
+      lastId = Math.max(lastId, id);
+      return items.put(id, json) != null;
+    }
+
+    /**
+     * Remove an object
+     * @return true if the object existed
+     */
+    private boolean remove(int id) {
+      String owner = owners.remove(id);
+      if (owner != null) {
+        getOwnerIds(owner).remove(id);
+      }
+      return items.remove(id) != null;
+    }
+
+    /**
+     * Get the serialized objects of the given owner, ordered by id
+     */
+    private Collection<String> getOwnedItems(String owner) {
+      Set<Integer> ids = ownerIndex.get(owner);
+      if (ids == null) {
+        return Collections.emptyList();
+      }
+      List<String> jsons = new ArrayList<String>(ids.size());
+      for (Integer id : ids) {
+        String json = items.get(id);
+        if (json != null) {
+          jsons.add(json);
+        }
+      }
+      return jsons;
+    }
+
+    private Set<Integer> getOwnerIds(String owner) {
+      Set<Integer> ids = ownerIndex.get(owner);
+      if (ids == null) {
+        ids = new ConcurrentSkipListSet<Integer>();
+        Set<Integer> existing = ownerIndex.putIfAbsent(owner, ids);
+        if (existing != null) {
+          ids = existing;
+        }
+      }
+      return ids;
+    }
+  }
+}
@@ -25,6 +25,14 @@ public class OnlyOwnersFilteringStrategy implements FilteringStrategy {
     this.username = username;
   }
 
+  /**
+   * Get the owner items must belong to
+   * @return owner
+   */
+  public String getUsername() {
+    return username;
+  }
+
   @Override
   public boolean isConform(Indexed item) {
     Owned object = (Owned) item;
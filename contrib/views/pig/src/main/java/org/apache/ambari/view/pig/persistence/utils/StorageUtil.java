@@ -20,7 +20,7 @@ package org.apache.ambari.view.pig.persistence.utils;
 
 import org.apache.ambari.view.ViewContext;
 import org.apache.ambari.view.pig.persistence.InstanceKeyValueStorage;
-import org.apache.ambari.view.pig.persistence.LocalKeyValueStorage;
+import org.apache.ambari.view.pig.persistence.LogKeyValueStorage;
 import org.apache.ambari.view.pig.persistence.Storage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,8 +48,8 @@ public class StorageUtil {
       String fileName = context.getProperties().get("dataworker.storagePath");
       if (fileName != null) {
         LOG.debug("Using local storage in " + fileName + " to store data");
-        // If specifed, use LocalKeyValueStorage - key-value file based storage
-        storageInstance = new LocalKeyValueStorage(context);
+        // If specifed, use LogKeyValueStorage - indexed log file based storage
+        storageInstance = new LogKeyValueStorage(context);
       } else {
         LOG.debug("Using Persistence API to store data");
         // If not specifed, use ambari-views Persistence API
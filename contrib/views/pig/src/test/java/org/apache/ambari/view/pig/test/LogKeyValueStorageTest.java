@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ambari.view.pig.test;
+
+import org.apache.ambari.view.ViewContext;
+import org.apache.ambari.view.pig.persistence.LogKeyValueStorage;
+import org.apache.ambari.view.pig.persistence.PersistentConfiguration;
+import org.apache.ambari.view.pig.persistence.utils.ItemNotFound;
+import org.apache.ambari.view.pig.persistence.utils.OnlyOwnersFilteringStrategy;
+import org.apache.ambari.view.pig.resources.udf.models.UDF;
+import org.apache.hadoop.fs.FileUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.easymock.EasyMock.*;
+
+public class LogKeyValueStorageTest {
+  private static final String DATA_DIRECTORY = "./target/LogKeyValueStorageTest";
+
+  private File storageFile;
+  private ViewContext context;
+
+  @Before
+  public void setUp() throws Exception {
+    File baseDir = new File(DATA_DIRECTORY).getAbsoluteFile();
+    FileUtil.fullyDelete(baseDir);
+    baseDir.mkdirs();
+    storageFile = new File(baseDir, "storage.dat");
+
+    Map<String, String> properties = new HashMap<String, String>();
+    properties.put("dataworker.storagePath", storageFile.toString());
+
+    context = createNiceMock(ViewContext.class);
+    expect(context.getProperties()).andReturn(properties).anyTimes();
+    expect(context.getUsername()).andReturn("ambari-qa").anyTimes();
+    replay(context);
+  }
+
+  @Test
+  public void testStoreAndReopen() throws Exception {
+    LogKeyValueStorage storage = new LogKeyValueStorage(context);
+    UDF first = createUDF("first", "ambari-qa");
+    storage.store(first);
+    UDF second = createUDF("second", "ambari-qa");
+    storage.store(second);
+    Assert.assertEquals("1", first.getId());
+    Assert.assertEquals("2", second.getId());
+
+    second.setName("renamed");
+    storage.store(second);
+    storage.delete(UDF.class, 1);
+
+    LogKeyValueStorage reopened = new LogKeyValueStorage(context);
+    Assert.assertFalse(reopened.exists(UDF.class, 1));
+    Assert.assertEquals("renamed", reopened.load(UDF.class, 2).getName());
+
+    // ids of deleted items are not reused
+    UDF third = createUDF("third", "ambari-qa");
+    reopened.store(third);
+    Assert.assertEquals("3", third.getId());
+  }
+
+  @Test(expected = ItemNotFound.class)
+  public void testLoadNotFound() throws Exception {
+    new LogKeyValueStorage(context).load(UDF.class, 1);
+  }
+
+  @Test
+  public void testLoadAllOwned() throws Exception {
+    LogKeyValueStorage storage = new LogKeyValueStorage(context);
+    storage.store(createUDF("first", "ambari-qa"));
+    storage.store(createUDF("second", "admin"));
+    UDF third = createUDF("third", "admin");
+    storage.store(third);
+
+    // changing the owner moves the item to the new owner
+    third.setOwner("ambari-qa");
+    storage.store(third);
+
+    List<UDF> udfs = storage.loadAll(UDF.class);
+    Assert.assertEquals(2, udfs.size());
+    Assert.assertEquals("first", udfs.get(0).getName());
+    Assert.assertEquals("third", udfs.get(1).getName());
+
+    udfs = storage.loadAll(UDF.class, new OnlyOwnersFilteringStrategy("admin"));
+    Assert.assertEquals(1, udfs.size());
+    Assert.assertEquals("second", udfs.get(0).getName());
+
+    Assert.assertEquals(3, storage.loadAll(UDF.class, null).size());
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    LogKeyValueStorage storage = new LogKeyValueStorage(context);
+    UDF udf = createUDF("udf", "ambari-qa");
+    for (int i = 0; i < 2000; i++) {
+      udf.setName("udf" + i);
+      storage.store(udf);
+    }
+
+    File logFile = new File(storageFile.getPath() + ".log");
+    Assert.assertTrue(countLines(logFile) < 1100);
+
+    LogKeyValueStorage reopened = new LogKeyValueStorage(context);
+    Assert.assertEquals("udf1999", reopened.load(UDF.class, 1).getName());
+  }
+
+  @Test
+  public void testCompactionReplaceFailed() throws Exception {
+    File logFile = new File(storageFile.getPath() + ".log");
+    FailingReplaceStorage storage = new FailingReplaceStorage(context, logFile, false);
+    UDF udf = createUDF("udf", "ambari-qa");
+    storage.store(udf);
+
+    storage.failing = true;
+    for (int i = 0; i < 1100; i++) {
+      udf.setName("udf" + i);
+      storage.store(udf);
+    }
+    Assert.assertTrue(storage.failures > 0);
+
+    // the log that could not be replaced is still appended to
+    UDF second = createUDF("second", "ambari-qa");
+    storage.store(second);
+    Assert.assertTrue(countLines(logFile) > 1100);
+
+    LogKeyValueStorage reopened = new LogKeyValueStorage(context);
+    Assert.assertEquals("udf1099", reopened.load(UDF.class, 1).getName());
+    Assert.assertEquals("second", reopened.load(UDF.class, 2).getName());
+  }
+
+  @Test
+  public void testCompactionLogLost() throws Exception {
+    File logFile = new File(storageFile.getPath() + ".log");
+    FailingReplaceStorage storage = new FailingReplaceStorage(context, logFile, true);
+    UDF udf = createUDF("udf", "ambari-qa");
+    storage.store(udf);
+
+    // the old log is deleted but the compacted log does not replace it
+    storage.failing = true;
+    for (int i = 0; i < 1100; i++) {
+      udf.setName("udf" + i);
+      storage.store(udf);
+    }
+    Assert.assertTrue(storage.failures > 0);
+
+    UDF second = createUDF("second", "ambari-qa");
+    storage.store(second);
+
+    LogKeyValueStorage reopened = new LogKeyValueStorage(context);
+    Assert.assertEquals("udf1099", reopened.load(UDF.class, 1).getName());
+    Assert.assertEquals("second", reopened.load(UDF.class, 2).getName());
+  }
+
+  @Test
+  public void testPartialLineDiscarded() throws Exception {
+    LogKeyValueStorage storage = new LogKeyValueStorage(context);
+    storage.store(createUDF("first", "ambari-qa"));
+
+    // a crash while appending leaves the last record without its line end
+    File logFile = new File(storageFile.getPath() + ".log");
+    FileWriter writer = new FileWriter(logFile, true);
+    try {
+      writer.write("PUT\t" + UDF.class.getName() + "\t2\tambari-qa\t{\"id\":\"2\",\"na");
+    } finally {
+      writer.close();
+    }
+
+    LogKeyValueStorage reopened = new LogKeyValueStorage(context);
+    Assert.assertFalse(reopened.exists(UDF.class, 2));
+    UDF second = createUDF("second", "ambari-qa");
+    reopened.store(second);
+    Assert.assertEquals("2", second.getId());
+
+    // the record written after the crash survives the next replay
+    LogKeyValueStorage replayed = new LogKeyValueStorage(context);
+    Assert.assertEquals("first", replayed.load(UDF.class, 1).getName());
+    Assert.assertEquals("second", replayed.load(UDF.class, 2).getName());
+    Assert.assertEquals(2, countLines(logFile));
+  }
+
+  @Test
+  public void testImportProperties() throws Exception {
+    PersistentConfiguration config = new PersistentConfiguration(storageFile.getPath());
+    config.setProperty(UDF.class.getName() + ":index", 5);
+    config.setProperty(UDF.class.getName() + ".4", "{\"id\":\"4\",\"name\":\"legacy\",\"owner\":\"ambari-qa\"}");
+
+    LogKeyValueStorage storage = new LogKeyValueStorage(context);
+    List<UDF> udfs = storage.loadAll(UDF.class);
+    Assert.assertEquals(1, udfs.size());
+    Assert.assertEquals("legacy", udfs.get(0).getName());
+
+    UDF udf = createUDF("new", "ambari-qa");
+    storage.store(udf);
+    Assert.assertEquals("6", udf.getId());
+  }
+
+  /**
+   * Storage whose log replacement fails on demand, optionally after deleting the old log
+   */
+  private static class FailingReplaceStorage extends LogKeyValueStorage {
+    private final File logFile;
+    private final boolean deleteLog;
+    private boolean failing = false;
+    private int failures = 0;
+
+    private FailingReplaceStorage(ViewContext context, File logFile, boolean deleteLog) {
+      super(context);
+      this.logFile = logFile;
+      this.deleteLog = deleteLog;
+    }
+
+    @Override
+    protected void replaceLog(File tmpFile) throws IOException {
+      if (!failing) {
+        super.replaceLog(tmpFile);
+        return;
+      }
+      failures++;
+      if (deleteLog) {
+        logFile.delete();
+      }
+      throw new IOException("Unable to replace " + logFile + " with " + tmpFile);
+    }
+  }
+
+  private static UDF createUDF(String name, String owner) {
+    UDF udf = new UDF();
+    udf.setName(name);
+    udf.setPath("/tmp/" + name + ".jar");
+    udf.setOwner(owner);
+    return udf;
+  }
+
+  private static int countLines(File file) throws Exception {
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      int lines = 0;
+      while (reader.readLine() != null) {
+        lines++;
+      }
+      return lines;
+    } finally {
+      reader.close();
+    }
+  }
+}